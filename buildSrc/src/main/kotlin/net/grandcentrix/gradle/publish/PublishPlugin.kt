@@ -10,17 +10,25 @@ class PublishPlugin : Plugin<Project> {
     override fun apply(project: Project) {
         with(project.pluginManager) {
             withPlugin("com.android.library") {
-                apply("guru.stefma.bintrayrelease")
-                (project.extensions.getByName("publish") as PublishExtension).apply {
-                    userOrg = "grandcentrix"
-                    uploadName = "ThirtyInch"
-                    website = "https://github.com/grandcentrix/ThirtyInch"
-                    desc = "a Model View Presenter library for Android"
-                }
+                applyBintrayRelease(project)
                 (project.extensions.getByName("androidArtifact") as ArtifactsExtension).apply {
                     artifactId = project.name
                 }
             }
+            withPlugin("java-library") {
+                // the artifactId of java artifacts is the project name by default
+                applyBintrayRelease(project)
+            }
+        }
+    }
+
+    private fun applyBintrayRelease(project: Project) {
+        project.pluginManager.apply("guru.stefma.bintrayrelease")
+        (project.extensions.getByName("publish") as PublishExtension).apply {
+            userOrg = "grandcentrix"
+            uploadName = "ThirtyInch"
+            website = "https://github.com/grandcentrix/ThirtyInch"
+            desc = "a Model View Presenter library for Android"
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import java.util.List;
+
+/**
+ * Writes the wrapper used by the {@code CallOnMainThreadInterceptor}. Calls of methods annotated
+ * with {@code @CallOnMainThread} from other threads are posted to the main thread.
+ */
+final class CallOnMainThreadWrapperWriter extends WrapperWriter {
+
+    static final String SUFFIX = "_CallOnMainThreadWrapper";
+
+    CallOnMainThreadWrapperWriter(final String packageName, final String viewInterface,
+            final String wrapperName, final List<ViewMethod> methods) {
+        super(packageName, viewInterface, wrapperName, methods);
+    }
+
+    @Override
+    String[] getExtraInterfaces() {
+        return new String[0];
+    }
+
+    @Override
+    String getDescription() {
+        return "MainThreadWrapper";
+    }
+
+    @Override
+    void writeFields(final StringBuilder sb) {
+        sb.append(INDENT).append("private final android.os.Handler mHandler =\n");
+        sb.append(INDENT).append(INDENT).append(INDENT)
+                .append("new android.os.Handler(android.os.Looper.getMainLooper());\n\n");
+    }
+
+    @Override
+    void writeMethodBody(final StringBuilder sb, final int index, final ViewMethod method) {
+        if (!method.isCallOnMainThread()) {
+            super.writeMethodBody(sb, index, method);
+            return;
+        }
+        final String indent = INDENT + INDENT;
+
+        // simply call the method when already on the main thread
+        sb.append(indent).append("if (android.os.Looper.getMainLooper()")
+                .append(" == android.os.Looper.myLooper()) {\n");
+        sb.append(indent).append(INDENT).append(call(method)).append(";\n");
+        sb.append(indent).append(INDENT).append("return;\n");
+        sb.append(indent).append("}\n");
+
+        sb.append(indent).append("mHandler.post(new java.lang.Runnable() {\n");
+        sb.append(indent).append(INDENT).append("@Override\n");
+        sb.append(indent).append(INDENT).append("public void run() {\n");
+        final String runIndent = indent + INDENT + INDENT;
+        if (method.getThrownTypes().isEmpty()) {
+            sb.append(runIndent).append(call(method)).append(";\n");
+        } else {
+            // checked exceptions can't be thrown from the main thread, wrap them
+            sb.append(runIndent).append("try {\n");
+            sb.append(runIndent).append(INDENT).append(call(method)).append(";\n");
+            sb.append(runIndent).append("} catch (java.lang.RuntimeException e) {\n");
+            sb.append(runIndent).append(INDENT).append("throw e;\n");
+            sb.append(runIndent).append("} catch (java.lang.Error e) {\n");
+            sb.append(runIndent).append(INDENT).append("throw e;\n");
+            sb.append(runIndent).append("} catch (java.lang.Throwable e) {\n");
+            sb.append(runIndent).append(INDENT)
+                    .append("throw new java.lang.RuntimeException(e);\n");
+            sb.append(runIndent).append("}\n");
+        }
+        sb.append(indent).append(INDENT).append("}\n");
+        sb.append(indent).append("});\n");
+    }
+}
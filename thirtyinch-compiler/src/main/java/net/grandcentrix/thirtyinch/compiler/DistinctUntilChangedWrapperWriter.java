@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import java.util.List;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Writes the wrapper used by the {@code DistinctUntilChangedInterceptor}. Calls of methods
+ * annotated with {@code @DistinctUntilChanged} are dropped when the arguments didn't change.
+ * <p>
+ * The {@code HashComparator} and {@code EqualsComparator} are inlined, the arguments are hashed
+ * or stored in fields of their own type without boxing. All other comparators are called with the
+ * arguments like by the proxy.
+ * </p>
+ */
+final class DistinctUntilChangedWrapperWriter extends WrapperWriter {
+
+    static final String CACHE = "net.grandcentrix.thirtyinch.distinctuntilchanged"
+            + ".DistinctUntilChangedCache";
+
+    static final String COMPARATOR = "net.grandcentrix.thirtyinch.distinctuntilchanged"
+            + ".DistinctComparator";
+
+    static final String EQUALS_COMPARATOR = "net.grandcentrix.thirtyinch.distinctuntilchanged"
+            + ".EqualsComparator";
+
+    static final String HASH_COMPARATOR = "net.grandcentrix.thirtyinch.distinctuntilchanged"
+            + ".HashComparator";
+
+    static final String SUFFIX = "_DistinctUntilChangedWrapper";
+
+    private final List<ViewMethod> mMethods;
+
+    DistinctUntilChangedWrapperWriter(final String packageName, final String viewInterface,
+            final String wrapperName, final List<ViewMethod> methods) {
+        super(packageName, viewInterface, wrapperName, methods);
+        mMethods = methods;
+    }
+
+    @Override
+    String[] getExtraInterfaces() {
+        return new String[]{CACHE};
+    }
+
+    @Override
+    String getDescription() {
+        return "DistinctUntilChangedWrapper";
+    }
+
+    @Override
+    void writeFields(final StringBuilder sb) {
+        sb.append(INDENT).append("private static final java.lang.String TAG =")
+                .append(" \"DistinctUntilChangedWrapper\";\n\n");
+
+        for (int i = 0; i < mMethods.size(); i++) {
+            final ViewMethod method = mMethods.get(i);
+            if (!method.isDistinct()) {
+                continue;
+            }
+            sb.append(INDENT).append("// ").append(method).append('\n');
+            final String comparator = method.getDistinctComparator();
+            if (HASH_COMPARATOR.equals(comparator)) {
+                sb.append(INDENT).append("private boolean ").append(called(i)).append(";\n");
+                sb.append(INDENT).append("private int ").append(lastHash(i)).append(";\n\n");
+            } else if (EQUALS_COMPARATOR.equals(comparator)) {
+                sb.append(INDENT).append("private boolean ").append(called(i)).append(";\n");
+                final List<TypeMirror> parameterTypes = method.getParameterTypes();
+                for (int arg = 0; arg < parameterTypes.size(); arg++) {
+                    sb.append(INDENT).append("private ")
+                            .append(typeName(parameterTypes.get(arg))).append(' ')
+                            .append(last(i, arg)).append(";\n");
+                }
+                sb.append('\n');
+            } else {
+                sb.append(INDENT).append("private ").append(COMPARATOR).append(' ')
+                        .append(comparator(i)).append(";\n\n");
+            }
+        }
+    }
+
+    @Override
+    void writeMembers(final StringBuilder sb) {
+        sb.append('\n');
+        sb.append(INDENT).append("@Override\n");
+        sb.append(INDENT).append("public void clearCache() {\n");
+        final String indent = INDENT + INDENT;
+        for (int i = 0; i < mMethods.size(); i++) {
+            final ViewMethod method = mMethods.get(i);
+            if (!method.isDistinct()) {
+                continue;
+            }
+            final String comparator = method.getDistinctComparator();
+            if (HASH_COMPARATOR.equals(comparator)) {
+                sb.append(indent).append(called(i)).append(" = false;\n");
+            } else if (EQUALS_COMPARATOR.equals(comparator)) {
+                sb.append(indent).append(called(i)).append(" = false;\n");
+                final List<TypeMirror> parameterTypes = method.getParameterTypes();
+                for (int arg = 0; arg < parameterTypes.size(); arg++) {
+                    if (!parameterTypes.get(arg).getKind().isPrimitive()) {
+                        // release the references to the latest arguments
+                        sb.append(indent).append(last(i, arg)).append(" = null;\n");
+                    }
+                }
+            } else {
+                sb.append(indent).append(comparator(i)).append(" = null;\n");
+            }
+        }
+        sb.append(INDENT).append("}\n");
+    }
+
+    @Override
+    void writeMethodBody(final StringBuilder sb, final int index, final ViewMethod method) {
+        if (!method.isDistinct()) {
+            super.writeMethodBody(sb, index, method);
+            return;
+        }
+        final String comparator = method.getDistinctComparator();
+        if (HASH_COMPARATOR.equals(comparator)) {
+            writeHashComparison(sb, index, method);
+        } else if (EQUALS_COMPARATOR.equals(comparator)) {
+            writeEqualsComparison(sb, index, method);
+        } else {
+            writeComparatorCall(sb, index, method);
+        }
+        sb.append(INDENT).append(INDENT).append(call(method)).append(";\n");
+    }
+
+    /**
+     * @return the arguments of the method as {@code Object[]}
+     */
+    private static String args(final ViewMethod method) {
+        final StringBuilder sb = new StringBuilder("new java.lang.Object[]{");
+        for (int i = 0; i < method.getParameterTypes().size(); i++) {
+            sb.append(i > 0 ? ", " : "").append(argName(i));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String called(final int index) {
+        return "mCalled" + index;
+    }
+
+    private static String comparator(final int index) {
+        return "mComparator" + index;
+    }
+
+    /**
+     * @return the expression comparing the argument with the latest argument like
+     * {@code Arrays.equals(Object[], Object[])} compares the boxed values
+     */
+    private static String equalsExpression(final TypeMirror type, final String arg,
+            final String last) {
+        switch (type.getKind()) {
+            case FLOAT:
+                return "java.lang.Float.floatToIntBits(" + arg + ")"
+                        + " == java.lang.Float.floatToIntBits(" + last + ")";
+            case DOUBLE:
+                return "java.lang.Double.doubleToLongBits(" + arg + ")"
+                        + " == java.lang.Double.doubleToLongBits(" + last + ")";
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return arg + " == " + last;
+                }
+                return "(" + arg + " == null ? " + last + " == null : "
+                        + arg + ".equals(" + last + "))";
+        }
+    }
+
+    /**
+     * @return the expression of the hashcode of the argument like {@code Arrays.hashCode(Object[])}
+     * hashes the boxed value
+     */
+    private static String hashExpression(final TypeMirror type, final String arg) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "(" + arg + " ? 1231 : 1237)";
+            case LONG:
+                return "(int) (" + arg + " ^ (" + arg + " >>> 32))";
+            case FLOAT:
+                return "java.lang.Float.floatToIntBits(" + arg + ")";
+            case DOUBLE:
+                return "(int) (java.lang.Double.doubleToLongBits(" + arg + ")"
+                        + " ^ (java.lang.Double.doubleToLongBits(" + arg + ") >>> 32))";
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+                return arg;
+            default:
+                return "(" + arg + " == null ? 0 : " + arg + ".hashCode())";
+        }
+    }
+
+    private static String last(final int index, final int arg) {
+        return "mLast" + index + "_" + arg;
+    }
+
+    private static String lastHash(final int index) {
+        return "mLastHash" + index;
+    }
+
+    private static void writeComparatorCall(final StringBuilder sb, final int index,
+            final ViewMethod method) {
+        final String indent = INDENT + INDENT;
+        sb.append(indent).append("final java.lang.Object[] args = ").append(args(method))
+                .append(";\n");
+        sb.append(indent).append("if (").append(comparator(index)).append(" == null) {\n");
+        sb.append(indent).append(INDENT).append("final ").append(COMPARATOR)
+                .append(" comparator = new ").append(method.getDistinctComparator())
+                .append("();\n");
+        sb.append(indent).append(INDENT).append("if (comparator.compareWith(args)) {\n");
+        sb.append(indent).append(INDENT).append(INDENT)
+                .append("throw new java.lang.IllegalStateException(")
+                .append("\"comparator returns 'true' at initialization.\");\n");
+        sb.append(indent).append(INDENT).append("}\n");
+        sb.append(indent).append(INDENT).append(comparator(index)).append(" = comparator;\n");
+        sb.append(indent).append("} else if (").append(comparator(index))
+                .append(".compareWith(args)) {\n");
+        writeDrop(sb, method);
+        sb.append(indent).append("}\n");
+    }
+
+    /**
+     * writes the statements for a dropped call, ending the method
+     */
+    private static void writeDrop(final StringBuilder sb, final ViewMethod method) {
+        final String indent = INDENT + INDENT + INDENT;
+        if (method.isLogDropped()) {
+            sb.append(indent).append("net.grandcentrix.thirtyinch.TiLog.d(TAG, \"not calling ")
+                    .append(method).append(" with args \"\n");
+            sb.append(indent).append(INDENT).append(INDENT)
+                    .append("+ java.util.Arrays.toString(").append(args(method)).append(")\n");
+            sb.append(indent).append(INDENT).append(INDENT)
+                    .append("+ \". Was already called with the same parameters before.\");\n");
+        }
+        sb.append(indent).append("return;\n");
+    }
+
+    private static void writeEqualsComparison(final StringBuilder sb, final int index,
+            final ViewMethod method) {
+        final String indent = INDENT + INDENT;
+        final List<TypeMirror> parameterTypes = method.getParameterTypes();
+        sb.append(indent).append("if (").append(called(index));
+        for (int arg = 0; arg < parameterTypes.size(); arg++) {
+            sb.append('\n').append(indent).append(INDENT).append(INDENT).append("&& ")
+                    .append(equalsExpression(parameterTypes.get(arg), argName(arg),
+                            last(index, arg)));
+        }
+        sb.append(") {\n");
+        writeDrop(sb, method);
+        sb.append(indent).append("}\n");
+        sb.append(indent).append(called(index)).append(" = true;\n");
+        for (int arg = 0; arg < parameterTypes.size(); arg++) {
+            sb.append(indent).append(last(index, arg)).append(" = ").append(argName(arg))
+                    .append(";\n");
+        }
+    }
+
+    private static void writeHashComparison(final StringBuilder sb, final int index,
+            final ViewMethod method) {
+        final String indent = INDENT + INDENT;
+        final List<TypeMirror> parameterTypes = method.getParameterTypes();
+        sb.append(indent).append("int hash = 1;\n");
+        for (int arg = 0; arg < parameterTypes.size(); arg++) {
+            sb.append(indent).append("hash = 31 * hash + ")
+                    .append(hashExpression(parameterTypes.get(arg), argName(arg)))
+                    .append(";\n");
+        }
+        sb.append(indent).append("if (").append(called(index)).append(" && hash == ")
+                .append(lastHash(index)).append(") {\n");
+        writeDrop(sb, method);
+        sb.append(indent).append("}\n");
+        sb.append(indent).append(called(index)).append(" = true;\n");
+        sb.append(indent).append(lastHash(index)).append(" = hash;\n");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import java.util.List;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A method of a view interface as seen by a generated wrapper, with the types resolved for the
+ * view interface
+ */
+final class ViewMethod {
+
+    private final boolean mCallOnMainThread;
+
+    /**
+     * the qualified name of the comparator, {@code null} when the method isn't distinct
+     */
+    private final String mDistinctComparator;
+
+    private final boolean mLogDropped;
+
+    private final String mName;
+
+    private final List<TypeMirror> mParameterTypes;
+
+    private final TypeMirror mReturnType;
+
+    private final List<TypeMirror> mThrownTypes;
+
+    private final boolean mVarArgs;
+
+    ViewMethod(final String name, final TypeMirror returnType,
+            final List<TypeMirror> parameterTypes, final boolean varArgs,
+            final List<TypeMirror> thrownTypes, final boolean callOnMainThread,
+            final String distinctComparator, final boolean logDropped) {
+        mName = name;
+        mReturnType = returnType;
+        mParameterTypes = parameterTypes;
+        mVarArgs = varArgs;
+        mThrownTypes = thrownTypes;
+        mCallOnMainThread = callOnMainThread;
+        mDistinctComparator = distinctComparator;
+        mLogDropped = logDropped;
+    }
+
+    /**
+     * @return the qualified name of the comparator of a distinct method, {@code null} when calls
+     * are passed through
+     */
+    String getDistinctComparator() {
+        return mDistinctComparator;
+    }
+
+    String getName() {
+        return mName;
+    }
+
+    List<TypeMirror> getParameterTypes() {
+        return mParameterTypes;
+    }
+
+    TypeMirror getReturnType() {
+        return mReturnType;
+    }
+
+    List<TypeMirror> getThrownTypes() {
+        return mThrownTypes;
+    }
+
+    boolean isCallOnMainThread() {
+        return mCallOnMainThread;
+    }
+
+    boolean isDistinct() {
+        return mDistinctComparator != null;
+    }
+
+    boolean isLogDropped() {
+        return mLogDropped;
+    }
+
+    boolean isVarArgs() {
+        return mVarArgs;
+    }
+
+    boolean isVoid() {
+        return mReturnType.getKind() == TypeKind.VOID;
+    }
+
+    /**
+     * @return the name and parameter types, i.e. {@code showText(java.lang.String)}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(mName).append('(');
+        for (int i = 0; i < mParameterTypes.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(WrapperWriter.typeName(mParameterTypes.get(i)));
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates wrapper classes for the view interfaces extending {@code TiView} which use
+ * {@code @CallOnMainThread} or {@code @DistinctUntilChanged}, including the annotated methods
+ * inherited from other interfaces. The {@code CallOnMainThreadInterceptor} and the
+ * {@code DistinctUntilChangedInterceptor} prefer the generated wrappers over a
+ * {@link java.lang.reflect.Proxy}, calls to the view don't use reflection and don't box the
+ * arguments.
+ * <p>
+ * No wrapper is generated for private and generic interfaces, interfaces with generic methods
+ * distinct methods with a comparator which can't be created by the wrapper and interfaces
+ * declaring {@code clearCache()} like the {@code DistinctUntilChangedCache} implemented by the
+ * distinct wrapper. The interceptors use a proxy for those interfaces.
+ * </p>
+ */
+public class ViewWrapperProcessor extends AbstractProcessor {
+
+    static final String CALL_ON_MAIN_THREAD =
+            "net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread";
+
+    static final String DISTINCT_UNTIL_CHANGED =
+            "net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged";
+
+    static final String TI_VIEW = "net.grandcentrix.thirtyinch.TiView";
+
+    /**
+     * interfaces referencing types which don't exist yet, i.e. generated in this round
+     */
+    private final Set<String> mDeferredInterfaces = new LinkedHashSet<>();
+
+    private Elements mElements;
+
+    private Types mTypes;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // the annotations may be inherited from view interfaces of libraries
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnv) {
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+
+        final TypeElement tiView = mElements.getTypeElement(TI_VIEW);
+        if (tiView == null) {
+            // thirtyinch isn't on the classpath
+            return false;
+        }
+
+        final List<TypeElement> viewInterfaces = new ArrayList<>();
+        for (final String name : mDeferredInterfaces) {
+            final TypeElement viewInterface = mElements.getTypeElement(name);
+            if (viewInterface != null) {
+                viewInterfaces.add(viewInterface);
+            }
+        }
+        mDeferredInterfaces.clear();
+        collectViewInterfaces(roundEnv.getRootElements(), tiView, viewInterfaces);
+
+        for (final TypeElement viewInterface : viewInterfaces) {
+            processViewInterface(viewInterface, tiView);
+        }
+        return false;
+    }
+
+    private void collectViewInterfaces(final Iterable<? extends Element> elements,
+            final TypeElement tiView, final List<TypeElement> viewInterfaces) {
+        for (final TypeElement type : ElementFilter.typesIn(elements)) {
+            if (type.getKind() == ElementKind.INTERFACE && !type.equals(tiView)
+                    && mTypes.isSubtype(mTypes.erasure(type.asType()),
+                    mTypes.erasure(tiView.asType()))) {
+                viewInterfaces.add(type);
+            }
+            collectViewInterfaces(type.getEnclosedElements(), tiView, viewInterfaces);
+        }
+    }
+
+    /**
+     * @return the annotation of the type {@code annotationName}, {@code null} when the element
+     * isn't annotated with it
+     */
+    private static AnnotationMirror getAnnotation(final Element element,
+            final String annotationName) {
+        for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            final TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private Object getAnnotationValue(final AnnotationMirror annotation, final String name) {
+        final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                mElements.getElementValuesWithDefaults(annotation);
+        for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} when the view has a method with the signature of
+     * {@code DistinctUntilChangedCache#clearCache()}, the wrapper can't implement both
+     */
+    private static boolean declaresClearCache(final List<ViewMethod> methods) {
+        for (final ViewMethod method : methods) {
+            if ("clearCache".equals(method.getName()) && method.getParameterTypes().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} when the generated wrapper in the same package can call
+     * {@code new Comparator()}, and so can the proxy
+     */
+    private static boolean isInstantiable(final TypeElement comparator) {
+        if (comparator.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element e = comparator; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (!e.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            if (e.getEnclosingElement() instanceof TypeElement
+                    && !e.getModifiers().contains(Modifier.STATIC)) {
+                // inner class
+                return false;
+            }
+        }
+        for (final ExecutableElement constructor
+                : ElementFilter.constructorsIn(comparator.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()
+                    && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} for the methods implemented by {@link Object}
+     */
+    private static boolean isObjectMethod(final ExecutableElement method) {
+        final String name = method.getSimpleName().toString();
+        final int parameterCount = method.getParameters().size();
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName()
+                .contentEquals(Object.class.getName())
+                || ("equals".equals(name) && parameterCount == 1
+                && method.getParameters().get(0).asType().toString()
+                .equals(Object.class.getName()))
+                || ("hashCode".equals(name) && parameterCount == 0)
+                || ("toString".equals(name) && parameterCount == 0);
+    }
+
+    private static boolean isPrivate(final TypeElement viewInterface) {
+        for (Element e = viewInterface; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return all methods of the {@code viewInterface} which have to be implemented, {@code null}
+     * when no wrapper can be generated
+     */
+    private List<ViewMethod> getViewMethods(final TypeElement viewInterface,
+            final TypeElement tiView) {
+        final DeclaredType viewType = (DeclaredType) viewInterface.asType();
+        final TypeMirror tiViewType = mTypes.erasure(tiView.asType());
+        final TypeElement distinctAnnotation = mElements.getTypeElement(DISTINCT_UNTIL_CHANGED);
+
+        final List<ViewMethod> methods = new ArrayList<>();
+        final Set<String> signatures = new HashSet<>();
+        for (final ExecutableElement method
+                : ElementFilter.methodsIn(mElements.getAllMembers(viewInterface))) {
+            final Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)
+                    || isObjectMethod(method)) {
+                continue;
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                // generic methods are not supported
+                return null;
+            }
+
+            final ExecutableType methodType =
+                    (ExecutableType) mTypes.asMemberOf(viewType, method);
+            final List<TypeMirror> types = new ArrayList<>();
+            types.add(methodType.getReturnType());
+            types.addAll(methodType.getParameterTypes());
+            types.addAll(methodType.getThrownTypes());
+            for (final TypeMirror type : types) {
+                if (type.getKind() == TypeKind.ERROR) {
+                    // the type may be generated in this round
+                    mDeferredInterfaces.add(viewInterface.getQualifiedName().toString());
+                    return null;
+                }
+                if (WrapperWriter.typeName(type) == null) {
+                    return null;
+                }
+            }
+
+            final StringBuilder signature = new StringBuilder(method.getSimpleName());
+            for (final TypeMirror parameterType : methodType.getParameterTypes()) {
+                signature.append(' ').append(WrapperWriter.typeName(mTypes.erasure(parameterType)));
+            }
+            if (!signatures.add(signature.toString())) {
+                // inherited from multiple interfaces
+                continue;
+            }
+
+            // only void methods of the view interface extending TiView are supported
+            final boolean supported = methodType.getReturnType().getKind() == TypeKind.VOID
+                    && mTypes.isSubtype(
+                    mTypes.erasure(method.getEnclosingElement().asType()), tiViewType);
+
+            final boolean callOnMainThread =
+                    supported && getAnnotation(method, CALL_ON_MAIN_THREAD) != null;
+
+            String comparator = null;
+            boolean logDropped = false;
+            final AnnotationMirror distinct = supported && distinctAnnotation != null
+                    && !method.getParameters().isEmpty()
+                    ? getAnnotation(method, DISTINCT_UNTIL_CHANGED) : null;
+            if (distinct != null) {
+                final TypeElement comparatorType = (TypeElement) ((DeclaredType)
+                        getAnnotationValue(distinct, "comparator")).asElement();
+                if (!isInstantiable(comparatorType)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                            "using a proxy for @DistinctUntilChanged, the comparator "
+                                    + comparatorType + " needs a public constructor", method);
+                    return null;
+                }
+                comparator = comparatorType.getQualifiedName().toString();
+                logDropped = (Boolean) getAnnotationValue(distinct, "logDropped");
+            }
+
+            methods.add(new ViewMethod(method.getSimpleName().toString(),
+                    methodType.getReturnType(),
+                    new ArrayList<TypeMirror>(methodType.getParameterTypes()),
+                    method.isVarArgs(), new ArrayList<TypeMirror>(methodType.getThrownTypes()),
+                    callOnMainThread, comparator, logDropped));
+        }
+        return methods;
+    }
+
+    private void processViewInterface(final TypeElement viewInterface, final TypeElement tiView) {
+        if (isPrivate(viewInterface) || !viewInterface.getTypeParameters().isEmpty()) {
+            return;
+        }
+        final List<ViewMethod> methods = getViewMethods(viewInterface, tiView);
+        if (methods == null) {
+            return;
+        }
+
+        boolean callOnMainThread = false;
+        boolean distinct = false;
+        for (final ViewMethod method : methods) {
+            callOnMainThread |= method.isCallOnMainThread();
+            distinct |= method.isDistinct();
+        }
+
+        final String packageName =
+                mElements.getPackageOf(viewInterface).getQualifiedName().toString();
+        final String binaryName = mElements.getBinaryName(viewInterface).toString();
+        final String baseName = binaryName.substring(
+                packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_');
+        final String viewInterfaceName = viewInterface.getQualifiedName().toString();
+
+        if (callOnMainThread) {
+            final String wrapperName = baseName + CallOnMainThreadWrapperWriter.SUFFIX;
+            write(viewInterface, packageName, wrapperName, new CallOnMainThreadWrapperWriter(
+                    packageName, viewInterfaceName, wrapperName, methods));
+        }
+        if (distinct && declaresClearCache(methods)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "using a proxy for @DistinctUntilChanged, clearCache() of the view collides"
+                            + " with the DistinctUntilChangedCache of the wrapper", viewInterface);
+            distinct = false;
+        }
+        if (distinct) {
+            final String wrapperName = baseName + DistinctUntilChangedWrapperWriter.SUFFIX;
+            write(viewInterface, packageName, wrapperName, new DistinctUntilChangedWrapperWriter(
+                    packageName, viewInterfaceName, wrapperName, methods));
+        }
+    }
+
+    private void write(final TypeElement viewInterface, final String packageName,
+            final String wrapperName, final WrapperWriter writer) {
+        final String qualifiedName =
+                packageName.isEmpty() ? wrapperName : packageName + "." + wrapperName;
+        try {
+            final JavaFileObject file =
+                    processingEnv.getFiler().createSourceFile(qualifiedName, viewInterface);
+            final Writer out = file.openWriter();
+            try {
+                out.write(writer.write());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "can't write " + qualifiedName + ": " + e.getMessage(), viewInterface);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import java.util.List;
+import java.util.Locale;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+/**
+ * Writes the source of a wrapper class implementing a view interface. Methods are delegated to
+ * the wrapped view unless a subclass intercepts them. The types are written with their qualified
+ * names, the generated source has no imports.
+ */
+abstract class WrapperWriter {
+
+    static final String INDENT = "    ";
+
+    private final List<ViewMethod> mMethods;
+
+    private final String mPackageName;
+
+    private final String mViewInterface;
+
+    private final String mWrapperName;
+
+    /**
+     * @param packageName   package of the view interface, empty for the default package
+     * @param viewInterface the canonical name of the view interface
+     * @param wrapperName   the simple name of the generated wrapper
+     * @param methods       all methods of the view interface which have to be implemented
+     */
+    WrapperWriter(final String packageName, final String viewInterface,
+            final String wrapperName, final List<ViewMethod> methods) {
+        mPackageName = packageName;
+        mViewInterface = viewInterface;
+        mWrapperName = wrapperName;
+        mMethods = methods;
+    }
+
+    /**
+     * @return the source of a type without annotations, {@code null} for types which can't be
+     * written, like type variables or erroneous types
+     */
+    static String typeName(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+            case VOID:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+            case ARRAY:
+                final String componentType = typeName(((ArrayType) type).getComponentType());
+                return componentType == null ? null : componentType + "[]";
+            case DECLARED:
+                final DeclaredType declaredType = (DeclaredType) type;
+                final StringBuilder sb = new StringBuilder(
+                        ((TypeElement) declaredType.asElement()).getQualifiedName());
+                final List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+                if (!typeArguments.isEmpty()) {
+                    sb.append('<');
+                    for (int i = 0; i < typeArguments.size(); i++) {
+                        final String typeArgument = typeName(typeArguments.get(i));
+                        if (typeArgument == null) {
+                            return null;
+                        }
+                        sb.append(i > 0 ? ", " : "").append(typeArgument);
+                    }
+                    sb.append('>');
+                }
+                return sb.toString();
+            case WILDCARD:
+                final WildcardType wildcardType = (WildcardType) type;
+                if (wildcardType.getExtendsBound() != null) {
+                    final String bound = typeName(wildcardType.getExtendsBound());
+                    return bound == null ? null : "? extends " + bound;
+                }
+                if (wildcardType.getSuperBound() != null) {
+                    final String bound = typeName(wildcardType.getSuperBound());
+                    return bound == null ? null : "? super " + bound;
+                }
+                return "?";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the source of the wrapper class
+     */
+    String write() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by the thirtyinch-compiler, do not modify\n");
+        if (!mPackageName.isEmpty()) {
+            sb.append("package ").append(mPackageName).append(";\n");
+        }
+        sb.append('\n');
+        sb.append("public final class ").append(mWrapperName)
+                .append(" implements ").append(mViewInterface);
+        for (final String extraInterface : getExtraInterfaces()) {
+            sb.append(", ").append(extraInterface);
+        }
+        sb.append(" {\n\n");
+
+        writeFields(sb);
+        sb.append(INDENT).append("private final ").append(mViewInterface).append(" mView;\n\n");
+
+        sb.append(INDENT).append("public ").append(mWrapperName)
+                .append("(final ").append(mViewInterface).append(" view) {\n");
+        sb.append(INDENT).append(INDENT).append("mView = view;\n");
+        sb.append(INDENT).append("}\n");
+
+        for (int i = 0; i < mMethods.size(); i++) {
+            final ViewMethod method = mMethods.get(i);
+            sb.append('\n');
+            sb.append(INDENT).append("@Override\n");
+            sb.append(INDENT).append(signature(method)).append(" {\n");
+            writeMethodBody(sb, i, method);
+            sb.append(INDENT).append("}\n");
+        }
+
+        writeMembers(sb);
+
+        sb.append('\n');
+        sb.append(INDENT).append("@Override\n");
+        sb.append(INDENT).append("public java.lang.String toString() {\n");
+        sb.append(INDENT).append(INDENT).append("return \"").append(getDescription())
+                .append("@\" + java.lang.Integer.toHexString(hashCode()) + \"-\" + mView;\n");
+        sb.append(INDENT).append("}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return a call of the view method with the arguments of the wrapper method, without
+     * semicolon
+     */
+    static String call(final ViewMethod method) {
+        final StringBuilder sb = new StringBuilder("mView.").append(method.getName()).append('(');
+        for (int i = 0; i < method.getParameterTypes().size(); i++) {
+            sb.append(i > 0 ? ", " : "").append(argName(i));
+        }
+        return sb.append(')').toString();
+    }
+
+    static String argName(final int index) {
+        return "arg" + index;
+    }
+
+    /**
+     * writes the statement delegating the call to the view, returning its result
+     */
+    static void writeDelegation(final StringBuilder sb, final String indent,
+            final ViewMethod method) {
+        sb.append(indent);
+        if (!method.isVoid()) {
+            sb.append("return ");
+        }
+        sb.append(call(method)).append(";\n");
+    }
+
+    /**
+     * @return the interfaces implemented in addition to the view interface
+     */
+    abstract String[] getExtraInterfaces();
+
+    /**
+     * @return the name shown by {@link Object#toString()} of the wrapper
+     */
+    abstract String getDescription();
+
+    /**
+     * writes the fields, besides the wrapped view
+     */
+    abstract void writeFields(final StringBuilder sb);
+
+    /**
+     * writes the body of a view method, delegates to the view by default
+     *
+     * @param index the index of the method in the view interface, unique for the wrapper
+     */
+    void writeMethodBody(final StringBuilder sb, final int index, final ViewMethod method) {
+        writeDelegation(sb, INDENT + INDENT, method);
+    }
+
+    /**
+     * writes additional methods
+     */
+    void writeMembers(final StringBuilder sb) {
+    }
+
+    private static String signature(final ViewMethod method) {
+        final StringBuilder sb = new StringBuilder("public ")
+                .append(typeName(method.getReturnType())).append(' ')
+                .append(method.getName()).append('(');
+        final List<TypeMirror> parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            String type = typeName(parameterTypes.get(i));
+            if (method.isVarArgs() && i == parameterTypes.size() - 1) {
+                type = type.substring(0, type.length() - 2) + "...";
+            }
+            sb.append(i > 0 ? ", " : "").append("final ").append(type).append(' ')
+                    .append(argName(i));
+        }
+        sb.append(')');
+        final List<TypeMirror> thrownTypes = method.getThrownTypes();
+        for (int i = 0; i < thrownTypes.size(); i++) {
+            sb.append(i > 0 ? ", " : " throws ").append(typeName(thrownTypes.get(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.compiler;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class ViewWrapperProcessorTest {
+
+    /**
+     * drops the calls of the view like the {@code DistinctUntilChangedInvocationHandler}
+     */
+    private static class DistinctProxy implements InvocationHandler {
+
+        private final Map<Method, Object> mComparators = new HashMap<>();
+
+        private final Object mView;
+
+        DistinctProxy(final Object view) {
+            mView = view;
+        }
+
+        void clearCache() {
+            mComparators.clear();
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable {
+            Annotation distinct = null;
+            for (final Annotation annotation : method.getAnnotations()) {
+                if (annotation.annotationType().getName()
+                        .equals(ViewWrapperProcessor.DISTINCT_UNTIL_CHANGED)) {
+                    distinct = annotation;
+                }
+            }
+            if (distinct == null || args == null) {
+                return method.invoke(mView, args);
+            }
+
+            final Object comparator = mComparators.get(method);
+            if (comparator == null) {
+                final Class<?> comparatorType = (Class<?>) distinct.annotationType()
+                        .getMethod("comparator").invoke(distinct);
+                final Object newComparator = comparatorType.getConstructor().newInstance();
+                assertThat(compareWith(newComparator, args)).isFalse();
+                mComparators.put(method, newComparator);
+            } else if (compareWith(comparator, args)) {
+                return null;
+            }
+            return method.invoke(mView, args);
+        }
+
+        private static boolean compareWith(final Object comparator, final Object[] args)
+                throws Exception {
+            return (Boolean) comparator.getClass().getMethod("compareWith", Object[].class)
+                    .invoke(comparator, (Object) args);
+        }
+    }
+
+    /**
+     * records the calls of the view
+     */
+    private static class Recorder implements InvocationHandler {
+
+        private final List<String> mCalls = new ArrayList<>();
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            mCalls.add(method.getName() + Arrays.toString(args == null ? new Object[0] : args));
+            return null;
+        }
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String mCode;
+
+        Source(final String name, final String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            mCode = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return mCode;
+        }
+    }
+
+    /**
+     * the parts of thirtyinch and android the processor and the generated wrappers rely on. The
+     * comparators compare like the ones of thirtyinch, the {@code Handler} queues the posted
+     * runnables and {@code Looper.prepareMainLooper()} makes the calling thread the main thread
+     */
+    private static final List<Source> THIRTYINCH = Arrays.asList(
+            new Source("android.os.Handler",
+                    "package android.os;\n"
+                            + "public class Handler {\n"
+                            + "    public static final java.util.List<Runnable> POSTED =\n"
+                            + "            new java.util.ArrayList<>();\n"
+                            + "    public Handler(Looper looper) {}\n"
+                            + "    public boolean post(Runnable r) { return POSTED.add(r); }\n"
+                            + "}"),
+            new Source("android.os.Looper",
+                    "package android.os;\n"
+                            + "public final class Looper {\n"
+                            + "    private static final Looper MAIN = new Looper();\n"
+                            + "    private static final ThreadLocal<Looper> LOOPER =\n"
+                            + "            new ThreadLocal<>();\n"
+                            + "    public static Looper getMainLooper() { return MAIN; }\n"
+                            + "    public static Looper myLooper() { return LOOPER.get(); }\n"
+                            + "    public static void prepareMainLooper() { LOOPER.set(MAIN); }\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.TiLog",
+                    "package net.grandcentrix.thirtyinch;\n"
+                            + "public final class TiLog {\n"
+                            + "    public static void d(String tag, String msg) {}\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.TiView",
+                    "package net.grandcentrix.thirtyinch;\n"
+                            + "public interface TiView {}"),
+            new Source("net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread",
+                    "package net.grandcentrix.thirtyinch.callonmainthread;\n"
+                            + "@java.lang.annotation.Retention("
+                            + "java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                            + "public @interface CallOnMainThread {}"),
+            new Source("net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctComparator",
+                    "package net.grandcentrix.thirtyinch.distinctuntilchanged;\n"
+                            + "public interface DistinctComparator {\n"
+                            + "    boolean compareWith(Object[] newParameters);\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.distinctuntilchanged."
+                    + "DistinctUntilChangedCache",
+                    "package net.grandcentrix.thirtyinch.distinctuntilchanged;\n"
+                            + "public interface DistinctUntilChangedCache {\n"
+                            + "    void clearCache();\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged",
+                    "package net.grandcentrix.thirtyinch.distinctuntilchanged;\n"
+                            + "@java.lang.annotation.Retention("
+                            + "java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                            + "public @interface DistinctUntilChanged {\n"
+                            + "    Class<? extends DistinctComparator> comparator()"
+                            + " default HashComparator.class;\n"
+                            + "    boolean logDropped() default false;\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.distinctuntilchanged.EqualsComparator",
+                    "package net.grandcentrix.thirtyinch.distinctuntilchanged;\n"
+                            + "public class EqualsComparator implements DistinctComparator {\n"
+                            + "    private Object[] mLast;\n"
+                            + "    public boolean compareWith(Object[] p) {\n"
+                            + "        if (!java.util.Arrays.equals(p, mLast)) {\n"
+                            + "            mLast = p;\n"
+                            + "            return false;\n"
+                            + "        }\n"
+                            + "        return true;\n"
+                            + "    }\n"
+                            + "}"),
+            new Source("net.grandcentrix.thirtyinch.distinctuntilchanged.HashComparator",
+                    "package net.grandcentrix.thirtyinch.distinctuntilchanged;\n"
+                            + "public class HashComparator implements DistinctComparator {\n"
+                            + "    private int mLastHash = 0;\n"
+                            + "    public boolean compareWith(Object[] p) {\n"
+                            + "        final int hash = java.util.Arrays.hashCode(p);\n"
+                            + "        if (hash == mLastHash) {\n"
+                            + "            return true;\n"
+                            + "        }\n"
+                            + "        mLastHash = hash;\n"
+                            + "        return false;\n"
+                            + "    }\n"
+                            + "}"));
+
+    private static final String IMPORTS = "package test;\n"
+            + "import net.grandcentrix.thirtyinch.TiView;\n"
+            + "import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;\n"
+            + "import net.grandcentrix.thirtyinch.distinctuntilchanged.*;\n";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mClasses;
+
+    private File mGenerated;
+
+    @Before
+    public void setUp() throws Exception {
+        mGenerated = mTemporaryFolder.newFolder("generated");
+        mClasses = mTemporaryFolder.newFolder("classes");
+    }
+
+    @Test
+    public void annotationsOfSuperInterfaceGenerateWrappersOfSubInterface() throws Exception {
+        process(new Source("test.BaseView", IMPORTS
+                        + "public interface BaseView extends TiView {\n"
+                        + "    @CallOnMainThread @DistinctUntilChanged void show(String text);\n"
+                        + "}"),
+                new Source("test.MainView", IMPORTS
+                        + "public interface MainView extends BaseView {\n"
+                        + "    int count();\n"
+                        + "}"));
+
+        final String wrapper = read("test/MainView_DistinctUntilChangedWrapper.java");
+        assertThat(wrapper).contains("implements test.MainView");
+        assertThat(wrapper).contains("public void show(final java.lang.String arg0)");
+        assertThat(wrapper).contains("return mView.count();");
+        assertThat(new File(mGenerated, "test/MainView_CallOnMainThreadWrapper.java")).exists();
+        assertThat(new File(mGenerated, "test/BaseView_CallOnMainThreadWrapper.java")).exists();
+    }
+
+    @Test
+    public void callOnMainThreadPostsAnnotatedVoidMethods() throws Exception {
+        process(new Source("test.Outer", IMPORTS
+                + "public class Outer {\n"
+                + "    public interface MainView extends TiView {\n"
+                + "        @CallOnMainThread void show(String text);\n"
+                + "        @CallOnMainThread String notVoid();\n"
+                + "    }\n"
+                + "}"));
+
+        final String wrapper = read("test/Outer_MainView_CallOnMainThreadWrapper.java");
+        assertThat(wrapper).contains("public final class Outer_MainView_CallOnMainThreadWrapper"
+                + " implements test.Outer.MainView {");
+        assertThat(wrapper).contains("mHandler.post(new java.lang.Runnable() {");
+        // only void methods can be posted
+        assertThat(wrapper).containsOnlyOnce("mHandler.post(");
+        assertThat(wrapper).contains("return mView.notVoid();");
+        assertThat(new File(mGenerated, "test/Outer_MainView_DistinctUntilChangedWrapper.java"))
+                .doesNotExist();
+    }
+
+    @Test
+    public void callOnMainThreadWrapperPostsLikeTheProxy() throws Exception {
+        final ClassLoader classLoader = compile(new Source("test.MainView", IMPORTS
+                + "public interface MainView extends TiView {\n"
+                + "    @CallOnMainThread void show(String text);\n"
+                + "    @CallOnMainThread void load() throws java.io.IOException;\n"
+                + "    void notAnnotated(String text);\n"
+                + "}"));
+        final Recorder view = new Recorder();
+        final Object wrapper = newWrapper(classLoader, "test.MainView",
+                CallOnMainThreadWrapperWriter.SUFFIX, view);
+        @SuppressWarnings("unchecked") final List<Runnable> posted = (List<Runnable>)
+                classLoader.loadClass("android.os.Handler").getField("POSTED").get(null);
+
+        // not on the main thread, annotated methods are posted
+        call(wrapper, "show", "a");
+        call(wrapper, "load");
+        call(wrapper, "notAnnotated", "b");
+        assertThat(view.mCalls).containsExactly("notAnnotated[b]");
+        assertThat(posted).hasSize(2);
+        for (final Runnable runnable : posted) {
+            runnable.run();
+        }
+        assertThat(view.mCalls).containsExactly("notAnnotated[b]", "show[a]", "load[]");
+
+        // on the main thread, all methods are called directly
+        posted.clear();
+        view.mCalls.clear();
+        classLoader.loadClass("android.os.Looper").getMethod("prepareMainLooper").invoke(null);
+        call(wrapper, "show", "c");
+        assertThat(view.mCalls).containsExactly("show[c]");
+        assertThat(posted).isEmpty();
+    }
+
+    @Test
+    public void distinctComparatorsAreInlinedForPrimitives() throws Exception {
+        process(new Source("test.MainView", IMPORTS
+                + "public interface MainView extends TiView {\n"
+                + "    @DistinctUntilChanged void hashed(long value, String text);\n"
+                + "    @DistinctUntilChanged(comparator = EqualsComparator.class,"
+                + " logDropped = true)\n"
+                + "    void equal(float value, String text);\n"
+                + "    @DistinctUntilChanged void noArgs();\n"
+                + "}"));
+
+        final String wrapper = read("test/MainView_DistinctUntilChangedWrapper.java");
+        assertThat(wrapper).contains("net.grandcentrix.thirtyinch.distinctuntilchanged"
+                + ".DistinctUntilChangedCache");
+        assertThat(wrapper).contains("hash = 31 * hash + (int) (arg0 ^ (arg0 >>> 32));");
+        assertThat(wrapper).contains("private float mLast1_0;");
+        assertThat(wrapper).contains("java.lang.Float.floatToIntBits(arg0)"
+                + " == java.lang.Float.floatToIntBits(mLast1_0)");
+        assertThat(wrapper).containsOnlyOnce("TiLog.d(");
+        // methods without arguments are always called
+        assertThat(wrapper).contains("public void noArgs() {\n        mView.noArgs();\n    }");
+    }
+
+    @Test
+    public void distinctWrapperDropsCallsLikeTheProxy() throws Exception {
+        final ClassLoader classLoader = compile(new Source("test.MainView", IMPORTS
+                + "public interface MainView extends TiView {\n"
+                + "    class FirstArgComparator implements DistinctComparator {\n"
+                + "        private Object mLast;\n"
+                + "        public boolean compareWith(Object[] p) {\n"
+                + "            final boolean same = p[0].equals(mLast);\n"
+                + "            mLast = p[0];\n"
+                + "            return same;\n"
+                + "        }\n"
+                + "    }\n"
+                + "    @DistinctUntilChanged void hashed(long value, String text);\n"
+                + "    @DistinctUntilChanged(comparator = EqualsComparator.class)\n"
+                + "    void equal(float value, String text);\n"
+                + "    @DistinctUntilChanged(comparator = FirstArgComparator.class)\n"
+                + "    void custom(int value, String ignored);\n"
+                + "    void notDistinct(String text);\n"
+                + "}"));
+        final Object[][] calls = {
+                {"hashed", 1L, "a"}, {"hashed", 1L, "a"}, {"hashed", 2L, "a"},
+                {"hashed", 2L, null},
+                {"equal", Float.NaN, "b"}, {"equal", Float.NaN, "b"}, {"equal", 0f, null},
+                {"equal", -0f, null},
+                {"custom", 1, "a"}, {"custom", 1, "b"}, {"custom", 2, "b"},
+                {"notDistinct", "c"}, {"notDistinct", "c"},
+                {"clearCache"},
+                {"hashed", 2L, null}, {"equal", -0f, null}, {"custom", 2, "c"}};
+
+        final Recorder wrapped = new Recorder();
+        final Object wrapper = newWrapper(classLoader, "test.MainView",
+                DistinctUntilChangedWrapperWriter.SUFFIX, wrapped);
+        for (final Object[] args : calls) {
+            if ("clearCache".equals(args[0])) {
+                wrapper.getClass().getMethod("clearCache").invoke(wrapper);
+            } else {
+                call(wrapper, args);
+            }
+        }
+
+        final Recorder proxied = new Recorder();
+        final Class<?> viewInterface = classLoader.loadClass("test.MainView");
+        final DistinctProxy handler = new DistinctProxy(newView(viewInterface, proxied));
+        final Object proxy = newView(viewInterface, handler);
+        for (final Object[] args : calls) {
+            if ("clearCache".equals(args[0])) {
+                handler.clearCache();
+            } else {
+                call(proxy, args);
+            }
+        }
+
+        assertThat(wrapped.mCalls).isEqualTo(proxied.mCalls);
+        assertThat(wrapped.mCalls).containsExactly(
+                "hashed[1, a]", "hashed[2, a]", "hashed[2, null]",
+                "equal[NaN, b]", "equal[0.0, null]", "equal[-0.0, null]",
+                "custom[1, a]", "custom[2, b]",
+                "notDistinct[c]", "notDistinct[c]",
+                "hashed[2, null]", "equal[-0.0, null]", "custom[2, c]");
+    }
+
+    @Test
+    public void generatedWrappersCompile() throws Exception {
+        compile(new Source("test.Outer", IMPORTS
+                + "public class Outer {\n"
+                + "    public static class CustomComparator extends EqualsComparator {}\n"
+                + "    public interface BaseView extends TiView {\n"
+                + "        @CallOnMainThread @DistinctUntilChanged void show(String text);\n"
+                + "    }\n"
+                + "    public interface MainView extends BaseView {\n"
+                + "        @CallOnMainThread void load(int... ids) throws java.io.IOException;\n"
+                + "        @DistinctUntilChanged(comparator = EqualsComparator.class,"
+                + " logDropped = true)\n"
+                + "        void showAll(java.util.List<? extends CharSequence> items,"
+                + " char[] chars, boolean b, byte by, short s, double d);\n"
+                + "        @DistinctUntilChanged(logDropped = true)\n"
+                + "        void hashAll(boolean b, byte by, short s, char c, float f, double d,"
+                + " Object o);\n"
+                + "        @DistinctUntilChanged(comparator = CustomComparator.class)\n"
+                + "        void custom(Object o);\n"
+                + "        String name();\n"
+                + "    }\n"
+                + "}"));
+
+        assertThat(new File(mClasses, "test/Outer_BaseView_CallOnMainThreadWrapper.class"))
+                .exists();
+        assertThat(new File(mClasses, "test/Outer_BaseView_DistinctUntilChangedWrapper.class"))
+                .exists();
+        assertThat(new File(mClasses, "test/Outer_MainView_CallOnMainThreadWrapper.class"))
+                .exists();
+        assertThat(new File(mClasses, "test/Outer_MainView_DistinctUntilChangedWrapper.class"))
+                .exists();
+    }
+
+    @Test
+    public void noDistinctWrapperWhenViewDeclaresClearCache() throws Exception {
+        compile(new Source("test.MainView", IMPORTS
+                + "public interface MainView extends TiView {\n"
+                + "    @CallOnMainThread @DistinctUntilChanged void show(String text);\n"
+                + "    void clearCache();\n"
+                + "}"));
+
+        assertThat(new File(mGenerated, "test/MainView_DistinctUntilChangedWrapper.java"))
+                .doesNotExist();
+        assertThat(new File(mClasses, "test/MainView_CallOnMainThreadWrapper.class")).exists();
+    }
+
+    @Test
+    public void noWrapperWhenComparatorCantBeCreated() throws Exception {
+        process(new Source("test.MainView", IMPORTS
+                + "public interface MainView extends TiView {\n"
+                + "    class HiddenComparator implements DistinctComparator {\n"
+                + "        private HiddenComparator() {}\n"
+                + "        public boolean compareWith(Object[] p) { return false; }\n"
+                + "    }\n"
+                + "    @DistinctUntilChanged(comparator = HiddenComparator.class)\n"
+                + "    void show(String text);\n"
+                + "}"));
+
+        assertThat(mGenerated.list()).isEmpty();
+    }
+
+    @Test
+    public void noWrapperForUnsupportedInterfaces() throws Exception {
+        process(new Source("test.Outer", IMPORTS
+                + "public class Outer {\n"
+                + "    private interface PrivateView extends TiView {\n"
+                + "        @CallOnMainThread void show(String text);\n"
+                + "    }\n"
+                + "    public interface GenericView<T> extends TiView {\n"
+                + "        @CallOnMainThread void show(T item);\n"
+                + "    }\n"
+                + "    public interface GenericMethodView extends TiView {\n"
+                + "        @CallOnMainThread <T> void show(T item);\n"
+                + "    }\n"
+                + "    public interface NotAnnotatedView extends TiView {\n"
+                + "        void show(String text);\n"
+                + "    }\n"
+                + "}"));
+
+        assertThat(mGenerated.list()).isEmpty();
+    }
+
+    /**
+     * calls the method named {@code call[0]} of the view with the other elements as arguments
+     */
+    private static void call(final Object view, final Object... call) throws Exception {
+        for (final Method method : view.getClass().getInterfaces()[0].getMethods()) {
+            if (method.getName().equals(call[0])) {
+                method.invoke(view, Arrays.copyOfRange(call, 1, call.length));
+                return;
+            }
+        }
+        throw new IllegalArgumentException("no method " + call[0]);
+    }
+
+    private static Object newView(final Class<?> viewInterface, final InvocationHandler handler) {
+        return Proxy.newProxyInstance(viewInterface.getClassLoader(),
+                new Class<?>[]{viewInterface}, handler);
+    }
+
+    private static Object newWrapper(final ClassLoader classLoader, final String viewInterfaceName,
+            final String suffix, final InvocationHandler view) throws Exception {
+        final Class<?> viewInterface = classLoader.loadClass(viewInterfaceName);
+        return classLoader.loadClass(viewInterfaceName + suffix).getConstructor(viewInterface)
+                .newInstance(newView(viewInterface, view));
+    }
+
+    /**
+     * compiles the sources and the generated wrappers
+     *
+     * @return the class loader of the compiled classes, the stubs aren't hidden by other classes
+     * of the classpath like the android.jar
+     */
+    private ClassLoader compile(final Source... sources) throws IOException {
+        run(Arrays.asList("-s", mGenerated.getAbsolutePath(), "-d", mClasses.getAbsolutePath()),
+                sources);
+        return new URLClassLoader(new URL[]{mClasses.toURI().toURL()}, null);
+    }
+
+    private void process(final Source... sources) throws IOException {
+        run(Arrays.asList("-proc:only", "-s", mGenerated.getAbsolutePath()), sources);
+    }
+
+    private String read(final String path) throws IOException {
+        return new String(Files.readAllBytes(new File(mGenerated, path).toPath()), "UTF-8");
+    }
+
+    private void run(final List<String> options, final Source... sources) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(diagnostics, null, Charset.forName("UTF-8"));
+        final List<Source> compilationUnits = new ArrayList<>(THIRTYINCH);
+        compilationUnits.addAll(Arrays.asList(sources));
+
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                options, null, compilationUnits);
+        task.setProcessors(Collections.singletonList(new ViewWrapperProcessor()));
+        final Boolean success = task.call();
+        fileManager.close();
+
+        assertThat(success).as(diagnostics.getDiagnostics().toString()).isTrue();
+    }
+}
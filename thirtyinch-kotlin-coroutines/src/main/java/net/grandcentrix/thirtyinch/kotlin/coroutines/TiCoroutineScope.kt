@@ -4,6 +4,9 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.cancel
 import kotlinx.coroutines.launch
+import net.grandcentrix.thirtyinch.TiLifecycleObserver.DESTROYED_BEFORE
+import net.grandcentrix.thirtyinch.TiLifecycleObserver.VIEW_ATTACHED_BEFORE
+import net.grandcentrix.thirtyinch.TiLifecycleObserver.VIEW_DETACHED_BEFORE
 import net.grandcentrix.thirtyinch.TiPresenter
 import net.grandcentrix.thirtyinch.TiPresenter.State.DESTROYED
 import net.grandcentrix.thirtyinch.TiPresenter.State.VIEW_ATTACHED
@@ -43,9 +46,8 @@ class TiCoroutineScope(
     private var presenterState: TiPresenter.State? = null
 
     init {
-        presenter.addLifecycleObserver { state, hasLifecycleMethodBeenCalled ->
-            if (hasLifecycleMethodBeenCalled) return@addLifecycleObserver
-
+        presenter.addLifecycleObserver(
+                VIEW_ATTACHED_BEFORE or VIEW_DETACHED_BEFORE or DESTROYED_BEFORE) { state, _ ->
             when {
                 state == DESTROYED -> onPresenterDestroyedJob.cancel()
                 state == VIEW_DETACHED && presenterState != null -> {
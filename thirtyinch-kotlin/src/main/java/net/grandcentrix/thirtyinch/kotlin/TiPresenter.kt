@@ -3,6 +3,7 @@ package net.grandcentrix.thirtyinch.kotlin
 import android.annotation.SuppressLint
 import net.grandcentrix.thirtyinch.TiPresenter
 import net.grandcentrix.thirtyinch.TiView
+import net.grandcentrix.thirtyinch.ViewAction
 
 /**
  * Will call the given [block] in [TiPresenter.sendToView].
@@ -18,4 +19,40 @@ import net.grandcentrix.thirtyinch.TiView
  * ```
  */
 @SuppressLint("RestrictedApi")
-fun <V : TiView> TiPresenter<V>.deliverToView(block: V.() -> Unit) = sendToView { block(it) }
\ No newline at end of file
+fun <V : TiView> TiPresenter<V>.deliverToView(block: V.() -> Unit) = sendToView { block(it) }
+
+/**
+ * Will call the given [block] in [TiPresenter.sendToView] with a [key].
+ *
+ * While no view is attached the [block] replaces a postponed block with the same [key].
+ *
+ * Example:
+ * ```
+ * presenter.deliverToView("progress") { showProgress(percent) }
+ * ```
+ */
+@SuppressLint("RestrictedApi")
+fun <V : TiView> TiPresenter<V>.deliverToView(key: Any?, block: V.() -> Unit) =
+        sendToView(key) { block(it) }
+
+/**
+ * Will call the given [block] in [TiPresenter.sendToView] with a [priority].
+ *
+ * Example:
+ * ```
+ * presenter.deliverToView(ViewAction.Priority.IDLE) { updateBadge(count) }
+ * ```
+ */
+@SuppressLint("RestrictedApi")
+fun <V : TiView> TiPresenter<V>.deliverToView(priority: ViewAction.Priority, block: V.() -> Unit) =
+        sendToView(priority) { block(it) }
+
+/**
+ * Will call the given [block] in [TiPresenter.sendToView] with a [key] and a [priority].
+ */
+@SuppressLint("RestrictedApi")
+fun <V : TiView> TiPresenter<V>.deliverToView(
+        key: Any?,
+        priority: ViewAction.Priority,
+        block: V.() -> Unit
+) = sendToView(key, priority) { block(it) }
@@ -3,6 +3,7 @@ package net.grandcentrix.thirtyinch.kotlin
 import com.nhaarman.mockito_kotlin.*
 import net.grandcentrix.thirtyinch.TiPresenter
 import net.grandcentrix.thirtyinch.TiView
+import net.grandcentrix.thirtyinch.ViewAction
 import org.junit.*
 import org.junit.runner.*
 import org.junit.runners.*
@@ -37,4 +38,26 @@ class TiPresenterTest {
         tiTestPresenter.attachView(mockView)
         verify(mockView).aViewMethod()
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `test keyed deliverToView only delivers the latest block`() = with(TestPresenter()) {
+        val tiTestPresenter = test()
+        tiTestPresenter.create()
+        deliverToView("key") { aViewMethod() }
+        deliverToView("key") { aViewMethod() }
+
+        tiTestPresenter.attachView(mockView)
+        verify(mockView, times(1)).aViewMethod()
+    }
+
+    @Test
+    fun `test deliverToView with idle priority`() = with(TestPresenter()) {
+        val tiTestPresenter = test()
+        tiTestPresenter.attachView(mockView)
+
+        deliverToView(ViewAction.Priority.IDLE) { aViewMethod() }
+
+        // without idle executor the ui thread executor is used
+        verify(mockView).aViewMethod()
+    }
+}
@@ -20,21 +20,23 @@ import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClas
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.List;
-import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.internal.FusedViewInvocationHandler;
 import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
 
 /**
  * Logs all methods calls and parameters to the bound view interface.
  */
-public class LoggingInterceptor implements BindViewInterceptor {
+public class LoggingInterceptor implements FusableBindViewInterceptor {
 
-    private final static class MethodLoggingInvocationHandler<V> extends AbstractInvocationHandler {
+    private final static class MethodLoggingInvocationHandler<V> extends AbstractInvocationHandler
+            implements ViewCallStage {
 
         /**
          * limit each argument instead of the complete string. This should limit the overall
@@ -42,6 +44,8 @@ public class LoggingInterceptor implements BindViewInterceptor {
          */
         private static final int MAX_LENGTH_OF_PARAM = 240;
 
+        private final ViewCallStage.Chain mCallView;
+
         private TiLog.Logger mLogger;
 
         private final V mView;
@@ -49,6 +53,15 @@ public class LoggingInterceptor implements BindViewInterceptor {
         private MethodLoggingInvocationHandler(V view, @NonNull TiLog.Logger logger) {
             mView = view;
             mLogger = logger;
+            mCallView = FusedViewInvocationHandler.callView(view);
+        }
+
+        @Nullable
+        @Override
+        public Object handle(@NonNull final Method method, @NonNull final Object[] args,
+                @NonNull final Chain next) throws Throwable {
+            mLogger.log(Log.VERBOSE, TAG, toString(method, args));
+            return next.proceed(method, args);
         }
 
         @Override
@@ -62,12 +75,7 @@ public class LoggingInterceptor implements BindViewInterceptor {
                 final Object[] args)
                 throws Throwable {
 
-            try {
-                mLogger.log(Log.VERBOSE, TAG, toString(method, args));
-                return method.invoke(mView, args);
-            } catch (InvocationTargetException e) {
-                throw e.getCause();
-            }
+            return handle(method, args, mCallView);
         }
 
         private static String parseParams(Object[] methodParams, int maxLenOfParam) {
@@ -164,6 +172,15 @@ public class LoggingInterceptor implements BindViewInterceptor {
         }
     }
 
+    @Nullable
+    @Override
+    public ViewCallStage createStage(@NonNull final TiView view) {
+        if (mLogger == TiLog.NOOP) {
+            return null;
+        }
+        return new MethodLoggingInvocationHandler<>(view, mLogger);
+    }
+
     @Override
     public <V extends TiView> V intercept(final V view) {
         if (mLogger != TiLog.NOOP) {
@@ -120,8 +120,11 @@ public class RxTiPresenterUtils {
                     subscriber.onNext(presenter.getState() == TiPresenter.State.VIEW_ATTACHED);
                 }
 
+                // only the transitions from and to VIEW_ATTACHED change the emitted value
+                final int events = TiLifecycleObserver.VIEW_ATTACHED_AFTER
+                        | TiLifecycleObserver.VIEW_DETACHED_BEFORE;
                 final Removable removable = presenter
-                        .addLifecycleObserver(new TiLifecycleObserver() {
+                        .addLifecycleObserver(events, new TiLifecycleObserver() {
                             @Override
                             public void onChange(final TiPresenter.State state,
                                     final boolean hasLifecycleMethodBeenCalled) {
@@ -29,7 +29,9 @@ public class RxTiPresenterDisposableHandler {
     private CompositeDisposable mUiDisposables;
 
     public RxTiPresenterDisposableHandler(final TiPresenter presenter) {
-        presenter.addLifecycleObserver(new TiLifecycleObserver() {
+        presenter.addLifecycleObserver(TiLifecycleObserver.VIEW_ATTACHED_BEFORE
+                | TiLifecycleObserver.VIEW_DETACHED_BEFORE
+                | TiLifecycleObserver.DESTROYED_BEFORE, new TiLifecycleObserver() {
             @Override
             public void onChange(final TiPresenter.State state,
                     final boolean hasLifecycleMethodBeenCalled) {
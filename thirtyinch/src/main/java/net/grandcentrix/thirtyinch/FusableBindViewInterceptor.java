@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A {@link BindViewInterceptor} which can provide its behavior as {@link ViewCallStage} instead
+ * of a proxy of its own. When fusing is enabled consecutive fusable interceptors wrap the view
+ * in a single proxy running all their stages.
+ *
+ * @see TiConfiguration.Builder#setFusedBindViewInterceptorsEnabled(boolean)
+ */
+public interface FusableBindViewInterceptor extends BindViewInterceptor {
+
+    /**
+     * creates the stage intercepting the calls to the {@code view}, the fused replacement of
+     * {@link #intercept(TiView)}
+     *
+     * @param view the original view, it will be called by the last stage
+     * @return the stage or {@code null} when this interceptor has nothing to intercept for the
+     * {@code view}
+     */
+    @Nullable
+    ViewCallStage createStage(@NonNull final TiView view);
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.ViewPrewarmer;
+
+/**
+ * Process wide setup of ThirtyInch
+ */
+public final class ThirtyInch {
+
+    /**
+     * Reports the result of {@link #prewarm(TiConfiguration, PrewarmListener, Class[])}
+     */
+    public interface PrewarmListener {
+
+        /**
+         * called on the prewarm thread when all views are prewarmed
+         *
+         * @param viewInterfaces the prewarmed interfaces extending {@link TiView}, without the
+         *                       views which failed
+         * @param durationMillis how long prewarming took
+         */
+        void onPrewarmed(@NonNull List<Class<?>> viewInterfaces, long durationMillis);
+    }
+
+    private static final String TAG = ThirtyInch.class.getSimpleName();
+
+    /**
+     * Prewarms the views for the interceptors of the default configuration, see
+     * {@link #prewarm(TiConfiguration, PrewarmListener, Class[])}
+     */
+    @SafeVarargs
+    public static void prewarm(@NonNull final Class<? extends TiView>... views) {
+        prewarm(TiPresenter.getDefaultConfig(), null, views);
+    }
+
+    /**
+     * Does the reflective work of binding the {@code views} on a background thread, i.e. in
+     * {@link Application#onCreate()}. The first binding of a view otherwise creates the
+     * {@link java.lang.reflect.Proxy} classes of the
+     * {@link TiConfiguration#isCallOnMainThreadInterceptorEnabled() CallOnMainThread} and
+     * {@link TiConfiguration#isDistinctUntilChangedInterceptorEnabled() DistinctUntilChanged}
+     * interceptors, looks up their constructors and reads the annotations of the view interface
+     * on the main thread, during the first frame of the screen.
+     * <p>
+     * Pass the Activities or Fragments implementing the view interfaces rather than the
+     * interfaces: the interceptors look up the interface of the class of the bound view, which is
+     * only cached when that class is prewarmed.
+     *
+     * @param config   the configuration of the presenters the views get bound to
+     * @param listener notified when the views are prewarmed
+     * @param views    the view interfaces or the classes implementing them, i.e. Activities
+     */
+    @SafeVarargs
+    public static void prewarm(@NonNull final TiConfiguration config,
+            @Nullable final PrewarmListener listener,
+            @NonNull final Class<? extends TiView>... views) {
+        final Class<?>[] viewsCopy = views.clone();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                prewarmNow(new ViewPrewarmer(config), listener, viewsCopy);
+            }
+        }, "ThirtyInch-prewarm");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * prewarms the {@code views} on the calling thread
+     */
+    @VisibleForTesting
+    static List<Class<?>> prewarmNow(@NonNull final ViewPrewarmer prewarmer,
+            @Nullable final PrewarmListener listener, @NonNull final Class<?>... views) {
+        final long start = System.nanoTime();
+        final ArrayList<Class<?>> prewarmed = new ArrayList<>();
+        for (final Class<?> view : views) {
+            try {
+                final Class<?> viewInterface = prewarmer.prewarm(view);
+                if (viewInterface == null) {
+                    TiLog.w(TAG, "can't prewarm " + view + ", it doesn't implement a TiView");
+                } else if (!prewarmed.contains(viewInterface)) {
+                    prewarmed.add(viewInterface);
+                }
+            } catch (RuntimeException e) {
+                // binding the view will fail or fall back with the same problem later
+                TiLog.w(TAG, "can't prewarm " + view + ": " + e);
+            }
+        }
+        final long durationMillis =
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        TiLog.v(TAG, "prewarmed " + prewarmed + " in " + durationMillis + "ms");
+
+        final List<Class<?>> result = Collections.unmodifiableList(prewarmed);
+        if (listener != null) {
+            listener.onPrewarmed(result, durationMillis);
+        }
+        return result;
+    }
+
+    private ThirtyInch() {
+        throw new AssertionError("no instances");
+    }
+}
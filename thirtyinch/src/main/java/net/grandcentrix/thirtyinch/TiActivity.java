@@ -15,6 +15,7 @@
 
 package net.grandcentrix.thirtyinch;
 
+import android.content.Intent;
 import android.content.res.Configuration;
 import android.os.Bundle;
 import androidx.annotation.CallSuper;
@@ -23,15 +24,17 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiActivity;
+import net.grandcentrix.thirtyinch.internal.DelegatedTiActivityOptions;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
-import net.grandcentrix.thirtyinch.internal.PresenterSavior;
 import net.grandcentrix.thirtyinch.internal.TiActivityDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 import net.grandcentrix.thirtyinch.internal.TiViewProvider;
 import net.grandcentrix.thirtyinch.internal.UiThreadExecutor;
+import net.grandcentrix.thirtyinch.internal.ViewModelPresenterSavior;
 import net.grandcentrix.thirtyinch.util.AnnotationUtil;
 
 /**
@@ -86,14 +89,25 @@ import net.grandcentrix.thirtyinch.util.AnnotationUtil;
 public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
         extends AppCompatActivity
         implements TiPresenterProvider<P>, TiViewProvider<V>, DelegatedTiActivity,
-        TiLoggingTagProvider, InterceptableViewBinder<V>, PresenterAccessor<P, V> {
+        DelegatedTiActivityOptions, TiLoggingTagProvider, InterceptableViewBinder<V>,
+        PresenterAccessor<P, V> {
+
+    /**
+     * {@link Intent} extra with the token of a presenter prewarmed with
+     * {@link net.grandcentrix.thirtyinch.internal.PresenterSavior#prewarm}.
+     * The started Activity adopts the prewarmed presenter instead of calling
+     * {@link #providePresenter()}.
+     */
+    public static final String EXTRA_PREWARMED_PRESENTER =
+            "net.grandcentrix.thirtyinch.PREWARMED_PRESENTER";
 
     private final String TAG = this.getClass().getSimpleName()
             + ":" + TiActivity.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
     private final TiActivityDelegate<P, V> mDelegate
-            = new TiActivityDelegate<>(this, this, this, this, PresenterSavior.getInstance());
+            = new TiActivityDelegate<>(this, this, this, this,
+                    ViewModelPresenterSavior.getInstance());
 
     private final UiThreadExecutor mUiThreadExecutor = new UiThreadExecutor();
 
@@ -163,13 +177,51 @@ public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
     }
 
     /**
-     * is {@code null} before {@link #onCreate(Bundle)}
+     * is {@code null} before {@link #onCreate(Bundle)} and while the presenter gets created
+     * asynchronously, see {@link #getPresenterCreationExecutor()}
      */
     @Override
     public final P getPresenter() {
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to keep the presenter alive after this Activity finished, i.e. when the user
+     * navigates back. A new instance of this Activity returning the same key within the
+     * {@link TiConfiguration.Builder#setFinishedPresenterGracePeriod(long, TimeUnit) grace period}
+     * adopts the presenter instead of creating a new one.
+     *
+     * @return {@code null} by default, the presenter gets destroyed when the Activity finishes
+     */
+    @Nullable
+    @Override
+    public String getPresenterCacheKey() {
+        return null;
+    }
+
+    /**
+     * Override to create the presenter in the background. {@link #providePresenter()} and
+     * {@link TiPresenter#onCreate()} are then called on the returned {@link Executor} while the
+     * Activity inflates its layout. {@link #getPresenter()} returns {@code null} and the view gets
+     * bound after the creation completed. {@link ViewAction}s sent during the creation are
+     * postponed until the view is attached.
+     *
+     * @return {@code null} by default, the presenter gets created synchronously in
+     * {@link #onCreate(Bundle)}
+     */
+    @Nullable
+    @Override
+    public Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public final String getPrewarmedPresenterToken() {
+        final Intent intent = getIntent();
+        return intent != null ? intent.getStringExtra(EXTRA_PREWARMED_PRESENTER) : null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return mUiThreadExecutor;
@@ -18,8 +18,12 @@ package net.grandcentrix.thirtyinch;
 import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
 import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
 import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 
 /**
@@ -42,6 +46,127 @@ import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
  */
 public class TiConfiguration {
 
+    /**
+     * Decides what happens when a {@link ViewAction} gets postponed with
+     * {@link TiPresenter#sendToView(ViewAction)} but the queue of postponed actions already
+     * reached its capacity.
+     *
+     * @see Builder#setPostponedViewActionsCapacity(int)
+     */
+    public enum OverflowPolicy {
+        /**
+         * the oldest postponed action gets dropped to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * the new action gets dropped, the already postponed actions are kept
+         */
+        DROP_NEWEST,
+        /**
+         * an {@link IllegalStateException} is thrown. Actions batched with
+         * {@link Builder#setViewActionBatchingEnabled(boolean)} which get postponed because the
+         * view detaches before the batch got dispatched are reported to the
+         * {@link ViewActionEvictionListener} instead
+         */
+        FAIL
+    }
+
+    /**
+     * Where a retained {@link TiPresenter} is kept across configuration changes
+     *
+     * @see Builder#setPresenterRetention(PresenterRetention)
+     */
+    public enum PresenterRetention {
+        /**
+         * the process wide {@link net.grandcentrix.thirtyinch.internal.PresenterSavior} which
+         * tracks all Activities and restores the presenter by the id saved in the instance state
+         */
+        PRESENTER_SAVIOR,
+        /**
+         * the {@link androidx.lifecycle.ViewModelStore} of the host. Requires no global callbacks
+         * or saved instance state. Falls back to {@link #PRESENTER_SAVIOR} for hosts without a
+         * {@link androidx.lifecycle.ViewModelStore}.
+         * <p>
+         * Fragments use the store of their Activity, not their own one. The presenter of a
+         * removed Fragment is destroyed when the Fragment is destroyed, presenters which are
+         * still in the store when the Activity finishes are released with the store.
+         */
+        VIEW_MODEL_STORE
+    }
+
+    /**
+     * Receives the size of every batch of {@link ViewAction}s dispatched to the UI thread when
+     * {@link Builder#setViewActionBatchingEnabled(boolean)} is enabled. Allows tuning how much
+     * work gets executed within a single frame.
+     */
+    public interface ViewActionBatchListener {
+
+        /**
+         * called on the UI thread after a batch was executed
+         *
+         * @param presenter the presenter which sent the actions
+         * @param batchSize number of actions executed in this batch
+         */
+        void onBatchDispatched(@NonNull TiPresenter<?> presenter, int batchSize);
+    }
+
+    /**
+     * Gets notified when a postponed {@link ViewAction} gets evicted and will never be executed.
+     *
+     * @see Builder#setViewActionEvictionListener(ViewActionEvictionListener)
+     */
+    public interface ViewActionEvictionListener {
+
+        /**
+         * Why a postponed action got evicted
+         */
+        enum Reason {
+            /**
+             * the action was postponed longer than the time to live
+             *
+             * @see Builder#setPostponedViewActionsTimeToLive(long, TimeUnit)
+             */
+            EXPIRED,
+            /**
+             * the weight of all postponed actions exceeded the budget
+             *
+             * @see Builder#setPostponedViewActionsBudget(long, ViewActionWeigher)
+             */
+            OVER_BUDGET,
+            /**
+             * the number of postponed actions exceeded the capacity
+             *
+             * @see Builder#setPostponedViewActionsCapacity(int)
+             */
+            OVER_CAPACITY
+        }
+
+        /**
+         * called after the action was removed from the postponed actions, on the thread which
+         * caused the eviction
+         *
+         * @param presenter the presenter which postponed the action
+         * @param action    the evicted action
+         * @param reason    why the action was evicted
+         */
+        void onViewActionEvicted(@NonNull TiPresenter<?> presenter,
+                @NonNull ViewAction<?> action, @NonNull Reason reason);
+    }
+
+    /**
+     * Estimates the weight of a postponed {@link ViewAction}, i.e. the memory retained by the
+     * payload it captured.
+     *
+     * @see Builder#setPostponedViewActionsBudget(long, ViewActionWeigher)
+     */
+    public interface ViewActionWeigher {
+
+        /**
+         * @return the weight of the action, must not be negative
+         */
+        long weigh(@NonNull ViewAction<?> action);
+    }
+
     public static class Builder {
 
         private final TiConfiguration mConfig;
@@ -140,6 +265,152 @@ public class TiConfiguration {
             return this;
         }
 
+        /**
+         * Keeps the {@link TiPresenter} alive for a grace period after its {@link Activity}
+         * finished, instead of destroying it right away. When the user re-enters the same screen
+         * within the grace period the new {@link Activity} adopts the presenter with all its
+         * loaded data. Presenters are matched by the key returned from
+         * {@link TiActivity#getPresenterCacheKey()}, Activities without a key always destroy the
+         * presenter.
+         * <p>
+         * The kept presenter is destroyed when the grace period expires or the system is low on
+         * memory.
+         * <p>
+         * default {@code 0}, the presenter gets destroyed when its Activity finishes
+         *
+         * @param duration the grace period, must not be negative
+         */
+        public Builder setFinishedPresenterGracePeriod(final long duration,
+                @NonNull final TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException(
+                        "duration must not be negative but was " + duration);
+            }
+            mConfig.mFinishedPresenterGracePeriodMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * When enabled consecutive {@link FusableBindViewInterceptor}s, like the
+         * {@link CallOnMainThread} and {@link DistinctUntilChanged} interceptors, wrap the
+         * {@link TiView} in a single proxy running their {@link ViewCallStage}s instead of a
+         * proxy per interceptor. Each view call passes one proxy and calls the real view with a
+         * single reflective call.
+         * <p>
+         * All fused interceptors share the same intercepted view, see
+         * {@link InterceptableViewBinder#getInterceptedViewOf(BindViewInterceptor)}. Interceptors
+         * which aren't fusable wrap the view as before. The view wrappers generated by the
+         * {@code thirtyinch-compiler} don't need a proxy at all but aren't used for fused
+         * interceptors.
+         * <p>
+         * default <code>false</code>
+         */
+        public Builder setFusedBindViewInterceptorsEnabled(final boolean enabled) {
+            mConfig.mFusedBindViewInterceptorsEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * Limits the total weight of the {@link ViewAction}s which get postponed with
+         * {@link TiPresenter#sendToView(ViewAction)} while no view is attached. Every postponed
+         * action gets weighed by the {@code weigher}, the oldest actions get evicted until the
+         * weight of all postponed actions fits into the {@code budget}. An action heavier than
+         * the whole budget is evicted right away.
+         * <p>
+         * default {@link Long#MAX_VALUE} (unlimited)
+         *
+         * @param budget  max total weight of the postponed actions, must not be negative
+         * @param weigher calculates the weight of a single action, i.e. the estimated size of its
+         *                payload in bytes
+         * @see #setViewActionEvictionListener(ViewActionEvictionListener)
+         */
+        public Builder setPostponedViewActionsBudget(final long budget,
+                @NonNull final ViewActionWeigher weigher) {
+            if (budget < 0) {
+                throw new IllegalArgumentException(
+                        "budget must not be negative but was " + budget);
+            }
+            //noinspection ConstantConditions
+            if (weigher == null) {
+                throw new IllegalArgumentException("weigher must be non-null");
+            }
+            mConfig.mPostponedViewActionsBudget = budget;
+            mConfig.mPostponedViewActionsWeigher = weigher;
+            return this;
+        }
+
+        /**
+         * Limits the number of {@link ViewAction}s which get postponed with
+         * {@link TiPresenter#sendToView(ViewAction)} while no view is attached. What happens
+         * when the limit is reached is defined by
+         * {@link #setPostponedViewActionsOverflowPolicy(OverflowPolicy)}.
+         * <p>
+         * default {@link Integer#MAX_VALUE} (unbounded)
+         *
+         * @param capacity max number of postponed actions, must be positive
+         */
+        public Builder setPostponedViewActionsCapacity(final int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException(
+                        "capacity must be positive but was " + capacity);
+            }
+            mConfig.mPostponedViewActionsCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Defines what happens when a {@link ViewAction} gets postponed but the capacity set
+         * with {@link #setPostponedViewActionsCapacity(int)} is already reached.
+         * <p>
+         * default {@link OverflowPolicy#DROP_OLDEST}
+         */
+        public Builder setPostponedViewActionsOverflowPolicy(
+                @NonNull final OverflowPolicy policy) {
+            //noinspection ConstantConditions
+            if (policy == null) {
+                throw new IllegalArgumentException("policy must be non-null");
+            }
+            mConfig.mPostponedViewActionsOverflowPolicy = policy;
+            return this;
+        }
+
+        /**
+         * Limits how long a {@link ViewAction} stays postponed with
+         * {@link TiPresenter#sendToView(ViewAction)} while no view is attached. Expired actions
+         * are evicted and not executed when the next view attaches. This prevents presenters
+         * which are detached for hours from retaining outdated actions.
+         * <p>
+         * default {@link Long#MAX_VALUE} milliseconds (never expire)
+         *
+         * @param duration time to live of a postponed action, must be positive. Durations shorter
+         *                 than a millisecond are rounded up to one millisecond
+         * @see #setViewActionEvictionListener(ViewActionEvictionListener)
+         */
+        public Builder setPostponedViewActionsTimeToLive(final long duration,
+                @NonNull final TimeUnit unit) {
+            if (duration < 1) {
+                throw new IllegalArgumentException(
+                        "duration must be positive but was " + duration);
+            }
+            mConfig.mPostponedViewActionsTimeToLiveMillis = Math.max(1, unit.toMillis(duration));
+            return this;
+        }
+
+        /**
+         * Selects where the presenter is kept across configuration changes when
+         * {@link #setRetainPresenterEnabled(boolean)} is enabled.
+         * <p>
+         * default {@link PresenterRetention#PRESENTER_SAVIOR}
+         */
+        public Builder setPresenterRetention(@NonNull final PresenterRetention retention) {
+            //noinspection ConstantConditions
+            if (retention == null) {
+                throw new IllegalArgumentException("retention must be non-null");
+            }
+            mConfig.mPresenterRetention = retention;
+            return this;
+        }
+
         /**
          * When set to <code>true</code> the {@link TiPresenter} will be restored when the {@link
          * Activity} recreates due to a configuration changes such as the orientation change.
@@ -168,6 +439,55 @@ public class TiConfiguration {
             return this;
         }
 
+        /**
+         * Reports the size of the batches dispatched when
+         * {@link #setViewActionBatchingEnabled(boolean)} is enabled.
+         *
+         * @param listener {@code null} to disable reporting
+         */
+        public Builder setViewActionBatchListener(
+                @Nullable final ViewActionBatchListener listener) {
+            mConfig.mViewActionBatchListener = listener;
+            return this;
+        }
+
+        /**
+         * When enabled, {@link ViewAction}s sent with {@link TiPresenter#sendToView(ViewAction)}
+         * from a background thread while the view is attached are collected in a batch. The
+         * whole batch is executed in order at the beginning of the next frame (with a
+         * {@code Choreographer} frame callback) instead of posting every action on its own.
+         * This prevents bursts of updates from flooding the main thread, at most one batch is
+         * dispatched per frame.
+         * <p>
+         * When the view detaches before the batch is dispatched the actions are postponed in
+         * the order they were sent, before actions sent after the view detached.
+         * <p>
+         * Actions sent from the UI thread are still executed immediately.
+         * <p>
+         * default <code>false</code>
+         *
+         * @see #setViewActionBatchListener(ViewActionBatchListener)
+         */
+        public Builder setViewActionBatchingEnabled(final boolean enabled) {
+            mConfig.mViewActionBatchingEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * Reports postponed {@link ViewAction}s which got evicted because they expired or
+         * exceeded the capacity or the budget of postponed actions.
+         *
+         * @param listener {@code null} to disable reporting
+         * @see #setPostponedViewActionsBudget(long, ViewActionWeigher)
+         * @see #setPostponedViewActionsCapacity(int)
+         * @see #setPostponedViewActionsTimeToLive(long, TimeUnit)
+         */
+        public Builder setViewActionEvictionListener(
+                @Nullable final ViewActionEvictionListener listener) {
+            mConfig.mViewActionEvictionListener = listener;
+            return this;
+        }
+
     }
 
     public static final TiConfiguration DEFAULT = new Builder().build();
@@ -176,8 +496,30 @@ public class TiConfiguration {
 
     private boolean mDistinctUntilChangedInterceptorEnabled = true;
 
+    private long mFinishedPresenterGracePeriodMillis = 0;
+
+    private boolean mFusedBindViewInterceptorsEnabled = false;
+
+    private long mPostponedViewActionsBudget = Long.MAX_VALUE;
+
+    private int mPostponedViewActionsCapacity = Integer.MAX_VALUE;
+
+    private OverflowPolicy mPostponedViewActionsOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    private long mPostponedViewActionsTimeToLiveMillis = Long.MAX_VALUE;
+
+    private ViewActionWeigher mPostponedViewActionsWeigher;
+
+    private PresenterRetention mPresenterRetention = PresenterRetention.PRESENTER_SAVIOR;
+
     private boolean mRetainPresenter = true;
 
+    private ViewActionBatchListener mViewActionBatchListener;
+
+    private boolean mViewActionBatchingEnabled = false;
+
+    private ViewActionEvictionListener mViewActionEvictionListener;
+
     /**
      * use {@link Builder} to construct a configuration.
      */
@@ -202,6 +544,45 @@ public class TiConfiguration {
                 != that.mDistinctUntilChangedInterceptorEnabled) {
             return false;
         }
+        if (mFinishedPresenterGracePeriodMillis != that.mFinishedPresenterGracePeriodMillis) {
+            return false;
+        }
+        if (mFusedBindViewInterceptorsEnabled != that.mFusedBindViewInterceptorsEnabled) {
+            return false;
+        }
+        if (mPostponedViewActionsBudget != that.mPostponedViewActionsBudget) {
+            return false;
+        }
+        if (mPostponedViewActionsCapacity != that.mPostponedViewActionsCapacity) {
+            return false;
+        }
+        if (mPostponedViewActionsOverflowPolicy != that.mPostponedViewActionsOverflowPolicy) {
+            return false;
+        }
+        if (mPostponedViewActionsTimeToLiveMillis != that.mPostponedViewActionsTimeToLiveMillis) {
+            return false;
+        }
+        if (mPostponedViewActionsWeigher != null
+                ? !mPostponedViewActionsWeigher.equals(that.mPostponedViewActionsWeigher)
+                : that.mPostponedViewActionsWeigher != null) {
+            return false;
+        }
+        if (mPresenterRetention != that.mPresenterRetention) {
+            return false;
+        }
+        if (mViewActionBatchingEnabled != that.mViewActionBatchingEnabled) {
+            return false;
+        }
+        if (mViewActionBatchListener != null
+                ? !mViewActionBatchListener.equals(that.mViewActionBatchListener)
+                : that.mViewActionBatchListener != null) {
+            return false;
+        }
+        if (mViewActionEvictionListener != null
+                ? !mViewActionEvictionListener.equals(that.mViewActionEvictionListener)
+                : that.mViewActionEvictionListener != null) {
+            return false;
+        }
         return mRetainPresenter == that.mRetainPresenter;
 
     }
@@ -210,10 +591,68 @@ public class TiConfiguration {
     public int hashCode() {
         int result = (mCallOnMainThreadInterceptorEnabled ? 1 : 0);
         result = 31 * result + (mDistinctUntilChangedInterceptorEnabled ? 1 : 0);
+        result = 31 * result + (int) (mFinishedPresenterGracePeriodMillis
+                ^ (mFinishedPresenterGracePeriodMillis >>> 32));
+        result = 31 * result + (mFusedBindViewInterceptorsEnabled ? 1 : 0);
+        result = 31 * result + (int) (mPostponedViewActionsBudget
+                ^ (mPostponedViewActionsBudget >>> 32));
+        result = 31 * result + mPostponedViewActionsCapacity;
+        result = 31 * result + mPostponedViewActionsOverflowPolicy.hashCode();
+        result = 31 * result + (int) (mPostponedViewActionsTimeToLiveMillis
+                ^ (mPostponedViewActionsTimeToLiveMillis >>> 32));
+        result = 31 * result + (mPostponedViewActionsWeigher != null
+                ? mPostponedViewActionsWeigher.hashCode() : 0);
+        result = 31 * result + mPresenterRetention.hashCode();
         result = 31 * result + (mRetainPresenter ? 1 : 0);
+        result = 31 * result + (mViewActionBatchListener != null
+                ? mViewActionBatchListener.hashCode() : 0);
+        result = 31 * result + (mViewActionBatchingEnabled ? 1 : 0);
+        result = 31 * result + (mViewActionEvictionListener != null
+                ? mViewActionEvictionListener.hashCode() : 0);
         return result;
     }
 
+    public long getFinishedPresenterGracePeriodMillis() {
+        return mFinishedPresenterGracePeriodMillis;
+    }
+
+    public long getPostponedViewActionsBudget() {
+        return mPostponedViewActionsBudget;
+    }
+
+    public int getPostponedViewActionsCapacity() {
+        return mPostponedViewActionsCapacity;
+    }
+
+    @NonNull
+    public OverflowPolicy getPostponedViewActionsOverflowPolicy() {
+        return mPostponedViewActionsOverflowPolicy;
+    }
+
+    public long getPostponedViewActionsTimeToLiveMillis() {
+        return mPostponedViewActionsTimeToLiveMillis;
+    }
+
+    @Nullable
+    public ViewActionWeigher getPostponedViewActionsWeigher() {
+        return mPostponedViewActionsWeigher;
+    }
+
+    @NonNull
+    public PresenterRetention getPresenterRetention() {
+        return mPresenterRetention;
+    }
+
+    @Nullable
+    public ViewActionBatchListener getViewActionBatchListener() {
+        return mViewActionBatchListener;
+    }
+
+    @Nullable
+    public ViewActionEvictionListener getViewActionEvictionListener() {
+        return mViewActionEvictionListener;
+    }
+
     public boolean isCallOnMainThreadInterceptorEnabled() {
         return mCallOnMainThreadInterceptorEnabled;
     }
@@ -222,6 +661,14 @@ public class TiConfiguration {
         return mDistinctUntilChangedInterceptorEnabled;
     }
 
+    public boolean isFusedBindViewInterceptorsEnabled() {
+        return mFusedBindViewInterceptorsEnabled;
+    }
+
+    public boolean isViewActionBatchingEnabled() {
+        return mViewActionBatchingEnabled;
+    }
+
     public boolean shouldRetainPresenter() {
         return mRetainPresenter;
     }
@@ -23,31 +23,35 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatDialogFragment;
+import androidx.fragment.app.FragmentActivity;
 import java.util.List;
 import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiFragment;
+import net.grandcentrix.thirtyinch.internal.DelegatedTiFragmentOptions;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
-import net.grandcentrix.thirtyinch.internal.PresenterSavior;
 import net.grandcentrix.thirtyinch.internal.TiFragmentDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 import net.grandcentrix.thirtyinch.internal.TiViewProvider;
 import net.grandcentrix.thirtyinch.internal.UiThreadExecutor;
+import net.grandcentrix.thirtyinch.internal.ViewModelPresenterSavior;
 import net.grandcentrix.thirtyinch.util.AnnotationUtil;
 import net.grandcentrix.thirtyinch.util.BackstackReader;
 
 public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiView>
         extends AppCompatDialogFragment
-        implements DelegatedTiFragment, TiPresenterProvider<P>, TiLoggingTagProvider,
-        TiViewProvider<V>, InterceptableViewBinder<V>, PresenterAccessor<P, V> {
+        implements DelegatedTiFragment, DelegatedTiFragmentOptions, TiPresenterProvider<P>,
+        TiLoggingTagProvider, TiViewProvider<V>, InterceptableViewBinder<V>,
+        PresenterAccessor<P, V> {
 
     private final String TAG = this.getClass().getSimpleName()
             + ":" + TiDialogFragment.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
     private final TiFragmentDelegate<P, V> mDelegate =
-            new TiFragmentDelegate<>(this, this, this, this, PresenterSavior.getInstance());
+            new TiFragmentDelegate<>(this, this, this, this,
+                    ViewModelPresenterSavior.getInstance());
 
     @CallSuper
     @Override
@@ -108,7 +112,7 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
 
     @Override
     public final Object getHostingContainer() {
-        return getHost();
+        return getPresenterScope();
     }
 
     @Nullable
@@ -134,6 +138,53 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to create the presenter in the background. {@link #providePresenter()} and
+     * {@link TiPresenter#onCreate()} are then called on the returned {@link Executor} while the
+     * Fragment inflates its layout. {@link #getPresenter()} returns {@code null} and the view gets
+     * bound after the creation completed. {@link ViewAction}s sent during the creation are
+     * postponed until the view is attached.
+     *
+     * @return {@code null} by default, the presenter gets created synchronously in
+     * {@link #onCreate(Bundle)}
+     */
+    @Nullable
+    @Override
+    public Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
+    /**
+     * The scope the presenter is saved in, it is destroyed at the latest when the scope finishes.
+     * Return the parent Fragment or a
+     * {@link net.grandcentrix.thirtyinch.internal.PresenterSavior.SharedScope} to share the
+     * presenter with other Fragments of the scope, see {@link #getSharedPresenterKey()}. Must not
+     * change during the lifetime of the Fragment.
+     *
+     * @return {@link #getHost()} by default, the hosting Activity
+     */
+    @NonNull
+    public Object getPresenterScope() {
+        return getHost();
+    }
+
+    /**
+     * Shares the presenter with all Fragments of the same {@link #getPresenterScope() scope}
+     * returning the same key, i.e. the steps of a flow or the panes of a screen. The first Fragment
+     * creates the presenter with {@link #providePresenter()}, the others use the same presenter
+     * instance. The presenter is destroyed when the scope finishes, not when one of the Fragments
+     * gets removed. The presenter is attached to a view forwarding each call to the views of all
+     * started Fragments. A Fragment started while the presenter is attached gets the latest call
+     * of each view method replayed, {@link TiPresenter#onAttachView(TiView)} isn't called again.
+     *
+     * @return {@code null} by default, the presenter is not shared
+     */
+    @Nullable
+    @Override
+    public String getSharedPresenterKey() {
+        return null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return new UiThreadExecutor();
@@ -168,6 +219,12 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
         return isRemoving();
     }
 
+    @Override
+    public final boolean isHostingActivityFinishing() {
+        final FragmentActivity activity = getActivity();
+        return activity != null && activity.isFinishing();
+    }
+
     /**
      * the default implementation assumes that the fragment is the view and implements the {@link
      * TiView} interface. Override this method for a different behaviour.
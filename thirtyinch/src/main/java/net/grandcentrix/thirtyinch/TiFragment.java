@@ -23,19 +23,21 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
 import java.util.List;
 import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiFragment;
+import net.grandcentrix.thirtyinch.internal.DelegatedTiFragmentOptions;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
-import net.grandcentrix.thirtyinch.internal.PresenterSavior;
 import net.grandcentrix.thirtyinch.internal.TiFragmentDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 import net.grandcentrix.thirtyinch.internal.TiViewProvider;
 import net.grandcentrix.thirtyinch.internal.UiThreadExecutor;
+import net.grandcentrix.thirtyinch.internal.ViewModelPresenterSavior;
 import net.grandcentrix.thirtyinch.util.AnnotationUtil;
 import net.grandcentrix.thirtyinch.util.BackstackReader;
 
@@ -106,15 +108,17 @@ import net.grandcentrix.thirtyinch.util.BackstackReader;
  * @param <P> the Presenter type, must extend {@link TiPresenter}
  */
 public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> extends Fragment
-        implements DelegatedTiFragment, TiPresenterProvider<P>, TiLoggingTagProvider,
-        TiViewProvider<V>, InterceptableViewBinder<V>, PresenterAccessor<P, V> {
+        implements DelegatedTiFragment, DelegatedTiFragmentOptions, TiPresenterProvider<P>,
+        TiLoggingTagProvider, TiViewProvider<V>, InterceptableViewBinder<V>,
+        PresenterAccessor<P, V> {
 
     private final String TAG = this.getClass().getSimpleName()
             + ":" + TiFragment.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
     private final TiFragmentDelegate<P, V> mDelegate =
-            new TiFragmentDelegate<>(this, this, this, this, PresenterSavior.getInstance());
+            new TiFragmentDelegate<>(this, this, this, this,
+                    ViewModelPresenterSavior.getInstance());
 
     private final UiThreadExecutor mUiThreadExecutor = new UiThreadExecutor();
 
@@ -177,7 +181,7 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
 
     @Override
     public final Object getHostingContainer() {
-        return getHost();
+        return getPresenterScope();
     }
 
     @Nullable
@@ -199,13 +203,61 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
     }
 
     /**
-     * is {@code null} before {@link #onCreate(Bundle)}
+     * is {@code null} before {@link #onCreate(Bundle)} and while the presenter gets created
+     * asynchronously, see {@link #getPresenterCreationExecutor()}
      */
     @Override
     public final P getPresenter() {
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to create the presenter in the background. {@link #providePresenter()} and
+     * {@link TiPresenter#onCreate()} are then called on the returned {@link Executor} while the
+     * Fragment inflates its layout. {@link #getPresenter()} returns {@code null} and the view gets
+     * bound after the creation completed. {@link ViewAction}s sent during the creation are
+     * postponed until the view is attached.
+     *
+     * @return {@code null} by default, the presenter gets created synchronously in
+     * {@link #onCreate(Bundle)}
+     */
+    @Nullable
+    @Override
+    public Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
+    /**
+     * The scope the presenter is saved in, it is destroyed at the latest when the scope finishes.
+     * Return the parent Fragment or a
+     * {@link net.grandcentrix.thirtyinch.internal.PresenterSavior.SharedScope} to share the
+     * presenter with other Fragments of the scope, see {@link #getSharedPresenterKey()}. Must not
+     * change during the lifetime of the Fragment.
+     *
+     * @return {@link #getHost()} by default, the hosting Activity
+     */
+    @NonNull
+    public Object getPresenterScope() {
+        return getHost();
+    }
+
+    /**
+     * Shares the presenter with all Fragments of the same {@link #getPresenterScope() scope}
+     * returning the same key, i.e. the steps of a flow or the panes of a screen. The first Fragment
+     * creates the presenter with {@link #providePresenter()}, the others use the same presenter
+     * instance. The presenter is destroyed when the scope finishes, not when one of the Fragments
+     * gets removed. The presenter is attached to a view forwarding each call to the views of all
+     * started Fragments. A Fragment started while the presenter is attached gets the latest call
+     * of each view method replayed, {@link TiPresenter#onAttachView(TiView)} isn't called again.
+     *
+     * @return {@code null} by default, the presenter is not shared
+     */
+    @Nullable
+    @Override
+    public String getSharedPresenterKey() {
+        return null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return mUiThreadExecutor;
@@ -240,6 +292,12 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
         return isRemoving();
     }
 
+    @Override
+    public boolean isHostingActivityFinishing() {
+        final FragmentActivity activity = getActivity();
+        return activity != null && activity.isFinishing();
+    }
+
     /**
      * the default implementation assumes that the fragment is the view and implements the {@link
      * TiView} interface. Override this method for a different behaviour.
@@ -17,10 +17,60 @@ package net.grandcentrix.thirtyinch;
 
 /**
  * Can be added to a {@link TiPresenter} with {@link TiPresenter#addLifecycleObserver(TiLifecycleObserver)}
- * to get notifications when the lifecycle changes
+ * to get notifications when the lifecycle changes.
+ * <p>
+ * Observers interested in a few events only should be added with {@link
+ * TiPresenter#addLifecycleObserver(int, TiLifecycleObserver)} and a combination of the event
+ * constants, i.e. {@code VIEW_ATTACHED_BEFORE | VIEW_DETACHED_AFTER}. They don't get called for
+ * other events.
  */
 public interface TiLifecycleObserver {
 
+    /**
+     * {@link TiPresenter.State#VIEW_DETACHED} before {@link TiPresenter#onCreate()} or {@link
+     * TiPresenter#onDetachView()} got called
+     */
+    int VIEW_DETACHED_BEFORE = 1 << 2;
+
+    /**
+     * {@link TiPresenter.State#VIEW_DETACHED} after {@link TiPresenter#onCreate()} or {@link
+     * TiPresenter#onDetachView()} got called
+     */
+    int VIEW_DETACHED_AFTER = 1 << 3;
+
+    /**
+     * {@link TiPresenter.State#VIEW_ATTACHED} before {@link TiPresenter#onAttachView(TiView)}
+     * got called
+     */
+    int VIEW_ATTACHED_BEFORE = 1 << 4;
+
+    /**
+     * {@link TiPresenter.State#VIEW_ATTACHED} after {@link TiPresenter#onAttachView(TiView)} got
+     * called
+     */
+    int VIEW_ATTACHED_AFTER = 1 << 5;
+
+    /**
+     * {@link TiPresenter.State#DESTROYED} before {@link TiPresenter#onDestroy()} got called
+     */
+    int DESTROYED_BEFORE = 1 << 6;
+
+    /**
+     * {@link TiPresenter.State#DESTROYED} after {@link TiPresenter#onDestroy()} got called
+     */
+    int DESTROYED_AFTER = 1 << 7;
+
+    /**
+     * all lifecycle events, used by {@link TiPresenter#addLifecycleObserver(TiLifecycleObserver)}
+     */
+    int ALL_EVENTS = 0xFF;
+
+    /**
+     * the system is low on memory, see {@link TiPresenter#trimMemory(int)}. Not a lifecycle event
+     * and not part of {@link #ALL_EVENTS}, only delivered to {@link TiTrimMemoryObserver}s
+     */
+    int TRIM_MEMORY = 1 << 8;
+
     /**
      * gets called when the {@link net.grandcentrix.thirtyinch.TiPresenter.State} changes
      *
@@ -27,11 +27,14 @@ import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Future;
 import net.grandcentrix.thirtyinch.internal.OneTimeRemovable;
+import net.grandcentrix.thirtyinch.internal.ViewActionQueue;
 import net.grandcentrix.thirtyinch.test.TiTestPresenter;
 
 /**
@@ -68,18 +71,91 @@ public abstract class TiPresenter<V extends TiView> {
         DESTROYED
     }
 
+    /**
+     * a {@link TiLifecycleObserver} and the events it wants to receive
+     */
+    static final class LifecycleObserverEntry {
+
+        final int mEvents;
+
+        final TiLifecycleObserver mObserver;
+
+        LifecycleObserverEntry(final int events, final TiLifecycleObserver observer) {
+            mEvents = events;
+            mObserver = observer;
+        }
+    }
+
+    /**
+     * an action of the {@link #mPendingBatch} with the key and priority it was sent with, which
+     * are kept when the action gets postponed
+     */
+    private static final class BatchedViewAction<V extends TiView> implements ViewAction<V> {
+
+        final ViewAction<V> mAction;
+
+        @Nullable
+        final Object mKey;
+
+        @NonNull
+        final ViewAction.Priority mPriority;
+
+        BatchedViewAction(@Nullable final Object key, @NonNull final ViewAction.Priority priority,
+                @NonNull final ViewAction<V> action) {
+            mKey = key;
+            mPriority = priority;
+            mAction = action;
+        }
+
+        @Override
+        public void call(final V view) {
+            mAction.call(view);
+        }
+    }
+
+    /**
+     * a postponed action which got evicted and its reason
+     */
+    private static final class EvictedViewAction {
+
+        final ViewAction<?> mAction;
+
+        final TiConfiguration.ViewActionEvictionListener.Reason mReason;
+
+        EvictedViewAction(final ViewAction<?> action,
+                final TiConfiguration.ViewActionEvictionListener.Reason reason) {
+            mAction = action;
+            mReason = reason;
+        }
+    }
+
+    private static final LifecycleObserverEntry[] NO_OBSERVERS = new LifecycleObserverEntry[0];
+
     private static TiConfiguration sDefaultConfig = TiConfiguration.DEFAULT;
 
     /**
-     * list of the added observers
+     * the added observers. The array is never modified, it gets replaced by a new copy when
+     * observers are added or removed. Dispatching iterates over the current array which allows
+     * observers to remove themselves (or other observers) without affecting the dispatch of the
+     * current event.
      */
     @VisibleForTesting
-    final List<TiLifecycleObserver> mLifecycleObservers = new ArrayList<>();
+    volatile LifecycleObserverEntry[] mLifecycleObservers = NO_OBSERVERS;
 
     private final String TAG = this.getClass().getSimpleName()
             + ":" + TiPresenter.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
+    /**
+     * executes the {@link #mPendingBatch} on the UI thread
+     */
+    private final Runnable mBatchDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            dispatchPendingBatch();
+        }
+    };
+
     /**
      * used to check that lifecycle methods (starting with on..) cannot be called directly. i.e.
      * {@link #onCreate()} cannot be called. Instead use {@link #create()} which calls {@link
@@ -89,22 +165,87 @@ public abstract class TiPresenter<V extends TiView> {
 
     private final TiConfiguration mConfig;
 
-    private LinkedBlockingQueue<ViewAction<V>> mPostponedViewActions = new LinkedBlockingQueue<>();
+    /**
+     * guards the replacement of {@link #mLifecycleObservers}
+     */
+    private final Object mLifecycleObserversLock = new Object();
+
+    /**
+     * the view {@link ViewAction}s are delivered to, {@code null} when actions have to be
+     * postponed. Differs from {@link #mView} during the lifecycle transitions: it's set after the
+     * observers prepared the view (i.e. bound the {@link #mUiThreadExecutor}) and cleared before
+     * they tear it down. Only written on the UI thread while holding the lock of
+     * {@link #mPostponedViewActions} which guarantees that no action gets postponed after the
+     * postponed actions have been sent to the view.
+     */
+    @Nullable
+    private volatile V mDeliveryView;
+
+    /**
+     * evicted postponed actions which have to be reported to the
+     * {@link TiConfiguration.ViewActionEvictionListener}. Guarded by
+     * {@link #mPostponedViewActions}
+     */
+    private final ArrayList<EvictedViewAction> mEvictedViewActions = new ArrayList<>();
+
+    /**
+     * actions sent from background threads waiting to be dispatched by {@link #mBatchDispatcher},
+     * wrapped in {@link BatchedViewAction}s. Only used when
+     * {@link TiConfiguration#isViewActionBatchingEnabled()}. Guarded by itself.
+     */
+    @Nullable
+    private final ViewActionQueue<V> mPendingBatch;
+
+    /**
+     * futures of {@link #submitToView(ViewAction)} which are not completed yet, failed when the
+     * presenter gets destroyed. Guarded by itself
+     */
+    private final Set<ViewActionFuture<?>> mPendingViewActionFutures = new HashSet<>();
 
-    private State mState = State.INITIALIZED;
+    /**
+     * actions sent with {@link #sendToView(ViewAction)} while no view was attached. Guarded by
+     * itself, actions can be sent from any thread.
+     */
+    private final ViewActionQueue<V> mPostponedViewActions;
+
+    private volatile State mState = State.INITIALIZED;
+
+    /**
+     * the thread the view got attached on. Actions sent from this thread are never batched
+     */
+    @Nullable
+    private volatile Thread mUiThread;
 
     /**
      * Executor for UI operations, must be set by the view implementation
      */
     @Nullable
-    private Executor mUiThreadExecutor;
+    private volatile Executor mUiThreadExecutor;
+
+    /**
+     * Executor running the {@link #mBatchDispatcher} once per frame, falls back to
+     * {@link #mUiThreadExecutor}
+     */
+    @Nullable
+    private volatile Executor mUiThreadFrameExecutor;
+
+    /**
+     * Executor for {@link ViewAction.Priority#IDLE} view actions, falls back to
+     * {@link #mUiThreadExecutor}
+     */
+    @Nullable
+    private volatile Executor mUiThreadIdleExecutor;
 
-    private V mView;
+    private volatile V mView;
 
     public static void setDefaultConfig(final TiConfiguration config) {
         sDefaultConfig = config;
     }
 
+    static TiConfiguration getDefaultConfig() {
+        return sDefaultConfig;
+    }
+
 
     public TiPresenter() {
         this(sDefaultConfig);
@@ -116,6 +257,25 @@ public abstract class TiPresenter<V extends TiView> {
      */
     public TiPresenter(final TiConfiguration config) {
         mConfig = config;
+        mPostponedViewActions = new ViewActionQueue<>(config.getPostponedViewActionsCapacity(),
+                config.getPostponedViewActionsOverflowPolicy(),
+                config.getPostponedViewActionsTimeToLiveMillis(),
+                config.getPostponedViewActionsBudget(),
+                config.getPostponedViewActionsWeigher());
+        mPostponedViewActions.setOnEvictedListener(new ViewActionQueue.OnEvictedListener<V>() {
+            @Override
+            public void onEvicted(@NonNull final ViewAction<V> action,
+                    @NonNull final TiConfiguration.ViewActionEvictionListener.Reason reason) {
+                // reported after the lock is released
+                mEvictedViewActions.add(new EvictedViewAction(action, reason));
+            }
+        });
+        if (config.isViewActionBatchingEnabled()) {
+            mPendingBatch = new ViewActionQueue<>(Integer.MAX_VALUE,
+                    TiConfiguration.OverflowPolicy.FAIL);
+        } else {
+            mPendingBatch = null;
+        }
     }
 
     /**
@@ -130,19 +290,58 @@ public abstract class TiPresenter<V extends TiView> {
      * {@link TiPresenter} before it reaches its termination state
      */
     public Removable addLifecycleObserver(final TiLifecycleObserver observer) {
+        if (observer instanceof TiTrimMemoryObserver) {
+            return addLifecycleObserver(
+                    TiLifecycleObserver.ALL_EVENTS | TiLifecycleObserver.TRIM_MEMORY, observer);
+        }
+        return addLifecycleObserver(TiLifecycleObserver.ALL_EVENTS, observer);
+    }
+
+    /**
+     * Observes only some lifecycle events of this presenter, other events are not dispatched to
+     * the observer. See {@link #addLifecycleObserver(TiLifecycleObserver)} for the order in which
+     * observers get called.
+     *
+     * @param events   the events the observer gets called for, a combination of the event
+     *                 constants defined in {@link TiLifecycleObserver} like
+     *                 {@code VIEW_ATTACHED_BEFORE | VIEW_DETACHED_AFTER}
+     * @param observer called when lifecycle state changes to one of the {@code events}
+     * @return a {@link Removable} allowing to remove the {@link TiLifecycleObserver} from the
+     * {@link TiPresenter} before it reaches its termination state
+     * @throws IllegalArgumentException when {@code events} contains no lifecycle event or
+     *                                  {@link TiLifecycleObserver#TRIM_MEMORY} is requested by an
+     *                                  observer not implementing {@link TiTrimMemoryObserver}
+     */
+    public Removable addLifecycleObserver(final int events,
+            final TiLifecycleObserver observer) {
+        if ((events & (TiLifecycleObserver.ALL_EVENTS | TiLifecycleObserver.TRIM_MEMORY)) == 0) {
+            throw new IllegalArgumentException("events must contain at least one lifecycle event"
+                    + " defined in TiLifecycleObserver but was " + events);
+        }
+        if ((events & TiLifecycleObserver.TRIM_MEMORY) != 0
+                && !(observer instanceof TiTrimMemoryObserver)) {
+            throw new IllegalArgumentException("observer must implement TiTrimMemoryObserver "
+                    + "to receive TRIM_MEMORY events");
+        }
         if (mState == State.DESTROYED) {
             throw new IllegalStateException("Don't add observers "
                     + "when the presenter reached the DESTROYED state. "
                     + "They wont get any new events anyways.");
         }
 
-        mLifecycleObservers.add(observer);
+        synchronized (mLifecycleObserversLock) {
+            final LifecycleObserverEntry[] observers = mLifecycleObservers;
+            final LifecycleObserverEntry[] added =
+                    Arrays.copyOf(observers, observers.length + 1);
+            added[observers.length] = new LifecycleObserverEntry(events, observer);
+            mLifecycleObservers = added;
+        }
 
         return new OneTimeRemovable() {
 
             @Override
             public void onRemove() {
-                mLifecycleObservers.remove(observer);
+                removeLifecycleObserver(observer);
             }
         };
     }
@@ -182,7 +381,11 @@ public abstract class TiPresenter<V extends TiView> {
         }
 
         mView = view;
+        mUiThread = Thread.currentThread();
         moveToState(State.VIEW_ATTACHED, false);
+        synchronized (mPostponedViewActions) {
+            mDeliveryView = view;
+        }
         mCalled = false;
         TiLog.v(TAG, "onAttachView(TiView)");
         onAttachView(view);
@@ -193,6 +396,9 @@ public abstract class TiPresenter<V extends TiView> {
         moveToState(State.VIEW_ATTACHED, true);
 
         sendPostponedActionsToView(view);
+        // actions sent from background threads after this view received actions, they were
+        // sent after the postponed actions
+        dispatchPendingBatch();
     }
 
     /**
@@ -246,8 +452,20 @@ public abstract class TiPresenter<V extends TiView> {
         }
         moveToState(State.DESTROYED, true);
 
+        // no view will attach anymore
+        final ViewActionFuture<?>[] futures;
+        synchronized (mPendingViewActionFutures) {
+            futures = mPendingViewActionFutures.toArray(new ViewActionFuture<?>[0]);
+        }
+        for (final ViewActionFuture<?> future : futures) {
+            future.fail(new IllegalStateException(
+                    "presenter was destroyed before the view action was executed"));
+        }
+
         // release everything, no new states will be posted
-        mLifecycleObservers.clear();
+        synchronized (mLifecycleObserversLock) {
+            mLifecycleObservers = NO_OBSERVERS;
+        }
     }
 
     /**
@@ -270,6 +488,13 @@ public abstract class TiPresenter<V extends TiView> {
                     + " did not call through to super.onDetachView()");
         }
 
+        // from now on actions get postponed, before observers unbind the ui thread executor
+        synchronized (mPostponedViewActions) {
+            mDeliveryView = null;
+            // the batch was sent before any action which gets postponed from now on
+            drainPendingBatchIntoPostponed();
+        }
+        reportEvictedViewActions();
         moveToState(State.VIEW_DETACHED, true);
         mView = null;
     }
@@ -377,23 +602,105 @@ public abstract class TiPresenter<V extends TiView> {
      * happen might be a better solution.
      * See the <a href="https://github.com/passsy/thirtyinch-sample">thirtyinch-sample</a> project
      * for ideas.
+     * <p>
+     * The number of postponed actions can be limited with
+     * {@link TiConfiguration.Builder#setPostponedViewActionsCapacity(int)}.
+     * <p>
+     * Actions can be sent from any thread. Each action is either executed on the attached view or
+     * postponed until the next view attaches, it never gets lost or executed twice.
+     * <p>
+     * The action is sent with {@link ViewAction.Priority#IMMEDIATE}, use
+     * {@link #sendToView(ViewAction.Priority, ViewAction)} for actions which can wait until the
+     * UI thread is idle.
      *
      * @see #sendPostponedActionsToView
      * @see #onAttachView(TiView)
      */
     @RestrictTo(SUBCLASSES)
     public void sendToView(final ViewAction<V> action) {
-        final V view = getView();
-        if (view != null) {
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    action.call(view);
-                }
-            });
-        } else {
-            mPostponedViewActions.add(action);
+        sendToView(null, ViewAction.Priority.IMMEDIATE, action);
+    }
+
+    /**
+     * Executes the {@link ViewAction} when the view is available on the UI thread, like
+     * {@link #sendToView(ViewAction)}.
+     * <p>
+     * Actions with {@link ViewAction.Priority#IDLE} are executed when the UI thread is idle, see
+     * {@link #setUiThreadIdleExecutor(Executor)}. When the view attaches postponed
+     * {@link ViewAction.Priority#IDLE} actions are executed after the first frame is drawn while
+     * {@link ViewAction.Priority#IMMEDIATE} actions are executed right away.
+     *
+     * @param priority when the action gets executed
+     * @see #sendToView(ViewAction)
+     */
+    @RestrictTo(SUBCLASSES)
+    public void sendToView(@NonNull final ViewAction.Priority priority,
+            final ViewAction<V> action) {
+        sendToView(null, priority, action);
+    }
+
+    /**
+     * Executes the {@link ViewAction} when the view is available on the UI thread, like
+     * {@link #sendToView(ViewAction)}.
+     * <p>
+     * While no view is attached a postponed action with the same {@code key} gets replaced by
+     * the new action, only the latest action per key will be executed when the view attaches.
+     * This is useful for actions which render a state, i.e. the progress of a download, where
+     * only the last sent state is relevant:
+     * <code>
+     * <pre>
+     * sendToView("progress", new ViewAction&lt;DownloadView&gt;() {
+     *     &#64;Override
+     *     public void call(final DownloadView view) {
+     *         view.showProgress(percent);
+     *     }
+     * });
+     * </pre>
+     * </code>
+     * The replacing action is executed at the position of the first postponed action with this
+     * key. When the view is attached the action will be executed immediately (or with the next
+     * batch, see {@link TiConfiguration.Builder#setViewActionBatchingEnabled(boolean)}).
+     *
+     * @param key identifies actions replacing each other, compared with
+     *            {@link Object#equals(Object)}. {@code null} never replaces an action
+     * @see #sendToView(ViewAction)
+     */
+    @RestrictTo(SUBCLASSES)
+    public void sendToView(@Nullable final Object key, final ViewAction<V> action) {
+        sendToView(key, ViewAction.Priority.IMMEDIATE, action);
+    }
+
+    /**
+     * Executes the {@link ViewAction} with the given {@code key} and {@code priority}, see
+     * {@link #sendToView(Object, ViewAction)} and
+     * {@link #sendToView(ViewAction.Priority, ViewAction)}
+     *
+     * @param key      identifies actions replacing each other, {@code null} never replaces an
+     *                 action
+     * @param priority when the action gets executed
+     */
+    @RestrictTo(SUBCLASSES)
+    public void sendToView(@Nullable final Object key,
+            @NonNull final ViewAction.Priority priority, final ViewAction<V> action) {
+        if (mDeliveryView == null && postponeWhileDetached(key, priority, action)) {
+            return;
         }
+
+        if (priority == ViewAction.Priority.IMMEDIATE
+                && mPendingBatch != null && Thread.currentThread() != mUiThread) {
+            addToPendingBatch(key, priority, action);
+            return;
+        }
+
+        final Executor executor = getExecutor(priority);
+        if (executor == null) {
+            // the view detached in the meantime
+            if (postponeWhileDetached(key, priority, action)) {
+                return;
+            }
+            throw new IllegalStateException("no ui thread executor available");
+        }
+        executor.execute(deliverToView(key, priority, action));
     }
 
     /**
@@ -410,6 +717,92 @@ public abstract class TiPresenter<V extends TiView> {
         mUiThreadExecutor = uiThreadExecutor;
     }
 
+    /**
+     * sets the Executor dispatching the actions batched with
+     * {@link TiConfiguration.Builder#setViewActionBatchingEnabled(boolean)}.
+     * <p>
+     * This Executor is most likely the {@link net.grandcentrix.thirtyinch.internal.UiThreadFrameExecutor}
+     * executing the work at the beginning of the next frame. When no frame executor is set the
+     * executor of {@link #setUiThreadExecutor(Executor)} is used.
+     *
+     * @param uiThreadFrameExecutor executor for work which should run once per frame
+     */
+    public void setUiThreadFrameExecutor(@Nullable final Executor uiThreadFrameExecutor) {
+        mUiThreadFrameExecutor = uiThreadFrameExecutor;
+    }
+
+    /**
+     * sets the Executor used for {@link ViewAction.Priority#IDLE} view actions.
+     * <p>
+     * This Executor is most likely the {@link net.grandcentrix.thirtyinch.internal.UiThreadIdleExecutor}
+     * executing the work when the Android Main Thread is idle. When no idle executor is set the
+     * executor of {@link #setUiThreadExecutor(Executor)} is used.
+     *
+     * @param uiThreadIdleExecutor executor for view interactions which can wait
+     */
+    public void setUiThreadIdleExecutor(@Nullable final Executor uiThreadIdleExecutor) {
+        mUiThreadIdleExecutor = uiThreadIdleExecutor;
+    }
+
+    /**
+     * replaces the time source deciding when postponed actions expire
+     */
+    @VisibleForTesting
+    void setViewActionTicker(@NonNull final ViewActionQueue.Ticker ticker) {
+        synchronized (mPostponedViewActions) {
+            mPostponedViewActions.setTicker(ticker);
+        }
+    }
+
+    /**
+     * Executes the {@link ViewAction} when the view is available on the UI thread, like
+     * {@link #sendToView(ViewAction)}, and returns a {@link Future} which completes when the
+     * action was executed on the view.
+     * <p>
+     * Producers sending actions from a background thread can use the future to limit the
+     * number of actions in flight, i.e. by waiting for the previous update before sending the
+     * next one.
+     * <p>
+     * The future fails with an {@link java.util.concurrent.ExecutionException} when the action
+     * throws, when the postponed action got evicted or when the presenter gets destroyed before
+     * the action was executed. A cancelled action won't be executed.
+     * <p>
+     * Never wait for the future on the UI thread, the action is executed on the UI thread.
+     *
+     * @return a future completing after the action was executed
+     */
+    @RestrictTo(SUBCLASSES)
+    @NonNull
+    public Future<Void> submitToView(final ViewAction<V> action) {
+        return submitToView(ViewAction.Priority.IMMEDIATE, action);
+    }
+
+    /**
+     * Like {@link #submitToView(ViewAction)} with the given {@code priority}
+     *
+     * @param priority when the action gets executed
+     * @see #sendToView(ViewAction.Priority, ViewAction)
+     */
+    @RestrictTo(SUBCLASSES)
+    @NonNull
+    public Future<Void> submitToView(@NonNull final ViewAction.Priority priority,
+            final ViewAction<V> action) {
+        final ViewActionFuture<V> future =
+                new ViewActionFuture<>(action, mPendingViewActionFutures);
+        if (isDestroyed()) {
+            future.fail(new IllegalStateException("presenter is destroyed, "
+                    + "the view action will never be executed"));
+            return future;
+        }
+        try {
+            sendToView(null, priority, future);
+        } catch (RuntimeException e) {
+            future.fail(e);
+            throw e;
+        }
+        return future;
+    }
+
     /**
      * Creates {@link TiTestPresenter} that simplifies testing by calling the presenter lifecycle
      * methods automatically in the correct order. It also sets the ui thread Executors which allows
@@ -473,13 +866,49 @@ public abstract class TiPresenter<V extends TiView> {
                 + "{view = " + viewName + "}";
     }
 
+    /**
+     * Tells the presenter that the system is low on memory, forward
+     * {@link android.content.ComponentCallbacks2#onTrimMemory(int)} here. Calls
+     * {@link #onTrimMemory(int)} followed by the {@link TiTrimMemoryObserver}s.
+     * <p>
+     * Presenters retained by the {@link net.grandcentrix.thirtyinch.internal.PresenterSavior}
+     * get notified automatically.
+     *
+     * @param level the level of the memory pressure, one of the {@code TRIM_MEMORY_*} constants
+     *              of {@link android.content.ComponentCallbacks2}
+     * @return {@code false} when the presenter wasn't trimmed because it isn't created yet or
+     * already destroyed
+     */
+    public final boolean trimMemory(final int level) {
+        final State state = mState;
+        if (state == State.INITIALIZED || state == State.DESTROYED) {
+            return false;
+        }
+        TiLog.v(TAG, "onTrimMemory(" + level + ")");
+        onTrimMemory(level);
+
+        final LifecycleObserverEntry[] observers = mLifecycleObservers;
+        for (int i = 0; i < observers.length; i++) {
+            if ((observers[i].mEvents & TiLifecycleObserver.TRIM_MEMORY) != 0) {
+                ((TiTrimMemoryObserver) observers[i].mObserver).onTrimMemory(level);
+            }
+        }
+        return true;
+    }
+
     /**
      * Gives access to the postponed actions while the view is not attached.
+     * <p>
+     * Actions can be postponed from any thread, the returned queue is a snapshot taken while
+     * holding the lock of the postponed actions. It doesn't reflect later changes and can't be
+     * modified.
      *
-     * @return the queued actions
+     * @return an unmodifiable snapshot of the queued actions
      */
     protected Queue<ViewAction<V>> getQueuedViewActions() {
-        return mPostponedViewActions;
+        synchronized (mPostponedViewActions) {
+            return mPostponedViewActions.snapshot();
+        }
     }
 
     /**
@@ -539,6 +968,17 @@ public abstract class TiPresenter<V extends TiView> {
         mCalled = true;
     }
 
+    /**
+     * The system is low on memory. Release caches which can be rebuilt, especially while the view
+     * is detached and the presenter is only retained for a later view.
+     *
+     * @param level the level of the memory pressure, one of the {@code TRIM_MEMORY_*} constants
+     *              of {@link android.content.ComponentCallbacks2}
+     * @see #trimMemory(int)
+     */
+    protected void onTrimMemory(final int level) {
+    }
+
     /**
      * moves the presenter to the new state and validates the correctness of the transition
      *
@@ -591,36 +1031,315 @@ public abstract class TiPresenter<V extends TiView> {
             mState = newState;
         }
 
-        if (mLifecycleObservers.size() > 0) {
-            // make a local copy to call all observers,
-            // even observers which will been removed by other observers which received this event
-            final List<TiLifecycleObserver> observers = new ArrayList<>(mLifecycleObservers);
-            switch (newState) {
-                case INITIALIZED:
-                case VIEW_ATTACHED:
-                    for (int i = 0; i < observers.size(); i++) {
-                        observers.get(i).onChange(newState, hasLifecycleMethodBeenCalled);
+        // the snapshot is immutable, all observers get called,
+        // even observers which will been removed by other observers which received this event
+        final LifecycleObserverEntry[] observers = mLifecycleObservers;
+        // two bits per state (before, after) in the order of the State enum,
+        // matching the event constants of TiLifecycleObserver
+        final int event = 1 << (newState.ordinal() * 2 + (hasLifecycleMethodBeenCalled ? 1 : 0));
+        switch (newState) {
+            case INITIALIZED:
+            case VIEW_ATTACHED:
+                for (int i = 0; i < observers.length; i++) {
+                    if ((observers[i].mEvents & event) != 0) {
+                        observers[i].mObserver.onChange(newState, hasLifecycleMethodBeenCalled);
                     }
-                    break;
+                }
+                break;
 
-                case VIEW_DETACHED:
-                case DESTROYED:
-                    // reverse observer order for teardown events; first in, last out
-                    for (int i = observers.size() - 1; i >= 0; i--) {
-                        observers.get(i).onChange(newState, hasLifecycleMethodBeenCalled);
+            case VIEW_DETACHED:
+            case DESTROYED:
+                // reverse observer order for teardown events; first in, last out
+                for (int i = observers.length - 1; i >= 0; i--) {
+                    if ((observers[i].mEvents & event) != 0) {
+                        observers[i].mObserver.onChange(newState, hasLifecycleMethodBeenCalled);
                     }
+                }
+        }
+    }
+
+    /**
+     * adds the action to the {@link #mPendingBatch} and schedules the dispatch of the batch with
+     * the next frame when it's the first action of the batch. Postpones the action when the view
+     * detached in the meantime, the batch is only filled while a view receives actions.
+     */
+    private void addToPendingBatch(@Nullable final Object key,
+            @NonNull final ViewAction.Priority priority, @NonNull final ViewAction<V> action) {
+        final boolean firstOfBatch;
+        boolean added = true;
+        synchronized (mPostponedViewActions) {
+            if (mDeliveryView == null) {
+                added = mPostponedViewActions.offer(key, priority, action);
+                firstOfBatch = false;
+            } else {
+                //noinspection ConstantConditions
+                synchronized (mPendingBatch) {
+                    firstOfBatch = mPendingBatch.isEmpty();
+                    mPendingBatch.offer(new BatchedViewAction<>(key, priority, action));
+                }
             }
         }
+        if (!added) {
+            TiLog.w(TAG, "dropped " + action + ", exceeds the limits of postponed view actions");
+        }
+        reportEvictedViewActions();
+        if (firstOfBatch) {
+            final Executor executor = getBatchExecutor();
+            if (executor != null) {
+                executor.execute(mBatchDispatcher);
+            }
+            // otherwise the batch gets dispatched when the view attached
+        }
     }
 
     /**
-     * Executes all postponed view actions
+     * Executes the actions of the {@link #mPendingBatch} in order. Actions added while
+     * dispatching are part of the next batch. Runs on the UI thread.
+     * <p>
+     * When the view detaches {@link #detachView()} moves the remaining actions to the postponed
+     * actions, the dispatch ends early.
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatchPendingBatch() {
+        final ViewActionQueue<V> batch = mPendingBatch;
+        if (batch == null) {
+            return;
+        }
+        final int batchSize;
+        synchronized (batch) {
+            batchSize = batch.size();
+        }
+        if (batchSize == 0) {
+            return;
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            final BatchedViewAction<V> batched;
+            synchronized (batch) {
+                batched = (BatchedViewAction<V>) batch.poll();
+            }
+            if (batched == null) {
+                // view detached while dispatching, the actions are postponed
+                break;
+            }
+            final V view = mDeliveryView;
+            if (view != null) {
+                batched.mAction.call(view);
+            } else {
+                postpone(batched.mKey, batched.mPriority, batched.mAction);
+            }
+        }
+
+        final boolean scheduleNextBatch;
+        synchronized (batch) {
+            scheduleNextBatch = !batch.isEmpty();
+        }
+        final Executor executor = getBatchExecutor();
+        if (scheduleNextBatch && executor != null) {
+            executor.execute(mBatchDispatcher);
+        }
+
+        final TiConfiguration.ViewActionBatchListener listener =
+                mConfig.getViewActionBatchListener();
+        if (listener != null) {
+            listener.onBatchDispatched(this, batchSize);
+        }
+    }
+
+    /**
+     * @return a runnable executing the action on the view which is attached when it runs on the UI
+     * thread, it postpones the action when the view detached in the meantime
+     */
+    private Runnable deliverToView(@Nullable final Object key,
+            @NonNull final ViewAction.Priority priority, @NonNull final ViewAction<V> action) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                // the view may have changed since the action was sent
+                final V view = mDeliveryView;
+                if (view != null) {
+                    action.call(view);
+                } else {
+                    postpone(key, priority, action);
+                }
+            }
+        };
+    }
+
+    /**
+     * moves the actions of the {@link #mPendingBatch} to the end of the postponed actions. Must
+     * be called while holding the lock of {@link #mPostponedViewActions}.
+     * <p>
+     * Called while the view detaches, it never throws: with
+     * {@link TiConfiguration.OverflowPolicy#FAIL} the actions which don't fit are reported as
+     * evicted due to {@link TiConfiguration.ViewActionEvictionListener.Reason#OVER_CAPACITY}
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private void drainPendingBatchIntoPostponed() {
+        final ViewActionQueue<V> batch = mPendingBatch;
+        if (batch == null) {
+            return;
+        }
+        synchronized (batch) {
+            BatchedViewAction<V> batched;
+            while ((batched = (BatchedViewAction<V>) batch.poll()) != null) {
+                try {
+                    mPostponedViewActions.offer(batched.mKey, batched.mPriority, batched.mAction);
+                } catch (IllegalStateException e) {
+                    TiLog.w(TAG, "dropped " + batched.mAction
+                            + ", exceeds the capacity of postponed view actions");
+                    mEvictedViewActions.add(new EvictedViewAction(batched.mAction,
+                            TiConfiguration.ViewActionEvictionListener.Reason.OVER_CAPACITY));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the executor dispatching the {@link #mPendingBatch}, {@code null} when not
+     * available
+     */
+    @Nullable
+    private Executor getBatchExecutor() {
+        final Executor frameExecutor = mUiThreadFrameExecutor;
+        if (frameExecutor != null) {
+            return frameExecutor;
+        }
+        return mUiThreadExecutor;
+    }
+
+    /**
+     * @return the executor for actions with the given priority, {@code null} when not available
+     */
+    @Nullable
+    private Executor getExecutor(@NonNull final ViewAction.Priority priority) {
+        if (priority == ViewAction.Priority.IDLE) {
+            final Executor idleExecutor = mUiThreadIdleExecutor;
+            if (idleExecutor != null) {
+                return idleExecutor;
+            }
+        }
+        return mUiThreadExecutor;
+    }
+
+    /**
+     * adds the action to the postponed actions which will be executed when the next view
+     * attaches
+     */
+    private void postpone(@Nullable final Object key, @NonNull final ViewAction.Priority priority,
+            @NonNull final ViewAction<V> action) {
+        final boolean added;
+        synchronized (mPostponedViewActions) {
+            added = mPostponedViewActions.offer(key, priority, action);
+        }
+        if (!added) {
+            TiLog.w(TAG, "dropped " + action + ", exceeds the limits of postponed view actions");
+        }
+        reportEvictedViewActions();
+    }
+
+    /**
+     * replaces {@link #mLifecycleObservers} with a copy without the first occurrence of
+     * {@code observer}
+     */
+    private void removeLifecycleObserver(@NonNull final TiLifecycleObserver observer) {
+        synchronized (mLifecycleObserversLock) {
+            final LifecycleObserverEntry[] observers = mLifecycleObservers;
+            for (int i = 0; i < observers.length; i++) {
+                if (observer.equals(observers[i].mObserver)) {
+                    final LifecycleObserverEntry[] removed =
+                            new LifecycleObserverEntry[observers.length - 1];
+                    System.arraycopy(observers, 0, removed, 0, i);
+                    System.arraycopy(observers, i + 1, removed, i, observers.length - i - 1);
+                    mLifecycleObservers = removed;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Postpones the action when no view receives actions. The check and the postponing happen
+     * atomically, the action can't be added after {@link #sendPostponedActionsToView(TiView)}
+     * drained the queue.
+     *
+     * @return {@code false} when a view is attached and the action has to be sent to it
+     */
+    private boolean postponeWhileDetached(@Nullable final Object key,
+            @NonNull final ViewAction.Priority priority, @NonNull final ViewAction<V> action) {
+        final boolean added;
+        synchronized (mPostponedViewActions) {
+            if (mDeliveryView != null) {
+                return false;
+            }
+            added = mPostponedViewActions.offer(key, priority, action);
+        }
+        if (!added) {
+            TiLog.w(TAG, "dropped " + action + ", exceeds the limits of postponed view actions");
+        }
+        reportEvictedViewActions();
+        return true;
+    }
+
+    /**
+     * reports the evicted postponed actions to the
+     * {@link TiConfiguration.ViewActionEvictionListener}. Must not be called while holding the
+     * lock of {@link #mPostponedViewActions}
+     */
+    private void reportEvictedViewActions() {
+        final EvictedViewAction[] evicted;
+        synchronized (mPostponedViewActions) {
+            if (mEvictedViewActions.isEmpty()) {
+                return;
+            }
+            evicted = mEvictedViewActions.toArray(new EvictedViewAction[0]);
+            mEvictedViewActions.clear();
+        }
+        final TiConfiguration.ViewActionEvictionListener listener =
+                mConfig.getViewActionEvictionListener();
+        for (final EvictedViewAction eviction : evicted) {
+            if (eviction.mAction instanceof ViewActionFuture) {
+                ((ViewActionFuture<?>) eviction.mAction).fail(new IllegalStateException(
+                        "view action was evicted, reason: " + eviction.mReason));
+            }
+            if (listener != null) {
+                listener.onViewActionEvicted(this, eviction.mAction, eviction.mReason);
+            }
+        }
+    }
+
+    /**
+     * Executes all postponed view actions. Actions postponed while the actions are executed
+     * (i.e. from a background thread) get executed as well.
+     * <p>
+     * {@link ViewAction.Priority#IDLE} actions are handed over to the idle executor, they don't
+     * delay the first frame of the view
      *
      * @param view where the actions will be sent to
      */
     private void sendPostponedActionsToView(@NonNull final V view) {
-        while (!mPostponedViewActions.isEmpty()) {
-            mPostponedViewActions.poll().call(view);
+        while (true) {
+            final Object key;
+            final ViewAction.Priority priority;
+            final ViewAction<V> action;
+            synchronized (mPostponedViewActions) {
+                // expired actions are never executed
+                mPostponedViewActions.evictExpired();
+                key = mPostponedViewActions.peekKey();
+                priority = mPostponedViewActions.peekPriority();
+                action = mPostponedViewActions.poll();
+            }
+            if (action == null) {
+                reportEvictedViewActions();
+                return;
+            }
+            final Executor idleExecutor = getExecutor(ViewAction.Priority.IDLE);
+            if (priority == ViewAction.Priority.IDLE && idleExecutor != null) {
+                idleExecutor.execute(deliverToView(key, priority, action));
+            } else {
+                action.call(view);
+            }
         }
     }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+/**
+ * A {@link TiLifecycleObserver} which additionally gets notified when the system is low on
+ * memory. Added with {@link TiPresenter#addLifecycleObserver(TiLifecycleObserver)} it receives
+ * all lifecycle events and {@link TiLifecycleObserver#TRIM_MEMORY}. Observers interested in
+ * memory pressure only are added with {@link TiPresenter#addLifecycleObserver(int,
+ * TiLifecycleObserver)} and the {@link TiLifecycleObserver#TRIM_MEMORY} event.
+ */
+public interface TiTrimMemoryObserver extends TiLifecycleObserver {
+
+    /**
+     * gets called after {@link TiPresenter#onTrimMemory(int)}
+     *
+     * @param level the level of the memory pressure, one of the {@code TRIM_MEMORY_*} constants
+     *              of {@link android.content.ComponentCallbacks2}
+     * @see TiPresenter#trimMemory(int)
+     */
+    void onTrimMemory(final int level);
+}
@@ -20,5 +20,22 @@ package net.grandcentrix.thirtyinch;
  */
 public interface ViewAction<V extends TiView> {
 
+    /**
+     * Defines when an action sent with {@link TiPresenter#sendToView(Priority, ViewAction)} gets
+     * executed once the view is attached
+     */
+    enum Priority {
+        /**
+         * executed as soon as possible, i.e. for errors the user has to see. Postponed actions
+         * with this priority are executed when the view attaches, before the first frame is drawn
+         */
+        IMMEDIATE,
+        /**
+         * executed when the UI thread is idle, i.e. for prefetching or updating badges. Postponed
+         * actions with this priority don't delay the first frame after the view attaches
+         */
+        IDLE
+    }
+
     void call(V v);
 }
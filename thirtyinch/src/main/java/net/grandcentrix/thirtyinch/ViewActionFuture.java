@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wraps a {@link ViewAction} sent with {@link TiPresenter#submitToView(ViewAction)} and
+ * completes when the action was executed on the view. Fails when the action can't be executed
+ * anymore because it got evicted or the presenter got destroyed.
+ */
+final class ViewActionFuture<V extends TiView> implements ViewAction<V>, Future<Void> {
+
+    private static final int PENDING = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int DONE = 2;
+
+    private static final int FAILED = 3;
+
+    private static final int CANCELLED = 4;
+
+    private final ViewAction<V> mAction;
+
+    @Nullable
+    private Throwable mFailure;
+
+    /**
+     * all futures of the presenter which are not completed yet, guarded by itself
+     */
+    private final Set<ViewActionFuture<?>> mPendingFutures;
+
+    /**
+     * guarded by this
+     */
+    private int mState = PENDING;
+
+    ViewActionFuture(@NonNull final ViewAction<V> action,
+            @NonNull final Set<ViewActionFuture<?>> pendingFutures) {
+        mAction = action;
+        mPendingFutures = pendingFutures;
+        synchronized (mPendingFutures) {
+            mPendingFutures.add(this);
+        }
+    }
+
+    @Override
+    public void call(final V view) {
+        synchronized (this) {
+            if (mState != PENDING) {
+                // cancelled or failed, the action must not be executed anymore
+                return;
+            }
+            mState = RUNNING;
+        }
+        try {
+            mAction.call(view);
+        } catch (RuntimeException | Error e) {
+            complete(RUNNING, FAILED, e);
+            throw e;
+        }
+        complete(RUNNING, DONE, null);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return complete(PENDING, CANCELLED, null);
+    }
+
+    @Override
+    public synchronized Void get() throws InterruptedException, ExecutionException {
+        while (mState < DONE) {
+            wait();
+        }
+        return result();
+    }
+
+    @Override
+    public synchronized Void get(final long timeout, @NonNull final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (mState < DONE) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("view action not executed within " + timeout + " "
+                        + unit.toString().toLowerCase());
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return result();
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mState == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mState >= DONE;
+    }
+
+    @Override
+    public String toString() {
+        return "ViewActionFuture{" + mAction + "}";
+    }
+
+    /**
+     * Fails the future when the action wasn't executed yet, the action won't be executed
+     * afterwards
+     *
+     * @param reason why the action can't be executed
+     */
+    void fail(@NonNull final Throwable reason) {
+        complete(PENDING, FAILED, reason);
+    }
+
+    /**
+     * @param expectedState the state required to complete the future
+     * @return {@code false} when the future wasn't in the {@code expectedState}
+     */
+    private boolean complete(final int expectedState, final int state,
+            @Nullable final Throwable failure) {
+        synchronized (this) {
+            if (mState != expectedState) {
+                return false;
+            }
+            mState = state;
+            mFailure = failure;
+            notifyAll();
+        }
+        synchronized (mPendingFutures) {
+            mPendingFutures.remove(this);
+        }
+        return true;
+    }
+
+    private Void result() throws ExecutionException {
+        if (mState == CANCELLED) {
+            throw new CancellationException("view action was cancelled");
+        }
+        if (mState == FAILED) {
+            throw new ExecutionException(mFailure);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.reflect.Method;
+
+/**
+ * A single step of the calls to a {@link TiView} created by a
+ * {@link FusableBindViewInterceptor}. All stages of the fusable interceptors share a single proxy
+ * and the real view is called only once at the end of the stages.
+ *
+ * @see TiConfiguration.Builder#setFusedBindViewInterceptorsEnabled(boolean)
+ */
+public interface ViewCallStage {
+
+    /**
+     * The remaining stages of a view call, ending with the call of the real view
+     */
+    interface Chain {
+
+        /**
+         * passes the call to the next stage
+         *
+         * @return the result of the view method
+         * @throws Throwable the exception thrown by the view method
+         */
+        @Nullable
+        Object proceed(@NonNull final Method method, @NonNull final Object[] args)
+                throws Throwable;
+    }
+
+    /**
+     * Handles a call to a method of the {@link TiView}. Call {@link Chain#proceed(Method,
+     * Object[])} on {@code next} to continue the call, don't proceed to drop it.
+     * <p>
+     * Calls to {@link Object#equals(Object)}, {@link Object#hashCode()} and
+     * {@link Object#toString()} don't reach the stages.
+     *
+     * @param method the called method of the view interface
+     * @param args   the arguments, an empty array for methods without parameters
+     * @param next   the following stages
+     * @return the result of the call
+     */
+    @Nullable
+    Object handle(@NonNull final Method method, @NonNull final Object[] args,
+            @NonNull final Chain next) throws Throwable;
+}
@@ -18,15 +18,29 @@ package net.grandcentrix.thirtyinch.callonmainthread;
 import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
 import static net.grandcentrix.thirtyinch.util.AnnotationUtil.hasObjectMethodWithAnnotation;
 
-import java.lang.reflect.Proxy;
-import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.internal.GeneratedViewWrapper;
+import net.grandcentrix.thirtyinch.internal.ViewDispatchPlan;
 
-public class CallOnMainThreadInterceptor implements BindViewInterceptor {
+public class CallOnMainThreadInterceptor implements FusableBindViewInterceptor {
 
     private static final String TAG = CallOnMainThreadInterceptor.class.getSimpleName();
 
+    @Nullable
+    @Override
+    public ViewCallStage createStage(@NonNull final TiView view) {
+        if (!hasObjectMethodWithAnnotation(view, CallOnMainThread.class)) {
+            // no method has the annotation, nothing to intercept
+            return null;
+        }
+        return new CallOnMainThreadInvocationHandler<>(view);
+    }
+
     @Override
     public <V extends TiView> V intercept(final V view) {
         final V wrapped = wrap(view);
@@ -49,8 +63,14 @@ public class CallOnMainThreadInterceptor implements BindViewInterceptor {
             return view;
         }
 
-        return (V) Proxy.newProxyInstance(
-                foundInterfaceClass.getClassLoader(), new Class<?>[]{foundInterfaceClass},
-                new CallOnMainThreadInvocationHandler<>(view));
+        final V generated = GeneratedViewWrapper.CALL_ON_MAIN_THREAD
+                .wrap(view, foundInterfaceClass);
+        if (generated != null) {
+            // prefer the wrapper generated by the thirtyinch-compiler
+            return generated;
+        }
+
+        return ViewDispatchPlan.of(foundInterfaceClass)
+                .newProxy(new CallOnMainThreadInvocationHandler<>(view));
     }
 }
@@ -17,19 +17,62 @@ package net.grandcentrix.thirtyinch.callonmainthread;
 
 import android.os.Handler;
 import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.internal.FusedViewInvocationHandler;
+import net.grandcentrix.thirtyinch.internal.ViewDispatchPlan;
 import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
 
-final class CallOnMainThreadInvocationHandler<V> extends AbstractInvocationHandler {
+final class CallOnMainThreadInvocationHandler<V> extends AbstractInvocationHandler
+        implements ViewCallStage {
 
     private final Handler handler = new Handler(Looper.getMainLooper());
 
+    private final ViewCallStage.Chain mCallView;
+
+    private final ViewDispatchPlan mPlan;
+
     private final V mView;
 
     public CallOnMainThreadInvocationHandler(V view) {
         mView = view;
+        mCallView = FusedViewInvocationHandler.callView(view);
+        mPlan = ViewDispatchPlan.ofView(view);
+    }
+
+    @Nullable
+    @Override
+    public Object handle(@NonNull final Method method, @NonNull final Object[] args,
+            @NonNull final Chain next) throws Throwable {
+
+        // simply call the method when already on the main thread
+        if (Looper.getMainLooper() == Looper.myLooper()) {
+            return next.proceed(method, args);
+        }
+
+        // only annotated void methods of the View interface are supported
+        if (!mPlan.get(method).isCallOnMainThread()) {
+            return next.proceed(method, args);
+        }
+
+        // send calls on the Ui Thread
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    next.proceed(method, args);
+                } catch (Throwable throwable) {
+                    // To be consistent, the exception will be thrown, not caught and swallowed.
+                    // Sadly, this exception cannot be caught by wrapping the invoked method with try catch.
+                    throwable.printStackTrace();
+                    throw new RuntimeException(throwable);
+                }
+            }
+        });
+        return null;
     }
 
     @Override
@@ -48,51 +91,11 @@ final class CallOnMainThreadInvocationHandler<V> extends AbstractInvocationHandl
                 return method.invoke(this, args);
             }
 
-            // simply call the method when already on the main thread
-            if (Looper.getMainLooper() == Looper.myLooper()) {
-                return method.invoke(mView, args);
-            }
-
-            // only void methods are supported. Otherwise
-            if (!method.getReturnType().equals(Void.TYPE)) {
-                return method.invoke(mView, args);
-            }
-
-            // only methods of the View interface are supported
-            if (!TiView.class.isAssignableFrom(declaringClass)) {
-                return method.invoke(mView, args);
-            }
-
-            final CallOnMainThread comtAnnotation =
-                    method.getAnnotation(CallOnMainThread.class);
-            // check if method is correct annotated
-            if (comtAnnotation == null) {
-                return method.invoke(mView, args);
-            }
-
-            // send calls on the Ui Thread
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        method.invoke(mView, args);
-                    } catch (InvocationTargetException e) {
-                        // To be consistent, the exception will be thrown, not caught and swallowed.
-                        // Sadly, this exception cannot be caught by wrapping the invoked method with try catch.
-                        e.printStackTrace();
-                        throw new RuntimeException(e.getCause());
-                    } catch (IllegalAccessException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            });
-            return null;
+            return handle(method, args, mCallView);
 
         } catch (InvocationTargetException e) {
             e.printStackTrace();
             throw e.getCause();
-        } catch (IllegalAccessException e) {
-            throw e;
         }
     }
 }
@@ -20,21 +20,35 @@ import static net.grandcentrix.thirtyinch.util.AnnotationUtil.hasObjectMethodWit
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
-import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.internal.FusedViewInvocationHandler;
+import net.grandcentrix.thirtyinch.internal.GeneratedViewWrapper;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
+import net.grandcentrix.thirtyinch.internal.ViewDispatchPlan;
 
-public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
+public class DistinctUntilChangedInterceptor implements FusableBindViewInterceptor {
 
     private static final String TAG = DistinctUntilChangedInterceptor.class.getSimpleName();
 
     @SuppressWarnings("unchecked")
     @Nullable
     public static DistinctUntilChangedInvocationHandler<TiView> unwrap(@NonNull final TiView view) {
+        if (!Proxy.isProxyClass(view.getClass())) {
+            // not intercepted or wrapped by a generated class
+            return null;
+        }
+        final InvocationHandler handler = Proxy.getInvocationHandler(view);
+        if (handler instanceof FusedViewInvocationHandler) {
+            return ((FusedViewInvocationHandler) handler)
+                    .getStage(DistinctUntilChangedInvocationHandler.class);
+        }
         try {
-            return (DistinctUntilChangedInvocationHandler) Proxy.getInvocationHandler(view);
+            return (DistinctUntilChangedInvocationHandler) handler;
         } catch (ClassCastException e) {
             return null;
         }
@@ -42,7 +56,10 @@ public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
 
     public <V extends TiView> void clearCache(final InterceptableViewBinder<V> interceptable) {
         final TiView wrappedView = interceptable.getInterceptedViewOf(this);
-        if (wrappedView != null) {
+        if (wrappedView instanceof DistinctUntilChangedCache) {
+            ((DistinctUntilChangedCache) wrappedView).clearCache();
+            TiLog.v(TAG, "cleared the distinctUntilChanged cache of " + wrappedView);
+        } else if (wrappedView != null) {
             final DistinctUntilChangedInvocationHandler<TiView> view
                     = DistinctUntilChangedInterceptor.unwrap(wrappedView);
             if (view != null) {
@@ -52,6 +69,16 @@ public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
         }
     }
 
+    @Nullable
+    @Override
+    public ViewCallStage createStage(@NonNull final TiView view) {
+        if (!hasObjectMethodWithAnnotation(view, DistinctUntilChanged.class)) {
+            // no method has the annotation, nothing to intercept
+            return null;
+        }
+        return new DistinctUntilChangedInvocationHandler<>(view);
+    }
+
     @Override
     public <V extends TiView> V intercept(final V view) {
         final V wrapped = wrap(view);
@@ -75,8 +102,14 @@ public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
             return view;
         }
 
-        return (V) Proxy.newProxyInstance(
-                foundInterfaceClass.getClassLoader(), new Class<?>[]{foundInterfaceClass},
-                new DistinctUntilChangedInvocationHandler<>(view));
+        final V generated = GeneratedViewWrapper.DISTINCT_UNTIL_CHANGED
+                .wrap(view, foundInterfaceClass);
+        if (generated != null) {
+            // prefer the wrapper generated by the thirtyinch-compiler
+            return generated;
+        }
+
+        return ViewDispatchPlan.of(foundInterfaceClass)
+                .newProxy(new DistinctUntilChangedInvocationHandler<>(view));
     }
 }
@@ -15,30 +15,99 @@
 
 package net.grandcentrix.thirtyinch.distinctuntilchanged;
 
-import androidx.annotation.VisibleForTesting;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
 import net.grandcentrix.thirtyinch.TiLog;
-import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.internal.FusedViewInvocationHandler;
+import net.grandcentrix.thirtyinch.internal.ViewDispatchPlan;
 import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
 
-final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationHandler {
+final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationHandler
+        implements ViewCallStage {
 
     private static final String TAG = DistinctUntilChangedInvocationHandler.class.getSimpleName();
 
-    @VisibleForTesting
-    HashMap<String, DistinctComparator> mLatestMethodCalls = new HashMap<>();
+    private final ViewCallStage.Chain mCallView;
+
+    /**
+     * the comparators of the latest calls, indexed by the distinct slot of the method
+     */
+    private DistinctComparator[] mLatestMethodCalls;
+
+    private final ViewDispatchPlan mPlan;
 
     private final V mView;
 
     public DistinctUntilChangedInvocationHandler(V view) {
         mView = view;
+        mCallView = FusedViewInvocationHandler.callView(view);
+        mPlan = ViewDispatchPlan.ofView(view);
+        mLatestMethodCalls = new DistinctComparator[mPlan.getDistinctSlotCount()];
     }
 
     public void clearCache() {
-        mLatestMethodCalls.clear();
+        Arrays.fill(mLatestMethodCalls, null);
+    }
+
+    @Nullable
+    @Override
+    public Object handle(@NonNull final Method method, @NonNull final Object[] args,
+            @NonNull final Chain next) throws Throwable {
+
+        // the plan only contains a distinct slot for void methods with arguments of the view
+        // interface extending View which are annotated with @DistinctUntilChanged
+        final ViewDispatchPlan.MethodDispatch dispatch = mPlan.get(method);
+        final DistinctUntilChanged ducAnnotation = dispatch.getDistinctUntilChanged();
+        if (ducAnnotation == null) {
+            return next.proceed(method, args);
+        }
+
+        final int slot = dispatch.getDistinctSlot();
+        if (slot >= mLatestMethodCalls.length) {
+            // the plan learned new methods after this handler was created
+            mLatestMethodCalls =
+                    Arrays.copyOf(mLatestMethodCalls, mPlan.getDistinctSlotCount());
+        }
+
+        final DistinctComparator comparator = mLatestMethodCalls[slot];
+        if (comparator == null) {
+            // detected first call to method
+
+            // initialize a new comparator defined by the annotation
+            DistinctComparator newComparator = ducAnnotation.comparator().newInstance();
+
+            // initialize the comparator with the already called parameters
+            // the comparator is now able to compare this call with the next one
+            if (newComparator.compareWith(args)) {
+                // when initializing the comparator with the first call it cannot return true
+                // which would mean the first call is the same as the previous call which
+                // never happened
+                throw new IllegalStateException("comparator returns 'true' at initialization.");
+            }
+            // save for later usage
+            mLatestMethodCalls[slot] = newComparator;
+
+            // it's the first call to this method, call it
+            return next.proceed(method, args);
+        }
+
+        // compare with last called arguments
+        if (!comparator.compareWith(args)) {
+            // arguments changed, call the method
+            return next.proceed(method, args);
+        } else {
+            // don't call the method, the data was already sent to the view
+            if (ducAnnotation.logDropped()) {
+                TiLog.d(TAG, "not calling " + method
+                        + " with args " + Arrays.toString(args) + "."
+                        + " Was already called with the same parameters before.");
+            }
+            return null;
+        }
     }
 
     @Override
@@ -51,7 +120,6 @@ final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationH
     protected Object handleInvocation(final Object proxy, final Method method, final Object[] args)
             throws Throwable {
 
-        //noinspection TryWithIdenticalCatches
         try {
             // If the method is a method from Object then defer to normal invocation.
             final Class<?> declaringClass = method.getDeclaringClass();
@@ -59,72 +127,11 @@ final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationH
                 return method.invoke(this, args);
             }
 
-            // always call methods with zero arguments
-            if (args == null || args.length == 0) {
-                return method.invoke(mView, args);
-            }
-
-            // only void methods support distinctUntilChanged
-            if (!method.getReturnType().equals(Void.TYPE)) {
-                return method.invoke(mView, args);
-            }
-
-            // @DistinctUntilChanged is only valid on methods of the view interface extending View
-            if (!TiView.class.isAssignableFrom(declaringClass)) {
-                return method.invoke(mView, args);
-            }
-
-            final DistinctUntilChanged ducAnnotation =
-                    method.getAnnotation(DistinctUntilChanged.class);
-
-            // check if method is correct annotated
-            if (ducAnnotation == null) {
-                return method.invoke(mView, args);
-            }
-
-            final String methodName = method.toGenericString();
-
-            final DistinctComparator comparator = mLatestMethodCalls.get(methodName);
-            if (comparator == null) {
-                // detected first call to method
-
-                // initialize a new comparator defined by the annotation
-                DistinctComparator newComparator = ducAnnotation.comparator().newInstance();
-
-                // initialize the comparator with the already called parameters
-                // the comparator is now able to compare this call with the next one
-                if (newComparator.compareWith(args)) {
-                    // when initializing the comparator with the first call it cannot return true
-                    // which would mean the first call is the same as the previous call which
-                    // never happened
-                    throw new IllegalStateException("comparator returns 'true' at initialization.");
-                }
-                // save for later usage
-                mLatestMethodCalls.put(methodName, newComparator);
-
-                // it's the first call to this method, call it
-                return method.invoke(mView, args);
-            }
-
-            // compare with last called arguments
-            if (!comparator.compareWith(args)) {
-                // arguments changed, call the method
-                return method.invoke(mView, args);
-            } else {
-                // don't call the method, the data was already sent to the view
-                if (ducAnnotation.logDropped()) {
-                    TiLog.d(TAG, "not calling " + method
-                            + " with args " + Arrays.toString(args) + "."
-                            + " Was already called with the same parameters before.");
-                }
-                return null;
-            }
+            return handle(method, args, mCallView);
 
         } catch (InvocationTargetException e) {
             e.printStackTrace();
             throw e.getCause();
-        } catch (IllegalAccessException e) {
-            throw e;
         }
     }
 }
@@ -22,13 +22,22 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import java.util.HashMap;
+import androidx.fragment.app.FragmentActivity;
 import net.grandcentrix.thirtyinch.TiLog;
 
 /**
  * Keeps track of {@link Activity}s across orientation changes using a id when added via
- * {@link #startTracking(Activity, String)}. When the {@link Activity} finishes the
+ * {@link #startTracking(Activity, long)}. When the {@link Activity} finishes the
  * {@link ActivityFinishListener} is triggered.
+ * <p>
+ * Only Activities hosting presenters are tracked, all other Activities are ignored. The tracked
+ * Activities are weakly referenced and don't leak when {@link #onActivityDestroyed(Activity)}
+ * isn't called, i.e. when the Activity crashed.
+ * </p>
+ * <p>
+ * Registers the {@link FragmentInstanceObserver} for recreated {@link FragmentActivity}s which
+ * contained Fragments hosting presenters, before the Fragments of the Activity get restored.
+ * </p>
  */
 public class ActivityInstanceObserver implements Application.ActivityLifecycleCallbacks {
 
@@ -41,59 +50,90 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
          * called when the {@link Activity} finishes completely. Doesn't get called when the
          * Activity changes its configuration
          */
-        void onActivityFinished(final Activity activity, final String hostId);
+        void onActivityFinished(final Activity activity, final long hostId);
     }
 
     @VisibleForTesting
     static final String TI_ACTIVITY_ID_KEY = "ThirtyInch_Activity_id";
 
+    @VisibleForTesting
+    static final String TI_OBSERVE_FRAGMENTS_KEY = "ThirtyInch_observe_Fragments";
+
     private static final String TAG = ActivityInstanceObserver.class.getSimpleName();
 
+    @Nullable
+    private final FragmentInstanceObserver mFragmentObserver;
+
     private ActivityFinishListener mListener;
 
-    private final HashMap<Activity, String> mScopeIdForActivity = new HashMap<>();
+    /**
+     * read from any thread by {@link #getActivityId(Activity)}
+     */
+    @VisibleForTesting
+    final WeakHostIdMap<Activity> mScopeIdForActivity = new WeakHostIdMap<>();
 
     public ActivityInstanceObserver(@NonNull final ActivityFinishListener listener) {
+        this(listener, null);
+    }
+
+    public ActivityInstanceObserver(@NonNull final ActivityFinishListener listener,
+            @Nullable final FragmentInstanceObserver fragmentObserver) {
         mListener = listener;
+        mFragmentObserver = fragmentObserver;
     }
 
     @Override
     public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
-        if (savedInstanceState != null) {
-            final String scopeId = savedInstanceState.getString(TI_ACTIVITY_ID_KEY);
-            if (scopeId != null) {
-                // refresh mapping
-                mScopeIdForActivity.put(activity, scopeId);
-            }
+        if (savedInstanceState == null) {
+            // new Activity, can't host presenters yet
+            return;
+        }
+        final long scopeId =
+                savedInstanceState.getLong(TI_ACTIVITY_ID_KEY, TiPresenterSavior.NO_ID);
+        if (scopeId != TiPresenterSavior.NO_ID) {
+            // refresh mapping
+            mScopeIdForActivity.put(activity, scopeId);
+        }
+        if (mFragmentObserver != null && activity instanceof FragmentActivity
+                && savedInstanceState.getBoolean(TI_OBSERVE_FRAGMENTS_KEY, false)) {
+            // called before the fragments get created
+            mFragmentObserver.observe((FragmentActivity) activity);
         }
     }
 
     /**
-     * Returns the id provided by {@link #startTracking(Activity, String)}
+     * Returns the id provided by {@link #startTracking(Activity, long)}
      *
      * @return a unique id for each {@link Activity} which doesn't change when the {@link Activity}
-     * changes its configuration
+     * changes its configuration, {@link TiPresenterSavior#NO_ID} when the Activity isn't tracked
      */
-    @Nullable
-    public String getActivityId(final Activity activity) {
+    public long getActivityId(final Activity activity) {
         return mScopeIdForActivity.get(activity);
     }
 
+    /**
+     * @return {@code true} when an {@link Activity} instance with the id is alive
+     */
+    public boolean isTracking(final long activityId) {
+        return mScopeIdForActivity.containsId(activityId);
+    }
+
     @Override
     public void onActivityDestroyed(final Activity activity) {
+        final long scopeId = mScopeIdForActivity.remove(activity);
+        if (scopeId == TiPresenterSavior.NO_ID) {
+            // activity not managed
+            return;
+        }
         TiLog.v(TAG, "destroying " + activity);
         TiLog.v(TAG, "isFinishing = " + activity.isFinishing());
 
         if (activity.isFinishing()) {
             // detected Activity finish, no new Activity instance will be created
             // with savedInstanceState, clear saved presenters
-            final String scopeId = mScopeIdForActivity.remove(activity);
             mListener.onActivityFinished(activity, scopeId);
-        } else {
-            // don't leak old activity instances
-            // scopeId is saved in savedInstanceState of finishing Activity.
-            mScopeIdForActivity.remove(activity);
         }
+        // otherwise the scopeId is saved in savedInstanceState of the destroyed Activity
     }
 
     @Override
@@ -108,12 +148,16 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
 
     @Override
     public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
-        String id = mScopeIdForActivity.get(activity);
-        if (id == null) {
+        if (mFragmentObserver != null && activity instanceof FragmentActivity
+                && mFragmentObserver.isObserving((FragmentActivity) activity)) {
+            outState.putBoolean(TI_OBSERVE_FRAGMENTS_KEY, true);
+        }
+        final long id = mScopeIdForActivity.get(activity);
+        if (id == TiPresenterSavior.NO_ID) {
             // activity not managed, don't add an id.
             return;
         }
-        outState.putString(TI_ACTIVITY_ID_KEY, id);
+        outState.putLong(TI_ACTIVITY_ID_KEY, id);
     }
 
     @Override
@@ -133,7 +177,7 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
      * @param activity to be tracked {@link Activity}
      * @see #getActivityId(Activity)
      */
-    public void startTracking(final Activity activity, final String activityId) {
+    public void startTracking(final Activity activity, final long activityId) {
         mScopeIdForActivity.put(activity, activityId);
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Map with primitive {@code long} keys for a few entries which are read far more often than
+ * changed, like the presenters of a host. Reads neither block nor allocate. Changes copy the
+ * sorted key and value arrays and are synchronized on the map.
+ */
+final class CopyOnWriteLongMap<V> {
+
+    /**
+     * Visits all entries of a {@link CopyOnWriteLongMap}, see {@link #forEach(Visitor)}
+     */
+    interface Visitor<V> {
+
+        void visit(long key, @NonNull V value);
+    }
+
+    /**
+     * immutable snapshot of the entries, sorted by key. Taking a snapshot doesn't allocate
+     */
+    static final class Snapshot<V> {
+
+        private final long[] mKeys;
+
+        private final Object[] mValues;
+
+        Snapshot(final long[] keys, final Object[] values) {
+            mKeys = keys;
+            mValues = values;
+        }
+
+        public long keyAt(final int index) {
+            return mKeys[index];
+        }
+
+        public int size() {
+            return mKeys.length;
+        }
+
+        @NonNull
+        public V valueAt(final int index) {
+            //noinspection unchecked
+            return (V) mValues[index];
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new long[0], new Object[0]);
+
+    @SuppressWarnings("unchecked")
+    private volatile Snapshot<V> mEntries = EMPTY;
+
+    /**
+     * calls the {@code visitor} for all entries in the order of their keys. Changes during the
+     * iteration are not visible to the visitor
+     */
+    public void forEach(@NonNull final Visitor<V> visitor) {
+        final Snapshot<V> entries = mEntries;
+        for (int i = 0; i < entries.mKeys.length; i++) {
+            //noinspection unchecked
+            visitor.visit(entries.mKeys[i], (V) entries.mValues[i]);
+        }
+    }
+
+    @Nullable
+    public V get(final long key) {
+        final Snapshot<V> entries = mEntries;
+        final int index = Arrays.binarySearch(entries.mKeys, key);
+        //noinspection unchecked
+        return index >= 0 ? (V) entries.mValues[index] : null;
+    }
+
+    public boolean isEmpty() {
+        return mEntries.mKeys.length == 0;
+    }
+
+    /**
+     * @return the previous value of the key
+     */
+    @Nullable
+    public synchronized V put(final long key, @NonNull final V value) {
+        final Snapshot<V> entries = mEntries;
+        final int index = Arrays.binarySearch(entries.mKeys, key);
+        if (index >= 0) {
+            final Object[] values = entries.mValues.clone();
+            values[index] = value;
+            mEntries = new Snapshot<>(entries.mKeys, values);
+            //noinspection unchecked
+            return (V) entries.mValues[index];
+        }
+
+        final int insert = -(index + 1);
+        final int size = entries.mKeys.length;
+        final long[] keys = new long[size + 1];
+        final Object[] values = new Object[size + 1];
+        System.arraycopy(entries.mKeys, 0, keys, 0, insert);
+        System.arraycopy(entries.mValues, 0, values, 0, insert);
+        keys[insert] = key;
+        values[insert] = value;
+        System.arraycopy(entries.mKeys, insert, keys, insert + 1, size - insert);
+        System.arraycopy(entries.mValues, insert, values, insert + 1, size - insert);
+        mEntries = new Snapshot<>(keys, values);
+        return null;
+    }
+
+    /**
+     * @return the removed value, {@code null} when the key wasn't mapped
+     */
+    @Nullable
+    public synchronized V remove(final long key) {
+        final Snapshot<V> entries = mEntries;
+        final int index = Arrays.binarySearch(entries.mKeys, key);
+        if (index < 0) {
+            return null;
+        }
+        removeAt(entries, index);
+        //noinspection unchecked
+        return (V) entries.mValues[index];
+    }
+
+    /**
+     * removes the key only when it is mapped to the {@code value}
+     *
+     * @return {@code true} when removed
+     */
+    public synchronized boolean remove(final long key, @NonNull final V value) {
+        final Snapshot<V> entries = mEntries;
+        final int index = Arrays.binarySearch(entries.mKeys, key);
+        if (index < 0 || entries.mValues[index] != value) {
+            return false;
+        }
+        removeAt(entries, index);
+        return true;
+    }
+
+    /**
+     * removes the entry of the {@code value}, compared by identity
+     *
+     * @return {@code true} when removed
+     */
+    public synchronized boolean removeValue(@NonNull final V value) {
+        final Snapshot<V> entries = mEntries;
+        for (int i = 0; i < entries.mValues.length; i++) {
+            if (entries.mValues[i] == value) {
+                removeAt(entries, i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return mEntries.mKeys.length;
+    }
+
+    /**
+     * @return the current entries, not affected by later changes
+     */
+    @NonNull
+    public Snapshot<V> snapshot() {
+        return mEntries;
+    }
+
+    /**
+     * @return an unmodifiable snapshot of all values in the order of their keys
+     */
+    @NonNull
+    public List<V> values() {
+        //noinspection unchecked
+        return Collections.unmodifiableList(Arrays.asList((V[]) mEntries.mValues));
+    }
+
+    private void removeAt(final Snapshot<V> entries, final int index) {
+        final int size = entries.mKeys.length;
+        if (size == 1) {
+            //noinspection unchecked
+            mEntries = EMPTY;
+            return;
+        }
+        final long[] keys = new long[size - 1];
+        final Object[] values = new Object[size - 1];
+        System.arraycopy(entries.mKeys, 0, keys, 0, index);
+        System.arraycopy(entries.mValues, 0, values, 0, index);
+        System.arraycopy(entries.mKeys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(entries.mValues, index + 1, values, index, size - index - 1);
+        mEntries = new Snapshot<>(keys, values);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Optional features of a {@link DelegatedTiActivity}. The {@link TiActivityDelegate} uses them
+ * when the {@link DelegatedTiActivity} implements this interface, existing implementations of
+ * {@link DelegatedTiActivity} keep working without them.
+ */
+public interface DelegatedTiActivityOptions {
+
+    /**
+     * @return the key a presenter is kept with after this Activity finished, {@code null} to
+     * always destroy the presenter, see
+     * {@link TiPresenterSavior#keepAfterFinish(net.grandcentrix.thirtyinch.TiPresenter, String)}
+     */
+    @Nullable
+    String getPresenterCacheKey();
+
+    /**
+     * @return the {@link Executor} creating the presenter in the background, {@code null} to
+     * create the presenter synchronously on the UI thread
+     */
+    @Nullable
+    Executor getPresenterCreationExecutor();
+
+    /**
+     * @return the token of a presenter prewarmed for this Activity, see
+     * {@link PresenterSavior#prewarm(TiPresenterProvider, long, java.util.concurrent.TimeUnit)}
+     */
+    @Nullable
+    String getPrewarmedPresenterToken();
+}
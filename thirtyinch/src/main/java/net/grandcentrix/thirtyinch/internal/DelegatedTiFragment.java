@@ -24,7 +24,8 @@ public interface DelegatedTiFragment {
      * This Object is used identify the correct scope where the presenter should be saved in the
      * {@link PresenterSavior}. This object is only used for identity comparison.
      *
-     * @return the object hosting this {@link Fragment}, most likely {@link Fragment#getHost()}
+     * @return the object hosting this {@link Fragment}, most likely {@link Fragment#getHost()},
+     * a parent {@link Fragment} or a {@link PresenterSavior.SharedScope}
      */
     Object getHostingContainer();
 
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Optional features of a {@link DelegatedTiFragment}. The {@link TiFragmentDelegate} uses them
+ * when the {@link DelegatedTiFragment} implements this interface, existing implementations of
+ * {@link DelegatedTiFragment} keep working without them.
+ */
+public interface DelegatedTiFragmentOptions {
+
+    /**
+     * @return the {@link Executor} creating the presenter in the background, {@code null} to
+     * create the presenter synchronously on the UI thread
+     */
+    @Nullable
+    Executor getPresenterCreationExecutor();
+
+    /**
+     * @return the key the presenter is shared with in the scope of
+     * {@link DelegatedTiFragment#getHostingContainer()}, {@code null} when the presenter is not
+     * shared
+     */
+    @Nullable
+    String getSharedPresenterKey();
+
+    /**
+     * @return {@code true} when the Activity of the Fragment is finishing, the Fragment won't be
+     * recreated
+     */
+    boolean isHostingActivityFinishing();
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.app.Activity;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
+import java.util.WeakHashMap;
+import net.grandcentrix.thirtyinch.TiLog;
+import net.grandcentrix.thirtyinch.util.BackstackReader;
+
+/**
+ * Keeps track of {@link Fragment}s across orientation changes using a id when added via
+ * {@link #startTracking(Fragment, long)}, the counterpart of {@link ActivityInstanceObserver}.
+ * When the {@link Fragment} finishes the {@link FragmentFinishListener} is triggered.
+ * <p>
+ * Gets registered on the {@link FragmentManager} of the {@link FragmentActivity}s containing
+ * Fragments which host presenters, see {@link #observe(FragmentActivity)}, and receives the events
+ * of all nested fragments. The tracked Fragments are weakly referenced.
+ * </p>
+ */
+public class FragmentInstanceObserver extends FragmentManager.FragmentLifecycleCallbacks {
+
+    /**
+     * Callback when a {@link Fragment} will be completely destroyed
+     */
+    public interface FragmentFinishListener {
+
+        /**
+         * called when the {@link Fragment} finishes completely, because it got removed or its
+         * Activity finished. Doesn't get called when the Fragment changes its configuration or
+         * is in the back stack
+         */
+        void onFragmentFinished(final Fragment fragment, final long hostId);
+    }
+
+    @VisibleForTesting
+    static final String TI_FRAGMENT_ID_KEY = "ThirtyInch_Fragment_id";
+
+    private static final String TAG = FragmentInstanceObserver.class.getSimpleName();
+
+    private final FragmentFinishListener mListener;
+
+    /**
+     * the managers this observer is registered at, guarded by itself
+     */
+    private final WeakHashMap<FragmentManager, Boolean> mObservedManagers = new WeakHashMap<>();
+
+    /**
+     * read from any thread by {@link #getFragmentId(Fragment)}
+     */
+    @VisibleForTesting
+    final WeakHostIdMap<Fragment> mScopeIdForFragment = new WeakHostIdMap<>();
+
+    public FragmentInstanceObserver(@NonNull final FragmentFinishListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Returns the id provided by {@link #startTracking(Fragment, long)}
+     *
+     * @return a unique id for each {@link Fragment} which doesn't change when the {@link Fragment}
+     * changes its configuration, {@link TiPresenterSavior#NO_ID} when the Fragment isn't tracked
+     */
+    public long getFragmentId(final Fragment fragment) {
+        return mScopeIdForFragment.get(fragment);
+    }
+
+    /**
+     * @return {@code true} when this observer is registered for the fragments of the
+     * {@code activity}
+     */
+    public boolean isObserving(@NonNull final FragmentActivity activity) {
+        final FragmentManager fragmentManager = activity.getSupportFragmentManager();
+        synchronized (mObservedManagers) {
+            return mObservedManagers.containsKey(fragmentManager);
+        }
+    }
+
+    /**
+     * @return {@code true} when a {@link Fragment} instance with the id is alive
+     */
+    public boolean isTracking(final long fragmentId) {
+        return mScopeIdForFragment.containsId(fragmentId);
+    }
+
+    /**
+     * registers this observer for all fragments of the {@code activity}, once per
+     * {@link FragmentManager}
+     */
+    public void observe(@NonNull final FragmentActivity activity) {
+        final FragmentManager fragmentManager = activity.getSupportFragmentManager();
+        synchronized (mObservedManagers) {
+            if (mObservedManagers.put(fragmentManager, Boolean.TRUE) == null) {
+                fragmentManager.registerFragmentLifecycleCallbacks(this, true);
+            }
+        }
+    }
+
+    @Override
+    public void onFragmentDestroyed(@NonNull final FragmentManager fm,
+            @NonNull final Fragment fragment) {
+        final long scopeId = mScopeIdForFragment.remove(fragment);
+        if (scopeId == TiPresenterSavior.NO_ID) {
+            // fragment not managed
+            return;
+        }
+        if (isFinishing(fragment)) {
+            TiLog.v(TAG, "fragment finished " + fragment);
+            mListener.onFragmentFinished(fragment, scopeId);
+        }
+        // otherwise the scopeId is saved in the savedInstanceState of the Fragment
+    }
+
+    @Override
+    public void onFragmentPreCreated(@NonNull final FragmentManager fm,
+            @NonNull final Fragment fragment, @Nullable final Bundle savedInstanceState) {
+        if (savedInstanceState != null) {
+            final long scopeId =
+                    savedInstanceState.getLong(TI_FRAGMENT_ID_KEY, TiPresenterSavior.NO_ID);
+            if (scopeId != TiPresenterSavior.NO_ID) {
+                // refresh mapping before the Fragment recovers its presenters in onCreate
+                mScopeIdForFragment.put(fragment, scopeId);
+            }
+        }
+    }
+
+    @Override
+    public void onFragmentSaveInstanceState(@NonNull final FragmentManager fm,
+            @NonNull final Fragment fragment, @NonNull final Bundle outState) {
+        final long id = mScopeIdForFragment.get(fragment);
+        if (id == TiPresenterSavior.NO_ID) {
+            // fragment not managed, don't add an id.
+            return;
+        }
+        outState.putLong(TI_FRAGMENT_ID_KEY, id);
+    }
+
+    /**
+     * tracks the Fragment over orientation changes using the passed in id. Use
+     * {@link #getFragmentId(Fragment)} to get the current Fragment instance with the id
+     *
+     * @param fragment to be tracked {@link Fragment}
+     * @see #getFragmentId(Fragment)
+     */
+    public void startTracking(final Fragment fragment, final long fragmentId) {
+        mScopeIdForFragment.put(fragment, fragmentId);
+    }
+
+    /**
+     * @return {@code true} when no new instance of the {@code fragment} will be created
+     */
+    private static boolean isFinishing(final Fragment fragment) {
+        final Activity activity = fragment.getActivity();
+        if (activity != null && activity.isFinishing()) {
+            return true;
+        }
+        for (Fragment f = fragment; f != null; f = f.getParentFragment()) {
+            if (f.isRemoving() && !BackstackReader.isInBackStack(f)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
+
+/**
+ * Single proxy of a {@link TiView} running the {@link ViewCallStage}s of multiple
+ * {@link FusableBindViewInterceptor}s. The chain of stages is linked once, a view call passes
+ * all stages without additional proxies and calls the real view with a single reflective call.
+ */
+public final class FusedViewInvocationHandler extends AbstractInvocationHandler {
+
+    /**
+     * links a stage to the following stages
+     */
+    private static final class StageChain implements ViewCallStage.Chain {
+
+        private final ViewCallStage.Chain mNext;
+
+        private final ViewCallStage mStage;
+
+        StageChain(final ViewCallStage stage, final ViewCallStage.Chain next) {
+            mStage = stage;
+            mNext = next;
+        }
+
+        @Nullable
+        @Override
+        public Object proceed(@NonNull final Method method, @NonNull final Object[] args)
+                throws Throwable {
+            return mStage.handle(method, args, mNext);
+        }
+    }
+
+    /**
+     * the end of each chain, calls the real view
+     */
+    private static final class ViewCall implements ViewCallStage.Chain {
+
+        private final Object mView;
+
+        ViewCall(final Object view) {
+            mView = view;
+        }
+
+        @Nullable
+        @Override
+        public Object proceed(@NonNull final Method method, @NonNull final Object[] args)
+                throws Throwable {
+            try {
+                try {
+                    return method.invoke(mView, args);
+                } catch (IllegalAccessException e) {
+                    // not accessible from this package, i.e. a method of a private class
+                    method.setAccessible(true);
+                    return method.invoke(mView, args);
+                }
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private final ViewCallStage.Chain mChain;
+
+    private final List<ViewCallStage> mStages;
+
+    private final Object mView;
+
+    /**
+     * A chain directly calling the {@code view}, throwing the exceptions of the view methods
+     * unwrapped. Allows stages to be used in a proxy of their own.
+     */
+    @NonNull
+    public static ViewCallStage.Chain callView(@NonNull final Object view) {
+        return new ViewCall(view);
+    }
+
+    /**
+     * wraps the {@code view} in a single proxy running the {@code stages}
+     *
+     * @param stages the stages in call order, the first stage receives the calls first
+     * @return the proxied view or the {@code view} itself when there are no stages
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <V extends TiView> V fuse(@NonNull final V view,
+            @NonNull final List<ViewCallStage> stages) {
+        if (stages.isEmpty()) {
+            return view;
+        }
+
+        final Class<?> foundInterfaceClass =
+                getInterfaceOfClassExtendingGivenInterface(view.getClass(), TiView.class);
+        if (foundInterfaceClass == null) {
+            throw new IllegalStateException("the interface extending View could not be found");
+        }
+
+        return ViewDispatchPlan.of(foundInterfaceClass)
+                .newProxy(new FusedViewInvocationHandler(view, stages));
+    }
+
+    private FusedViewInvocationHandler(@NonNull final Object view,
+            @NonNull final List<ViewCallStage> stages) {
+        mView = view;
+        mStages = new ArrayList<>(stages);
+        ViewCallStage.Chain chain = new ViewCall(view);
+        for (int i = mStages.size() - 1; i >= 0; i--) {
+            chain = new StageChain(mStages.get(i), chain);
+        }
+        mChain = chain;
+    }
+
+    /**
+     * @return the first stage of the given type, {@code null} when this proxy doesn't run such a
+     * stage
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <S extends ViewCallStage> S getStage(@NonNull final Class<S> stageClass) {
+        for (int i = 0; i < mStages.size(); i++) {
+            final ViewCallStage stage = mStages.get(i);
+            if (stageClass.isInstance(stage)) {
+                return (S) stage;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "FusedProxy@" + Integer.toHexString(this.hashCode()) + "-" + mView.toString();
+    }
+
+    @Override
+    protected Object handleInvocation(final Object proxy, final Method method,
+            final Object[] args) throws Throwable {
+        return mChain.proceed(method, args);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.WeakHashMap;
+import net.grandcentrix.thirtyinch.TiView;
+
+/**
+ * Finds and creates the view wrappers generated by the {@code thirtyinch-compiler}. A wrapper
+ * implements the view interface and calls the view directly, without {@link
+ * java.lang.reflect.Proxy} and reflection. The wrapper of the view interface
+ * {@code com.example.Outer$MainView} is named {@code com.example.Outer_MainView} followed by
+ * the suffix of the interceptor.
+ * <p>
+ * The constructors of the wrappers are cached per view interface, including the interfaces
+ * without a generated wrapper. Binding a view doesn't look up the constructor again. The cache
+ * doesn't prevent the interfaces from being unloaded on memory pressure.
+ * </p>
+ */
+public final class GeneratedViewWrapper {
+
+    public static final GeneratedViewWrapper CALL_ON_MAIN_THREAD =
+            new GeneratedViewWrapper("_CallOnMainThreadWrapper");
+
+    public static final GeneratedViewWrapper DISTINCT_UNTIL_CHANGED =
+            new GeneratedViewWrapper("_DistinctUntilChangedWrapper");
+
+    private static final SoftReference<Constructor<?>> NOT_GENERATED = new SoftReference<>(null);
+
+    /**
+     * the constructor references the generated class and therefore the view interface, it is
+     * softly referenced to allow the interface to be unloaded. Guarded by itself
+     */
+    private final WeakHashMap<Class<?>, SoftReference<Constructor<?>>> mConstructors =
+            new WeakHashMap<>();
+
+    private final String mSuffix;
+
+    private GeneratedViewWrapper(final String suffix) {
+        mSuffix = suffix;
+    }
+
+    /**
+     * @return the constructor of the generated wrapper of the {@code viewInterface} taking the
+     * view, {@code null} when there is no wrapper
+     */
+    @Nullable
+    public Constructor<?> getConstructor(@NonNull final Class<?> viewInterface) {
+        synchronized (mConstructors) {
+            final SoftReference<Constructor<?>> ref = mConstructors.get(viewInterface);
+            if (ref == NOT_GENERATED) {
+                return null;
+            }
+            final Constructor<?> constructor = ref != null ? ref.get() : null;
+            if (constructor != null) {
+                return constructor;
+            }
+        }
+
+        final Class<?> wrapperClass = findWrapperClass(viewInterface);
+        Constructor<?> constructor = null;
+        if (wrapperClass != null) {
+            try {
+                constructor = wrapperClass.getConstructor(viewInterface);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(
+                        "generated wrapper " + wrapperClass.getName() + " can't be created", e);
+            }
+        }
+
+        synchronized (mConstructors) {
+            mConstructors.put(viewInterface, constructor == null
+                    ? NOT_GENERATED : new SoftReference<Constructor<?>>(constructor));
+        }
+        return constructor;
+    }
+
+    /**
+     * @return the generated wrapper class of the {@code viewInterface}, {@code null} when there
+     * is none
+     */
+    @Nullable
+    public Class<?> getWrapperClass(@NonNull final Class<?> viewInterface) {
+        final Constructor<?> constructor = getConstructor(viewInterface);
+        return constructor != null ? constructor.getDeclaringClass() : null;
+    }
+
+    /**
+     * wraps the {@code view} in a new instance of the generated wrapper of the {@code
+     * viewInterface}
+     *
+     * @return the wrapped view, {@code null} when no wrapper was generated for the interface
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <V extends TiView> V wrap(@NonNull final V view, @NonNull final Class<?> viewInterface) {
+        final Constructor<?> constructor = getConstructor(viewInterface);
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return (V) constructor.newInstance(view);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("generated wrapper "
+                    + constructor.getDeclaringClass().getName() + " failed", e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("generated wrapper "
+                    + constructor.getDeclaringClass().getName() + " can't be created", e);
+        }
+    }
+
+    @VisibleForTesting
+    String getWrapperName(@NonNull final Class<?> viewInterface) {
+        final String name = viewInterface.getName();
+        final int packageEnd = name.lastIndexOf('.');
+        return name.substring(0, packageEnd + 1)
+                + name.substring(packageEnd + 1).replace('$', '_') + mSuffix;
+    }
+
+    @Nullable
+    private Class<?> findWrapperClass(@NonNull final Class<?> viewInterface) {
+        try {
+            ClassLoader classLoader = viewInterface.getClassLoader();
+            if (classLoader == null) {
+                classLoader = GeneratedViewWrapper.class.getClassLoader();
+            }
+            final Class<?> wrapperClass =
+                    Class.forName(getWrapperName(viewInterface), true, classLoader);
+            return viewInterface.isAssignableFrom(wrapperClass) ? wrapperClass : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
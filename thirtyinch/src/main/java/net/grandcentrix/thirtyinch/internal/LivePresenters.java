@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Process wide registry of the presenters of hosts which aren't destroyed yet, regardless whether
+ * they are saved in a {@link TiPresenterSavior}, kept in a {@code ViewModelStore} or not retained
+ * at all. Presenters are added by the {@link PresenterSavior} when a host or the savior itself
+ * starts managing them, presenters only created i.e. in unit tests are never added. Used to
+ * forward memory pressure to every live presenter, see {@link PresenterSavior#trimMemory(int)}.
+ * <p>
+ * Presenters are compared by identity, {@link TiPresenter#equals(Object)} isn't used. They are
+ * referenced weakly to not leak presenters which never get destroyed.
+ */
+public final class LivePresenters {
+
+    /**
+     * weak reference compared by the identity of its presenter. A cleared reference only equals
+     * itself
+     */
+    private static final class PresenterRef extends WeakReference<TiPresenter> {
+
+        private final int mHash;
+
+        PresenterRef(@NonNull final TiPresenter presenter,
+                final ReferenceQueue<TiPresenter> queue) {
+            super(presenter, queue);
+            mHash = System.identityHashCode(presenter);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof PresenterRef)) {
+                return false;
+            }
+            final TiPresenter presenter = get();
+            return presenter != null && presenter == ((PresenterRef) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+
+    /**
+     * guarded by itself
+     */
+    private static final HashSet<PresenterRef> PRESENTERS = new HashSet<>();
+
+    private static final ReferenceQueue<TiPresenter> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * called when a host or the savior starts managing the presenter
+     *
+     * @return {@code true} when the presenter wasn't registered before
+     */
+    public static boolean add(@NonNull final TiPresenter presenter) {
+        synchronized (PRESENTERS) {
+            expungeStaleEntries();
+            return PRESENTERS.add(new PresenterRef(presenter, QUEUE));
+        }
+    }
+
+    /**
+     * @return a snapshot of all live presenters
+     */
+    @NonNull
+    public static List<TiPresenter> getAll() {
+        synchronized (PRESENTERS) {
+            expungeStaleEntries();
+            final ArrayList<TiPresenter> presenters = new ArrayList<>(PRESENTERS.size());
+            for (final PresenterRef ref : PRESENTERS) {
+                final TiPresenter presenter = ref.get();
+                if (presenter != null) {
+                    presenters.add(presenter);
+                }
+            }
+            return presenters;
+        }
+    }
+
+    public static boolean isEmpty() {
+        synchronized (PRESENTERS) {
+            expungeStaleEntries();
+            return PRESENTERS.isEmpty();
+        }
+    }
+
+    /**
+     * called when the presenter got destroyed
+     *
+     * @return {@code true} when no presenter is registered anymore
+     */
+    public static boolean remove(@NonNull final TiPresenter presenter) {
+        synchronized (PRESENTERS) {
+            PRESENTERS.remove(new PresenterRef(presenter, null));
+            expungeStaleEntries();
+            return PRESENTERS.isEmpty();
+        }
+    }
+
+    /**
+     * forgets the presenters created by other tests
+     */
+    @VisibleForTesting
+    static void clear() {
+        synchronized (PRESENTERS) {
+            PRESENTERS.clear();
+        }
+    }
+
+    /**
+     * removes the references of collected presenters, guarded by {@link #PRESENTERS}
+     */
+    private static void expungeStaleEntries() {
+        Reference<? extends TiPresenter> ref;
+        while ((ref = QUEUE.poll()) != null) {
+            //noinspection SuspiciousMethodCalls
+            PRESENTERS.remove(ref);
+        }
+    }
+
+    private LivePresenters() {
+        throw new AssertionError("no instances");
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Creates a presenter in the background for its owner, the {@link TiActivityDelegate} or the
+ * {@link TiFragmentDelegate}. When the Activity or Fragment gets destroyed for a configuration
+ * change before the presenter is ready, the creation is handed over to the recreated instance
+ * instead of being thrown away. The recreated instance finds it by the id saved in its instance
+ * state, see {@link #claimHandedOver(long)}.
+ * <p>
+ * All methods but {@link #run()} are called on the UI thread.
+ * </p>
+ */
+final class PendingPresenterCreation<P extends TiPresenter<?>> implements Runnable {
+
+    /**
+     * Receives the created presenter on the UI thread
+     */
+    interface Owner<P> {
+
+        void onPresenterCreated(@NonNull P presenter);
+    }
+
+    /**
+     * creations waiting for the recreated Activity or Fragment, by their id
+     */
+    @VisibleForTesting
+    static final ConcurrentHashMap<Long, PendingPresenterCreation<?>> HANDED_OVER =
+            new ConcurrentHashMap<>();
+
+    /**
+     * seeded like the presenter ids of the {@link PresenterSavior}, an id saved before the
+     * process died doesn't match a creation of the new process
+     */
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong(System.currentTimeMillis() << 10);
+
+    private boolean mCancelled;
+
+    private final long mId = ID_SEQUENCE.incrementAndGet();
+
+    @Nullable
+    private Owner<P> mOwner;
+
+    /**
+     * the created presenter waiting for the recreated owner
+     */
+    @Nullable
+    private P mPresenter;
+
+    /**
+     * cleared after the creation, it references the owner which started the creation
+     */
+    @Nullable
+    private TiPresenterProvider<P> mPresenterProvider;
+
+    private final Executor mUiThreadExecutor;
+
+    /**
+     * @return the creation handed over with the {@code id}, {@code null} when there is none, i.e.
+     * because the process died in between
+     */
+    @Nullable
+    static PendingPresenterCreation<?> claimHandedOver(final long id) {
+        return HANDED_OVER.remove(id);
+    }
+
+    PendingPresenterCreation(@NonNull final TiPresenterProvider<P> presenterProvider,
+            @NonNull final Executor uiThreadExecutor, @NonNull final Owner<P> owner) {
+        mPresenterProvider = presenterProvider;
+        mUiThreadExecutor = uiThreadExecutor;
+        mOwner = owner;
+    }
+
+    /**
+     * the owner got destroyed for good, the presenter gets destroyed when it's ready
+     */
+    void cancel() {
+        mCancelled = true;
+        mOwner = null;
+        HANDED_OVER.remove(mId);
+        if (mPresenter != null) {
+            mPresenter.destroy();
+            mPresenter = null;
+        }
+    }
+
+    /**
+     * @return the id to save in the instance state of the owner
+     */
+    long getId() {
+        return mId;
+    }
+
+    /**
+     * the owner got destroyed but will be recreated, keeps the creation until the recreated
+     * owner claims it
+     */
+    void handOver() {
+        mOwner = null;
+        HANDED_OVER.put(mId, this);
+    }
+
+    @Override
+    public void run() {
+        final TiPresenterProvider<P> presenterProvider = mPresenterProvider;
+        mPresenterProvider = null;
+        try {
+            //noinspection ConstantConditions
+            final P presenter = presenterProvider.providePresenter();
+            presenter.create();
+            mUiThreadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    onCreated(presenter);
+                }
+            });
+        } catch (final RuntimeException | Error e) {
+            HANDED_OVER.remove(mId);
+            // crash on the UI thread like the synchronous creation does
+            mUiThreadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    throw e;
+                }
+            });
+        }
+    }
+
+    /**
+     * sets the new owner of a creation which was handed over. Receives the presenter right away
+     * when it's already created
+     */
+    void setOwner(@NonNull final Owner<P> owner) {
+        mOwner = owner;
+        final P presenter = mPresenter;
+        if (presenter != null) {
+            mPresenter = null;
+            owner.onPresenterCreated(presenter);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PendingPresenterCreation{id=" + mId + "}";
+    }
+
+    private void onCreated(final P presenter) {
+        if (mCancelled) {
+            presenter.destroy();
+        } else if (mOwner != null) {
+            mOwner.onPresenterCreated(presenter);
+        } else {
+            // handed over, wait for the recreated owner
+            mPresenter = presenter;
+        }
+    }
+}
@@ -16,12 +16,29 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.grandcentrix.thirtyinch.Removable;
+import net.grandcentrix.thirtyinch.TiLifecycleObserver;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
 
@@ -42,9 +59,42 @@ import net.grandcentrix.thirtyinch.TiPresenter;
  * cases
  * and destroys and cleans the presenters to prevents leaks.
  * </p>
+ * <p>
+ * Besides {@link Activity}s, {@link Fragment}s and {@link SharedScope}s opened with
+ * {@link #openScope()} can be hosts. Presenters saved for a {@link Fragment} live until the
+ * Fragment gets removed, which is tracked by the {@link FragmentInstanceObserver}, presenters
+ * saved for a {@link SharedScope} until it gets closed. Presenters saved with
+ * {@link #saveShared(String, TiPresenter, Object)} can be recovered by all hosts using the same
+ * scope, i.e. by sibling Fragments with their parent Fragment as scope.
+ * </p>
+ * <p>
+ * Presenters of upcoming hosts can be created ahead of time with
+ * {@link #prewarm(TiPresenterProvider, long, TimeUnit)}. The host adopts the prewarmed presenter
+ * with {@link #claimPrewarmed(String)}. Presenters with a
+ * {@link net.grandcentrix.thirtyinch.TiConfiguration.Builder#setFinishedPresenterGracePeriod(long,
+ * TimeUnit) grace period} are kept after their host finished and can be adopted by the next host
+ * with {@link #claimKept(String)}.
+ * </p>
+ * <p>
+ * Memory pressure reported by {@link ComponentCallbacks2#onTrimMemory(int)} is forwarded to all
+ * {@link LivePresenters live presenters} with {@link TiPresenter#trimMemory(int)}, not only to the
+ * saved ones. Afterwards detached presenters of destroyed hosts and of stopped Activities get
+ * evicted, the oldest detach first, when more presenters are saved than allowed by
+ * {@link #setMaxRetainedPresenters(int)} or
+ * {@link #setRetainedPresentersBudget(long, PresenterWeigher)}.
+ * </p>
+ * <p>
+ * {@link #save(TiPresenter, Object)}, {@link #recover(long, Object)} and
+ * {@link #free(long, Object)} are thread-safe, i.e. for presenters created in the background.
+ * Recovering a presenter doesn't block. Saving and freeing only lock the scope of the host, the
+ * savior itself is only locked when the first presenter of a host gets saved or the last one
+ * gets freed. Prewarmed and kept presenters are guarded by the lock of the savior, they are
+ * destroyed outside of it.
+ * </p>
  */
 public class PresenterSavior implements TiPresenterSavior,
-        ActivityInstanceObserver.ActivityFinishListener {
+        ActivityInstanceObserver.ActivityFinishListener,
+        FragmentInstanceObserver.FragmentFinishListener {
 
     /**
      * Thrown for not supported host types
@@ -57,7 +107,127 @@ public class PresenterSavior implements TiPresenterSavior,
         }
     }
 
-    private static PresenterSavior INSTANCE;
+    /**
+     * Estimates the retained size of a presenter, see
+     * {@link #setRetainedPresentersBudget(long, PresenterWeigher)}
+     */
+    public interface PresenterWeigher {
+
+        /**
+         * @return the estimated size of the presenter in bytes, must be {@code >= 0}
+         */
+        long weigh(@NonNull TiPresenter presenter);
+    }
+
+    /**
+     * Host for presenters shared by multiple Activities or Fragments, i.e. all screens of a flow
+     * or navigation graph. Keep the scope where it survives configuration changes of the hosts
+     * using it. The presenters saved for the scope are destroyed when it gets closed with
+     * {@link #closeScope(SharedScope)}.
+     */
+    public static final class SharedScope {
+
+        private final long mId;
+
+        SharedScope(final long id) {
+            mId = id;
+        }
+
+        @Override
+        public String toString() {
+            return "SharedScope{" + mId + "}";
+        }
+    }
+
+    /**
+     * Reports how many presenters got notified about memory pressure
+     */
+    public interface TrimMemoryListener {
+
+        /**
+         * called after all live presenters got trimmed, see {@link #trimMemory(int)}
+         *
+         * @param level             the level passed to {@link #trimMemory(int)}
+         * @param trimmedPresenters the number of presenters notified with
+         *                          {@link TiPresenter#trimMemory(int)}
+         */
+        void onPresentersTrimmed(int level, int trimmedPresenters);
+    }
+
+    /**
+     * Records when a saved presenter got detached from its view the last time, the order in which
+     * presenters get evicted
+     */
+    private class DetachTracker implements TiLifecycleObserver {
+
+        private volatile long mLastDetached;
+
+        /**
+         * {@code true} after the host detached its view, i.e. the Activity got stopped,
+         * {@code false} while the view is attached and before the first view got attached
+         */
+        private volatile boolean mHostStopped;
+
+        private final TiPresenter mPresenter;
+
+        private Removable mRemovable;
+
+        DetachTracker(final TiPresenter presenter) {
+            mPresenter = presenter;
+            mLastDetached = mDetachSequence.incrementAndGet();
+        }
+
+        @Override
+        public void onChange(final TiPresenter.State state,
+                final boolean hasLifecycleMethodBeenCalled) {
+            if (state == TiPresenter.State.VIEW_DETACHED) {
+                mLastDetached = mDetachSequence.incrementAndGet();
+                mHostStopped = true;
+            } else {
+                mHostStopped = false;
+            }
+        }
+    }
+
+    /**
+     * Removes a destroyed presenter from the {@link LivePresenters} and unregisters the
+     * {@link #mComponentCallbacks} when it was the last live presenter
+     */
+    private class LivePresenterTracker implements TiLifecycleObserver {
+
+        private final TiPresenter mPresenter;
+
+        LivePresenterTracker(final TiPresenter presenter) {
+            mPresenter = presenter;
+        }
+
+        @Override
+        public void onChange(final TiPresenter.State state,
+                final boolean hasLifecycleMethodBeenCalled) {
+            if (LivePresenters.remove(mPresenter)) {
+                unregisterUnusedObservers();
+            }
+        }
+    }
+
+    /**
+     * A presenter waiting for its host until the deadline. Created by
+     * {@link #prewarm(TiPresenterProvider, long, TimeUnit)} or kept after its host finished, see
+     * {@link #keepAfterFinish(TiPresenter, String)}
+     */
+    private static class WaitingPresenter {
+
+        private final long mDeadlineNanos;
+
+        private final TiPresenter mPresenter;
+
+        WaitingPresenter(final TiPresenter presenter, final long deadlineNanos) {
+            mPresenter = presenter;
+            mDeadlineNanos = deadlineNanos;
+        }
+    }
+
+    private static volatile PresenterSavior INSTANCE;
 
     private static final String TAG = PresenterSavior.class.getSimpleName();
 
@@ -67,25 +237,167 @@ public class PresenterSavior implements TiPresenterSavior,
     private static final boolean DEBUG = false;
 
     @VisibleForTesting
-    ActivityInstanceObserver mActivityInstanceObserver;
+    volatile ActivityInstanceObserver mActivityInstanceObserver;
+
+    /**
+     * the application {@link #mActivityInstanceObserver} and {@link #mComponentCallbacks} are
+     * registered at, guarded by {@link #mScopesLock}
+     */
+    @Nullable
+    private Application mApplication;
+
+    private final AtomicLong mDetachSequence = new AtomicLong();
+
+    /**
+     * source of the presenter and host ids. Seeded with the wall clock so ids restored from a
+     * saved instance state after the process got killed don't collide with new ids
+     */
+    private final AtomicLong mIdSequence = new AtomicLong(System.currentTimeMillis() << 10);
+
+    /**
+     * tracks the detach order of all saved presenters by presenter identity, guarded by itself
+     */
+    private final IdentityHashMap<TiPresenter, DetachTracker> mDetachTrackers =
+            new IdentityHashMap<>();
+
+    /**
+     * registered together with the {@link #mActivityInstanceObserver} or by
+     * {@link #observeMemoryPressure(TiPresenter, Object)}, stays registered while kept or
+     * prewarmed presenters are waiting or presenters are alive
+     */
+    @VisibleForTesting
+    final ComponentCallbacks2 mComponentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onConfigurationChanged(final Configuration newConfig) {
+            // noop
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onTrimMemory(final int level) {
+            trimMemory(level);
+        }
+    };
+
+    /**
+     * tracks {@link Fragment} hosts, registered by the {@link #mActivityInstanceObserver}
+     */
+    @VisibleForTesting
+    final FragmentInstanceObserver mFragmentInstanceObserver = new FragmentInstanceObserver(this);
+
+    /**
+     * the keys of presenters which get kept after their host finished, weak to not leak
+     * presenters destroyed otherwise. Guarded by {@link #mScopesLock}
+     */
+    private final WeakHashMap<TiPresenter, String> mKeepAfterFinishKeys = new WeakHashMap<>();
+
+    /**
+     * presenters kept after their host finished by their key, see
+     * {@link #keepAfterFinish(TiPresenter, String)}. Guarded by {@link #mScopesLock}
+     */
+    private final HashMap<String, WaitingPresenter> mKeptPresenters = new HashMap<>();
+
+    /**
+     * schedules the destruction of unclaimed prewarmed and kept presenters, created lazily
+     * because the main looper isn't available in unit tests. Guarded by {@link #mScopesLock}
+     */
+    @VisibleForTesting
+    Handler mHandler;
+
+    /**
+     * whether {@link #mComponentCallbacks} are registered at {@link #mApplication}, guarded by
+     * {@link #mScopesLock}
+     */
+    private boolean mComponentCallbacksRegistered;
+
+    private int mMaxRetainedPresenters = Integer.MAX_VALUE;
 
     /**
-     * Holds a scope for every Activity with one or more presenters. There is no direct mapping for
+     * ids of the {@link SharedScope}s not closed yet
+     */
+    private final Set<Long> mOpenScopes =
+            Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+    private final Runnable mExpireWaitingPresenters = new Runnable() {
+        @Override
+        public void run() {
+            expireWaitingPresenters();
+        }
+    };
+
+    /**
+     * presenters created by {@link #prewarm(TiPresenterProvider, long, TimeUnit)} by their token,
+     * not claimed yet. Guarded by {@link #mScopesLock}
+     */
+    private final HashMap<String, WaitingPresenter> mPrewarmedPresenters = new HashMap<>();
+
+    private final PresenterScope.Visitor mPrintPresenter = new PresenterScope.Visitor() {
+        @Override
+        public void visit(final long id, @NonNull final TiPresenter presenter) {
+            TiLog.v(TAG, " - " + id + " " + presenter);
+        }
+    };
+
+    /**
+     * destroys or keeps the presenters of a finished host, see {@link #release(TiPresenter)}
+     */
+    private final PresenterScope.Visitor mReleasePresenter = new PresenterScope.Visitor() {
+        @Override
+        public void visit(final long id, @NonNull final TiPresenter presenter) {
+            // when the presenter is not destroyed yet, destroy or keep it.
+            release(presenter);
+            stopTracking(presenter);
+        }
+    };
+
+    private long mRetainedPresentersBudget = Long.MAX_VALUE;
+
+    @Nullable
+    private PresenterWeigher mRetainedPresentersWeigher;
+
+    @Nullable
+    private TrimMemoryListener mTrimMemoryListener;
+
+    /**
+     * guards adding and removing scopes together with the registration of the
+     * {@link #mActivityInstanceObserver} and the waiting presenters. Changes inside a scope are
+     * guarded by the scope itself
+     */
+    private final Object mScopesLock = new Object();
+
+    /**
+     * Holds a scope for every host with one or more presenters. There is no direct mapping for
      * {@link Activity} to {@link PresenterScope} because Activity instances can be
      * destroyed. The {@link ActivityInstanceObserver} takes care to manage unique Ids for each
-     * Activity which are used as keys here.
+     * Activity which are used as keys here, the {@link FragmentInstanceObserver} for each
+     * Fragment.
+     * <p>
+     * A {@link CopyOnWriteLongMap} instead of a {@link ConcurrentHashMap}: scopes are looked up
+     * far more often than added or removed, the lookup by the primitive host id neither locks nor
+     * boxes the id. {@link #recover(long, Object)} doesn't lock at all.
      */
     @VisibleForTesting
-    final HashMap<String, PresenterScope> mScopes = new HashMap<>();
+    final CopyOnWriteLongMap<PresenterScope> mScopes = new CopyOnWriteLongMap<>();
 
     /**
      * Access to the {@link PresenterSavior} singleton to save presenters across orientation changes
      */
-    public static synchronized PresenterSavior getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new PresenterSavior();
+    public static PresenterSavior getInstance() {
+        PresenterSavior instance = INSTANCE;
+        if (instance == null) {
+            synchronized (PresenterSavior.class) {
+                instance = INSTANCE;
+                if (instance == null) {
+                    instance = new PresenterSavior();
+                    INSTANCE = instance;
+                }
+            }
         }
-        return INSTANCE;
+        return instance;
     }
 
     @VisibleForTesting
@@ -94,62 +406,208 @@ public class PresenterSavior implements TiPresenterSavior,
     }
 
     @Override
-    public void free(final String presenterId, @NonNull final Object host) {
-        final PresenterScope scope = getScope(host);
+    @Nullable
+    public TiPresenter claimKept(@NonNull final String key) {
+        expireWaitingPresenters();
+        final WaitingPresenter kept;
+        synchronized (mScopesLock) {
+            kept = mKeptPresenters.remove(key);
+        }
+        if (kept == null) {
+            return null;
+        }
+        TiLog.v(TAG, "claimed kept presenter " + kept.mPresenter);
+        unregisterUnusedObservers();
+        return kept.mPresenter;
+    }
+
+    @Override
+    @Nullable
+    public TiPresenter claimPrewarmed(@NonNull final String token) {
+        expireWaitingPresenters();
+        final WaitingPresenter prewarmed;
+        synchronized (mScopesLock) {
+            prewarmed = mPrewarmedPresenters.remove(token);
+        }
+        if (prewarmed == null) {
+            TiLog.v(TAG, "no prewarmed presenter for token " + token);
+            return null;
+        }
+        TiLog.v(TAG, "claimed prewarmed presenter " + prewarmed.mPresenter);
+        unregisterUnusedObservers();
+        return prewarmed.mPresenter;
+    }
+
+    @Override
+    public void free(final long presenterId, @NonNull final Object host) {
+        final long hostId = getHostId(host);
+        final PresenterScope scope = mScopes.get(hostId);
         if (scope != null) {
-            scope.remove(presenterId);
+            synchronized (scope) {
+                stopTracking(scope.remove(presenterId));
 
-            // cleanup empty PresenterScope
-            if (scope.isEmpty()) {
-                mScopes.values().remove(scope);
+                // cleanup empty PresenterScope
+                if (scope.isEmpty()) {
+                    mScopes.remove(hostId, scope);
+                }
             }
         }
 
         // unregister host observer
-        if (host instanceof Activity) {
-            final Activity activity = (Activity) host;
-            unregisterActivityObserver(activity);
-        } else {
-            // currently only Activity is supported as host
-            throw new IllegalStateException(
-                    "Host has unknown type " + host.getClass().getSimpleName()
-                            + " and is not supported.");
+        synchronized (mScopesLock) {
+            unregisterObservers();
         }
 
         printRemainingPresenter();
     }
 
     @Override
-    public void onActivityFinished(final Activity activity, final String hostId) {
-        // First remove the scope, and don't leak it when the Activity got finished
-        final PresenterScope scope = mScopes.remove(hostId);
-        unregisterActivityObserver(activity);
+    public void keepAfterFinish(@NonNull final TiPresenter presenter, @NonNull final String key) {
+        synchronized (mScopesLock) {
+            mKeepAfterFinishKeys.put(presenter, key);
+        }
+    }
 
-        TiLog.d(TAG, "Activity is finishing, free remaining presenters " + activity);
-        if (scope != null) {
-            for (final Map.Entry<String, TiPresenter> entry : scope.getAllMappings()) {
-                final String presenterId = entry.getKey();
-                final TiPresenter presenter = entry.getValue();
-
-                // when the presenter is not destroyed yet, destroy it.
-                if (!presenter.isDestroyed()) {
-                    if (presenter.isViewAttached()) {
-                        presenter.detachView();
-                    }
-                    if (!presenter.isDestroyed()) {
-                        presenter.destroy();
-                    }
-                }
-                scope.remove(presenterId);
+    @Override
+    public void observeMemoryPressure(@NonNull final TiPresenter presenter,
+            @NonNull final Object host) {
+        addLivePresenter(presenter);
+        final Application application;
+        if (host instanceof Activity) {
+            application = ((Activity) host).getApplication();
+        } else if (host instanceof Fragment) {
+            final FragmentActivity activity = ((Fragment) host).getActivity();
+            application = activity != null ? activity.getApplication() : null;
+        } else {
+            // shared scopes are observed by the hosts using them
+            return;
+        }
+        if (application != null) {
+            synchronized (mScopesLock) {
+                registerComponentCallbacks(application);
             }
         }
+    }
+
+    @Override
+    public void onActivityFinished(final Activity activity, final long hostId) {
+        TiLog.d(TAG, "Activity is finishing, free remaining presenters " + activity);
+        releaseScope(hostId);
+    }
+
+    @Override
+    public void onFragmentFinished(final Fragment fragment, final long hostId) {
+        TiLog.d(TAG, "Fragment is finishing, free remaining presenters " + fragment);
+        releaseScope(hostId);
+    }
+
+    /**
+     * Opens a scope for presenters shared by multiple Activities or Fragments, use it as host
+     * when saving presenters. Must be closed with {@link #closeScope(SharedScope)} to destroy the
+     * presenters.
+     */
+    @NonNull
+    public SharedScope openScope() {
+        final SharedScope scope = new SharedScope(generateId());
+        mOpenScopes.add(scope.mId);
+        return scope;
+    }
+
+    /**
+     * Closes a scope opened with {@link #openScope()} and destroys or keeps its presenters, see
+     * {@link #release(TiPresenter)}. Presenters can't be saved for the scope afterwards.
+     */
+    public void closeScope(@NonNull final SharedScope scope) {
+        if (mOpenScopes.remove(scope.mId)) {
+            TiLog.d(TAG, "closing " + scope + ", free remaining presenters");
+            releaseScope(scope.mId);
+        }
+    }
+
+    /**
+     * Creates the presenter of an upcoming host ahead of time, i.e. right before calling
+     * {@link Activity#startActivity(android.content.Intent)}. The presenter is created
+     * immediately and starts loading its data in {@link TiPresenter#onCreate()} while the
+     * host is still starting.
+     * <p>
+     * Pass the returned token to the host which adopts the presenter instead of creating a new
+     * one, for a {@link net.grandcentrix.thirtyinch.TiActivity} add it to the {@code Intent}
+     * with the key {@link net.grandcentrix.thirtyinch.TiActivity#EXTRA_PREWARMED_PRESENTER}.
+     * The presenter gets destroyed when it isn't claimed within the {@code timeout}.
+     *
+     * @param provider provides a new presenter, called immediately
+     * @param timeout  time the host has to claim the presenter
+     * @return the token to claim the presenter with {@link #claimPrewarmed(String)}
+     */
+    @NonNull
+    public String prewarm(@NonNull final TiPresenterProvider<?> provider, final long timeout,
+            @NonNull final TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must be >= 0");
+        }
+        final TiPresenter presenter = provider.providePresenter();
+        if (presenter.getState() != TiPresenter.State.INITIALIZED) {
+            throw new IllegalStateException("Presenter not in initialized state. "
+                    + "Current state is " + presenter.getState() + ". "
+                    + "Presenter provided with #providePresenter() cannot be reused. "
+                    + "Always return a fresh instance!");
+        }
+        presenter.create();
+        addLivePresenter(presenter);
+
+        expireWaitingPresenters();
+        final String token = String.valueOf(generateId());
+        synchronized (mScopesLock) {
+            mPrewarmedPresenters.put(token,
+                    new WaitingPresenter(presenter, System.nanoTime() + unit.toNanos(timeout)));
+            getHandler().postDelayed(mExpireWaitingPresenters, unit.toMillis(timeout));
+        }
+        TiLog.v(TAG, "prewarmed presenter " + presenter + " with token " + token);
 
         printRemainingPresenter();
+
+        return token;
+    }
+
+    @Override
+    public void release(@NonNull final TiPresenter presenter) {
+        if (presenter.isDestroyed() || isKept(presenter)) {
+            return;
+        }
+        if (presenter.isViewAttached()) {
+            presenter.detachView();
+        }
+        if (presenter.isDestroyed()) {
+            return;
+        }
+
+        final String key;
+        synchronized (mScopesLock) {
+            key = mKeepAfterFinishKeys.remove(presenter);
+        }
+        final long gracePeriod = presenter.getConfig().getFinishedPresenterGracePeriodMillis();
+        if (key == null || gracePeriod <= 0) {
+            presenter.destroy();
+            return;
+        }
+
+        expireWaitingPresenters();
+        final WaitingPresenter replaced;
+        synchronized (mScopesLock) {
+            replaced = mKeptPresenters.put(key, new WaitingPresenter(presenter,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(gracePeriod)));
+            getHandler().postDelayed(mExpireWaitingPresenters, gracePeriod);
+        }
+        if (replaced != null) {
+            TiLog.v(TAG, "replacing kept presenter, destroying " + replaced.mPresenter);
+            replaced.mPresenter.destroy();
+        }
+        TiLog.v(TAG, "keeping " + presenter + " for " + gracePeriod + "ms with key " + key);
     }
 
     @Override
     @Nullable
-    public TiPresenter recover(final String presenterId, @NonNull final Object host) {
+    public TiPresenter recover(final long presenterId, @NonNull final Object host) {
         final PresenterScope scope = getScope(host);
         if (scope == null) {
             return null;
@@ -158,80 +616,335 @@ public class PresenterSavior implements TiPresenterSavior,
     }
 
     @Override
-    public String save(@NonNull final TiPresenter presenter, @NonNull final Object host) {
+    @Nullable
+    public TiPresenter recoverShared(@NonNull final String key, @NonNull final Object scope) {
+        final PresenterScope presenterScope = getScope(scope);
+        if (presenterScope == null) {
+            return null;
+        }
+        return presenterScope.getShared(key);
+    }
 
-        // hostId will be non null for new hosts
-        String hostId = null;
+    @Override
+    public long save(@NonNull final TiPresenter presenter, @NonNull final Object host) {
+        return save(presenter, host, null);
+    }
 
-        PresenterScope scope = getScope(host);
-        if (scope == null) {
-            // create a new scope
-            scope = new PresenterScope();
-            hostId = generateId(host);
-            mScopes.put(hostId, scope);
-        }
-        final String presenterId = generateId(presenter);
-        scope.save(presenterId, presenter);
-
-        if (hostId != null) {
-            // register host observer when a new host was detected
-            if (host instanceof Activity) {
-                final Activity activity = (Activity) host;
-                observeActivityFinish(activity, hostId);
-            } else {
-                // currently only Activity is supported as host
-                throw new IllegalHostException(host);
+    @Override
+    public void saveShared(@NonNull final String key, @NonNull final TiPresenter presenter,
+            @NonNull final Object scope) {
+        save(presenter, scope, key);
+    }
+
+    /**
+     * Limits the number of saved presenters. Exceeding presenters get evicted on memory pressure,
+     * see {@link #trimMemory(int)}. Only detached presenters of destroyed hosts and of stopped
+     * Activities can be evicted, the limit may be exceeded while the saved presenters are attached
+     * or belong to Fragments or open {@link SharedScope}s.
+     * <p>
+     * default {@link Integer#MAX_VALUE}, unlimited
+     *
+     * @param maxRetainedPresenters the number of presenters kept on memory pressure
+     */
+    public void setMaxRetainedPresenters(final int maxRetainedPresenters) {
+        if (maxRetainedPresenters < 0) {
+            throw new IllegalArgumentException("maxRetainedPresenters must be >= 0");
+        }
+        mMaxRetainedPresenters = maxRetainedPresenters;
+    }
+
+    /**
+     * Limits the estimated size of all saved presenters. Presenters get evicted on memory pressure
+     * until the remaining presenters fit into the budget, see {@link #trimMemory(int)}. Only
+     * detached presenters of destroyed hosts and of stopped Activities can be evicted, the budget
+     * may be exceeded while the saved presenters are attached or belong to Fragments or open
+     * {@link SharedScope}s.
+     * <p>
+     * default {@link Long#MAX_VALUE}, unlimited
+     *
+     * @param budget  the estimated bytes of presenters kept on memory pressure
+     * @param weigher estimates the size of a presenter
+     */
+    public void setRetainedPresentersBudget(final long budget,
+            @NonNull final PresenterWeigher weigher) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must be >= 0");
+        }
+        //noinspection ConstantConditions
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher must be non-null");
+        }
+        mRetainedPresentersBudget = budget;
+        mRetainedPresentersWeigher = weigher;
+    }
+
+    /**
+     * @param listener gets notified after the saved presenters got trimmed, {@code null} to remove
+     *                 the listener
+     */
+    public void setTrimMemoryListener(@Nullable final TrimMemoryListener listener) {
+        mTrimMemoryListener = listener;
+    }
+
+    /**
+     * Forwards memory pressure to all {@link LivePresenters live presenters} of the process, the
+     * presenters saved in the savior, prewarmed presenters as well as presenters which aren't
+     * retained or are kept in a {@code ViewModelStore}. Presenters kept after their host
+     * finished are destroyed unless the level is {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}.
+     * Called automatically by {@link ComponentCallbacks2#onTrimMemory(int)} while presenters are
+     * alive, see {@link #observeMemoryPressure(TiPresenter, Object)}.
+     * <p>
+     * Afterwards presenters get evicted when the limits set with
+     * {@link #setMaxRetainedPresenters(int)} or
+     * {@link #setRetainedPresentersBudget(long, PresenterWeigher)} are exceeded. Detached
+     * presenters are evicted, the one detached the longest time ago first: presenters whose host
+     * is destroyed, waiting to be recreated, and presenters of stopped, unfinished Activities,
+     * i.e. in the back stack. The recreated host can't recover the presenter and creates a new
+     * one, the stopped Activity creates a new presenter when it gets started again. Presenters of
+     * living Fragments, shared presenters and presenters of open {@link SharedScope}s are never
+     * evicted.
+     *
+     * @param level the level of the memory pressure, one of the {@code TRIM_MEMORY_*} constants
+     *              of {@link ComponentCallbacks2}
+     * @return the number of trimmed presenters
+     */
+    public int trimMemory(final int level) {
+        if (level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // kept presenters of finished hosts are the first to go
+            final ArrayList<WaitingPresenter> kept;
+            synchronized (mScopesLock) {
+                kept = new ArrayList<>(mKeptPresenters.values());
+                mKeptPresenters.clear();
             }
+            for (final WaitingPresenter presenter : kept) {
+                TiLog.v(TAG, "low memory, destroying kept presenter " + presenter.mPresenter);
+                presenter.mPresenter.destroy();
+            }
+        }
+
+        int trimmed = 0;
+        for (final TiPresenter presenter : LivePresenters.getAll()) {
+            if (presenter.trimMemory(level)) {
+                trimmed++;
+            }
+        }
+        TiLog.v(TAG, "trimmed " + trimmed + " presenters, level " + level);
+
+        final TrimMemoryListener listener = mTrimMemoryListener;
+        if (listener != null) {
+            listener.onPresentersTrimmed(level, trimmed);
         }
 
+        evictRetainedPresenters();
+        unregisterUnusedObservers();
+        return trimmed;
+    }
+
+    /**
+     * destroys the detached presenters of destroyed hosts and stopped Activities, oldest detach
+     * first, until the saved presenters are within the limits
+     *
+     * @return the number of evicted presenters
+     */
+    @VisibleForTesting
+    int evictRetainedPresenters() {
+        final PresenterWeigher weigher = mRetainedPresentersWeigher;
+        final ArrayList<TiPresenter> saved = new ArrayList<>();
+        final ArrayList<DetachTracker> candidates = new ArrayList<>();
+        mScopes.forEach(new CopyOnWriteLongMap.Visitor<PresenterScope>() {
+            @Override
+            public void visit(final long hostId, @NonNull final PresenterScope scope) {
+                // stopped Activities recreate an evicted presenter when they get started again,
+                // presenters of other living hosts are still in use
+                final ActivityInstanceObserver observer = mActivityInstanceObserver;
+                final boolean activityAlive = observer != null && observer.isTracking(hostId);
+                final boolean hostAlive = activityAlive
+                        || mFragmentInstanceObserver.isTracking(hostId)
+                        || mOpenScopes.contains(hostId);
+                scope.forEach(new PresenterScope.Visitor() {
+                    @Override
+                    public void visit(final long id, @NonNull final TiPresenter presenter) {
+                        saved.add(presenter);
+                        final DetachTracker tracker;
+                        synchronized (mDetachTrackers) {
+                            tracker = mDetachTrackers.get(presenter);
+                        }
+                        if (tracker == null || presenter.isViewAttached()) {
+                            return;
+                        }
+                        if (!hostAlive || activityAlive && tracker.mHostStopped
+                                && !scope.isShared(id)) {
+                            candidates.add(tracker);
+                        }
+                    }
+                });
+            }
+        });
+        int count = saved.size();
+        long weight = 0;
+        if (weigher != null) {
+            for (final TiPresenter presenter : saved) {
+                weight += weigher.weigh(presenter);
+            }
+        }
+        if (count <= mMaxRetainedPresenters && weight <= mRetainedPresentersBudget) {
+            return 0;
+        }
+
+        Collections.sort(candidates, new Comparator<DetachTracker>() {
+            @Override
+            public int compare(final DetachTracker o1, final DetachTracker o2) {
+                return Long.compare(o1.mLastDetached, o2.mLastDetached);
+            }
+        });
+        int evicted = 0;
+        for (final DetachTracker candidate : candidates) {
+            if (count <= mMaxRetainedPresenters && weight <= mRetainedPresentersBudget) {
+                break;
+            }
+            final TiPresenter presenter = candidate.mPresenter;
+            if (weigher != null) {
+                weight -= weigher.weigh(presenter);
+            }
+            count--;
+            evicted++;
+            TiLog.v(TAG, "evicting detached presenter " + presenter);
+            remove(presenter);
+            presenter.destroy();
+        }
         printRemainingPresenter();
+        return evicted;
+    }
 
-        return presenterId;
+    /**
+     * adds the presenter to the {@link LivePresenters} until it gets destroyed
+     */
+    private void addLivePresenter(@NonNull final TiPresenter presenter) {
+        if (presenter.isDestroyed()) {
+            return;
+        }
+        if (LivePresenters.add(presenter)) {
+            presenter.addLifecycleObserver(TiLifecycleObserver.DESTROYED_AFTER,
+                    new LivePresenterTracker(presenter));
+        }
     }
 
     /**
-     * Generates a unique id for a given object
+     * destroys the prewarmed and kept presenters which weren't claimed within their timeout
      */
-    private String generateId(final Object object) {
-        return object.getClass().getSimpleName()
-                + ":" + object.hashCode()
-                + ":" + System.nanoTime();
+    @VisibleForTesting
+    void expireWaitingPresenters() {
+        final long now = System.nanoTime();
+        final ArrayList<WaitingPresenter> expired = new ArrayList<>();
+        synchronized (mScopesLock) {
+            removeExpired(mPrewarmedPresenters, now, expired);
+            removeExpired(mKeptPresenters, now, expired);
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        for (final WaitingPresenter presenter : expired) {
+            TiLog.v(TAG, "presenter wasn't claimed in time, destroying " + presenter.mPresenter);
+            presenter.mPresenter.destroy();
+        }
+        unregisterUnusedObservers();
     }
 
     /**
-     * retrieves an existing scope for a {@link Activity} but doesn't create on when the scope
-     * doesn't exist
+     * moves the presenters of {@code waiting} with an expired deadline to {@code expired},
+     * guarded by {@link #mScopesLock}
      */
-    @Nullable
-    private synchronized PresenterScope getScope(final Object host) {
+    private static void removeExpired(final HashMap<String, WaitingPresenter> waiting,
+            final long now, final ArrayList<WaitingPresenter> expired) {
+        final Iterator<WaitingPresenter> iterator = waiting.values().iterator();
+        while (iterator.hasNext()) {
+            final WaitingPresenter presenter = iterator.next();
+            if (now - presenter.mDeadlineNanos >= 0) {
+                iterator.remove();
+                expired.add(presenter);
+            }
+        }
+    }
+
+    /**
+     * Generates a unique id for presenters and hosts, never {@link #NO_ID}
+     */
+    private long generateId() {
+        return mIdSequence.incrementAndGet();
+    }
+
+    /**
+     * guarded by {@link #mScopesLock}
+     */
+    private Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+
+    /**
+     * retrieves the id of the scope for a {@link Activity}, {@link Fragment} or
+     * {@link SharedScope}, without locking
+     *
+     * @return {@link #NO_ID} when no presenter is saved for the host
+     */
+    private long getHostId(final Object host) {
         if (host instanceof Activity) {
             final ActivityInstanceObserver detector = mActivityInstanceObserver;
             if (detector == null) {
-                return null;
+                return NO_ID;
             }
 
             final Activity activity = (Activity) host;
-            final String scopeId = detector.getActivityId(activity);
-            if (scopeId == null) {
-                return null;
-            }
-
-            return mScopes.get(scopeId);
+            return detector.getActivityId(activity);
+        } else if (host instanceof Fragment) {
+            return mFragmentInstanceObserver.getFragmentId((Fragment) host);
+        } else if (host instanceof SharedScope) {
+            return ((SharedScope) host).mId;
         } else {
-            // currently only Activity is supported as host
             throw new IllegalHostException(host);
         }
     }
 
     /**
-     * registers the {@link ActivityInstanceObserver.ActivityFinishListener} for the activity
+     * retrieves an existing scope for a host but doesn't create on when the scope doesn't exist
+     */
+    @Nullable
+    private PresenterScope getScope(final Object host) {
+        return mScopes.get(getHostId(host));
+    }
+
+    /**
+     * registers the finish listener for a new host, guarded by {@link #mScopesLock}
      *
-     * @param activity to listen for the finish event
-     * @param hostId   id to track the Activity across orientation changes
+     * @return the id to track the host across orientation changes
      */
-    private void observeActivityFinish(final Activity activity, @NonNull final String hostId) {
-        final ActivityInstanceObserver observer = registerActivityObserver(activity);
-        observer.startTracking(activity, hostId);
+    private long observeHost(final Object host) {
+        if (host instanceof Activity) {
+            final Activity activity = (Activity) host;
+            final long hostId = generateId();
+            registerActivityObserver(activity.getApplication()).startTracking(activity, hostId);
+            return hostId;
+        } else if (host instanceof Fragment) {
+            final Fragment fragment = (Fragment) host;
+            final FragmentActivity activity = fragment.getActivity();
+            if (activity == null) {
+                throw new IllegalStateException("Fragment is not attached " + fragment);
+            }
+            final long hostId = generateId();
+            // creates the observer which observes the fragments of recreated activities
+            registerActivityObserver(activity.getApplication());
+            mFragmentInstanceObserver.observe(activity);
+            mFragmentInstanceObserver.startTracking(fragment, hostId);
+            return hostId;
+        } else {
+            final SharedScope scope = (SharedScope) host;
+            if (!mOpenScopes.contains(scope.mId)) {
+                throw new IllegalStateException(scope + " is already closed");
+            }
+            return scope.mId;
+        }
     }
 
     /**
@@ -241,45 +954,205 @@ public class PresenterSavior implements TiPresenterSavior,
      */
     private void printRemainingPresenter() {
         if (DEBUG) {
-            final ArrayList<TiPresenter> presenters = new ArrayList<>();
-            for (final Map.Entry<String, PresenterScope> entry : mScopes.entrySet()) {
-                presenters.addAll(entry.getValue().getAll());
+            synchronized (mScopesLock) {
+                int count = mPrewarmedPresenters.size() + mKeptPresenters.size();
+                for (final PresenterScope scope : mScopes.values()) {
+                    count += scope.size();
+                }
+
+                TiLog.d(TAG, "presenter count: " + count);
+                for (final PresenterScope scope : mScopes.values()) {
+                    scope.forEach(mPrintPresenter);
+                }
+                for (final WaitingPresenter prewarmed : mPrewarmedPresenters.values()) {
+                    TiLog.v(TAG, " - " + prewarmed.mPresenter + " (prewarmed)");
+                }
+                for (final WaitingPresenter kept : mKeptPresenters.values()) {
+                    TiLog.v(TAG, " - " + kept.mPresenter + " (kept)");
+                }
             }
+        }
+    }
 
-            TiLog.d(TAG, "presenter count: " + presenters.size());
-            for (final TiPresenter presenter : presenters) {
-                TiLog.v(TAG, " - " + presenter);
+    private boolean isKept(final TiPresenter presenter) {
+        synchronized (mScopesLock) {
+            for (final WaitingPresenter kept : mKeptPresenters.values()) {
+                if (kept.mPresenter == presenter) {
+                    return true;
+                }
             }
+            return false;
         }
     }
 
     /**
-     * registers the {@link #mActivityInstanceObserver}
+     * registers the {@link #mActivityInstanceObserver} and the {@link #mComponentCallbacks},
+     * guarded by {@link #mScopesLock}
      */
-    private ActivityInstanceObserver registerActivityObserver(final Activity activity) {
+    private ActivityInstanceObserver registerActivityObserver(final Application application) {
         if (mActivityInstanceObserver == null) {
-            mActivityInstanceObserver = new ActivityInstanceObserver(this);
+            mActivityInstanceObserver =
+                    new ActivityInstanceObserver(this, mFragmentInstanceObserver);
             TiLog.v(TAG, "registering lifecycle callback");
-            activity.getApplication().registerActivityLifecycleCallbacks(mActivityInstanceObserver);
+            application.registerActivityLifecycleCallbacks(mActivityInstanceObserver);
+            mApplication = application;
         }
+        registerComponentCallbacks(application);
         return mActivityInstanceObserver;
     }
 
     /**
-     * unregister {@link #mActivityInstanceObserver} when scopes are empty
+     * registers the {@link #mComponentCallbacks}, guarded by {@link #mScopesLock}
+     */
+    private void registerComponentCallbacks(final Application application) {
+        if (!mComponentCallbacksRegistered) {
+            TiLog.v(TAG, "registering memory callback");
+            application.registerComponentCallbacks(mComponentCallbacks);
+            mComponentCallbacksRegistered = true;
+            mApplication = application;
+        }
+    }
+
+    /**
+     * removes the scope of a finished host and destroys or keeps its presenters, see
+     * {@link #release(TiPresenter)}
+     */
+    private void releaseScope(final long hostId) {
+        // First remove the scope, and don't leak it when the host got finished
+        final PresenterScope scope = mScopes.remove(hostId);
+        if (scope != null) {
+            synchronized (scope) {
+                // waits for saves in progress. Afterwards saves don't use the removed scope
+            }
+            scope.forEach(mReleasePresenter);
+        }
+
+        // after releasing, the kept presenters of the scope keep the memory callbacks registered
+        unregisterUnusedObservers();
+
+        printRemainingPresenter();
+    }
+
+    /**
+     * removes the presenter from its scope, the scope itself when empty
+     */
+    private void remove(final TiPresenter presenter) {
+        for (final PresenterScope scope : mScopes.values()) {
+            synchronized (scope) {
+                final long id = scope.getId(presenter);
+                if (id != NO_ID) {
+                    scope.remove(id);
+                    if (scope.isEmpty()) {
+                        mScopes.removeValue(scope);
+                    }
+                    stopTracking(presenter);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * saves the presenter for the host, shared with the {@code key} when not {@code null}
      */
-    private void unregisterActivityObserver(final Activity activity) {
-        if (mScopes.isEmpty()) {
-            // unregister detector because there are no presenters which could be recovered.
-            // next #save call will create a new one
-            if (mActivityInstanceObserver != null) {
-                if (DEBUG) {
-                    TiLog.v(TAG, "unregistering lifecycle callback");
+    private long save(@NonNull final TiPresenter presenter, @NonNull final Object host,
+            @Nullable final String key) {
+        final long presenterId = generateId();
+        while (true) {
+            long hostId = getHostId(host);
+            PresenterScope scope = mScopes.get(hostId);
+            if (scope == null) {
+                synchronized (mScopesLock) {
+                    hostId = getHostId(host);
+                    scope = mScopes.get(hostId);
+                    if (scope == null) {
+                        // create a new scope and register the host observer for the new host
+                        scope = new PresenterScope();
+                        hostId = observeHost(host);
+                        mScopes.put(hostId, scope);
+                    }
                 }
-                activity.getApplication()
-                        .unregisterActivityLifecycleCallbacks(mActivityInstanceObserver);
-                mActivityInstanceObserver = null;
             }
+
+            synchronized (scope) {
+                if (mScopes.get(hostId) != scope) {
+                    // the scope was removed after its last presenter was freed, retry
+                    continue;
+                }
+                scope.save(presenterId, presenter);
+                if (key != null) {
+                    scope.share(key, presenterId);
+                }
+                startTracking(presenter);
+            }
+            addLivePresenter(presenter);
+
+            printRemainingPresenter();
+
+            return presenterId;
+        }
+    }
+
+    private void startTracking(final TiPresenter presenter) {
+        final DetachTracker tracker = new DetachTracker(presenter);
+        if (!presenter.isDestroyed()) {
+            tracker.mRemovable = presenter.addLifecycleObserver(
+                    TiLifecycleObserver.VIEW_ATTACHED_AFTER
+                            | TiLifecycleObserver.VIEW_DETACHED_AFTER, tracker);
+        }
+        synchronized (mDetachTrackers) {
+            mDetachTrackers.put(presenter, tracker);
+        }
+    }
+
+    private void stopTracking(@Nullable final TiPresenter presenter) {
+        if (presenter == null) {
+            return;
+        }
+        final DetachTracker tracker;
+        synchronized (mDetachTrackers) {
+            tracker = mDetachTrackers.remove(presenter);
+        }
+        if (tracker != null && tracker.mRemovable != null) {
+            tracker.mRemovable.remove();
+        }
+    }
+
+    /**
+     * unregister {@link #mActivityInstanceObserver} when scopes are empty, the
+     * {@link #mComponentCallbacks} when no kept or prewarmed presenters are waiting and no
+     * presenter is alive either. Guarded by {@link #mScopesLock}
+     */
+    private void unregisterObservers() {
+        if (!mScopes.isEmpty() || mApplication == null) {
+            return;
+        }
+        // unregister detector because there are no presenters which could be recovered.
+        // next #save call will create a new one
+        if (mActivityInstanceObserver != null) {
+            if (DEBUG) {
+                TiLog.v(TAG, "unregistering lifecycle callback");
+            }
+            mApplication.unregisterActivityLifecycleCallbacks(mActivityInstanceObserver);
+            mActivityInstanceObserver = null;
+        }
+        // waiting and live presenters still have to be trimmed on memory pressure
+        if (mComponentCallbacksRegistered && mKeptPresenters.isEmpty()
+                && mPrewarmedPresenters.isEmpty() && LivePresenters.isEmpty()) {
+            mApplication.unregisterComponentCallbacks(mComponentCallbacks);
+            mComponentCallbacksRegistered = false;
+        }
+        if (!mComponentCallbacksRegistered) {
+            mApplication = null;
+        }
+    }
+
+    /**
+     * unregisters the observers after waiting presenters got claimed or destroyed
+     */
+    private void unregisterUnusedObservers() {
+        synchronized (mScopesLock) {
+            unregisterObservers();
         }
     }
 }
@@ -17,54 +17,136 @@ package net.grandcentrix.thirtyinch.internal;
 
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
 
 /**
- * Simple wrapper around a {@link HashMap} to save {@link TiPresenter} by id. For every host of a
- * {@link TiPresenter} (i.e. {@link android.app.Activity}) a corresponding {@link PresenterScope}
- * will be created.
+ * Saves {@link TiPresenter} by their numeric id. For every host of a {@link TiPresenter} (i.e.
+ * {@link android.app.Activity}) a corresponding {@link PresenterScope} will be created.
  * It contains the {@link TiPresenter} of the Activity itself and of all of its Fragments.
+ * Presenters shared by multiple hosts are additionally saved with a key, see
+ * {@link #share(String, long)}.
+ * <p>
+ * Lookups by id and {@link #forEach(Visitor)} neither block nor allocate, changes are
+ * synchronized on the scope.
  */
 public class PresenterScope {
 
+    /**
+     * Visits all presenters of a scope, see {@link #forEach(Visitor)}
+     */
+    public interface Visitor {
+
+        void visit(long id, @NonNull TiPresenter presenter);
+    }
+
     private final String TAG = PresenterScope.class.getSimpleName()
             + "@" + Integer.toHexString(hashCode());
 
-    private final HashMap<String, TiPresenter> mStore = new HashMap<>();
+    /**
+     * reverse index of {@link #mStore} by presenter identity, guarded by the scope
+     */
+    private final IdentityHashMap<TiPresenter, Long> mIds = new IdentityHashMap<>();
+
+    /**
+     * ids of shared presenters by their key, guarded by the scope
+     */
+    private final HashMap<String, Long> mSharedIds = new HashMap<>();
+
+    private final CopyOnWriteLongMap<TiPresenter> mStore = new CopyOnWriteLongMap<>();
+
+    /**
+     * calls the {@code visitor} for all presenters ordered by id. Presenters saved or removed
+     * while iterating are not visited or still visited.
+     */
+    public void forEach(@NonNull final Visitor visitor) {
+        final CopyOnWriteLongMap.Snapshot<TiPresenter> presenters = mStore.snapshot();
+        for (int i = 0; i < presenters.size(); i++) {
+            visitor.visit(presenters.keyAt(i), presenters.valueAt(i));
+        }
+    }
 
-    public TiPresenter get(final String id) {
+    public TiPresenter get(final long id) {
         return mStore.get(id);
     }
 
     @NonNull
     public List<TiPresenter> getAll() {
-        return Collections.unmodifiableList(new ArrayList<>(mStore.values()));
+        return mStore.values();
     }
 
+    /**
+     * copies all mappings, prefer {@link #forEach(Visitor)}
+     */
     @NonNull
-    public List<Map.Entry<String, TiPresenter>> getAllMappings() {
-        return Collections.unmodifiableList(new ArrayList<>(mStore.entrySet()));
+    public List<Map.Entry<Long, TiPresenter>> getAllMappings() {
+        final CopyOnWriteLongMap.Snapshot<TiPresenter> presenters = mStore.snapshot();
+        final ArrayList<Map.Entry<Long, TiPresenter>> mappings =
+                new ArrayList<>(presenters.size());
+        for (int i = 0; i < presenters.size(); i++) {
+            mappings.add(new AbstractMap.SimpleImmutableEntry<>(presenters.keyAt(i),
+                    presenters.valueAt(i)));
+        }
+        return Collections.unmodifiableList(mappings);
+    }
+
+    /**
+     * @return the id the presenter is saved with, {@link TiPresenterSavior#NO_ID} when the
+     * presenter isn't saved in this scope
+     */
+    public synchronized long getId(@NonNull final TiPresenter presenter) {
+        final Long id = mIds.get(presenter);
+        return id != null ? id : TiPresenterSavior.NO_ID;
+    }
+
+    /**
+     * @return the presenter shared with the {@code key}, {@code null} when no presenter is shared
+     * with the key
+     */
+    @Nullable
+    public synchronized TiPresenter getShared(@NonNull final String key) {
+        final Long id = mSharedIds.get(key);
+        return id != null ? mStore.get(id) : null;
+    }
+
+    /**
+     * @return {@code true} when the presenter saved with the {@code id} is shared with a key
+     */
+    public synchronized boolean isShared(final long id) {
+        return mSharedIds.containsValue(id);
     }
 
     public boolean isEmpty() {
         return mStore.isEmpty();
     }
 
-    public TiPresenter remove(@NonNull final String id) {
+    public synchronized TiPresenter remove(final long id) {
         final TiPresenter presenter = mStore.remove(id);
+        if (presenter != null) {
+            mIds.remove(presenter);
+            final Iterator<Long> sharedIds = mSharedIds.values().iterator();
+            while (sharedIds.hasNext()) {
+                if (sharedIds.next() == id) {
+                    sharedIds.remove();
+                }
+            }
+        }
         TiLog.d(TAG, "remove " + id + " " + presenter);
         return presenter;
     }
 
-    public void save(@NonNull final String id, @NonNull final TiPresenter presenter) {
-        if (id == null) {
-            throw new IllegalStateException("id must be non-null");
+    public synchronized void save(final long id, @NonNull final TiPresenter presenter) {
+        if (id == TiPresenterSavior.NO_ID) {
+            throw new IllegalStateException("id must not be NO_ID");
         }
         if (presenter == null) {
             throw new IllegalStateException("presenter must be non-null");
@@ -77,15 +159,27 @@ public class PresenterScope {
         }
 
         // saving a presenter twice with a different id is not supported
-        for (final Map.Entry<String, TiPresenter> entry : mStore.entrySet()) {
-            if (entry.getValue().equals(presenter)) {
-                throw new IllegalStateException("Presenter is already saved with different id '"
-                        + entry.getKey() + "' " + presenter);
-            }
+        final Long savedId = mIds.get(presenter);
+        if (savedId != null) {
+            throw new IllegalStateException("Presenter is already saved with different id '"
+                    + savedId + "' " + presenter);
         }
 
         TiLog.d(TAG, "save " + id + " " + presenter);
         mStore.put(id, presenter);
+        mIds.put(presenter, id);
+    }
+
+    /**
+     * shares the presenter saved with the {@code id} with the {@code key}, replacing the
+     * presenter shared with the key before
+     */
+    public synchronized void share(@NonNull final String key, final long id) {
+        if (mStore.get(id) == null) {
+            throw new IllegalStateException("There is no presenter saved with id " + id);
+        }
+        TiLog.d(TAG, "share " + id + " with key " + key);
+        mSharedIds.put(key, id);
     }
 
     public int size() {
@@ -21,10 +21,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
 
 /**
  * Binds a {@link TiView} to a {@link TiPresenter} and allows {@link BindViewInterceptor}s to
@@ -69,20 +71,34 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
      * delegate or wrap the view before it gets attached to the presenter.
      */
     public void bindView(final TiPresenter<V> presenter, final TiViewProvider<V> viewProvider) {
+        presenter.attachView(getInterceptedView(presenter, viewProvider));
+    }
+
+    /**
+     * the view which {@link #bindView(TiPresenter, TiViewProvider)} attaches to the
+     * {@code presenter}, after it passed the interceptors. Cached until
+     * {@link #invalidateView()}
+     */
+    @NonNull
+    public V getInterceptedView(final TiPresenter<V> presenter,
+            final TiViewProvider<V> viewProvider) {
         if (mLastView == null) {
             invalidateView();
             V interceptedView = viewProvider.provideView();
-            for (final BindViewInterceptor interceptor : mBindViewInterceptors) {
-                interceptedView = interceptor.intercept(interceptedView);
-                mInterceptorViewOutput.put(interceptor, interceptedView);
+            if (presenter.getConfig().isFusedBindViewInterceptorsEnabled()) {
+                interceptedView = interceptFused(interceptedView);
+            } else {
+                for (final BindViewInterceptor interceptor : mBindViewInterceptors) {
+                    interceptedView = interceptor.intercept(interceptedView);
+                    mInterceptorViewOutput.put(interceptor, interceptedView);
+                }
             }
             mLastView = interceptedView;
             TiLog.v(mLogTag.getLoggingTag(), "binding NEW view to Presenter " + mLastView);
-            presenter.attachView(mLastView);
         } else {
             TiLog.v(mLogTag.getLoggingTag(), "binding the cached view to Presenter " + mLastView);
-            presenter.attachView(mLastView);
         }
+        return mLastView;
     }
 
     @Nullable
@@ -110,4 +126,44 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
         mLastView = null;
         mInterceptorViewOutput.clear();
     }
+
+    /**
+     * wraps each run of consecutive {@link FusableBindViewInterceptor}s in a single proxy, all
+     * interceptors of a run share the output view. Other interceptors intercept the view as usual
+     */
+    private V interceptFused(final V view) {
+        V interceptedView = view;
+        final ArrayList<BindViewInterceptor> fused = new ArrayList<>();
+        final ArrayList<ViewCallStage> stages = new ArrayList<>();
+        final int count = mBindViewInterceptors.size();
+        for (int i = 0; i <= count; i++) {
+            final BindViewInterceptor interceptor = i < count ? mBindViewInterceptors.get(i) : null;
+            if (interceptor instanceof FusableBindViewInterceptor) {
+                final ViewCallStage stage =
+                        ((FusableBindViewInterceptor) interceptor).createStage(interceptedView);
+                if (stage != null) {
+                    // later interceptors wrap the earlier ones, their stages run first
+                    stages.add(0, stage);
+                }
+                fused.add(interceptor);
+                continue;
+            }
+
+            if (!fused.isEmpty()) {
+                interceptedView = FusedViewInvocationHandler.fuse(interceptedView, stages);
+                TiLog.v(mLogTag.getLoggingTag(), "fused " + stages.size()
+                        + " interceptor stages of " + fused + " in " + interceptedView);
+                for (int j = 0; j < fused.size(); j++) {
+                    mInterceptorViewOutput.put(fused.get(j), interceptedView);
+                }
+                fused.clear();
+                stages.clear();
+            }
+            if (interceptor != null) {
+                interceptedView = interceptor.intercept(interceptedView);
+                mInterceptorViewOutput.put(interceptor, interceptedView);
+            }
+        }
+        return interceptedView;
+    }
 }
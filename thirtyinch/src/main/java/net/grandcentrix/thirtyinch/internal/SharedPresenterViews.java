@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
+
+/**
+ * The views of all started Fragments sharing a presenter, see
+ * {@link net.grandcentrix.thirtyinch.TiFragment#getSharedPresenterKey()}. The shared presenter
+ * gets attached to a proxy which forwards each call to the views of all Fragments, i.e.
+ * {@link TiPresenter#sendToView(net.grandcentrix.thirtyinch.ViewAction)} updates all panes.
+ * The proxy is the only state, it's referenced by the presenter while a view is attached.
+ * <p>
+ * The presenter stays attached when a view joins, the views already attached don't notice the
+ * new view. The joining view gets the latest call of each view method returning {@code void}
+ * replayed instead of a call to {@link TiPresenter#onAttachView(TiView)}, in the order of the
+ * calls. A view leaving doesn't affect the others, the presenter gets detached when the last
+ * view leaves.
+ * </p>
+ * <p>
+ * Attaching and detaching is confined to the UI thread, the proxy may be called from any thread.
+ * </p>
+ */
+final class SharedPresenterViews extends AbstractInvocationHandler {
+
+    /**
+     * the arguments of the latest call of each method returning {@code void}, least recently
+     * called first. Guarded by {@code this}
+     */
+    private final LinkedHashMap<Method, Object[]> mLatestCalls = new LinkedHashMap<>();
+
+    private final Object mProxy;
+
+    /**
+     * copy on write, replaced while holding the lock of {@code this}
+     */
+    private volatile Object[] mViews;
+
+    /**
+     * attaches the {@code view} to the shared {@code presenter}, in addition to the views of the
+     * other Fragments sharing the presenter
+     */
+    @SuppressWarnings("unchecked")
+    static <V extends TiView> void attach(@NonNull final TiPresenter<V> presenter,
+            @NonNull final V view) {
+        final SharedPresenterViews views = of(presenter);
+        if (views == null) {
+            final SharedPresenterViews newViews = new SharedPresenterViews(view);
+            presenter.attachView((V) newViews.mProxy);
+            return;
+        }
+        views.add(view);
+    }
+
+    /**
+     * detaches the {@code view} from the shared {@code presenter}, the views of the other
+     * Fragments stay attached
+     */
+    static <V extends TiView> void detach(@NonNull final TiPresenter<V> presenter,
+            @NonNull final V view) {
+        final SharedPresenterViews views = of(presenter);
+        if (views != null && views.remove(view)) {
+            presenter.detachView();
+        }
+    }
+
+    /**
+     * @return the views the {@code presenter} is attached to, {@code null} when no view is
+     * attached
+     */
+    @Nullable
+    static SharedPresenterViews of(@NonNull final TiPresenter<?> presenter) {
+        final Object view = presenter.getView();
+        if (view == null || !Proxy.isProxyClass(view.getClass())) {
+            return null;
+        }
+        final Object handler = Proxy.getInvocationHandler(view);
+        return handler instanceof SharedPresenterViews ? (SharedPresenterViews) handler : null;
+    }
+
+    private SharedPresenterViews(@NonNull final Object view) {
+        final Class<?> viewInterface =
+                getInterfaceOfClassExtendingGivenInterface(view.getClass(), TiView.class);
+        if (viewInterface == null) {
+            throw new IllegalStateException("the interface extending View could not be found");
+        }
+        mViews = new Object[]{view};
+        mProxy = ViewDispatchPlan.of(viewInterface).newProxy(this);
+    }
+
+    /**
+     * @return the views receiving the calls, the view attached first at index {@code 0}
+     */
+    @VisibleForTesting
+    @NonNull
+    Object[] getViews() {
+        return mViews.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedViews@" + Integer.toHexString(hashCode()) + Arrays.toString(mViews);
+    }
+
+    /**
+     * calls the method of all views, returns the result of the view attached first
+     */
+    @Override
+    protected Object handleInvocation(final Object proxy, final Method method,
+            final Object[] args) throws Throwable {
+        final Object[] views;
+        synchronized (this) {
+            // recorded together with reading the views, a joining view either receives the call
+            // or gets it replayed
+            if (method.getReturnType() == void.class) {
+                mLatestCalls.remove(method);
+                mLatestCalls.put(method, args);
+            }
+            views = mViews;
+        }
+        Object result = null;
+        for (int i = 0; i < views.length; i++) {
+            final Object viewResult = invokeView(views[i], method, args);
+            if (i == 0) {
+                result = viewResult;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * adds the view and replays the latest calls to it, does nothing when already added
+     */
+    private void add(final Object view) {
+        final ArrayList<Map.Entry<Method, Object[]>> replay;
+        synchronized (this) {
+            final Object[] views = mViews;
+            for (final Object added : views) {
+                if (added == view) {
+                    return;
+                }
+            }
+            final Object[] newViews = Arrays.copyOf(views, views.length + 1);
+            newViews[views.length] = view;
+            mViews = newViews;
+            replay = new ArrayList<>(mLatestCalls.entrySet());
+        }
+        for (final Map.Entry<Method, Object[]> call : replay) {
+            try {
+                invokeView(view, call.getKey(), call.getValue());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("replaying " + call.getKey() + " failed", e);
+            }
+        }
+    }
+
+    private static Object invokeView(final Object view, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            try {
+                return method.invoke(view, args);
+            } catch (IllegalAccessException e) {
+                // not accessible from this package, i.e. a method of a private class
+                method.setAccessible(true);
+                return method.invoke(view, args);
+            }
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return {@code true} when the last view was removed, the latest calls are forgotten
+     */
+    private synchronized boolean remove(final Object view) {
+        final Object[] views = mViews;
+        for (int i = 0; i < views.length; i++) {
+            if (views[i] == view) {
+                final Object[] newViews = new Object[views.length - 1];
+                System.arraycopy(views, 0, newViews, 0, i);
+                System.arraycopy(views, i + 1, newViews, i, views.length - i - 1);
+                mViews = newViews;
+                if (newViews.length == 0) {
+                    mLatestCalls.clear();
+                    return true;
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+}
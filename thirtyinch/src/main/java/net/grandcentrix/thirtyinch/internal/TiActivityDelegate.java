@@ -22,6 +22,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import java.util.List;
+import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
 import net.grandcentrix.thirtyinch.TiActivity;
@@ -43,6 +44,9 @@ import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInte
 public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
         implements InterceptableViewBinder<V>, PresenterAccessor<P, V> {
 
+    @VisibleForTesting
+    static final String SAVED_STATE_PENDING_CREATION_ID = "pending_presenter_creation_id";
+
     @VisibleForTesting
     static final String SAVED_STATE_PRESENTER_ID = "presenter_id";
 
@@ -54,6 +58,26 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
 
     private final TiLoggingTagProvider mLogTag;
 
+    /**
+     * the optional features of {@link #mTiActivity}, {@code null} when not implemented
+     */
+    @Nullable
+    private final DelegatedTiActivityOptions mOptions;
+
+    private final PendingPresenterCreation.Owner<P> mCreationOwner =
+            new PendingPresenterCreation.Owner<P>() {
+                @Override
+                public void onPresenterCreated(@NonNull final P presenter) {
+                    TiActivityDelegate.this.onPresenterCreated(presenter);
+                }
+            };
+
+    /**
+     * the running asynchronous creation of the presenter, {@code null} when the presenter is
+     * available or the Activity got destroyed
+     */
+    private PendingPresenterCreation<P> mPendingPresenterCreation;
+
     /**
      * The presenter to which this activity will be attached as view when in the right state.
      */
@@ -63,7 +87,7 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
      * The id of the presenter this view got attached to. Will be stored in the savedInstanceState
      * to find the same presenter after the Activity got recreated.
      */
-    private String mPresenterId;
+    private long mPresenterId = TiPresenterSavior.NO_ID;
 
     private final TiPresenterProvider<P> mPresenterProvider;
 
@@ -71,6 +95,12 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
 
     private final DelegatedTiActivity mTiActivity;
 
+    /**
+     * {@code true} after the interceptors enabled by the {@link TiConfiguration} got added, a
+     * presenter recreated after an eviction keeps using them
+     */
+    private boolean mConfigInterceptorsAdded;
+
     private Removable mUiThreadBinderRemovable;
 
     private final PresenterViewBinder<V> mViewBinder;
@@ -83,6 +113,8 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
             final TiLoggingTagProvider logTag,
             final TiPresenterSavior savior) {
         mTiActivity = activityProvider;
+        mOptions = activityProvider instanceof DelegatedTiActivityOptions
+                ? (DelegatedTiActivityOptions) activityProvider : null;
         mViewProvider = viewProvider;
         mPresenterProvider = presenterProvider;
         mLogTag = logTag;
@@ -131,13 +163,29 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
     @SuppressWarnings("unchecked")
     public void onCreate_afterSuper(final Bundle savedInstanceState) {
 
+        if (savedInstanceState != null && mPresenter == null) {
+            // the previous instance got destroyed while creating the presenter in the background
+            final long creationId = savedInstanceState
+                    .getLong(SAVED_STATE_PENDING_CREATION_ID, TiPresenterSavior.NO_ID);
+            final PendingPresenterCreation<P> creation =
+                    (PendingPresenterCreation<P>) PendingPresenterCreation
+                            .claimHandedOver(creationId);
+            if (creation != null) {
+                TiLog.v(mLogTag.getLoggingTag(), "adopting " + creation
+                        + " of the previous Activity instance");
+                mPendingPresenterCreation = creation;
+                creation.setOwner(mCreationOwner);
+                return;
+            }
+        }
+
         // try to recover with the PresenterSavior
         if (savedInstanceState != null) {
-            final String recoveredPresenterId =
-                    savedInstanceState.getString(SAVED_STATE_PRESENTER_ID);
+            final long recoveredPresenterId = savedInstanceState
+                    .getLong(SAVED_STATE_PRESENTER_ID, TiPresenterSavior.NO_ID);
 
             if (mPresenter == null) {
-                if (recoveredPresenterId != null) {
+                if (recoveredPresenterId != TiPresenterSavior.NO_ID) {
                     // recover with Savior
                     // this should always work.
                     TiLog.v(mLogTag.getLoggingTag(),
@@ -165,41 +213,61 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
         }
 
         if (mPresenter == null) {
-            // could not recover, create a new presenter
-            mPresenter = mPresenterProvider.providePresenter();
-            if (mPresenter.getState() != TiPresenter.State.INITIALIZED) {
-                throw new IllegalStateException("Presenter not in initialized state. "
-                        + "Current state is " + mPresenter.getState() + ". "
-                        + "Presenter provided with #providePresenter() cannot be reused. "
-                        + "Always return a fresh instance!");
-            }
-            TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
-            final TiConfiguration config = mPresenter.getConfig();
-            if (config.shouldRetainPresenter()) {
-                mPresenterId = mSavior.save(mPresenter, mTiActivity.getHostingContainer());
+            // adopt the presenter prewarmed for this Activity
+            final String prewarmedToken = getPrewarmedPresenterToken();
+            if (prewarmedToken != null) {
+                mPresenter = (P) mSavior.claimPrewarmed(prewarmedToken);
+                if (mPresenter != null) {
+                    TiLog.v(mLogTag.getLoggingTag(), "adopted prewarmed Presenter: " + mPresenter);
+                    if (mPresenter.getConfig().shouldRetainPresenter()) {
+                        mPresenterId = mSavior.save(mPresenter, mTiActivity.getHostingContainer());
+                    }
+                }
             }
-            mPresenter.create();
         }
 
-        final TiConfiguration config = mPresenter.getConfig();
-        if (config.isCallOnMainThreadInterceptorEnabled()) {
-            addBindViewInterceptor(new CallOnMainThreadInterceptor());
+        if (mPresenter == null) {
+            // adopt the presenter kept after a previous instance of this Activity finished
+            final String cacheKey = getPresenterCacheKey();
+            if (cacheKey != null) {
+                mPresenter = (P) mSavior.claimKept(cacheKey);
+                if (mPresenter != null) {
+                    TiLog.v(mLogTag.getLoggingTag(), "adopted kept Presenter: " + mPresenter);
+                    if (mPresenter.getConfig().shouldRetainPresenter()) {
+                        mPresenterId = mSavior.save(mPresenter, mTiActivity.getHostingContainer());
+                    }
+                }
+            }
         }
 
-        if (config.isDistinctUntilChangedInterceptorEnabled()) {
-            addBindViewInterceptor(new DistinctUntilChangedInterceptor());
+        if (mPresenter == null) {
+            // could not recover, create a new presenter
+            if (!createPresenter()) {
+                return;
+            }
         }
 
-        //noinspection unchecked
-        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
-                new UiThreadExecutorAutoBinder(mPresenter, mTiActivity.getUiThreadExecutor());
-
-        // bind ui thread to presenter when view is attached
-        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(uiThreadAutoBinder);
+        onPresenterAvailable();
     }
 
     public void onDestroy_afterSuper() {
 
+        if (mPresenter == null) {
+            if (mTiActivity.isActivityFinishing()) {
+                // the presenter is still created in the background, it will be destroyed when ready
+                TiLog.v(mLogTag.getLoggingTag(),
+                        "Activity finished before the presenter was created");
+                mPendingPresenterCreation.cancel();
+            } else {
+                // don't lose the work, the recreated Activity adopts the presenter
+                TiLog.v(mLogTag.getLoggingTag(), "Activity destroyed before the presenter was "
+                        + "created, handing over " + mPendingPresenterCreation);
+                mPendingPresenterCreation.handOver();
+            }
+            mPendingPresenterCreation = null;
+            return;
+        }
+
         // unregister observer and don't leak it
         if (mUiThreadBinderRemovable != null) {
             mUiThreadBinderRemovable.remove();
@@ -223,7 +291,12 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
         }
 
         if (destroyPresenter) {
-            mPresenter.destroy();
+            if (mTiActivity.isActivityFinishing()) {
+                // keeps the presenter when a cache key was registered
+                mSavior.release(mPresenter);
+            } else {
+                mPresenter.destroy();
+            }
             mSavior.free(mPresenterId, mTiActivity.getHostingContainer());
         } else {
             TiLog.v(mLogTag.getLoggingTag(), "not destroying " + mPresenter
@@ -232,7 +305,10 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
     }
 
     public void onSaveInstanceState_afterSuper(final Bundle outState) {
-        outState.putString(SAVED_STATE_PRESENTER_ID, mPresenterId);
+        outState.putLong(SAVED_STATE_PRESENTER_ID, mPresenterId);
+        if (mPendingPresenterCreation != null) {
+            outState.putLong(SAVED_STATE_PENDING_CREATION_ID, mPendingPresenterCreation.getId());
+        }
     }
 
     public void onStart_afterSuper() {
@@ -242,8 +318,12 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
             @Override
             public void run() {
                 // check if still started. It happens that onStop got already called, specially
-                // when the Activity is not the top Activity and a configuration change happens
-                if (mActivityStarted) {
+                // when the Activity is not the top Activity and a configuration change happens.
+                // Without presenter the view gets bound after the asynchronous creation
+                if (mActivityStarted && mPresenter != null) {
+                    if (mPresenter.isDestroyed() && !recreateEvictedPresenter()) {
+                        return;
+                    }
                     mViewBinder.bindView(mPresenter, mViewProvider);
                 }
             }
@@ -251,10 +331,158 @@ public class TiActivityDelegate<P extends TiPresenter<V>, V extends TiView>
     }
 
     public void onStop_afterSuper() {
-        mPresenter.detachView();
+        if (mPresenter != null) {
+            mPresenter.detachView();
+        }
     }
 
     public void onStop_beforeSuper() {
         mActivityStarted = false;
     }
+
+    /**
+     * Creates a new presenter and saves it when it should be retained
+     *
+     * @return {@code true} when the presenter is available, {@code false} when it gets created
+     * asynchronously, see {@link #createPresenterAsync(Executor)}
+     */
+    private boolean createPresenter() {
+        final Executor creationExecutor = getPresenterCreationExecutor();
+        if (creationExecutor != null) {
+            createPresenterAsync(creationExecutor);
+            return false;
+        }
+        mPresenter = providePresenter();
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        final TiConfiguration config = mPresenter.getConfig();
+        if (config.shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiActivity.getHostingContainer());
+        }
+        mPresenter.create();
+        return true;
+    }
+
+    /**
+     * Calls {@link TiPresenterProvider#providePresenter()} and {@link TiPresenter#create()} on the
+     * {@code creationExecutor}. The presenter gets saved and bound to the view on the UI thread
+     * afterwards. {@link #getPresenter()} returns {@code null} until then.
+     */
+    private void createPresenterAsync(final Executor creationExecutor) {
+        final PendingPresenterCreation<P> creation = new PendingPresenterCreation<>(
+                new TiPresenterProvider<P>() {
+                    @NonNull
+                    @Override
+                    public P providePresenter() {
+                        return TiActivityDelegate.this.providePresenter();
+                    }
+                }, mTiActivity.getUiThreadExecutor(), mCreationOwner);
+        mPendingPresenterCreation = creation;
+        TiLog.v(mLogTag.getLoggingTag(), "creating Presenter asynchronously");
+        creationExecutor.execute(creation);
+    }
+
+    @Nullable
+    private String getPresenterCacheKey() {
+        return mOptions != null ? mOptions.getPresenterCacheKey() : null;
+    }
+
+    @Nullable
+    private Executor getPresenterCreationExecutor() {
+        return mOptions != null ? mOptions.getPresenterCreationExecutor() : null;
+    }
+
+    @Nullable
+    private String getPrewarmedPresenterToken() {
+        return mOptions != null ? mOptions.getPrewarmedPresenterToken() : null;
+    }
+
+    private void onPresenterAvailable() {
+        final TiConfiguration config = mPresenter.getConfig();
+        if (!mConfigInterceptorsAdded) {
+            mConfigInterceptorsAdded = true;
+            if (config.isCallOnMainThreadInterceptorEnabled()) {
+                addBindViewInterceptor(new CallOnMainThreadInterceptor());
+            }
+
+            if (config.isDistinctUntilChangedInterceptorEnabled()) {
+                addBindViewInterceptor(new DistinctUntilChangedInterceptor());
+            }
+        }
+
+        //noinspection unchecked
+        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
+                new UiThreadExecutorAutoBinder(mPresenter, mTiActivity.getUiThreadExecutor());
+
+        // bind ui thread to presenter when view is attached
+        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(
+                UiThreadExecutorAutoBinder.EVENTS, uiThreadAutoBinder);
+
+        // trim the presenter on memory pressure even when it isn't saved
+        mSavior.observeMemoryPressure(mPresenter, mTiActivity.getHostingContainer());
+
+        final String cacheKey = getPresenterCacheKey();
+        if (cacheKey != null && config.getFinishedPresenterGracePeriodMillis() > 0) {
+            mSavior.keepAfterFinish(mPresenter, cacheKey);
+        }
+    }
+
+    /**
+     * Called on the UI thread after the {@link #mPendingPresenterCreation} created the
+     * {@code presenter} in the background
+     */
+    private void onPresenterCreated(final P presenter) {
+        mPendingPresenterCreation = null;
+        mPresenter = presenter;
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        if (mPresenter.getConfig().shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiActivity.getHostingContainer());
+        }
+
+        onPresenterAvailable();
+
+        if (mActivityStarted) {
+            // onStart() was called while the presenter was created
+            mViewBinder.bindView(mPresenter, mViewProvider);
+        }
+    }
+
+    /**
+     * The {@link PresenterSavior} evicted the presenter on memory pressure while the Activity was
+     * stopped. Like a recreated Activity which could not recover its presenter, the Activity
+     * creates a new one.
+     *
+     * @return {@code true} when the new presenter is available, {@code false} when it gets
+     * created asynchronously
+     */
+    private boolean recreateEvictedPresenter() {
+        TiLog.i(mLogTag.getLoggingTag(), "could not recover the Presenter " + mPresenter
+                + " which got evicted while the Activity was stopped, creating a new one.");
+        if (mUiThreadBinderRemovable != null) {
+            mUiThreadBinderRemovable.remove();
+            mUiThreadBinderRemovable = null;
+        }
+        mSavior.free(mPresenterId, mTiActivity.getHostingContainer());
+        mPresenterId = TiPresenterSavior.NO_ID;
+        mPresenter = null;
+        // start with a fresh view like a recreated Activity, without the cached
+        // DistinctUntilChanged calls of the old presenter
+        mViewBinder.invalidateView();
+
+        if (!createPresenter()) {
+            return false;
+        }
+        onPresenterAvailable();
+        return true;
+    }
+
+    private P providePresenter() {
+        final P presenter = mPresenterProvider.providePresenter();
+        if (presenter.getState() != TiPresenter.State.INITIALIZED) {
+            throw new IllegalStateException("Presenter not in initialized state. "
+                    + "Current state is " + presenter.getState() + ". "
+                    + "Presenter provided with #providePresenter() cannot be reused. "
+                    + "Always return a fresh instance!");
+        }
+        return presenter;
+    }
 }
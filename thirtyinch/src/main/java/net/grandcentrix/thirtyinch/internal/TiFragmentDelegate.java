@@ -22,6 +22,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import java.util.List;
+import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
 import net.grandcentrix.thirtyinch.TiConfiguration;
@@ -42,6 +43,9 @@ import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInte
 public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
         implements InterceptableViewBinder<V>, PresenterAccessor<P, V> {
 
+    @VisibleForTesting
+    static final String SAVED_STATE_PENDING_CREATION_ID = "pending_presenter_creation_id";
+
     @VisibleForTesting
     static final String SAVED_STATE_PRESENTER_ID = "presenter_id";
 
@@ -54,9 +58,35 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     private final TiLoggingTagProvider mLogTag;
 
+    /**
+     * the optional features of {@link #mTiFragment}, {@code null} when not implemented
+     */
+    @Nullable
+    private final DelegatedTiFragmentOptions mOptions;
+
+    private final PendingPresenterCreation.Owner<P> mCreationOwner =
+            new PendingPresenterCreation.Owner<P>() {
+                @Override
+                public void onPresenterCreated(@NonNull final P presenter) {
+                    TiFragmentDelegate.this.onPresenterCreated(presenter);
+                }
+            };
+
+    /**
+     * the running asynchronous creation of the presenter, {@code null} when the presenter is
+     * available or the Fragment got destroyed
+     */
+    private PendingPresenterCreation<P> mPendingPresenterCreation;
+
+    /**
+     * {@code true} when the id of the {@link #mPendingPresenterCreation} got saved in the
+     * instance state, a recreated Fragment can adopt the creation
+     */
+    private boolean mPendingPresenterCreationSaved;
+
     private P mPresenter;
 
-    private String mPresenterId;
+    private long mPresenterId = TiPresenterSavior.NO_ID;
 
     private final TiPresenterProvider<P> mPresenterProvider;
 
@@ -64,10 +94,23 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     private final DelegatedTiFragment mTiFragment;
 
+    /**
+     * {@code true} after the interceptors enabled by the {@link TiConfiguration} got added, a
+     * presenter recreated after an eviction keeps using them
+     */
+    private boolean mConfigInterceptorsAdded;
+
     private Removable mUiThreadBinderRemovable;
 
     private final PresenterViewBinder<V> mViewBinder;
 
+    /**
+     * the view this Fragment attached to its shared presenter, {@code null} while not attached.
+     * The shared presenter may be attached to the views of sibling Fragments as well, see
+     * {@link SharedPresenterViews}
+     */
+    private V mSharedBoundView;
+
     private final TiViewProvider<V> mViewProvider;
 
     public TiFragmentDelegate(final DelegatedTiFragment fragmentProvider,
@@ -76,6 +119,8 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
             final TiLoggingTagProvider logTag,
             final TiPresenterSavior savior) {
         mTiFragment = fragmentProvider;
+        mOptions = fragmentProvider instanceof DelegatedTiFragmentOptions
+                ? (DelegatedTiFragmentOptions) fragmentProvider : null;
         mViewProvider = viewProvider;
         mPresenterProvider = presenterProvider;
         mLogTag = logTag;
@@ -133,12 +178,37 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
             mPresenter = null;
         }
 
+        if (mPresenter == null && savedInstanceState != null) {
+            // the previous instance got destroyed while creating the presenter in the background
+            final long creationId = savedInstanceState
+                    .getLong(SAVED_STATE_PENDING_CREATION_ID, TiPresenterSavior.NO_ID);
+            final PendingPresenterCreation<P> creation =
+                    (PendingPresenterCreation<P>) PendingPresenterCreation
+                            .claimHandedOver(creationId);
+            if (creation != null) {
+                TiLog.v(mLogTag.getLoggingTag(), "adopting " + creation
+                        + " of the previous Fragment instance");
+                mPendingPresenterCreation = creation;
+                creation.setOwner(mCreationOwner);
+                return;
+            }
+        }
+
+        final String sharedKey = getSharedPresenterKey();
+        if (mPresenter == null && sharedKey != null) {
+            // use the presenter another Fragment of the scope created
+            mPresenter = (P) mSavior.recoverShared(sharedKey, mTiFragment.getHostingContainer());
+            if (mPresenter != null) {
+                TiLog.v(mLogTag.getLoggingTag(), "using shared Presenter " + mPresenter);
+            }
+        }
+
         if (mPresenter == null && savedInstanceState != null) {
             // recover with Savior
             // this should always work.
-            final String recoveredPresenterId = savedInstanceState
-                    .getString(SAVED_STATE_PRESENTER_ID);
-            if (recoveredPresenterId != null) {
+            final long recoveredPresenterId = savedInstanceState
+                    .getLong(SAVED_STATE_PRESENTER_ID, TiPresenterSavior.NO_ID);
+            if (recoveredPresenterId != TiPresenterSavior.NO_ID) {
                 TiLog.v(mLogTag.getLoggingTag(),
                         "try to recover Presenter with id: " + recoveredPresenterId);
                 mPresenter = (P) mSavior
@@ -154,51 +224,51 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
             }
         }
 
-        if (mPresenter == null) {
-            mPresenter = mPresenterProvider.providePresenter();
-            if (mPresenter.getState() != TiPresenter.State.INITIALIZED) {
-                throw new IllegalStateException("Presenter not in initialized state. "
-                        + "Current state is " + mPresenter.getState() + ". "
-                        + "Presenter provided with #providePresenter() cannot be reused. "
-                        + "Always return a fresh instance!");
-            }
-            TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
-            final TiConfiguration config = mPresenter.getConfig();
-            if (config.shouldRetainPresenter()) {
-                mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
-            }
-            mPresenter.create();
-        }
-
-        final TiConfiguration config = mPresenter.getConfig();
-        if (config.isCallOnMainThreadInterceptorEnabled()) {
-            addBindViewInterceptor(new CallOnMainThreadInterceptor());
-        }
-
-        if (config.isDistinctUntilChangedInterceptorEnabled()) {
-            addBindViewInterceptor(new DistinctUntilChangedInterceptor());
+        if (mPresenter == null && !createPresenter()) {
+            return;
         }
 
-        //noinspection unchecked
-        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
-                new UiThreadExecutorAutoBinder(mPresenter, mTiFragment.getUiThreadExecutor());
-
-        // bind ui thread to presenter when view is attached
-        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(uiThreadAutoBinder);
+        onPresenterAvailable();
     }
 
     public void onDestroyView_beforeSuper() {
-        mPresenter.detachView();
+        detachView();
     }
 
     public void onDestroy_afterSuper() {
 
+        if (mPresenter == null) {
+            if (mPendingPresenterCreation == null) {
+                return;
+            }
+            if (mPendingPresenterCreationSaved && !isFragmentFinishing()) {
+                // don't lose the work, the recreated Fragment adopts the presenter
+                TiLog.v(mLogTag.getLoggingTag(), "Fragment destroyed before the presenter was "
+                        + "created, handing over " + mPendingPresenterCreation);
+                mPendingPresenterCreation.handOver();
+            } else {
+                // the presenter is still created in the background, it will be destroyed when
+                // ready
+                TiLog.v(mLogTag.getLoggingTag(),
+                        "Fragment destroyed before the presenter was created");
+                mPendingPresenterCreation.cancel();
+            }
+            mPendingPresenterCreation = null;
+            return;
+        }
+
         // unregister observer and don't leak it
         if (mUiThreadBinderRemovable != null) {
             mUiThreadBinderRemovable.remove();
             mUiThreadBinderRemovable = null;
         }
 
+        if (getSharedPresenterKey() != null) {
+            TiLog.v(mLogTag.getLoggingTag(), "not destroying shared " + mPresenter
+                    + " which gets destroyed with its scope");
+            return;
+        }
+
         boolean destroyPresenter = false;
 
         if (!mTiFragment.isFragmentInBackstack()) {
@@ -233,7 +303,11 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
     }
 
     public void onSaveInstanceState_afterSuper(final Bundle outState) {
-        outState.putString(SAVED_STATE_PRESENTER_ID, mPresenterId);
+        outState.putLong(SAVED_STATE_PRESENTER_ID, mPresenterId);
+        if (mPendingPresenterCreation != null) {
+            outState.putLong(SAVED_STATE_PENDING_CREATION_ID, mPendingPresenterCreation.getId());
+            mPendingPresenterCreationSaved = true;
+        }
     }
 
     public void onStart_afterSuper() {
@@ -243,8 +317,12 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
             mTiFragment.getUiThreadExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
-                    if (isUiPossible() && mActivityStarted) {
-                        mViewBinder.bindView(mPresenter, mViewProvider);
+                    // without presenter the view gets bound after the asynchronous creation
+                    if (isUiPossible() && mActivityStarted && mPresenter != null) {
+                        if (mPresenter.isDestroyed() && !recreateEvictedPresenter()) {
+                            return;
+                        }
+                        bindView();
                     }
                 }
             });
@@ -253,7 +331,7 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     public void onStop_beforeSuper() {
         mActivityStarted = false;
-        mPresenter.detachView();
+        detachView();
     }
 
     @Override
@@ -268,8 +346,198 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
                 + "{presenter=" + presenter + "}";
     }
 
+    /**
+     * binds the view of this Fragment to the presenter, a shared presenter next to the views of
+     * the started sibling Fragments
+     */
+    private void bindView() {
+        if (getSharedPresenterKey() == null) {
+            mViewBinder.bindView(mPresenter, mViewProvider);
+            return;
+        }
+        final V view = mViewBinder.getInterceptedView(mPresenter, mViewProvider);
+        if (mSharedBoundView != null && mSharedBoundView != view) {
+            // the view got invalidated while bound
+            SharedPresenterViews.detach(mPresenter, mSharedBoundView);
+        }
+        mSharedBoundView = view;
+        SharedPresenterViews.attach(mPresenter, view);
+    }
+
+    /**
+     * Creates a new presenter and saves it when it should be retained
+     *
+     * @return {@code true} when the presenter is available, {@code false} when it gets created
+     * asynchronously, see {@link #createPresenterAsync(Executor)}
+     */
+    private boolean createPresenter() {
+        final Executor creationExecutor = getPresenterCreationExecutor();
+        if (creationExecutor != null) {
+            createPresenterAsync(creationExecutor);
+            return false;
+        }
+        mPresenter = providePresenter();
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        savePresenter();
+        mPresenter.create();
+        return true;
+    }
+
+    /**
+     * Calls {@link TiPresenterProvider#providePresenter()} and {@link TiPresenter#create()} on the
+     * {@code creationExecutor}. The presenter gets saved and bound to the view on the UI thread
+     * afterwards. {@link #getPresenter()} returns {@code null} until then.
+     */
+    private void createPresenterAsync(final Executor creationExecutor) {
+        final PendingPresenterCreation<P> creation = new PendingPresenterCreation<>(
+                new TiPresenterProvider<P>() {
+                    @NonNull
+                    @Override
+                    public P providePresenter() {
+                        return TiFragmentDelegate.this.providePresenter();
+                    }
+                }, mTiFragment.getUiThreadExecutor(), mCreationOwner);
+        mPendingPresenterCreation = creation;
+        mPendingPresenterCreationSaved = false;
+        TiLog.v(mLogTag.getLoggingTag(), "creating Presenter asynchronously");
+        creationExecutor.execute(creation);
+    }
+
+    /**
+     * detaches the view of this Fragment, leaves the views of sibling Fragments sharing the
+     * presenter attached
+     */
+    private void detachView() {
+        if (mPresenter == null) {
+            return;
+        }
+        if (getSharedPresenterKey() == null) {
+            mPresenter.detachView();
+            return;
+        }
+        if (mSharedBoundView != null) {
+            SharedPresenterViews.detach(mPresenter, mSharedBoundView);
+            mSharedBoundView = null;
+        }
+    }
+
+    @Nullable
+    private Executor getPresenterCreationExecutor() {
+        return mOptions != null ? mOptions.getPresenterCreationExecutor() : null;
+    }
+
+    @Nullable
+    private String getSharedPresenterKey() {
+        return mOptions != null ? mOptions.getSharedPresenterKey() : null;
+    }
+
+    /**
+     * @return {@code true} when no new instance of the Fragment will be created because it got
+     * removed or its Activity finishes
+     */
+    private boolean isFragmentFinishing() {
+        if (mOptions != null && mOptions.isHostingActivityFinishing()) {
+            return true;
+        }
+        return mTiFragment.isFragmentRemoving() && !mTiFragment.isFragmentInBackstack();
+    }
+
     private boolean isUiPossible() {
         return mTiFragment.isFragmentAdded() && !mTiFragment.isFragmentDetached();
     }
 
+    private void onPresenterAvailable() {
+        final TiConfiguration config = mPresenter.getConfig();
+        if (!mConfigInterceptorsAdded) {
+            mConfigInterceptorsAdded = true;
+            if (config.isCallOnMainThreadInterceptorEnabled()) {
+                addBindViewInterceptor(new CallOnMainThreadInterceptor());
+            }
+
+            if (config.isDistinctUntilChangedInterceptorEnabled()) {
+                addBindViewInterceptor(new DistinctUntilChangedInterceptor());
+            }
+        }
+
+        //noinspection unchecked
+        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
+                new UiThreadExecutorAutoBinder(mPresenter, mTiFragment.getUiThreadExecutor());
+
+        // bind ui thread to presenter when view is attached
+        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(
+                UiThreadExecutorAutoBinder.EVENTS, uiThreadAutoBinder);
+
+        // trim the presenter on memory pressure even when it isn't saved
+        mSavior.observeMemoryPressure(mPresenter, mTiFragment.getHostingContainer());
+    }
+
+    /**
+     * Called on the UI thread after the {@link #mPendingPresenterCreation} created the
+     * {@code presenter} in the background
+     */
+    private void onPresenterCreated(final P presenter) {
+        mPendingPresenterCreation = null;
+        mPresenter = presenter;
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        savePresenter();
+
+        onPresenterAvailable();
+
+        if (isUiPossible() && mActivityStarted) {
+            // onStart() was called while the presenter was created
+            bindView();
+        }
+    }
+
+    /**
+     * Replaces the presenter the {@link PresenterSavior} destroyed while the Activity was
+     * stopped, see {@link PresenterSavior#setMaxRetainedPresenters(int)}
+     *
+     * @return {@code true} when the new presenter is available, {@code false} when it gets
+     * created asynchronously and bound afterwards
+     */
+    private boolean recreateEvictedPresenter() {
+        TiLog.i(mLogTag.getLoggingTag(), "could not recover the Presenter " + mPresenter
+                + " which got evicted while the Activity was stopped, creating a new one.");
+        if (mUiThreadBinderRemovable != null) {
+            mUiThreadBinderRemovable.remove();
+            mUiThreadBinderRemovable = null;
+        }
+        mSavior.free(mPresenterId, mTiFragment.getHostingContainer());
+        mPresenterId = TiPresenterSavior.NO_ID;
+        mPresenter = null;
+        // start with a fresh view like a recreated Fragment, without the cached
+        // DistinctUntilChanged calls of the old presenter
+        mViewBinder.invalidateView();
+
+        if (!createPresenter()) {
+            return false;
+        }
+        onPresenterAvailable();
+        return true;
+    }
+
+    private P providePresenter() {
+        final P presenter = mPresenterProvider.providePresenter();
+        if (presenter.getState() != TiPresenter.State.INITIALIZED) {
+            throw new IllegalStateException("Presenter not in initialized state. "
+                    + "Current state is " + presenter.getState() + ". "
+                    + "Presenter provided with #providePresenter() cannot be reused. "
+                    + "Always return a fresh instance!");
+        }
+        return presenter;
+    }
+
+    /**
+     * saves the created presenter in the {@link TiPresenterSavior}, as shared presenter owned by
+     * the scope when the Fragment shares its presenter
+     */
+    private void savePresenter() {
+        final String sharedKey = getSharedPresenterKey();
+        if (sharedKey != null) {
+            mSavior.saveShared(sharedKey, mPresenter, mTiFragment.getHostingContainer());
+        } else if (mPresenter.getConfig().shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+        }
+    }
 }
\ No newline at end of file
@@ -41,6 +41,10 @@ public interface TiPresenterProvider<P extends TiPresenter> {
      * Fragment} gets added again this method is called to create a new
      * presenter.
      * </p>
+     * <p>
+     * Called on a background thread when the presenter gets created asynchronously, see
+     * {@link DelegatedTiActivityOptions#getPresenterCreationExecutor()}
+     * </p>
      */
     @NonNull
     P providePresenter();
@@ -28,13 +28,58 @@ import net.grandcentrix.thirtyinch.TiPresenter;
  */
 public interface TiPresenterSavior {
 
+    /**
+     * id which is never assigned to a presenter, i.e. for presenters which are not saved
+     */
+    long NO_ID = 0;
+
+    /**
+     * Hands over a presenter kept after its host finished, see
+     * {@link #keepAfterFinish(TiPresenter, String)}
+     *
+     * @param key the key the presenter was kept with
+     * @return the kept presenter or {@code null} when no presenter was kept with this key or
+     * its grace period expired
+     */
+    @Nullable
+    TiPresenter claimKept(@NonNull String key);
+
+    /**
+     * Hands over a presenter created ahead of time for an upcoming host. A prewarmed presenter
+     * can be claimed only once.
+     *
+     * @param token the token returned when prewarming the presenter
+     * @return the created presenter or {@code null} when no presenter was prewarmed for this
+     * token, it was already claimed or its timeout expired
+     */
+    @Nullable
+    TiPresenter claimPrewarmed(@NonNull String token);
+
     /**
      * Frees a certain presenter from the store.
      *
-     * @param presenterId the id of the presenter
+     * @param presenterId the id of the presenter, {@link #NO_ID} is ignored
      * @param host        host of the presenter, see {@link #save(TiPresenter, Object)}
      */
-    void free(String presenterId, @NonNull Object host);
+    void free(long presenterId, @NonNull Object host);
+
+    /**
+     * Marks the presenter to be kept for the grace period of its
+     * {@link net.grandcentrix.thirtyinch.TiConfiguration} when its host finishes, see
+     * {@link #release(TiPresenter)}
+     *
+     * @param key the key a new host claims the presenter with
+     */
+    void keepAfterFinish(@NonNull TiPresenter presenter, @NonNull String key);
+
+    /**
+     * Forwards the memory pressure of the process to the presenter until it gets destroyed, even
+     * when it isn't saved in this store. Called by every host when its presenter is available.
+     *
+     * @param presenter the presenter of the host
+     * @param host      host of the presenter, see {@link #save(TiPresenter, Object)}
+     */
+    void observeMemoryPressure(@NonNull TiPresenter presenter, @NonNull Object host);
 
     /**
      * Gets a presenter from the store.
@@ -44,16 +89,49 @@ public interface TiPresenterSavior {
      * @return the presenter of {@code null} if no presenter could be found
      */
     @Nullable
-    TiPresenter recover(String presenterId, @NonNull Object host);
+    TiPresenter recover(long presenterId, @NonNull Object host);
+
+    /**
+     * Gets a presenter shared by multiple hosts of the same scope from the store.
+     *
+     * @param key   the key the presenter was shared with
+     * @param scope the scope of the presenter, see {@link #saveShared(String, TiPresenter,
+     *              Object)}
+     * @return the shared presenter or {@code null} if no presenter is shared with the key in the
+     * scope
+     */
+    @Nullable
+    TiPresenter recoverShared(@NonNull String key, @NonNull Object scope);
+
+    /**
+     * Called when the host of the presenter finished. Destroys the presenter, or keeps it for its
+     * grace period when marked with {@link #keepAfterFinish(TiPresenter, String)}. Does nothing
+     * when the presenter is already destroyed or kept.
+     */
+    void release(@NonNull TiPresenter presenter);
 
     /**
      * Stores a presenter in the store for a given host. When the host gets destroyed the presenter
      * will be destroyed automatically. For {@link Activity} the host is the {@link Activity}
-     * itself, for {@link Fragment} the host is {@link Fragment#getHost()}
+     * itself, for {@link Fragment} the host is {@link Fragment#getHost()} unless the Fragment
+     * chooses a different scope, i.e. its parent {@link Fragment} or a
+     * {@link PresenterSavior.SharedScope}
      *
      * @param presenter the presenter that should be stored
      * @param host      host of the presenter
-     * @return the id of the stored presenter
+     * @return the id of the stored presenter, never {@link #NO_ID}
+     */
+    long save(@NonNull TiPresenter presenter, @NonNull Object host);
+
+    /**
+     * Stores a presenter shared by multiple hosts of the same scope, i.e. the Fragments of one
+     * flow. The presenter can be recovered with {@link #recoverShared(String, Object)} by all
+     * hosts until the scope gets destroyed, which destroys the presenter. Replaces the presenter
+     * shared with the {@code key} before.
+     *
+     * @param key       the key the hosts share the presenter with
+     * @param presenter the presenter that should be stored
+     * @param scope     host of the presenter, see {@link #save(TiPresenter, Object)}
      */
-    String save(@NonNull TiPresenter presenter, @NonNull Object host);
+    void saveShared(@NonNull String key, @NonNull TiPresenter presenter, @NonNull Object scope);
 }
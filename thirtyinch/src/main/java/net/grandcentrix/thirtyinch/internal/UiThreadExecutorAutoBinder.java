@@ -20,18 +20,42 @@ import net.grandcentrix.thirtyinch.TiLifecycleObserver;
 import net.grandcentrix.thirtyinch.TiPresenter;
 
 /**
- * binds a ui thread executor to the presenter when this view is attached
+ * binds a ui thread executor, a ui thread frame executor and a ui thread idle executor to the
+ * presenter when this view is attached
  */
 public class UiThreadExecutorAutoBinder implements TiLifecycleObserver {
 
+    /**
+     * the only events this observer reacts to, use it when adding the observer with {@link
+     * TiPresenter#addLifecycleObserver(int, TiLifecycleObserver)}
+     */
+    public static final int EVENTS = VIEW_ATTACHED_BEFORE | VIEW_DETACHED_AFTER;
+
     private final TiPresenter mPresenter;
 
     private final Executor mUiThreadExecutor;
 
+    private final Executor mUiThreadFrameExecutor;
+
+    private final Executor mUiThreadIdleExecutor;
+
     public UiThreadExecutorAutoBinder(final TiPresenter presenter,
             final Executor uiThreadExecutor) {
+        this(presenter, uiThreadExecutor, new UiThreadIdleExecutor());
+    }
+
+    public UiThreadExecutorAutoBinder(final TiPresenter presenter,
+            final Executor uiThreadExecutor, final Executor uiThreadIdleExecutor) {
+        this(presenter, uiThreadExecutor, new UiThreadFrameExecutor(), uiThreadIdleExecutor);
+    }
+
+    public UiThreadExecutorAutoBinder(final TiPresenter presenter,
+            final Executor uiThreadExecutor, final Executor uiThreadFrameExecutor,
+            final Executor uiThreadIdleExecutor) {
         mPresenter = presenter;
         mUiThreadExecutor = uiThreadExecutor;
+        mUiThreadFrameExecutor = uiThreadFrameExecutor;
+        mUiThreadIdleExecutor = uiThreadIdleExecutor;
     }
 
     @Override
@@ -41,10 +65,14 @@ public class UiThreadExecutorAutoBinder implements TiLifecycleObserver {
         if (state == TiPresenter.State.VIEW_ATTACHED && !hasLifecycleMethodBeenCalled) {
             // before super.onAttachView(view)
             mPresenter.setUiThreadExecutor(mUiThreadExecutor);
+            mPresenter.setUiThreadFrameExecutor(mUiThreadFrameExecutor);
+            mPresenter.setUiThreadIdleExecutor(mUiThreadIdleExecutor);
         }
         if (state == TiPresenter.State.VIEW_DETACHED && hasLifecycleMethodBeenCalled) {
             // after super.onDetachView()
             mPresenter.setUiThreadExecutor(null);
+            mPresenter.setUiThreadFrameExecutor(null);
+            mPresenter.setUiThreadIdleExecutor(null);
         }
     }
 }
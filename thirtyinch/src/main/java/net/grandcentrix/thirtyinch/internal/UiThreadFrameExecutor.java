@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes work on the UI thread at the beginning of the next display frame with a
+ * {@link Choreographer} frame callback. All actions executed before the frame starts run in this
+ * frame, in order. Actions are never executed immediately, even when already on the UI thread.
+ * <p>
+ * Falls back to posting a message to the UI thread on API levels without {@link Choreographer}.
+ */
+public class UiThreadFrameExecutor implements Executor {
+
+    /**
+     * isolates the {@link Choreographer} classes, they are only loaded on API 16 and above
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class FrameCallback implements Choreographer.FrameCallback {
+
+        private final Runnable mRunActions;
+
+        FrameCallback(final Runnable runActions) {
+            mRunActions = runActions;
+        }
+
+        @Override
+        public void doFrame(final long frameTimeNanos) {
+            mRunActions.run();
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * pending actions, guarded by itself
+     */
+    private final ArrayDeque<Runnable> mActions = new ArrayDeque<>();
+
+    /**
+     * created lazily on the UI thread, the {@link Choreographer} is bound to the thread
+     */
+    private FrameCallback mFrameCallback;
+
+    /**
+     * {@code true} when the actions are scheduled to run with the next frame. Guarded by
+     * {@link #mActions}
+     */
+    private boolean mFrameScheduled = false;
+
+    private Handler mHandler;
+
+    private final Runnable mRunActions = new Runnable() {
+        @Override
+        public void run() {
+            final int count;
+            synchronized (mActions) {
+                // actions executed from now on run with the next frame
+                mFrameScheduled = false;
+                count = mActions.size();
+            }
+            for (int i = 0; i < count; i++) {
+                final Runnable action;
+                synchronized (mActions) {
+                    action = mActions.poll();
+                }
+                if (action == null) {
+                    return;
+                }
+                action.run();
+            }
+        }
+    };
+
+    private final Runnable mScheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                if (mFrameCallback == null) {
+                    mFrameCallback = new FrameCallback(mRunActions);
+                }
+                mFrameCallback.post();
+            } else {
+                mRunActions.run();
+            }
+        }
+    };
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        final boolean scheduleFrame;
+        synchronized (mActions) {
+            mActions.add(command);
+            scheduleFrame = !mFrameScheduled;
+            mFrameScheduled = true;
+        }
+        if (scheduleFrame) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                mScheduleFrame.run();
+            } else {
+                // the frame callback has to be posted on the UI thread
+                getHandler().post(mScheduleFrame);
+            }
+        }
+    }
+
+    /**
+     * the handler is created lazily, the main looper isn't available in unit tests
+     */
+    private synchronized Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+}
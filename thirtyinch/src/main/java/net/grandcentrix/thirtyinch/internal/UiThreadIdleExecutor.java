@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes work on the UI thread when its {@link MessageQueue} is idle, after all pending
+ * messages (i.e. drawing the next frame) have been handled. Actions are executed in order. Each
+ * idle period executes actions until the queue is empty or {@link #IDLE_BUDGET_MILLIS} are used
+ * up, the remaining actions continue in the next idle period, after the messages which arrived
+ * in the meantime. An action throwing doesn't stop the execution of the remaining actions.
+ * Actions are never executed immediately, even when already on the UI thread.
+ */
+public class UiThreadIdleExecutor implements Executor {
+
+    /**
+     * time an idle period may be used for actions, a fraction of a frame which leaves room for
+     * input and drawing
+     */
+    static final long IDLE_BUDGET_MILLIS = 4;
+
+    /**
+     * pending actions, guarded by itself
+     */
+    private final ArrayDeque<Runnable> mActions = new ArrayDeque<>();
+
+    private Handler mHandler;
+
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            final long deadline = SystemClock.uptimeMillis() + IDLE_BUDGET_MILLIS;
+            boolean drained = false;
+            try {
+                do {
+                    final Runnable action;
+                    synchronized (mActions) {
+                        action = mActions.poll();
+                        if (action == null) {
+                            mIdleHandlerAdded = false;
+                            drained = true;
+                            return false;
+                        }
+                    }
+                    action.run();
+                } while (SystemClock.uptimeMillis() < deadline);
+            } finally {
+                if (!drained) {
+                    // the budget is used up or the action threw, the MessageQueue removes this
+                    // idle handler in both cases
+                    continueInNextIdlePeriod();
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * {@code true} when {@link #mIdleHandler} is added to the {@link MessageQueue} or about to be
+     * added. Guarded by {@link #mActions}
+     */
+    private boolean mIdleHandlerAdded = false;
+
+    private final Runnable mAddIdleHandler = new Runnable() {
+        @Override
+        public void run() {
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    };
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        final boolean addIdleHandler;
+        synchronized (mActions) {
+            mActions.add(command);
+            addIdleHandler = !mIdleHandlerAdded;
+            mIdleHandlerAdded = true;
+        }
+        if (addIdleHandler) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                mAddIdleHandler.run();
+            } else {
+                // the idle handler has to be added on the UI thread
+                getHandler().post(mAddIdleHandler);
+            }
+        }
+    }
+
+    /**
+     * Adds the idle handler again for the remaining actions. A quiet looper doesn't get idle again
+     * without a message, posting {@link #mAddIdleHandler} wakes it up and lets the messages which
+     * arrived in the meantime run first.
+     */
+    private void continueInNextIdlePeriod() {
+        synchronized (mActions) {
+            if (mActions.isEmpty()) {
+                mIdleHandlerAdded = false;
+                return;
+            }
+        }
+        getHandler().post(mAddIdleHandler);
+    }
+
+    /**
+     * the handler is created lazily, the main looper isn't available in unit tests
+     */
+    private synchronized Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+}
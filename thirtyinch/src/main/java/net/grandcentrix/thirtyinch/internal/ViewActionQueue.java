@@ -0,0 +1,693 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+
+/**
+ * Growable array ring buffer holding the {@link ViewAction}s of a
+ * {@link net.grandcentrix.thirtyinch.TiPresenter} while no view is attached.
+ * <p>
+ * The backing array grows (doubling) until it reaches the configured capacity and is reused
+ * afterwards. Adding and polling actions doesn't allocate once the array has grown to the size
+ * required by the app.
+ * <p>
+ * When the queue is full the {@link TiConfiguration.OverflowPolicy} decides what happens with
+ * a new action.
+ * <p>
+ * Actions can be added with a key using {@link #offer(Object, ViewAction)}. A keyed action
+ * replaces an already queued action with the same key, the queue therefore never contains more
+ * than one action per key. The queued action is found by scanning the keys of the queue which
+ * doesn't allocate, adding a keyed action takes linear time in the size of the queue.
+ * <p>
+ * Every action has a {@link ViewAction.Priority} which is returned by {@link #peekPriority()}
+ * before the action gets polled, like the key returned by {@link #peekKey()}.
+ * <p>
+ * Actions can expire after a time to live and the total weight of all actions can be limited by
+ * a budget. Expired actions are evicted with {@link #evictExpired()} and when a new action is
+ * added, actions exceeding the budget are evicted oldest first when a new action is added.
+ * Expired actions behind a not expired action (i.e. behind a replaced keyed action) are swept
+ * before a full queue or an exceeded budget evicts not expired actions.
+ * Evicted actions (including actions dropped due to the capacity) are reported to the
+ * {@link OnEvictedListener}.
+ * <p>
+ * This class is not thread-safe, callers have to synchronize the access.
+ */
+public class ViewActionQueue<V extends TiView> extends AbstractQueue<ViewAction<V>> {
+
+    /**
+     * Source of the timestamps deciding when actions expire, {@link System#nanoTime()} unless
+     * replaced in tests with {@link #setTicker(Ticker)}
+     */
+    public interface Ticker {
+
+        /**
+         * @return the current time in nanoseconds, only the difference between two calls is
+         * meaningful
+         */
+        long nanoTime();
+    }
+
+    /**
+     * Read-only copy of the queued actions, see {@link #snapshot()}
+     */
+    private static final class Snapshot<V extends TiView> extends AbstractQueue<ViewAction<V>> {
+
+        private final ViewAction[] mActions;
+
+        Snapshot(final ViewAction[] actions) {
+            mActions = actions;
+        }
+
+        @NonNull
+        @Override
+        public Iterator<ViewAction<V>> iterator() {
+            return new Iterator<ViewAction<V>>() {
+
+                private int mIndex = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return mIndex < mActions.length;
+                }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public ViewAction<V> next() {
+                    if (mIndex >= mActions.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return mActions[mIndex++];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("snapshot of the queued actions");
+                }
+            };
+        }
+
+        @Override
+        public boolean offer(final ViewAction<V> action) {
+            throw new UnsupportedOperationException("snapshot of the queued actions");
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        @Override
+        public ViewAction<V> peek() {
+            return mActions.length == 0 ? null : mActions[0];
+        }
+
+        @Override
+        public ViewAction<V> poll() {
+            throw new UnsupportedOperationException("snapshot of the queued actions");
+        }
+
+        @Override
+        public int size() {
+            return mActions.length;
+        }
+    }
+
+    /**
+     * Gets called for every action evicted from the queue. Called while the queue is modified,
+     * the queue must not be accessed from this listener
+     */
+    public interface OnEvictedListener<V extends TiView> {
+
+        void onEvicted(@NonNull ViewAction<V> action,
+                @NonNull TiConfiguration.ViewActionEvictionListener.Reason reason);
+    }
+
+    private static final int INITIAL_ARRAY_SIZE = 8;
+
+    private static final int MAX_ARRAY_SIZE = 1 << 30;
+
+    private static final Ticker SYSTEM_TICKER = new Ticker() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private final long mBudget;
+
+    private final int mCapacity;
+
+    private ViewAction[] mElements;
+
+    /**
+     * index of the oldest element in {@link #mElements}
+     */
+    private int mHead = 0;
+
+    /**
+     * the keys of the elements, same index as {@link #mElements}. {@code null} for actions added
+     * without a key
+     */
+    private Object[] mKeys;
+
+    @Nullable
+    private OnEvictedListener<V> mOnEvictedListener;
+
+    private final TiConfiguration.OverflowPolicy mOverflowPolicy;
+
+    /**
+     * the priorities of the elements, same index as {@link #mElements}
+     */
+    private ViewAction.Priority[] mPriorities;
+
+    private int mSize = 0;
+
+    private Ticker mTicker = SYSTEM_TICKER;
+
+    private final long mTimeToLiveNanos;
+
+    /**
+     * {@link #mTicker} time when the elements were added, same index as {@link #mElements}.
+     * {@code null} when actions never expire
+     */
+    @Nullable
+    private long[] mTimestamps;
+
+    /**
+     * sum of {@link #mWeights}
+     */
+    private long mWeight = 0;
+
+    @Nullable
+    private final TiConfiguration.ViewActionWeigher mWeigher;
+
+    /**
+     * the weights of the elements, same index as {@link #mElements}. {@code null} without
+     * {@link #mWeigher}
+     */
+    @Nullable
+    private long[] mWeights;
+
+    /**
+     * @param capacity       maximum number of actions, {@link Integer#MAX_VALUE} for an unbounded
+     *                       queue
+     * @param overflowPolicy what to do when adding an action to a full queue
+     */
+    public ViewActionQueue(final int capacity,
+            @NonNull final TiConfiguration.OverflowPolicy overflowPolicy) {
+        this(capacity, overflowPolicy, Long.MAX_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param capacity          maximum number of actions, {@link Integer#MAX_VALUE} for an
+     *                          unbounded queue
+     * @param overflowPolicy    what to do when adding an action to a full queue
+     * @param timeToLiveMillis  actions expire after this time, {@link Long#MAX_VALUE} to never
+     *                          expire
+     * @param budget            maximum total weight of all actions
+     * @param weigher           calculates the weight of an action, {@code null} to disable the
+     *                          budget
+     */
+    public ViewActionQueue(final int capacity,
+            @NonNull final TiConfiguration.OverflowPolicy overflowPolicy,
+            final long timeToLiveMillis, final long budget,
+            @Nullable final TiConfiguration.ViewActionWeigher weigher) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive but was " + capacity);
+        }
+        if (timeToLiveMillis < 1) {
+            throw new IllegalArgumentException(
+                    "time to live must be positive but was " + timeToLiveMillis);
+        }
+        mCapacity = capacity;
+        mOverflowPolicy = overflowPolicy;
+        mTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        mBudget = budget;
+        mWeigher = weigher;
+        final int arraySize = arraySizeFor(Math.min(capacity, INITIAL_ARRAY_SIZE));
+        mElements = new ViewAction[arraySize];
+        mKeys = new Object[arraySize];
+        mPriorities = new ViewAction.Priority[arraySize];
+        if (timeToLiveMillis != Long.MAX_VALUE) {
+            mTimestamps = new long[arraySize];
+        }
+        if (weigher != null) {
+            mWeights = new long[arraySize];
+        }
+    }
+
+    @Override
+    public void clear() {
+        final int mask = mElements.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            final int index = (mHead + i) & mask;
+            mElements[index] = null;
+            mKeys[index] = null;
+            mPriorities[index] = null;
+        }
+        if (mWeights != null) {
+            // no need to clear the timestamps, they are primitives
+            for (int i = 0; i < mSize; i++) {
+                mWeights[(mHead + i) & mask] = 0;
+            }
+        }
+        mWeight = 0;
+        mHead = 0;
+        mSize = 0;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return the total weight of all queued actions, {@code 0} without weigher
+     */
+    public long getWeight() {
+        return mWeight;
+    }
+
+    @NonNull
+    @Override
+    public Iterator<ViewAction<V>> iterator() {
+        return new Iterator<ViewAction<V>>() {
+
+            private int mIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return mIndex < mSize;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public ViewAction<V> next() {
+                if (mIndex >= mSize) {
+                    throw new NoSuchElementException();
+                }
+                return mElements[(mHead + mIndex++) & (mElements.length - 1)];
+            }
+        };
+    }
+
+    /**
+     * Adds the action at the end of the queue. When the queue is full the
+     * {@link TiConfiguration.OverflowPolicy} is applied.
+     *
+     * @return {@code false} when the action was dropped due to
+     * {@link TiConfiguration.OverflowPolicy#DROP_NEWEST} or because it's heavier than the budget
+     * @throws IllegalStateException when the queue is full and the policy is
+     *                               {@link TiConfiguration.OverflowPolicy#FAIL}
+     */
+    @Override
+    public boolean offer(@NonNull final ViewAction<V> action) {
+        return offer(null, ViewAction.Priority.IMMEDIATE, action);
+    }
+
+    /**
+     * Adds the action at the end of the queue. When an action with the same {@code key} is
+     * already queued it gets replaced by {@code action} which takes its place in the queue.
+     * Replacing an action never triggers the {@link TiConfiguration.OverflowPolicy}.
+     *
+     * @param key identifies actions replacing each other, {@code null} to always add the action
+     * @return {@code false} when the action was dropped due to
+     * {@link TiConfiguration.OverflowPolicy#DROP_NEWEST} or because it's heavier than the budget
+     * @throws IllegalStateException when the queue is full and the policy is
+     *                               {@link TiConfiguration.OverflowPolicy#FAIL}
+     * @see #offer(ViewAction)
+     */
+    public boolean offer(@Nullable final Object key, @NonNull final ViewAction<V> action) {
+        return offer(key, ViewAction.Priority.IMMEDIATE, action);
+    }
+
+    /**
+     * Adds the action with the given priority, like {@link #offer(Object, ViewAction)}. A
+     * replacing action replaces the priority of the queued action, too.
+     *
+     * @see #offer(Object, ViewAction)
+     */
+    public boolean offer(@Nullable final Object key, @NonNull final ViewAction.Priority priority,
+            @NonNull final ViewAction<V> action) {
+        //noinspection ConstantConditions
+        if (action == null) {
+            throw new NullPointerException("action must be non-null");
+        }
+
+        final long now = mTimestamps != null ? mTicker.nanoTime() : 0;
+        evictExpired(now);
+
+        final long weight = weigh(action);
+        if (weight > mBudget) {
+            notifyEvicted(action, TiConfiguration.ViewActionEvictionListener.Reason.OVER_BUDGET);
+            return false;
+        }
+
+        if (key != null) {
+            final int index = indexOfKey(key);
+            if (index >= 0) {
+                // replace the queued action in place
+                mElements[index] = action;
+                mPriorities[index] = priority;
+                if (mTimestamps != null) {
+                    mTimestamps[index] = now;
+                }
+                if (mWeights != null) {
+                    mWeight += weight - mWeights[index];
+                    mWeights[index] = weight;
+                    evictOverBudget(now);
+                }
+                return true;
+            }
+        }
+
+        if (mSize == mCapacity) {
+            // expired actions hidden behind the head must not push out valid actions
+            sweepExpired(now);
+        }
+        if (mSize == mCapacity) {
+            switch (mOverflowPolicy) {
+                case DROP_OLDEST:
+                    evictHead(TiConfiguration.ViewActionEvictionListener.Reason.OVER_CAPACITY);
+                    break;
+                case DROP_NEWEST:
+                    notifyEvicted(action,
+                            TiConfiguration.ViewActionEvictionListener.Reason.OVER_CAPACITY);
+                    return false;
+                case FAIL:
+                    throw new IllegalStateException("Can't postpone " + action
+                            + ", the queue reached its capacity of " + mCapacity + " actions");
+            }
+        }
+
+        if (mSize == mElements.length) {
+            grow();
+        }
+        final int index = (mHead + mSize) & (mElements.length - 1);
+        mElements[index] = action;
+        mKeys[index] = key;
+        mPriorities[index] = priority;
+        if (mTimestamps != null) {
+            mTimestamps[index] = now;
+        }
+        mSize++;
+        if (mWeights != null) {
+            mWeights[index] = weight;
+            mWeight += weight;
+            evictOverBudget(now);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public ViewAction<V> peek() {
+        if (mSize == 0) {
+            return null;
+        }
+        return mElements[mHead];
+    }
+
+    /**
+     * @return the key of the action {@link #poll()} would return, {@code null} when the queue is
+     * empty or the action was added without a key
+     */
+    @Nullable
+    public Object peekKey() {
+        if (mSize == 0) {
+            return null;
+        }
+        return mKeys[mHead];
+    }
+
+    /**
+     * @return the priority of the action {@link #poll()} would return, {@code null} when the
+     * queue is empty
+     */
+    @Nullable
+    public ViewAction.Priority peekPriority() {
+        if (mSize == 0) {
+            return null;
+        }
+        return mPriorities[mHead];
+    }
+
+    /**
+     * Evicts all actions which expired. Call it before {@link #poll()} to not return expired
+     * actions.
+     */
+    public void evictExpired() {
+        if (mTimestamps != null) {
+            evictExpired(mTicker.nanoTime());
+        }
+    }
+
+    @Nullable
+    @Override
+    public ViewAction<V> poll() {
+        return removeHead();
+    }
+
+    /**
+     * Sets the listener which gets called for every evicted action
+     */
+    public void setOnEvictedListener(@Nullable final OnEvictedListener<V> listener) {
+        mOnEvictedListener = listener;
+    }
+
+    /**
+     * Replaces the time source deciding when actions expire, tests advance a fake time instead
+     * of waiting for the time to live
+     */
+    @VisibleForTesting
+    public void setTicker(@NonNull final Ticker ticker) {
+        mTicker = ticker;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return an unmodifiable copy of the queued actions in order. The copy can be used without
+     * synchronization, modifying it throws an {@link UnsupportedOperationException}
+     */
+    @NonNull
+    public Queue<ViewAction<V>> snapshot() {
+        final ViewAction[] actions = new ViewAction[mSize];
+        for (int i = 0; i < mSize; i++) {
+            actions[i] = mElements[(mHead + i) & (mElements.length - 1)];
+        }
+        return new Snapshot<>(actions);
+    }
+
+    /**
+     * evicts expired actions at the head of the queue. Actions are added in order and expire in
+     * order, except keyed actions which got replaced. Expired actions behind them are evicted once
+     * they reach the head or by {@link #sweepExpired(long)}
+     */
+    private void evictExpired(final long now) {
+        if (mTimestamps == null) {
+            return;
+        }
+        while (mSize > 0 && now - mTimestamps[mHead] >= mTimeToLiveNanos) {
+            evictHead(TiConfiguration.ViewActionEvictionListener.Reason.EXPIRED);
+        }
+    }
+
+    private void evictHead(
+            @NonNull final TiConfiguration.ViewActionEvictionListener.Reason reason) {
+        final ViewAction<V> action = removeHead();
+        if (action != null) {
+            notifyEvicted(action, reason);
+        }
+    }
+
+    /**
+     * evicts the expired actions and then the oldest actions until the total weight fits into
+     * the budget
+     */
+    private void evictOverBudget(final long now) {
+        if (mWeight > mBudget) {
+            sweepExpired(now);
+        }
+        while (mWeight > mBudget && mSize > 0) {
+            evictHead(TiConfiguration.ViewActionEvictionListener.Reason.OVER_BUDGET);
+        }
+    }
+
+    private void notifyEvicted(@NonNull final ViewAction<V> action,
+            @NonNull final TiConfiguration.ViewActionEvictionListener.Reason reason) {
+        final OnEvictedListener<V> listener = mOnEvictedListener;
+        if (listener != null) {
+            listener.onEvicted(action, reason);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private ViewAction<V> removeHead() {
+        if (mSize == 0) {
+            return null;
+        }
+        final ViewAction<V> action = mElements[mHead];
+        // release the references, don't leak the action
+        mElements[mHead] = null;
+        mKeys[mHead] = null;
+        mPriorities[mHead] = null;
+        if (mWeights != null) {
+            mWeight -= mWeights[mHead];
+            mWeights[mHead] = 0;
+        }
+        mHead = (mHead + 1) & (mElements.length - 1);
+        mSize--;
+        return action;
+    }
+
+    /**
+     * @return the index in {@link #mElements} of the queued action with the given key, {@code -1}
+     * when no action with this key is queued
+     */
+    private int indexOfKey(@NonNull final Object key) {
+        final int mask = mElements.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            final int index = (mHead + i) & mask;
+            if (key.equals(mKeys[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * evicts all expired actions, not only the ones at the head of the queue like
+     * {@link #evictExpired(long)}. Not expired actions are moved towards the head, keeping their
+     * order.
+     */
+    private void sweepExpired(final long now) {
+        if (mTimestamps == null) {
+            return;
+        }
+        final int mask = mElements.length - 1;
+        final int size = mSize;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            final int from = (mHead + i) & mask;
+            if (now - mTimestamps[from] >= mTimeToLiveNanos) {
+                @SuppressWarnings("unchecked") final ViewAction<V> action = mElements[from];
+                mElements[from] = null;
+                mKeys[from] = null;
+                mPriorities[from] = null;
+                if (mWeights != null) {
+                    mWeight -= mWeights[from];
+                    mWeights[from] = 0;
+                }
+                mSize--;
+                notifyEvicted(action, TiConfiguration.ViewActionEvictionListener.Reason.EXPIRED);
+                continue;
+            }
+            final int to = (mHead + kept) & mask;
+            if (to != from) {
+                mElements[to] = mElements[from];
+                mKeys[to] = mKeys[from];
+                mPriorities[to] = mPriorities[from];
+                mTimestamps[to] = mTimestamps[from];
+                mElements[from] = null;
+                mKeys[from] = null;
+                mPriorities[from] = null;
+                if (mWeights != null) {
+                    mWeights[to] = mWeights[from];
+                    mWeights[from] = 0;
+                }
+            }
+            kept++;
+        }
+    }
+
+    /**
+     * doubles the size of the backing array and moves the elements to the beginning of the new
+     * array
+     */
+    private void grow() {
+        final int oldLength = mElements.length;
+        if (oldLength >= MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Can't postpone more than " + oldLength + " actions");
+        }
+        final ViewAction[] grown = new ViewAction[oldLength << 1];
+        final Object[] grownKeys = new Object[oldLength << 1];
+        final ViewAction.Priority[] grownPriorities = new ViewAction.Priority[oldLength << 1];
+        final int headToEnd = oldLength - mHead;
+        System.arraycopy(mElements, mHead, grown, 0, headToEnd);
+        System.arraycopy(mElements, 0, grown, headToEnd, mHead);
+        System.arraycopy(mKeys, mHead, grownKeys, 0, headToEnd);
+        System.arraycopy(mKeys, 0, grownKeys, headToEnd, mHead);
+        System.arraycopy(mPriorities, mHead, grownPriorities, 0, headToEnd);
+        System.arraycopy(mPriorities, 0, grownPriorities, headToEnd, mHead);
+        mElements = grown;
+        mKeys = grownKeys;
+        mPriorities = grownPriorities;
+        mTimestamps = grow(mTimestamps, headToEnd);
+        mWeights = grow(mWeights, headToEnd);
+        mHead = 0;
+    }
+
+    /**
+     * @return a copy of {@code array} with double the size, the element at {@link #mHead} moved
+     * to the beginning. {@code null} when {@code array} is {@code null}
+     */
+    @Nullable
+    private long[] grow(@Nullable final long[] array, final int headToEnd) {
+        if (array == null) {
+            return null;
+        }
+        final long[] grown = new long[array.length << 1];
+        System.arraycopy(array, mHead, grown, 0, headToEnd);
+        System.arraycopy(array, 0, grown, headToEnd, mHead);
+        return grown;
+    }
+
+    private long weigh(@NonNull final ViewAction<V> action) {
+        if (mWeigher == null) {
+            return 0;
+        }
+        final long weight = mWeigher.weigh(action);
+        if (weight < 0) {
+            throw new IllegalStateException("weight of " + action
+                    + " must not be negative but was " + weight);
+        }
+        return weight;
+    }
+
+    /**
+     * @return the smallest power of two which is greater or equal to {@code size}
+     */
+    private static int arraySizeFor(final int size) {
+        int arraySize = 1;
+        while (arraySize < size) {
+            arraySize <<= 1;
+        }
+        return arraySize;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.WeakHashMap;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+
+/**
+ * Precomputed {@link MethodDispatch} of the methods of a {@link TiView} interface, telling the
+ * invocation handlers how to treat a call without inspecting the {@link Method} again. All
+ * handlers of a view interface share its plan, see {@link #of(Class)}.
+ * <p>
+ * Looking up a dispatch is a single identity lookup for the {@link Method} instances of a proxy
+ * class, which are passed to the handler on every call. Lookups neither block nor allocate,
+ * unknown methods are added with a copy of the identity map.
+ * </p>
+ * <p>
+ * The plan also creates the {@link Proxy} instances of the interface with
+ * {@link #newProxy(InvocationHandler)}, the constructor of the proxy class is looked up once.
+ * </p>
+ */
+public final class ViewDispatchPlan {
+
+    /**
+     * How the interceptors handle the calls of a single view method
+     */
+    public static final class MethodDispatch {
+
+        private final boolean mCallOnMainThread;
+
+        @Nullable
+        private final DistinctUntilChanged mDistinctUntilChanged;
+
+        private final int mDistinctSlot;
+
+        MethodDispatch(final boolean callOnMainThread,
+                @Nullable final DistinctUntilChanged distinctUntilChanged,
+                final int distinctSlot) {
+            mCallOnMainThread = callOnMainThread;
+            mDistinctUntilChanged = distinctUntilChanged;
+            mDistinctSlot = distinctSlot;
+        }
+
+        /**
+         * @return the {@link DistinctUntilChanged} annotation of a distinct method, {@code null}
+         * when calls should be passed through
+         */
+        @Nullable
+        public DistinctUntilChanged getDistinctUntilChanged() {
+            return mDistinctUntilChanged;
+        }
+
+        /**
+         * @return the index of the comparator of the method, unique per plan,
+         * {@link #NO_SLOT} when calls should be passed through
+         */
+        public int getDistinctSlot() {
+            return mDistinctSlot;
+        }
+
+        /**
+         * @return {@code true} when calls from other threads should be posted to the main thread
+         */
+        public boolean isCallOnMainThread() {
+            return mCallOnMainThread;
+        }
+    }
+
+    public static final int NO_SLOT = -1;
+
+    /**
+     * limits the identity map when a caller passes new {@link Method} instances on every call
+     */
+    @VisibleForTesting
+    static final int MAX_IDENTITY_DISPATCHES = 512;
+
+    /**
+     * the plans reference the methods and therefore their interface, the plans are softly
+     * referenced to allow the interface to be unloaded. A plan survives while no handler uses it,
+     * i.e. between the views of two Activity instances, and is only collected on memory pressure
+     */
+    private static final WeakHashMap<Class<?>, SoftReference<ViewDispatchPlan>> PLANS =
+            new WeakHashMap<>();
+
+    /**
+     * dispatches by equal methods, guarded by this plan
+     */
+    private final HashMap<Method, MethodDispatch> mDispatches = new HashMap<>();
+
+    /**
+     * copy on write, changes are synchronized on this plan
+     */
+    private volatile IdentityHashMap<Method, MethodDispatch> mIdentityDispatches =
+            new IdentityHashMap<>();
+
+    /**
+     * guarded by this plan
+     */
+    private int mDistinctSlotCount = 0;
+
+    /**
+     * the constructor of the {@link Proxy} class of {@link #mViewInterface}, looked up lazily
+     */
+    private volatile Constructor<?> mProxyConstructor;
+
+    private final Class<?> mViewInterface;
+
+    /**
+     * @return the plan of the {@code viewInterface}, created with the dispatches of all its
+     * methods when called the first time
+     */
+    @NonNull
+    public static ViewDispatchPlan of(@NonNull final Class<?> viewInterface) {
+        synchronized (PLANS) {
+            ViewDispatchPlan plan = getCached(viewInterface);
+            if (plan == null) {
+                plan = new ViewDispatchPlan(viewInterface);
+                PLANS.put(viewInterface, new SoftReference<>(plan));
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * @return the plan of the interface extending {@link TiView} implemented by the {@code view},
+     * the plan of the class of the {@code view} when there is no such interface
+     */
+    @NonNull
+    public static ViewDispatchPlan ofView(@NonNull final Object view) {
+        final Class<?> viewInterface =
+                getInterfaceOfClassExtendingGivenInterface(view.getClass(), TiView.class);
+        return of(viewInterface != null ? viewInterface : view.getClass());
+    }
+
+    /**
+     * @return the plan of the interface when it was created and not collected yet
+     */
+    @VisibleForTesting
+    @Nullable
+    static ViewDispatchPlan getCached(@NonNull final Class<?> viewInterface) {
+        synchronized (PLANS) {
+            final SoftReference<ViewDispatchPlan> ref = PLANS.get(viewInterface);
+            return ref != null ? ref.get() : null;
+        }
+    }
+
+    private ViewDispatchPlan(final Class<?> viewInterface) {
+        mViewInterface = viewInterface;
+        final IdentityHashMap<Method, MethodDispatch> identityDispatches = new IdentityHashMap<>();
+        for (final Method method : viewInterface.getMethods()) {
+            identityDispatches.put(method, getDispatchOfEqualMethod(method));
+        }
+        mIdentityDispatches = identityDispatches;
+    }
+
+    /**
+     * @return how calls of the {@code method} are handled
+     */
+    @NonNull
+    public MethodDispatch get(@NonNull final Method method) {
+        final MethodDispatch dispatch = mIdentityDispatches.get(method);
+        if (dispatch != null) {
+            return dispatch;
+        }
+        return addDispatch(method);
+    }
+
+    /**
+     * @return the constructor of the {@link Proxy} class implementing the view interface of this
+     * plan, taking the {@link InvocationHandler}. Looked up once per plan
+     */
+    @NonNull
+    public Constructor<?> getProxyConstructor() {
+        Constructor<?> constructor = mProxyConstructor;
+        if (constructor == null) {
+            final Class<?> proxyClass =
+                    Proxy.getProxyClass(mViewInterface.getClassLoader(), mViewInterface);
+            try {
+                constructor = proxyClass.getConstructor(InvocationHandler.class);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(
+                        "proxy of " + mViewInterface + " can't be created", e);
+            }
+            if (!Modifier.isPublic(proxyClass.getModifiers())) {
+                // proxies of package private interfaces are package private
+                constructor.setAccessible(true);
+            }
+            mProxyConstructor = constructor;
+        }
+        return constructor;
+    }
+
+    /**
+     * @return the number of distinct methods known to this plan, all slots are lower
+     */
+    public synchronized int getDistinctSlotCount() {
+        return mDistinctSlotCount;
+    }
+
+    /**
+     * creates a {@link Proxy} implementing the view interface of this plan like
+     * {@link Proxy#newProxyInstance(ClassLoader, Class[], InvocationHandler)} without looking up
+     * the constructor of the proxy class again
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public <V> V newProxy(@NonNull final InvocationHandler handler) {
+        final Constructor<?> constructor = getProxyConstructor();
+        try {
+            return (V) constructor.newInstance(handler);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(
+                    "proxy of " + mViewInterface + " failed", e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(
+                    "proxy of " + mViewInterface + " can't be created", e);
+        }
+    }
+
+    private synchronized MethodDispatch addDispatch(final Method method) {
+        final MethodDispatch dispatch = getDispatchOfEqualMethod(method);
+        if (mIdentityDispatches.size() < MAX_IDENTITY_DISPATCHES) {
+            final IdentityHashMap<Method, MethodDispatch> identityDispatches =
+                    new IdentityHashMap<>(mIdentityDispatches);
+            identityDispatches.put(method, dispatch);
+            mIdentityDispatches = identityDispatches;
+        }
+        return dispatch;
+    }
+
+    /**
+     * equal methods, i.e. the same interface method of different proxy classes, share a dispatch
+     * and therefore the distinct slot
+     */
+    private synchronized MethodDispatch getDispatchOfEqualMethod(final Method method) {
+        MethodDispatch dispatch = mDispatches.get(method);
+        if (dispatch == null) {
+            dispatch = createDispatch(method);
+            mDispatches.put(method, dispatch);
+        }
+        return dispatch;
+    }
+
+    private MethodDispatch createDispatch(final Method method) {
+        // only void methods of the view interface are supported
+        if (!method.getReturnType().equals(Void.TYPE)
+                || !TiView.class.isAssignableFrom(method.getDeclaringClass())) {
+            return new MethodDispatch(false, null, NO_SLOT);
+        }
+
+        final boolean callOnMainThread = method.getAnnotation(CallOnMainThread.class) != null;
+
+        // methods with zero arguments are always called
+        final DistinctUntilChanged distinctUntilChanged =
+                method.getParameterTypes().length == 0
+                        ? null : method.getAnnotation(DistinctUntilChanged.class);
+        if (distinctUntilChanged == null) {
+            return new MethodDispatch(callOnMainThread, null, NO_SLOT);
+        }
+        return new MethodDispatch(callOnMainThread, distinctUntilChanged, mDistinctSlotCount++);
+    }
+}
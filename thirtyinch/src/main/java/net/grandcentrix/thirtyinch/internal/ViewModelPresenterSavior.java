@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+import androidx.lifecycle.ViewModelStoreOwner;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.grandcentrix.thirtyinch.TiConfiguration.PresenterRetention;
+import net.grandcentrix.thirtyinch.TiLog;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Keeps presenters configured with {@link PresenterRetention#VIEW_MODEL_STORE} in the
+ * {@link ViewModelStore} of their host, which survives configuration changes on its own. No
+ * global callbacks are registered and recovering a presenter is a single lookup by its id. The
+ * presenters are released when the host finishes and clears its store. The host of a Fragment
+ * is its Activity, presenters of Fragments are kept in the store of the Activity.
+ * <p>
+ * All other presenters, and hosts which aren't a {@link ViewModelStoreOwner}, are handled by the
+ * fallback savior, by default the {@link PresenterSavior}. Presenters kept in a
+ * {@link ViewModelStore} get negative ids, the id tells where a presenter is kept.
+ * </p>
+ */
+public class ViewModelPresenterSavior implements TiPresenterSavior {
+
+    /**
+     * Holds the presenters of a host in its {@link ViewModelStore}
+     */
+    @VisibleForTesting
+    static final class PresenterHolder extends ViewModel {
+
+        private final TiPresenterSavior mFallback;
+
+        private final Map<Long, PresenterHolder> mHolders;
+
+        private final PresenterScope.Visitor mReleasePresenter = new PresenterScope.Visitor() {
+            @Override
+            public void visit(final long id, @NonNull final TiPresenter presenter) {
+                // when the presenter is not destroyed yet, destroy or keep it.
+                mFallback.release(presenter);
+                mScope.remove(id);
+                mHolders.remove(id);
+            }
+        };
+
+        @VisibleForTesting
+        final PresenterScope mScope = new PresenterScope();
+
+        PresenterHolder(final TiPresenterSavior fallback,
+                final Map<Long, PresenterHolder> holders) {
+            mFallback = fallback;
+            mHolders = holders;
+        }
+
+        @Override
+        protected void onCleared() {
+            TiLog.v(TAG, "host finished, free remaining presenters");
+            mScope.forEach(mReleasePresenter);
+        }
+    }
+
+    private static final String HOLDER_KEY = PresenterHolder.class.getName();
+
+    private static volatile ViewModelPresenterSavior INSTANCE;
+
+    private static final String TAG = ViewModelPresenterSavior.class.getSimpleName();
+
+    private final TiPresenterSavior mFallback;
+
+    /**
+     * the holder of each presenter saved by {@link #save(TiPresenter, Object)}, by presenter id.
+     * {@link #free(long, Object)} and {@link #recover(long, Object)} look the holder up here,
+     * getting it from the {@link ViewModelStore} would add a new holder to a store which was
+     * cleared already.
+     */
+    private final ConcurrentHashMap<Long, PresenterHolder> mHolders = new ConcurrentHashMap<>();
+
+    private final ViewModelProvider.Factory mHolderFactory = new ViewModelProvider.Factory() {
+        @NonNull
+        @Override
+        public <T extends ViewModel> T create(@NonNull final Class<T> modelClass) {
+            //noinspection unchecked
+            return (T) new PresenterHolder(mFallback, mHolders);
+        }
+    };
+
+    /**
+     * source of the negated presenter ids. Seeded with the wall clock like the
+     * {@link PresenterSavior} so ids restored after the process got killed don't recover a
+     * presenter saved by a restored Fragment for the same Activity
+     */
+    private final AtomicLong mIdSequence = new AtomicLong(System.currentTimeMillis() << 10);
+
+    /**
+     * Access to the {@link ViewModelPresenterSavior} singleton, falling back to
+     * {@link PresenterSavior#getInstance()}
+     */
+    public static ViewModelPresenterSavior getInstance() {
+        ViewModelPresenterSavior instance = INSTANCE;
+        if (instance == null) {
+            synchronized (ViewModelPresenterSavior.class) {
+                instance = INSTANCE;
+                if (instance == null) {
+                    instance = new ViewModelPresenterSavior(PresenterSavior.getInstance());
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    ViewModelPresenterSavior(@NonNull final TiPresenterSavior fallback) {
+        mFallback = fallback;
+    }
+
+    @Nullable
+    @Override
+    public TiPresenter claimKept(@NonNull final String key) {
+        return mFallback.claimKept(key);
+    }
+
+    @Nullable
+    @Override
+    public TiPresenter claimPrewarmed(@NonNull final String token) {
+        return mFallback.claimPrewarmed(token);
+    }
+
+    @Override
+    public void free(final long presenterId, @NonNull final Object host) {
+        if (presenterId >= 0) {
+            mFallback.free(presenterId, host);
+            return;
+        }
+        final PresenterHolder holder = mHolders.remove(presenterId);
+        if (holder != null) {
+            holder.mScope.remove(presenterId);
+        }
+    }
+
+    @Override
+    public void keepAfterFinish(@NonNull final TiPresenter presenter, @NonNull final String key) {
+        mFallback.keepAfterFinish(presenter, key);
+    }
+
+    @Override
+    public void observeMemoryPressure(@NonNull final TiPresenter presenter,
+            @NonNull final Object host) {
+        mFallback.observeMemoryPressure(presenter, host);
+    }
+
+    @Nullable
+    @Override
+    public TiPresenter recover(final long presenterId, @NonNull final Object host) {
+        if (presenterId >= 0) {
+            return mFallback.recover(presenterId, host);
+        }
+        final PresenterHolder holder = mHolders.get(presenterId);
+        return holder != null ? holder.mScope.get(presenterId) : null;
+    }
+
+    @Nullable
+    @Override
+    public TiPresenter recoverShared(@NonNull final String key, @NonNull final Object scope) {
+        final TiPresenter presenter = mFallback.recoverShared(key, scope);
+        if (presenter != null || !(scope instanceof ViewModelStoreOwner)) {
+            return presenter;
+        }
+        return getHolder((ViewModelStoreOwner) scope).mScope.getShared(key);
+    }
+
+    @Override
+    public void release(@NonNull final TiPresenter presenter) {
+        mFallback.release(presenter);
+    }
+
+    @Override
+    public long save(@NonNull final TiPresenter presenter, @NonNull final Object host) {
+        if (presenter.getConfig().getPresenterRetention() != PresenterRetention.VIEW_MODEL_STORE
+                || !(host instanceof ViewModelStoreOwner)) {
+            return mFallback.save(presenter, host);
+        }
+        final long presenterId = -mIdSequence.incrementAndGet();
+        final PresenterHolder holder = getHolder((ViewModelStoreOwner) host);
+        holder.mScope.save(presenterId, presenter);
+        mHolders.put(presenterId, holder);
+        return presenterId;
+    }
+
+    @Override
+    public void saveShared(@NonNull final String key, @NonNull final TiPresenter presenter,
+            @NonNull final Object scope) {
+        if (presenter.getConfig().getPresenterRetention() != PresenterRetention.VIEW_MODEL_STORE
+                || !(scope instanceof ViewModelStoreOwner)) {
+            mFallback.saveShared(key, presenter, scope);
+            return;
+        }
+        final PresenterScope presenterScope = getHolder((ViewModelStoreOwner) scope).mScope;
+        synchronized (presenterScope) {
+            final long presenterId = -mIdSequence.incrementAndGet();
+            presenterScope.save(presenterId, presenter);
+            presenterScope.share(key, presenterId);
+        }
+    }
+
+    @VisibleForTesting
+    PresenterHolder getHolder(@NonNull final ViewModelStoreOwner owner) {
+        return new ViewModelProvider(owner, mHolderFactory).get(HOLDER_KEY, PresenterHolder.class);
+    }
+}
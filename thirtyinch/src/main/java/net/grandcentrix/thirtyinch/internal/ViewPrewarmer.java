@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import net.grandcentrix.thirtyinch.util.AnnotationUtil;
+
+/**
+ * Does the reflective work of the interceptors enabled in a {@link TiConfiguration} ahead of
+ * the first binding of a view: finds the view interface and the annotations of its methods,
+ * loads the generated wrappers or creates the {@link Proxy} class and caches their
+ * constructors for the interceptors, and builds the {@link ViewDispatchPlan}. Meant to run on a
+ * background thread.
+ */
+public final class ViewPrewarmer {
+
+    private final TiConfiguration mConfig;
+
+    public ViewPrewarmer(@NonNull final TiConfiguration config) {
+        mConfig = config;
+    }
+
+    /**
+     * @param view the view interface or a class implementing it, i.e. an Activity. Prefer the
+     *             class: the interceptors look up the interface of the class of the bound view,
+     *             which is only cached when that class is prewarmed
+     * @return the prewarmed view interface, {@code null} when the {@code view} doesn't implement
+     * an interface extending {@link TiView}
+     */
+    @Nullable
+    public Class<?> prewarm(@NonNull final Class<?> view) {
+        // caches the interface and the annotations of the view class
+        final Class<?> viewInterface = view.isInterface()
+                ? view : getInterfaceOfClassExtendingGivenInterface(view, TiView.class);
+        if (viewInterface == null) {
+            return null;
+        }
+
+        final boolean fused = mConfig.isFusedBindViewInterceptorsEnabled();
+        boolean needsProxy = false;
+        if (mConfig.isCallOnMainThreadInterceptorEnabled()
+                && hasMethodWithAnnotation(viewInterface, CallOnMainThread.class)) {
+            needsProxy |= fused || !prewarmGenerated(
+                    GeneratedViewWrapper.CALL_ON_MAIN_THREAD, viewInterface);
+        }
+        if (mConfig.isDistinctUntilChangedInterceptorEnabled()
+                && hasMethodWithAnnotation(viewInterface, DistinctUntilChanged.class)) {
+            needsProxy |= fused || !prewarmGenerated(
+                    GeneratedViewWrapper.DISTINCT_UNTIL_CHANGED, viewInterface);
+        }
+
+        if (needsProxy) {
+            // the plan keeps the constructor of the proxy class for the interceptors
+            final Constructor<?> proxyConstructor =
+                    ViewDispatchPlan.of(viewInterface).getProxyConstructor();
+            // the next interceptor looks at the proxy created by the previous one
+            AnnotationUtil.warmUp(proxyConstructor.getDeclaringClass());
+        }
+        return viewInterface;
+    }
+
+    private static boolean hasMethodWithAnnotation(final Class<?> viewInterface,
+            final Class<? extends Annotation> annotation) {
+        for (final Method method : viewInterface.getMethods()) {
+            if (method.getAnnotation(annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * caches the constructor of the generated wrapper for the interceptor
+     *
+     * @return {@code true} when a wrapper was generated for the {@code viewInterface}
+     */
+    private static boolean prewarmGenerated(final GeneratedViewWrapper generatedWrapper,
+            final Class<?> viewInterface) {
+        return generatedWrapper.getConstructor(viewInterface) != null;
+    }
+}
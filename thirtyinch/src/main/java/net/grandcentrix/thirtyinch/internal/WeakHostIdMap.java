@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps hosts, i.e. {@link android.app.Activity} instances, to their scope id by identity. The
+ * hosts are weakly referenced, a host which never reported its destruction doesn't leak. Mappings
+ * of collected hosts are removed by every change of the map. Lookups don't block and don't
+ * allocate a {@link WeakReference}, changes are serialized.
+ */
+final class WeakHostIdMap<K> {
+
+    /**
+     * weak key compared by the identity of its host. A cleared key only equals itself
+     */
+    private static final class HostKey extends WeakReference<Object> {
+
+        private final int mHash;
+
+        HostKey(@NonNull final Object host, final ReferenceQueue<Object> queue) {
+            super(host, queue);
+            mHash = System.identityHashCode(host);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            final Object host = get();
+            if (o instanceof LookupKey) {
+                return host != null && host == ((LookupKey) o).mHost;
+            }
+            if (!(o instanceof HostKey)) {
+                return false;
+            }
+            return host != null && host == ((HostKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+
+    /**
+     * short lived key to look up the {@link HostKey} of a host, references the host strongly
+     */
+    private static final class LookupKey {
+
+        private final Object mHost;
+
+        LookupKey(@NonNull final Object host) {
+            mHost = host;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof HostKey) {
+                return mHost == ((HostKey) o).get();
+            }
+            return o instanceof LookupKey && mHost == ((LookupKey) o).mHost;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mHost);
+        }
+    }
+
+    /**
+     * the number of mapped hosts per id, answers {@link #containsId(long)} without scanning
+     * {@link #mIds}. Changed together with {@link #mIds} while holding the lock of this map
+     */
+    private final ConcurrentHashMap<Long, Integer> mHostCounts = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<HostKey, Long> mIds = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+
+    /**
+     * @return {@code true} when a host which wasn't collected yet is mapped to the {@code id}
+     */
+    public boolean containsId(final long id) {
+        return mHostCounts.containsKey(id);
+    }
+
+    /**
+     * @return the id of the host, {@link TiPresenterSavior#NO_ID} when the host isn't mapped
+     */
+    public long get(@NonNull final K host) {
+        //noinspection SuspiciousMethodCalls
+        final Long id = mIds.get(new LookupKey(host));
+        return id != null ? id : TiPresenterSavior.NO_ID;
+    }
+
+    public synchronized void put(@NonNull final K host, final long id) {
+        expungeStaleEntries();
+        final Long replaced = mIds.put(new HostKey(host, mQueue), id);
+        if (replaced != null) {
+            decrementHostCount(replaced);
+        }
+        final Integer count = mHostCounts.get(id);
+        mHostCounts.put(id, count != null ? count + 1 : 1);
+    }
+
+    /**
+     * @return the id the host was mapped to, {@link TiPresenterSavior#NO_ID} when the host wasn't
+     * mapped
+     */
+    public synchronized long remove(@NonNull final K host) {
+        expungeStaleEntries();
+        //noinspection SuspiciousMethodCalls
+        final Long id = mIds.remove(new LookupKey(host));
+        if (id == null) {
+            return TiPresenterSavior.NO_ID;
+        }
+        decrementHostCount(id);
+        return id;
+    }
+
+    /**
+     * @return the number of mapped hosts, including collected hosts not removed yet
+     */
+    public int size() {
+        return mIds.size();
+    }
+
+    private void decrementHostCount(final long id) {
+        final Integer count = mHostCounts.get(id);
+        if (count == null || count <= 1) {
+            mHostCounts.remove(id);
+        } else {
+            mHostCounts.put(id, count - 1);
+        }
+    }
+
+    /**
+     * removes the mappings of collected hosts
+     */
+    private void expungeStaleEntries() {
+        Reference<?> key;
+        while ((key = mQueue.poll()) != null) {
+            //noinspection SuspiciousMethodCalls
+            final Long id = mIds.remove(key);
+            if (id != null) {
+                decrementHostCount(id);
+            }
+        }
+    }
+}
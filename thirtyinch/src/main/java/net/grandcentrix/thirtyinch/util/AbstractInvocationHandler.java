@@ -86,6 +86,11 @@ public abstract class AbstractInvocationHandler implements InvocationHandler {
         if (args == null) {
             args = NO_ARGS;
         }
+        if (method.getDeclaringClass() != Object.class) {
+            // proxies pass the methods of Object for equals, hashCode and toString even when the
+            // interface declares them, skip the name checks for all other methods
+            return handleInvocation(proxy, method, args);
+        }
         if (args.length == 0 && method.getName().equals("hashCode")) {
             return hashCode();
         }
@@ -15,16 +15,108 @@
 
 package net.grandcentrix.thirtyinch.util;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+import net.grandcentrix.thirtyinch.TiView;
 
+/**
+ * Finds the view interface of a class and the annotations of its methods. The results are cached
+ * per class for the lifetime of the process, the cache doesn't prevent the classes from being
+ * unloaded. Use {@link #warmUp(Class[])} to fill the cache before the views get bound.
+ */
 public class AnnotationUtil {
 
+    /**
+     * What's known about a class. Doesn't reference the class, its interfaces or the annotation
+     * types strongly, the class would never be removed from the cache otherwise
+     */
+    private static final class ClassInfo {
+
+        /**
+         * names of the annotations of all methods of the interfaces implemented by the class
+         */
+        final Set<String> mMethodAnnotations;
+
+        /**
+         * the interface extending {@link TiView}, {@code null} when the class isn't a view. The
+         * interface can't be collected before the class implementing it
+         */
+        @Nullable
+        final WeakReference<Class<?>> mViewInterface;
+
+        ClassInfo(final Class<?> clazz) {
+            final Class<?> viewInterface = findInterface(clazz, TiView.class);
+            mViewInterface = viewInterface != null
+                    ? new WeakReference<Class<?>>(viewInterface) : null;
+
+            final Set<String> annotations = new HashSet<>();
+            for (final Class<?> anInterface : clazz.getInterfaces()) {
+                for (final Method method : anInterface.getMethods()) {
+                    for (final Annotation annotation : method.getAnnotations()) {
+                        annotations.add(annotation.annotationType().getName());
+                    }
+                }
+            }
+            mMethodAnnotations = annotations.isEmpty()
+                    ? Collections.<String>emptySet() : annotations;
+        }
+    }
+
+    /**
+     * guarded by itself
+     */
+    private static final WeakHashMap<Class<?>, ClassInfo> CLASS_INFOS = new WeakHashMap<>();
+
     @Nullable
     public static Class<?> getInterfaceOfClassExtendingGivenInterface(
             final Class<?> possibleExtendingClass,
             final Class<?> givenInterface) {
+        if (givenInterface == TiView.class) {
+            final WeakReference<Class<?>> viewInterface =
+                    getClassInfo(possibleExtendingClass).mViewInterface;
+            return viewInterface != null ? viewInterface.get() : null;
+        }
+        return findInterface(possibleExtendingClass, givenInterface);
+    }
+
+    public static <T extends Annotation> boolean hasObjectMethodWithAnnotation(final Object o,
+            final Class<T> annotation) {
+        return getClassInfo(o.getClass()).mMethodAnnotations.contains(annotation.getName());
+    }
+
+    /**
+     * Looks up the view interfaces and method annotations of the {@code viewClasses} so binding
+     * views of these classes doesn't have to. Can be called from any thread, i.e. from a
+     * background thread at app start.
+     */
+    public static void warmUp(@NonNull final Class<?>... viewClasses) {
+        for (final Class<?> viewClass : viewClasses) {
+            getClassInfo(viewClass);
+        }
+    }
+
+    /**
+     * @return {@code true} when the view interface and method annotations of the {@code clazz}
+     * are cached
+     */
+    @VisibleForTesting
+    static boolean isCached(@NonNull final Class<?> clazz) {
+        synchronized (CLASS_INFOS) {
+            return CLASS_INFOS.containsKey(clazz);
+        }
+    }
+
+    @Nullable
+    private static Class<?> findInterface(final Class<?> possibleExtendingClass,
+            final Class<?> givenInterface) {
         if (!givenInterface.isAssignableFrom(possibleExtendingClass)) {
             // not possible
             return null;
@@ -48,17 +140,19 @@ public class AnnotationUtil {
         return null;
     }
 
-    public static <T extends Annotation> boolean hasObjectMethodWithAnnotation(final Object o,
-            final Class<T> annotation) {
-        final Class<?>[] interfaces = o.getClass().getInterfaces();
-        for (final Class<?> anInterface : interfaces) {
-            for (final Method method : anInterface.getMethods()) {
-                if (method.getAnnotation(annotation) != null) {
-                    return true;
-                }
+    @NonNull
+    private static ClassInfo getClassInfo(@NonNull final Class<?> clazz) {
+        synchronized (CLASS_INFOS) {
+            final ClassInfo info = CLASS_INFOS.get(clazz);
+            if (info != null) {
+                return info;
             }
-
         }
-        return false;
+        // walk the class outside of the lock, concurrent lookups create equal infos
+        final ClassInfo info = new ClassInfo(clazz);
+        synchronized (CLASS_INFOS) {
+            CLASS_INFOS.put(clazz, info);
+        }
+        return info;
     }
 }
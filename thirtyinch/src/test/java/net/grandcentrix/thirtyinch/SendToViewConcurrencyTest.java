@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.*;
+
+/**
+ * Sends actions from many threads while the view gets attached and detached on the UI thread
+ * over and over again. Every action has to be executed exactly once on an attached view.
+ */
+public class SendToViewConcurrencyTest {
+
+    private class TestPresenter extends TiPresenter<TestView> {
+
+        TestPresenter(final TiConfiguration config) {
+            super(config);
+        }
+    }
+
+    private class TestView implements TiView {
+
+    }
+
+    private static final int ACTIONS_PER_THREAD = 2000;
+
+    private static final int SENDER_THREADS = 4;
+
+    private final AtomicInteger mStaleViewCalls = new AtomicInteger();
+
+    private ExecutorService mUiExecutorService;
+
+    private volatile Thread mUiThread;
+
+    /**
+     * behaves like the Android main thread executor, running actions directly when already on
+     * the UI thread
+     */
+    private final Executor mUiThreadExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable action) {
+            if (Thread.currentThread() == mUiThread) {
+                action.run();
+            } else {
+                mUiExecutorService.execute(action);
+            }
+        }
+    };
+
+    @After
+    public void tearDown() throws Exception {
+        mUiExecutorService.shutdownNow();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mUiExecutorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable r) {
+                mUiThread = new Thread(r, "ui");
+                return mUiThread;
+            }
+        });
+    }
+
+    @Test
+    public void actionsExecutedExactlyOnce() throws Exception {
+        stressTest(new TiConfiguration.Builder().build(), false);
+    }
+
+    @Test
+    public void actionsExecutedExactlyOnceWithBatching() throws Exception {
+        stressTest(new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build(), false);
+    }
+
+    @Test
+    public void keyedActionsExecutedExactlyOnce() throws Exception {
+        stressTest(new TiConfiguration.Builder().build(), true);
+    }
+
+    /**
+     * @param keyed when {@code true} every action is sent with a unique key, which must not
+     *              change the outcome because keys never collide
+     */
+    private void stressTest(final TiConfiguration config, final boolean keyed) throws Exception {
+        final TestPresenter presenter = onUiThread(new Callable<TestPresenter>() {
+            @Override
+            public TestPresenter call() throws Exception {
+                final TestPresenter presenter = new TestPresenter(config);
+                presenter.setUiThreadExecutor(mUiThreadExecutor);
+                presenter.create();
+                return presenter;
+            }
+        });
+
+        final AtomicIntegerArray executions =
+                new AtomicIntegerArray(SENDER_THREADS * ACTIONS_PER_THREAD);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch sendersDone = new CountDownLatch(SENDER_THREADS);
+        for (int t = 0; t < SENDER_THREADS; t++) {
+            final int offset = t * ACTIONS_PER_THREAD;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < ACTIONS_PER_THREAD; i++) {
+                            final int id = offset + i;
+                            final ViewAction<TestView> action = new ViewAction<TestView>() {
+                                @Override
+                                public void call(final TestView view) {
+                                    if (Thread.currentThread() != mUiThread
+                                            || view != presenter.getView()
+                                            || !presenter.isViewAttached()) {
+                                        mStaleViewCalls.incrementAndGet();
+                                    }
+                                    executions.incrementAndGet(id);
+                                }
+                            };
+                            if (keyed) {
+                                presenter.sendToView(id, action);
+                            } else {
+                                presenter.sendToView(action);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        sendersDone.countDown();
+                    }
+                }
+            }, "sender-" + t).start();
+        }
+
+        start.countDown();
+        // toggle the view on the UI thread while the senders are running
+        while (sendersDone.getCount() > 0) {
+            onUiThread(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    if (presenter.isViewAttached()) {
+                        presenter.detachView();
+                    } else {
+                        presenter.attachView(new TestView());
+                    }
+                    return null;
+                }
+            });
+        }
+
+        // attach a final view to receive all postponed actions
+        onUiThread(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (!presenter.isViewAttached()) {
+                    presenter.attachView(new TestView());
+                }
+                return null;
+            }
+        });
+        // wait until the actions posted to the ui thread are executed
+        onUiThread(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                return null;
+            }
+        });
+
+        assertThat(mStaleViewCalls.get()).isEqualTo(0);
+        for (int i = 0; i < executions.length(); i++) {
+            assertThat(executions.get(i)).as("executions of action " + i).isEqualTo(1);
+        }
+    }
+
+    private <T> T onUiThread(final Callable<T> callable) throws Exception {
+        try {
+            return mUiExecutorService.submit(callable).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -20,12 +20,17 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.ViewActionQueue;
 import org.junit.*;
 import org.mockito.*;
 
@@ -35,6 +40,16 @@ public class SendToViewTest {
 
     }
 
+    private static class FakeTicker implements ViewActionQueue.Ticker {
+
+        long mNanos = 0;
+
+        @Override
+        public long nanoTime() {
+            return mNanos;
+        }
+    }
+
     private interface TestView extends TiView {
 
         void doSomething1();
@@ -89,6 +104,734 @@ public class SendToViewTest {
         inOrder.verify(view).doSomething2();
     }
 
+    @Test
+    public void batchingDispatchesBackgroundActionsWithOneMessage() throws Exception {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .setViewActionBatchListener(new TiConfiguration.ViewActionBatchListener() {
+                    @Override
+                    public void onBatchDispatched(@NonNull final TiPresenter<?> presenter,
+                            final int batchSize) {
+                        batchSizes.add(batchSize);
+                    }
+                })
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        final List<Runnable> uiMessages = new ArrayList<>();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                uiMessages.add(command);
+            }
+        });
+        // the test thread is the ui thread
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        // When sending many actions from a background thread
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10; i++) {
+                    presenter.sendToView(new ViewAction<TestView>() {
+                        @Override
+                        public void call(final TestView view) {
+                            view.doSomething1();
+                        }
+                    });
+                    presenter.sendToView(new ViewAction<TestView>() {
+                        @Override
+                        public void call(final TestView view) {
+                            view.doSomething2();
+                        }
+                    });
+                }
+            }
+        });
+        background.start();
+        background.join();
+
+        // Then only a single message is posted to the ui thread
+        assertThat(uiMessages).hasSize(1);
+        verifyZeroInteractions(view);
+
+        uiMessages.get(0).run();
+
+        // Then all actions are executed in order
+        final InOrder inOrder = inOrder(view);
+        for (int i = 0; i < 10; i++) {
+            inOrder.verify(view).doSomething1();
+            inOrder.verify(view).doSomething2();
+        }
+        assertThat(batchSizes).containsExactly(20);
+    }
+
+    @Test
+    public void batchingPostponesActionsWhenViewDetachedBeforeDispatch() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        final List<Runnable> uiMessages = new ArrayList<>();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                uiMessages.add(command);
+            }
+        });
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                presenter.sendToView(new ViewAction<TestView>() {
+                    @Override
+                    public void call(final TestView view) {
+                        view.doSomething1();
+                    }
+                });
+            }
+        });
+        background.start();
+        background.join();
+
+        // When the view detaches before the batch is dispatched
+        presenter.detachView();
+        uiMessages.get(0).run();
+
+        // Then the action waits for the next view
+        verifyZeroInteractions(view);
+        assertThat(presenter.getQueuedViewActions()).hasSize(1);
+
+        presenter.attachView(view);
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void batchingKeepsOrderWhenViewDetachesBeforeDispatch() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        final List<Runnable> uiMessages = new ArrayList<>();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                uiMessages.add(command);
+            }
+        });
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                presenter.sendToView(new ViewAction<TestView>() {
+                    @Override
+                    public void call(final TestView view) {
+                        view.doSomething1();
+                    }
+                });
+            }
+        });
+        background.start();
+        background.join();
+
+        // When the view detaches before the batch is dispatched and another action is sent
+        presenter.detachView();
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+        uiMessages.get(0).run();
+
+        // Then the actions are executed in the order they were sent
+        presenter.attachView(view);
+        final InOrder inOrder = inOrder(view);
+        inOrder.verify(view).doSomething1();
+        inOrder.verify(view).doSomething2();
+    }
+
+    @Test
+    public void batchedActionsKeepTheirKeyWhenPostponed() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                // never dispatched
+            }
+        });
+        presenter.attachView(mock(TestView.class));
+
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    presenter.sendToView("progress", new ViewAction<TestView>() {
+                        @Override
+                        public void call(final TestView view) {
+                            view.doSomething1();
+                        }
+                    });
+                }
+            }
+        });
+        background.start();
+        background.join();
+
+        // When the view detaches before the batch got dispatched
+        presenter.detachView();
+
+        // Then the keyed actions replace each other in the postponed actions
+        assertThat(presenter.getQueuedViewActions()).hasSize(1);
+
+        final TestView view = mock(TestView.class);
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        presenter.attachView(view);
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void batchedActionsExceedingFailingCapacityAreEvictedOnDetach() throws Exception {
+        final List<TiConfiguration.ViewActionEvictionListener.Reason> evictions =
+                new ArrayList<>();
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .setPostponedViewActionsCapacity(1)
+                .setPostponedViewActionsOverflowPolicy(TiConfiguration.OverflowPolicy.FAIL)
+                .setViewActionEvictionListener(
+                        new TiConfiguration.ViewActionEvictionListener() {
+                            @Override
+                            public void onViewActionEvicted(
+                                    @NonNull final TiPresenter<?> presenter,
+                                    @NonNull final ViewAction<?> action,
+                                    @NonNull final Reason reason) {
+                                evictions.add(reason);
+                            }
+                        })
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                // never dispatched
+            }
+        });
+        presenter.attachView(mock(TestView.class));
+
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2; i++) {
+                    presenter.sendToView(new ViewAction<TestView>() {
+                        @Override
+                        public void call(final TestView view) {
+                            view.doSomething1();
+                        }
+                    });
+                }
+            }
+        });
+        background.start();
+        background.join();
+
+        // When the view detaches with more batched actions than the capacity
+        presenter.detachView();
+
+        // Then the view detaches and the action which doesn't fit is reported
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(presenter.getView()).isNull();
+        assertThat(presenter.getQueuedViewActions()).hasSize(1);
+        assertThat(evictions).containsExactly(
+                TiConfiguration.ViewActionEvictionListener.Reason.OVER_CAPACITY);
+    }
+
+    @Test
+    public void batchingUsesFrameExecutor() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        final List<Runnable> uiMessages = new ArrayList<>();
+        final List<Runnable> frames = new ArrayList<>();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                uiMessages.add(command);
+            }
+        });
+        presenter.setUiThreadFrameExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                frames.add(command);
+            }
+        });
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        final Thread background = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    presenter.sendToView(new ViewAction<TestView>() {
+                        @Override
+                        public void call(final TestView view) {
+                            view.doSomething1();
+                        }
+                    });
+                }
+            }
+        });
+        background.start();
+        background.join();
+
+        // Then the batch waits for the next frame
+        assertThat(uiMessages).isEmpty();
+        assertThat(frames).hasSize(1);
+
+        frames.get(0).run();
+        verify(view, times(3)).doSomething1();
+    }
+
+    @Test
+    public void batchingExecutesActionsFromUiThreadImmediately() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setViewActionBatchingEnabled(true)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void keyedSendToViewOnlyReplaysLatestActionPerKey() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        for (int i = 0; i < 100; i++) {
+            presenter.sendToView("progress", new ViewAction<TestView>() {
+                @Override
+                public void call(final TestView view) {
+                    view.doSomething1();
+                }
+            });
+        }
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+        presenter.sendToView("progress", new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething3();
+            }
+        });
+        assertThat(presenter.getQueuedViewActions()).hasSize(2);
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        // the latest keyed action took the place of the first one
+        final InOrder inOrder = inOrder(view);
+        inOrder.verify(view).doSomething3();
+        inOrder.verify(view).doSomething2();
+        verify(view, never()).doSomething1();
+        assertThat(presenter.getQueuedViewActions()).isEmpty();
+    }
+
+    @Test
+    public void keyedSendToViewExecutesImmediatelyWhenAttached() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        presenter.sendToView("key", new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        presenter.sendToView("key", new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+
+        verify(view, times(2)).doSomething1();
+        assertThat(presenter.getQueuedViewActions()).isEmpty();
+    }
+
+    @Test
+    public void sendToViewRespectsCapacity() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setPostponedViewActionsCapacity(2)
+                .setPostponedViewActionsOverflowPolicy(TiConfiguration.OverflowPolicy.DROP_OLDEST)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething3();
+            }
+        });
+        assertThat(presenter.getQueuedViewActions()).hasSize(2);
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        // the oldest action got dropped
+        final InOrder inOrder = inOrder(view);
+        inOrder.verify(view).doSomething2();
+        inOrder.verify(view).doSomething3();
+        verify(view, never()).doSomething1();
+    }
+
+    @Test
+    public void subMillisecondTimeToLiveIsRoundedUp() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setPostponedViewActionsTimeToLive(500, TimeUnit.MICROSECONDS)
+                .build();
+        assertThat(config.getPostponedViewActionsTimeToLiveMillis()).isEqualTo(1);
+
+        // doesn't throw
+        new TiPresenter<TestView>(config) {
+        };
+    }
+
+    @Test
+    public void expiredPostponedActionsAreEvictedBeforeReplay() throws Exception {
+        final List<ViewAction<?>> evicted = new ArrayList<>();
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setPostponedViewActionsTimeToLive(1, TimeUnit.MILLISECONDS)
+                .setViewActionEvictionListener(
+                        new TiConfiguration.ViewActionEvictionListener() {
+                            @Override
+                            public void onViewActionEvicted(
+                                    @NonNull final TiPresenter<?> presenter,
+                                    @NonNull final ViewAction<?> action,
+                                    @NonNull final Reason reason) {
+                                assertThat(reason).isEqualTo(Reason.EXPIRED);
+                                evicted.add(action);
+                            }
+                        })
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        final FakeTicker ticker = new FakeTicker();
+        presenter.setViewActionTicker(ticker);
+
+        final ViewAction<TestView> action = new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        };
+        presenter.sendToView(action);
+        ticker.mNanos += TimeUnit.MILLISECONDS.toNanos(2);
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        verify(view, never()).doSomething1();
+        assertThat(evicted).containsExactly(action);
+    }
+
+    @Test
+    public void idleActionsAreExecutedByIdleExecutor() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        final List<Runnable> idleActions = new ArrayList<>();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        presenter.setUiThreadIdleExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                idleActions.add(command);
+            }
+        });
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        presenter.sendToView(ViewAction.Priority.IDLE, new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+
+        verify(view).doSomething2();
+        verify(view, never()).doSomething1();
+
+        assertThat(idleActions).hasSize(1);
+        idleActions.get(0).run();
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void idleActionsFallBackToUiThreadExecutor() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        presenter.sendToView(ViewAction.Priority.IDLE, new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void submitToViewCompletesAfterExecution() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        final Future<Void> future = presenter.submitToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        assertThat(future.isDone()).isFalse();
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        verify(view).doSomething1();
+        assertThat(future.isDone()).isTrue();
+        assertThat(future.get(0, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    public void submitToViewFailsWhenPresenterGetsDestroyed() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        final Future<Void> future = presenter.submitToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        presenter.destroy();
+
+        assertThat(future.isDone()).isTrue();
+        try {
+            future.get();
+            fail("did not throw");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("destroyed");
+        }
+    }
+
+    @Test
+    public void submitToViewFailsWhenEvicted() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setPostponedViewActionsCapacity(1)
+                .setPostponedViewActionsOverflowPolicy(TiConfiguration.OverflowPolicy.DROP_OLDEST)
+                .build();
+        final TiPresenter<TestView> presenter = new TiPresenter<TestView>(config) {
+        };
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        final Future<Void> evicted = presenter.submitToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        final Future<Void> kept = presenter.submitToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+
+        try {
+            evicted.get(0, TimeUnit.SECONDS);
+            fail("did not throw");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).hasMessageContaining("OVER_CAPACITY");
+        }
+        assertThat(kept.isDone()).isFalse();
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+        verify(view, never()).doSomething1();
+        verify(view).doSomething2();
+        assertThat(kept.isDone()).isTrue();
+    }
+
+    @Test
+    public void cancelledSubmittedActionIsNotExecuted() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+
+        final Future<Void> future = presenter.submitToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        assertThat(future.cancel(false)).isTrue();
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        verify(view, never()).doSomething1();
+        assertThat(future.isCancelled()).isTrue();
+        // cancelled futures don't keep the action alive until the presenter gets destroyed
+        assertThat(future.cancel(false)).isFalse();
+    }
+
+    @Test
+    public void postponedIdleActionsDontDelayAttach() throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        final List<Runnable> idleActions = new ArrayList<>();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        presenter.setUiThreadIdleExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                idleActions.add(command);
+            }
+        });
+
+        presenter.sendToView(ViewAction.Priority.IDLE, new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        presenter.sendToView(new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+        assertThat(presenter.getQueuedViewActions()).hasSize(2);
+
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+
+        // the idle action is handed over to the idle executor
+        verify(view).doSomething2();
+        verify(view, never()).doSomething1();
+        assertThat(presenter.getQueuedViewActions()).isEmpty();
+
+        assertThat(idleActions).hasSize(1);
+        idleActions.get(0).run();
+        verify(view).doSomething1();
+    }
+
+    @Test
+    public void postponedIdleActionIsPostponedAgainWhenViewDetachesBeforeIdle()
+            throws Exception {
+        final TestPresenter presenter = new TestPresenter();
+        presenter.create();
+        final List<Runnable> idleActions = new ArrayList<>();
+        presenter.setUiThreadExecutor(mImmediatelySameThread);
+        presenter.setUiThreadIdleExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                idleActions.add(command);
+            }
+        });
+
+        presenter.sendToView("badge", ViewAction.Priority.IDLE, new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething1();
+            }
+        });
+        final TestView view = mock(TestView.class);
+        presenter.attachView(view);
+        presenter.detachView();
+
+        // the view is gone when the ui thread becomes idle
+        idleActions.get(0).run();
+        verify(view, never()).doSomething1();
+        assertThat(presenter.getQueuedViewActions()).hasSize(1);
+
+        // the key is still respected
+        presenter.sendToView("badge", ViewAction.Priority.IDLE, new ViewAction<TestView>() {
+            @Override
+            public void call(final TestView view) {
+                view.doSomething2();
+            }
+        });
+        assertThat(presenter.getQueuedViewActions()).hasSize(1);
+    }
+
     @Test
     public void testSendToViewRunsOnTheMainThread() throws Exception {
 
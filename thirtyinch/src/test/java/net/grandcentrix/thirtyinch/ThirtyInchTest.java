@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import net.grandcentrix.thirtyinch.internal.ViewPrewarmer;
+import org.junit.*;
+
+public class ThirtyInchTest {
+
+    private interface MainView extends TiView {
+
+    }
+
+    private interface OtherView extends TiView {
+
+    }
+
+    private static class MainActivity implements MainView {
+
+    }
+
+    @Test
+    public void notAViewIsSkipped() throws Exception {
+        final ThirtyInch.PrewarmListener listener = mock(ThirtyInch.PrewarmListener.class);
+
+        final List<Class<?>> prewarmed = ThirtyInch.prewarmNow(
+                new ViewPrewarmer(TiConfiguration.DEFAULT), listener, Object.class,
+                OtherView.class);
+
+        assertThat(prewarmed).containsExactly(OtherView.class);
+        verify(listener).onPrewarmed(eq(prewarmed), anyLong());
+    }
+
+    @Test
+    public void prewarmOnBackgroundThread() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<List<Class<?>>> prewarmed = new AtomicReference<>();
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+
+        ThirtyInch.prewarm(TiConfiguration.DEFAULT, new ThirtyInch.PrewarmListener() {
+            @Override
+            public void onPrewarmed(final List<Class<?>> viewInterfaces,
+                    final long durationMillis) {
+                prewarmed.set(viewInterfaces);
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        }, MainActivity.class, MainView.class);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        // the interface of the activity is only reported once
+        assertThat(prewarmed.get()).containsExactly(MainView.class);
+        assertThat(thread.get()).isNotSameAs(Thread.currentThread());
+    }
+}
@@ -18,6 +18,7 @@ package net.grandcentrix.thirtyinch;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
@@ -51,6 +52,42 @@ public class TiLifecycleObserverTest {
         mView = null;
     }
 
+    @Test
+    public void testAddObserverDuringDispatch() throws Exception {
+        mPresenter.create();
+
+        // Given an observer adding another observer when the view attaches
+        final TiLifecycleObserver observer2 = mock(TiLifecycleObserver.class);
+        mPresenter.addLifecycleObserver(new TiLifecycleObserver() {
+            @Override
+            public void onChange(final TiPresenter.State state,
+                    final boolean hasLifecycleMethodBeenCalled) {
+                if (state == TiPresenter.State.VIEW_ATTACHED && !hasLifecycleMethodBeenCalled) {
+                    mPresenter.addLifecycleObserver(observer2);
+                }
+            }
+        });
+
+        // When a view attaches
+        mPresenter.attachView(mView);
+
+        // Then the added observer only receives the following events
+        verify(observer2).onChange(TiPresenter.State.VIEW_ATTACHED, true);
+        verifyNoMoreInteractions(observer2);
+        assertThat(mPresenter.mLifecycleObservers).hasSize(2);
+    }
+
+    @Test
+    public void testAddObserverWithoutEvents() throws Exception {
+        try {
+            mPresenter.addLifecycleObserver(0, mock(TiLifecycleObserver.class));
+            fail("no exception");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("at least one lifecycle event");
+        }
+        assertThat(mPresenter.mLifecycleObservers).isEmpty();
+    }
+
     @Test
     public void testCalledAttachedInCorrectOrder() throws Exception {
         mPresenter.create();
@@ -193,6 +230,23 @@ public class TiLifecycleObserverTest {
         assertThat(mPresenter.mLifecycleObservers).isEmpty();
     }
 
+    @Test
+    public void testObserverCalledForSelectedEventsOnly() throws Exception {
+        final TiLifecycleObserver observer = mock(TiLifecycleObserver.class);
+        mPresenter.addLifecycleObserver(TiLifecycleObserver.VIEW_ATTACHED_BEFORE
+                | TiLifecycleObserver.DESTROYED_AFTER, observer);
+
+        mPresenter.create();
+        mPresenter.attachView(mView);
+        mPresenter.detachView();
+        mPresenter.destroy();
+
+        final InOrder inOrder = inOrder(observer);
+        inOrder.verify(observer).onChange(TiPresenter.State.VIEW_ATTACHED, false);
+        inOrder.verify(observer).onChange(TiPresenter.State.DESTROYED, true);
+        inOrder.verifyNoMoreInteractions();
+    }
+
     @Test
     public void testRemoveObserver() throws Exception {
         final List<Object[]> states = new ArrayList<>();
@@ -312,6 +366,49 @@ public class TiLifecycleObserverTest {
         assertThat(last[2]).isNotNull();
     }
 
+    @Test
+    public void testTrimMemory() throws Exception {
+        final TiTrimMemoryObserver trimObserver = mock(TiTrimMemoryObserver.class);
+        final TiLifecycleObserver observer = mock(TiLifecycleObserver.class);
+        mPresenter.addLifecycleObserver(trimObserver);
+        mPresenter.addLifecycleObserver(observer);
+
+        // not created yet
+        assertThat(mPresenter.trimMemory(15)).isFalse();
+        verify(trimObserver, never()).onTrimMemory(anyInt());
+
+        mPresenter.create();
+        assertThat(mPresenter.trimMemory(15)).isTrue();
+        verify(trimObserver).onTrimMemory(15);
+
+        mPresenter.destroy();
+        assertThat(mPresenter.trimMemory(80)).isFalse();
+        verify(trimObserver, never()).onTrimMemory(80);
+    }
+
+    @Test
+    public void testTrimMemoryOnlyObserver() throws Exception {
+        final TiTrimMemoryObserver trimObserver = mock(TiTrimMemoryObserver.class);
+        mPresenter.addLifecycleObserver(TiLifecycleObserver.TRIM_MEMORY, trimObserver);
+
+        mPresenter.create();
+        mPresenter.trimMemory(15);
+
+        verify(trimObserver).onTrimMemory(15);
+        verify(trimObserver, never()).onChange(any(TiPresenter.State.class), anyBoolean());
+    }
+
+    @Test
+    public void testTrimMemoryRequiresTrimMemoryObserver() throws Exception {
+        try {
+            mPresenter.addLifecycleObserver(TiLifecycleObserver.TRIM_MEMORY,
+                    mock(TiLifecycleObserver.class));
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("TiTrimMemoryObserver");
+        }
+    }
+
     @Test
     public void testWakeup() throws Exception {
         final List<Object[]> states = new ArrayList<>();
@@ -43,21 +43,23 @@ public abstract class AbstractPresenterDestroyTest {
 
     TestPresenterSavior mSavior;
 
-    private final HashMap<String, String> activityHostBundle = new HashMap<>();
+    private final HashMap<String, Long> activityHostBundle = new HashMap<>();
 
-    private final HashMap<String, String> fakeBundle = new HashMap<>();
+    private final HashMap<String, Long> fakeBundle = new HashMap<>();
 
     @Before
     public void setUp() throws Exception {
         mSavior = new TestPresenterSavior();
         mFragmentSavedState = mock(Bundle.class);
-        doAnswer(saveInMap(fakeBundle)).when(mFragmentSavedState).putString(anyString(), anyString());
-        doAnswer(getFromMap(fakeBundle)).when(mFragmentSavedState).getString(anyString());
+        doAnswer(saveInMap(fakeBundle)).when(mFragmentSavedState).putLong(anyString(), anyLong());
+        doAnswer(getFromMap(fakeBundle)).when(mFragmentSavedState)
+                .getLong(anyString(), anyLong());
 
         mActivitySavedState = mock(Bundle.class);
         doAnswer(saveInMap(activityHostBundle)).when(mActivitySavedState)
-                .putString(anyString(), anyString());
-        doAnswer(getFromMap(activityHostBundle)).when(mActivitySavedState).getString(anyString());
+                .putLong(anyString(), anyLong());
+        doAnswer(getFromMap(activityHostBundle)).when(mActivitySavedState)
+                .getLong(anyString(), anyLong());
     }
 
     @After
@@ -66,24 +68,24 @@ public abstract class AbstractPresenterDestroyTest {
     }
 
     @NonNull
-    private Answer getFromMap(final HashMap<String, String> store) {
+    private Answer getFromMap(final HashMap<String, Long> store) {
         return new Answer() {
             @Override
-            public String answer(final InvocationOnMock invocation) throws Throwable {
+            public Long answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                //noinspection RedundantCast
-                return store.get((String) args[0]);
+                final Long value = store.get((String) args[0]);
+                return value != null ? value : (Long) args[1];
             }
         };
     }
 
     @NonNull
-    private Answer saveInMap(final HashMap<String, String> store) {
+    private Answer saveInMap(final HashMap<String, Long> store) {
         return new Answer() {
             @Override
             public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                store.put((String) args[0], (String) args[1]);
+                store.put((String) args[0], (Long) args[1]);
                 return null;
             }
         };
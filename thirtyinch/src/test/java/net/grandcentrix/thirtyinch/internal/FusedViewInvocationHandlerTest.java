@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.FusableBindViewInterceptor;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewCallStage;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInterceptor;
+import org.junit.*;
+import org.mockito.ArgumentCaptor;
+
+public class FusedViewInvocationHandlerTest {
+
+    public interface TestView extends TiView {
+
+        @DistinctUntilChanged
+        void showText(String text);
+    }
+
+    private class RecordingStage implements FusableBindViewInterceptor, ViewCallStage {
+
+        private final String mName;
+
+        RecordingStage(final String name) {
+            mName = name;
+        }
+
+        @Nullable
+        @Override
+        public ViewCallStage createStage(@NonNull final TiView view) {
+            return this;
+        }
+
+        @Nullable
+        @Override
+        public Object handle(@NonNull final Method method, @NonNull final Object[] args,
+                @NonNull final Chain next) throws Throwable {
+            mCalls.add(mName);
+            return next.proceed(method, args);
+        }
+
+        @Override
+        public <V extends TiView> V intercept(final V view) {
+            throw new IllegalStateException("fusable interceptors must not create a proxy");
+        }
+    }
+
+    private final List<String> mCalls = new ArrayList<>();
+
+    private final TestView mView = new TestView() {
+        @Override
+        public void showText(final String text) {
+            mCalls.add("view " + text);
+        }
+    };
+
+    @Test
+    public void fusedInterceptorsShareOneProxy() throws Exception {
+        final PresenterViewBinder<TestView> binder = createBinder();
+        final DistinctUntilChangedInterceptor ducInterceptor =
+                new DistinctUntilChangedInterceptor();
+        final RecordingStage stage = new RecordingStage("stage");
+        binder.addBindViewInterceptor(ducInterceptor);
+        binder.addBindViewInterceptor(stage);
+
+        final TestView boundView = bind(binder);
+
+        assertThat(Proxy.getInvocationHandler(boundView))
+                .isInstanceOf(FusedViewInvocationHandler.class);
+        assertThat(binder.getInterceptedViewOf(ducInterceptor)).isSameAs(boundView);
+        assertThat(binder.getInterceptedViewOf(stage)).isSameAs(boundView);
+
+        // the stage of the later interceptor runs first, the duplicated call is dropped
+        boundView.showText("a");
+        boundView.showText("a");
+        assertThat(mCalls).containsExactly("stage", "view a", "stage");
+
+        // the stage can still be found in the fused proxy
+        ducInterceptor.clearCache(binder);
+        boundView.showText("a");
+        assertThat(mCalls).containsExactly("stage", "view a", "stage", "stage", "view a");
+    }
+
+    @Test
+    public void noStages_returnsView() throws Exception {
+        assertThat(FusedViewInvocationHandler.fuse(mView, Collections.<ViewCallStage>emptyList()))
+                .isSameAs(mView);
+    }
+
+    @Test
+    public void notFusableInterceptorSplitsFusedProxies() throws Exception {
+        final PresenterViewBinder<TestView> binder = createBinder();
+        final RecordingStage first = new RecordingStage("first");
+        final BindViewInterceptor notFusable = new BindViewInterceptor() {
+            @Override
+            public <V extends TiView> V intercept(final V view) {
+                //noinspection unchecked
+                return (V) FusedViewInvocationHandler.fuse((TestView) view,
+                        Collections.<ViewCallStage>singletonList(new RecordingStage("notFusable")));
+            }
+        };
+        final RecordingStage last = new RecordingStage("last");
+        binder.addBindViewInterceptor(first);
+        binder.addBindViewInterceptor(notFusable);
+        binder.addBindViewInterceptor(last);
+
+        final TestView boundView = bind(binder);
+
+        assertThat(binder.getInterceptedViewOf(first))
+                .isNotSameAs(binder.getInterceptedViewOf(notFusable));
+        assertThat(binder.getInterceptedViewOf(last)).isSameAs(boundView);
+
+        boundView.showText("a");
+        assertThat(mCalls).containsExactly("last", "notFusable", "first", "view a");
+    }
+
+    @Test
+    public void stagesRunInOrder() throws Exception {
+        final TestView fused = FusedViewInvocationHandler.fuse(mView, Arrays.<ViewCallStage>asList(
+                new RecordingStage("1"), new RecordingStage("2")));
+
+        fused.showText("a");
+
+        assertThat(mCalls).containsExactly("1", "2", "view a");
+    }
+
+    @NonNull
+    private TestView bind(final PresenterViewBinder<TestView> binder) {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setFusedBindViewInterceptorsEnabled(true)
+                .build();
+        //noinspection unchecked
+        final TiPresenter<TestView> presenter = mock(TiPresenter.class);
+        when(presenter.getConfig()).thenReturn(config);
+
+        binder.bindView(presenter, new TiViewProvider<TestView>() {
+            @NonNull
+            @Override
+            public TestView provideView() {
+                return mView;
+            }
+        });
+        final ArgumentCaptor<TestView> captor = ArgumentCaptor.forClass(TestView.class);
+        verify(presenter).attachView(captor.capture());
+        return captor.getValue();
+    }
+
+    @NonNull
+    private static PresenterViewBinder<TestView> createBinder() {
+        return new PresenterViewBinder<>(new TiLoggingTagProvider() {
+            @Override
+            public String getLoggingTag() {
+                return "test";
+            }
+        });
+    }
+}
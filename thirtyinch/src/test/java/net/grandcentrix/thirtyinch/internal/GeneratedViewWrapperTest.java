@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.Constructor;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+
+public class GeneratedViewWrapperTest {
+
+    public interface WrappedView extends TiView {
+
+    }
+
+    private interface NotWrappedView extends TiView {
+
+    }
+
+    @Test
+    public void constructorOfWrapperIsCached() throws Exception {
+        final Constructor<?> constructor =
+                GeneratedViewWrapper.CALL_ON_MAIN_THREAD.getConstructor(WrappedView.class);
+
+        assertThat(constructor).isNotNull();
+        assertThat(constructor.getDeclaringClass())
+                .isEqualTo(GeneratedViewWrapperTest_WrappedView_CallOnMainThreadWrapper.class);
+        // not looked up again
+        assertThat(GeneratedViewWrapper.CALL_ON_MAIN_THREAD.getConstructor(WrappedView.class))
+                .isSameAs(constructor);
+    }
+
+    @Test
+    public void noWrapperGenerated() throws Exception {
+        final NotWrappedView view = new NotWrappedView() {
+        };
+
+        assertThat(GeneratedViewWrapper.CALL_ON_MAIN_THREAD.wrap(view, NotWrappedView.class))
+                .isNull();
+        // cached lookup
+        assertThat(GeneratedViewWrapper.CALL_ON_MAIN_THREAD.getWrapperClass(NotWrappedView.class))
+                .isNull();
+    }
+
+    @Test
+    public void wrapperNameOfNestedInterface() throws Exception {
+        assertThat(GeneratedViewWrapper.DISTINCT_UNTIL_CHANGED.getWrapperName(WrappedView.class))
+                .isEqualTo("net.grandcentrix.thirtyinch.internal"
+                        + ".GeneratedViewWrapperTest_WrappedView_DistinctUntilChangedWrapper");
+    }
+
+    @Test
+    public void wrapsViewInGeneratedWrapper() throws Exception {
+        final WrappedView view = new WrappedView() {
+        };
+
+        final WrappedView wrapped =
+                GeneratedViewWrapper.CALL_ON_MAIN_THREAD.wrap(view, WrappedView.class);
+
+        assertThat(wrapped)
+                .isInstanceOf(GeneratedViewWrapperTest_WrappedView_CallOnMainThreadWrapper.class);
+        assertThat(((GeneratedViewWrapperTest_WrappedView_CallOnMainThreadWrapper) wrapped).mView)
+                .isSameAs(view);
+        assertThat(GeneratedViewWrapper.DISTINCT_UNTIL_CHANGED.wrap(view, WrappedView.class))
+                .isNull();
+    }
+}
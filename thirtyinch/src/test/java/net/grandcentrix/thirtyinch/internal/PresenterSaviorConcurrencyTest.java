@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import android.app.Activity;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import org.junit.*;
+
+/**
+ * Saves, recovers and frees presenters from many threads for a few shared hosts. Scopes get
+ * created and removed over and over again while other threads use them.
+ */
+public class PresenterSaviorConcurrencyTest {
+
+    private static final int HOSTS = 3;
+
+    private static final int ITERATIONS_PER_THREAD = 2000;
+
+    private static final int THREADS = 4;
+
+    @Test
+    public void churnSaveRecoverFree() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Activity[] hosts = new Activity[HOSTS];
+        for (int i = 0; i < HOSTS; i++) {
+            hosts[i] = new HostingActivity().getMockActivityInstance();
+        }
+
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < ITERATIONS_PER_THREAD; i++) {
+                            final Activity host = hosts[(offset + i) % HOSTS];
+                            final TiPresenter presenter = new TiPresenter() {
+                            };
+                            final long id = savior.save(presenter, host);
+                            if (savior.recover(id, host) != presenter) {
+                                throw new AssertionError("saved presenter not recovered");
+                            }
+                            savior.free(id, host);
+                            if (savior.recover(id, host) != null) {
+                                throw new AssertionError("freed presenter recovered");
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "churn-" + t).start();
+        }
+
+        start.countDown();
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(errors).isEmpty();
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+        assertThat(savior.mActivityInstanceObserver).isNull();
+    }
+}
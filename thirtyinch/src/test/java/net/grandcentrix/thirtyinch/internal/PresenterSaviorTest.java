@@ -16,20 +16,51 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks;
+import android.content.ComponentCallbacks2;
 import android.os.Bundle;
+import android.os.Handler;
 import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiLifecycleObserver;
 import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiTrimMemoryObserver;
+import net.grandcentrix.thirtyinch.TiView;
 import org.junit.*;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.*;
 import org.mockito.stubbing.*;
 
 public class PresenterSaviorTest {
 
-    private final HashMap<String, String> fakeBundle = new HashMap<>();
+    /**
+     * equal to all other instances, i.e. a presenter implementing equals() by its state
+     */
+    private static class EqualPresenter extends TiPresenter<TiView> {
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof EqualPresenter;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    private final HashMap<String, Long> fakeBundle = new HashMap<>();
 
     private Bundle mSavedState;
 
@@ -42,10 +73,10 @@ public class PresenterSaviorTest {
         // create lifecycle callbacks with different scope
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
-        assertThat(id).isNotNull();
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(savior.mScopes).hasSize(1);
+        assertThat(savior.mScopes.size()).isEqualTo(1);
 
         // some random Activity was created
         final HostingActivity hostingActivity2 = new HostingActivity();
@@ -53,7 +84,7 @@ public class PresenterSaviorTest {
                 hostingActivity2.getMockActivityInstance(), mSavedState);
 
         // no second scope was created
-        assertThat(savior.mScopes).hasSize(1);
+        assertThat(savior.mScopes.size()).isEqualTo(1);
     }
 
     @Test
@@ -69,17 +100,17 @@ public class PresenterSaviorTest {
         };
 
         // When both are saved in savior
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
-        final String id2 = savior.save(presenter2, hostingActivity.getMockActivityInstance());
+        final long id2 = savior.save(presenter2, hostingActivity.getMockActivityInstance());
 
         // Then the ids are different
         assertThat(id2).isNotEqualTo(id);
         assertThat(savior.getPresenterCount()).isEqualTo(2);
 
         // and both share the same scope
-        assertThat(savior.mScopes).hasSize(1);
+        assertThat(savior.mScopes.size()).isEqualTo(1);
 
         // When the Activity finishes
         hostingActivity.setFinishing(true);
@@ -90,7 +121,7 @@ public class PresenterSaviorTest {
                 hostingActivity.getMockActivityInstance());
 
         assertThat(savior.getPresenterCount()).isEqualTo(0);
-        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
     }
 
     @Test
@@ -101,31 +132,31 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(savior.mScopes).hasSize(1);
+        assertThat(savior.mScopes.size()).isEqualTo(1);
 
         // save second
         final HostingActivity hostingActivity2 = new HostingActivity();
         final TiPresenter presenter2 = new TiPresenter() {
         };
-        final String id2 = savior.save(presenter2, hostingActivity2.getMockActivityInstance());
+        final long id2 = savior.save(presenter2, hostingActivity2.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(2);
-        assertThat(savior.mScopes).hasSize(2);
+        assertThat(savior.mScopes.size()).isEqualTo(2);
 
         // When removing the first
         savior.free(id, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         // Then only 1 scope is left, the other got removed
-        assertThat(savior.mScopes).hasSize(1);
+        assertThat(savior.mScopes.size()).isEqualTo(1);
 
         // When removing the second
         savior.free(id2, hostingActivity2.getMockActivityInstance());
 
         // Then no scopes are left
         assertThat(savior.getPresenterCount()).isEqualTo(0);
-        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
 
         // the observer is also cleaned up
         assertThat(savior.mActivityInstanceObserver).isNull();
@@ -138,16 +169,140 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         hostingActivity.setFinishing(true);
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
 
         assertThat(savior.getPresenterCount()).isEqualTo(0);
-        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void evictOldestDetachedPresenterOfDestroyedActivity() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity first = new HostingActivity();
+        final HostingActivity second = new HostingActivity();
+        final HostingActivity alive = new HostingActivity();
+        final TiPresenter presenter1 = createPresenter(savior, first);
+        final TiPresenter presenter2 = createPresenter(savior, second);
+        final TiPresenter presenter3 = createPresenter(savior, alive);
+
+        // presenter2 was detached before presenter1
+        presenter2.attachView(mock(TiView.class));
+        presenter2.detachView();
+        presenter1.attachView(mock(TiView.class));
+        presenter1.detachView();
+
+        // both Activities got destroyed and wait for their recreation
+        savior.mActivityInstanceObserver.onActivityDestroyed(first.getMockActivityInstance());
+        savior.mActivityInstanceObserver.onActivityDestroyed(second.getMockActivityInstance());
+
+        savior.setMaxRetainedPresenters(2);
+        savior.mComponentCallbacks.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        assertThat(presenter2.isDestroyed()).isTrue();
+        assertThat(presenter1.isDestroyed()).isFalse();
+        assertThat(presenter3.isDestroyed()).isFalse();
+        assertThat(savior.getPresenterCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictEqualPresentersTrackedByIdentity() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity first = new HostingActivity();
+        final HostingActivity second = new HostingActivity();
+        final TiPresenter presenter1 = new EqualPresenter();
+        final TiPresenter presenter2 = new EqualPresenter();
+        assertThat(presenter1).isEqualTo(presenter2);
+        for (final TiPresenter presenter : new TiPresenter[]{presenter1, presenter2}) {
+            presenter.create();
+            presenter.attachView(mock(TiView.class));
+            presenter.detachView();
+        }
+        savior.save(presenter1, first.getMockActivityInstance());
+        savior.save(presenter2, second.getMockActivityInstance());
+        savior.mActivityInstanceObserver.onActivityDestroyed(first.getMockActivityInstance());
+        savior.mActivityInstanceObserver.onActivityDestroyed(second.getMockActivityInstance());
+
+        savior.setMaxRetainedPresenters(0);
+        savior.mComponentCallbacks.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        // both presenters have their own tracker, equals() doesn't merge them
+        assertThat(presenter1.isDestroyed()).isTrue();
+        assertThat(presenter2.isDestroyed()).isTrue();
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void evictPresentersExceedingTheBudget() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity first = new HostingActivity();
+        final HostingActivity second = new HostingActivity();
+        final TiPresenter presenter1 = createPresenter(savior, first);
+        final TiPresenter presenter2 = createPresenter(savior, second);
+        savior.mActivityInstanceObserver.onActivityDestroyed(first.getMockActivityInstance());
+        savior.mActivityInstanceObserver.onActivityDestroyed(second.getMockActivityInstance());
+
+        savior.setRetainedPresentersBudget(150, new PresenterSavior.PresenterWeigher() {
+            @Override
+            public long weigh(@NonNull final TiPresenter presenter) {
+                return 100;
+            }
+        });
+
+        // within the budget without memory pressure
+        assertThat(savior.getPresenterCount()).isEqualTo(2);
+
+        assertThat(savior.evictRetainedPresenters()).isEqualTo(1);
+        // the presenter saved first was never attached and is the least recently used one
+        assertThat(presenter1.isDestroyed()).isTrue();
+        assertThat(presenter2.isDestroyed()).isFalse();
+        assertThat(savior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictDetachedPresenterOfStoppedActivity() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity stopped = new HostingActivity();
+        final HostingActivity destroyed = new HostingActivity();
+        final TiPresenter stoppedPresenter = createPresenter(savior, stopped);
+        final TiPresenter destroyedPresenter = createPresenter(savior, destroyed);
+
+        // the Activity in the back stack got stopped before the other one got destroyed
+        stoppedPresenter.attachView(mock(TiView.class));
+        stoppedPresenter.detachView();
+        destroyedPresenter.attachView(mock(TiView.class));
+        destroyedPresenter.detachView();
+        savior.mActivityInstanceObserver.onActivityDestroyed(destroyed.getMockActivityInstance());
+
+        savior.setMaxRetainedPresenters(1);
+        assertThat(savior.evictRetainedPresenters()).isEqualTo(1);
+
+        assertThat(stoppedPresenter.isDestroyed()).isTrue();
+        assertThat(destroyedPresenter.isDestroyed()).isFalse();
+        assertThat(savior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void presentersOfLivingActivitiesAreNotEvicted() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final HostingActivity startedActivity = new HostingActivity();
+        // not attached yet, the Activity is about to be started
+        final TiPresenter presenter = createPresenter(savior, hostingActivity);
+        final TiPresenter attachedPresenter = createPresenter(savior, startedActivity);
+        attachedPresenter.attachView(mock(TiView.class));
+
+        savior.setMaxRetainedPresenters(0);
+        assertThat(savior.evictRetainedPresenters()).isEqualTo(0);
+
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(attachedPresenter.isDestroyed()).isFalse();
+        assertThat(savior.getPresenterCount()).isEqualTo(2);
     }
 
     @Test
@@ -158,7 +313,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
@@ -173,13 +328,13 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(0);
 
-        final String id2 = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id2 = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(id2).isNotEqualTo(id);
 
         assertThat(savior.getPresenterCount()).isEqualTo(1);
@@ -193,17 +348,17 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(0);
-        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
 
         // free again should do nothing
         savior.free(id, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(0);
-        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
     }
 
     @Test
@@ -214,7 +369,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final HostingActivity hostingActivity2 = new HostingActivity();
@@ -229,9 +384,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -246,9 +401,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -256,6 +411,341 @@ public class PresenterSaviorTest {
         assertThat(savior.getPresenterCount()).isEqualTo(1);
     }
 
+    @Test
+    public void fragmentPresenterDestroyedWhenFragmentRemoved() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Fragment fragment = createFragment();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        final long id = savior.save(presenter, fragment);
+        assertThat(savior.recover(id, fragment)).isSameAs(presenter);
+
+        when(fragment.isRemoving()).thenReturn(true);
+        savior.mFragmentInstanceObserver.onFragmentDestroyed(
+                fragment.getActivity().getSupportFragmentManager(), fragment);
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+        assertThat(savior.mActivityInstanceObserver).isNull();
+    }
+
+    @Test
+    public void fragmentPresenterRecoveredByRecreatedFragment() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Fragment fragment = createFragment();
+        final FragmentManager fragmentManager = fragment.getActivity().getSupportFragmentManager();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        final long id = savior.save(presenter, fragment);
+        verify(fragmentManager).registerFragmentLifecycleCallbacks(
+                savior.mFragmentInstanceObserver, true);
+
+        // configuration change
+        savior.mFragmentInstanceObserver
+                .onFragmentSaveInstanceState(fragmentManager, fragment, mSavedState);
+        savior.mFragmentInstanceObserver.onFragmentDestroyed(fragmentManager, fragment);
+        final Fragment recreated = createFragment();
+        savior.mFragmentInstanceObserver
+                .onFragmentPreCreated(fragmentManager, recreated, mSavedState);
+
+        assertThat(savior.recover(id, fragment)).isNull();
+        assertThat(savior.recover(id, recreated)).isSameAs(presenter);
+        assertThat(presenter.isDestroyed()).isFalse();
+    }
+
+    @Test
+    public void keptPresenterCanBeClaimedAfterActivityFinished() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        savior.mHandler = mock(Handler.class);
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = createKeptPresenter(savior, hostingActivity, "key");
+
+        hostingActivity.setFinishing(true);
+        savior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity.getMockActivityInstance());
+
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+        assertThat(savior.claimKept("key")).isSameAs(presenter);
+        assertThat(savior.claimKept("key")).isNull();
+    }
+
+    @Test
+    public void keptPresenterDestroyedOnMemoryPressure() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        savior.mHandler = mock(Handler.class);
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = createKeptPresenter(savior, hostingActivity, "key");
+        hostingActivity.setFinishing(true);
+        savior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity.getMockActivityInstance());
+
+        // hiding the UI is no memory pressure
+        savior.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertThat(presenter.isDestroyed()).isFalse();
+
+        savior.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(savior.claimKept("key")).isNull();
+    }
+
+    @Test
+    public void keptPresenterOfLastActivityDestroyedByMemoryCallbacks() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        savior.mHandler = mock(Handler.class);
+        final Application application = mock(Application.class);
+        final Activity activity = mock(Activity.class);
+        when(activity.getApplication()).thenReturn(application);
+        final TiPresenter presenter = new TiPresenter(new TiConfiguration.Builder()
+                .setFinishedPresenterGracePeriod(1, TimeUnit.MINUTES)
+                .build()) {
+        };
+        presenter.create();
+        savior.save(presenter, activity);
+        savior.keepAfterFinish(presenter, "key");
+        final ArgumentCaptor<ComponentCallbacks> callbacks =
+                ArgumentCaptor.forClass(ComponentCallbacks.class);
+        verify(application).registerComponentCallbacks(callbacks.capture());
+
+        // the last Activity finishes, its presenter is kept
+        when(activity.isFinishing()).thenReturn(true);
+        savior.mActivityInstanceObserver.onActivityDestroyed(activity);
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+        assertThat(presenter.isDestroyed()).isFalse();
+        verify(application).unregisterActivityLifecycleCallbacks(
+                any(Application.ActivityLifecycleCallbacks.class));
+        verify(application, never()).unregisterComponentCallbacks(any(ComponentCallbacks.class));
+
+        // the system reports memory pressure
+        ((ComponentCallbacks2) callbacks.getValue())
+                .onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        verify(application).unregisterComponentCallbacks(callbacks.getValue());
+    }
+
+    @Test
+    public void presenterWithoutKeyDestroyedAfterActivityFinished() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = new TiPresenter(new TiConfiguration.Builder()
+                .setFinishedPresenterGracePeriod(1, TimeUnit.MINUTES)
+                .build()) {
+        };
+        presenter.create();
+        savior.save(presenter, hostingActivity.getMockActivityInstance());
+
+        hostingActivity.setFinishing(true);
+        savior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity.getMockActivityInstance());
+
+        assertThat(presenter.isDestroyed()).isTrue();
+    }
+
+    @Test
+    public void prewarmedPresenterCanBeClaimedOnce() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        savior.mHandler = mock(Handler.class);
+        final TiPresenter presenter = new TiPresenter() {
+        };
+
+        final String token = savior.prewarm(new TiPresenterProvider<TiPresenter>() {
+            @NonNull
+            @Override
+            public TiPresenter providePresenter() {
+                return presenter;
+            }
+        }, 5, TimeUnit.SECONDS);
+
+        // the presenter is created immediately
+        assertThat(presenter.isInitialized()).isTrue();
+        verify(savior.mHandler).postDelayed(any(Runnable.class), eq(5000L));
+
+        assertThat(savior.claimPrewarmed(token)).isSameAs(presenter);
+        assertThat(savior.claimPrewarmed(token)).isNull();
+        assertThat(presenter.isDestroyed()).isFalse();
+    }
+
+    @Test
+    public void prewarmedPresenterDestroyedWhenNotClaimed() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        savior.mHandler = mock(Handler.class);
+        final TiPresenter presenter = new TiPresenter() {
+        };
+
+        final String token = savior.prewarm(new TiPresenterProvider<TiPresenter>() {
+            @NonNull
+            @Override
+            public TiPresenter providePresenter() {
+                return presenter;
+            }
+        }, 0, TimeUnit.SECONDS);
+
+        savior.expireWaitingPresenters();
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(savior.claimPrewarmed(token)).isNull();
+    }
+
+    @Test
+    public void sharedPresenterRecoveredByKey() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        savior.saveShared("flow", presenter, hostingActivity.getMockActivityInstance());
+
+        assertThat(savior.recoverShared("flow", hostingActivity.getMockActivityInstance()))
+                .isSameAs(presenter);
+        assertThat(savior.recoverShared("other", hostingActivity.getMockActivityInstance()))
+                .isNull();
+        assertThat(savior.recoverShared("flow", new HostingActivity().getMockActivityInstance()))
+                .isNull();
+    }
+
+    @Test
+    public void sharedScopePresentersDestroyedWhenClosed() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final PresenterSavior.SharedScope scope = savior.openScope();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        savior.saveShared("flow", presenter, scope);
+        assertThat(savior.recoverShared("flow", scope)).isSameAs(presenter);
+
+        savior.closeScope(scope);
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(savior.recoverShared("flow", scope)).isNull();
+        assertThat(savior.mScopes.isEmpty()).isTrue();
+        try {
+            savior.save(new TiPresenter() {
+            }, scope);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("closed");
+        }
+    }
+
+    @Test
+    public void trimMemoryNotifiesSavedPresenters() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        final TiPresenter destroyedPresenter = new TiPresenter() {
+        };
+        destroyedPresenter.create();
+        savior.save(presenter, hostingActivity.getMockActivityInstance());
+        savior.save(destroyedPresenter, hostingActivity.getMockActivityInstance());
+        destroyedPresenter.destroy();
+
+        final PresenterSavior.TrimMemoryListener listener =
+                mock(PresenterSavior.TrimMemoryListener.class);
+        savior.setTrimMemoryListener(listener);
+
+        // the system reports memory pressure
+        savior.mComponentCallbacks.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        verify(listener).onPresentersTrimmed(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, 1);
+    }
+
+    @Test
+    public void trimMemoryNotifiesPresentersWhichAreNotSaved() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter saved = createPresenter(savior, hostingActivity);
+        final TiPresenter notSaved = new TiPresenter() {
+        };
+        final TiTrimMemoryObserver trimObserver = mock(TiTrimMemoryObserver.class);
+        notSaved.addLifecycleObserver(TiLifecycleObserver.TRIM_MEMORY, trimObserver);
+        notSaved.create();
+        // the host of the presenter doesn't retain it
+        savior.observeMemoryPressure(notSaved, hostingActivity.getMockActivityInstance());
+
+        final PresenterSavior.TrimMemoryListener listener =
+                mock(PresenterSavior.TrimMemoryListener.class);
+        savior.setTrimMemoryListener(listener);
+
+        savior.mComponentCallbacks.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        verify(trimObserver).onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        verify(listener).onPresentersTrimmed(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, 2);
+        assertThat(saved.isDestroyed()).isFalse();
+    }
+
+    @Test
+    public void trimMemoryIgnoresPresentersWithoutHost() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        createPresenter(savior, hostingActivity);
+        final TiPresenter withoutHost = new TiPresenter() {
+        };
+        withoutHost.create();
+
+        final PresenterSavior.TrimMemoryListener listener =
+                mock(PresenterSavior.TrimMemoryListener.class);
+        savior.setTrimMemoryListener(listener);
+
+        savior.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        verify(listener).onPresentersTrimmed(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, 1);
+    }
+
+    @Test
+    public void trimMemoryComparesPresentersByIdentity() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter[] presenters = new TiPresenter[2];
+        for (int i = 0; i < presenters.length; i++) {
+            // value-style presenters which are all equal
+            presenters[i] = new TiPresenter() {
+                @Override
+                public boolean equals(final Object obj) {
+                    return obj instanceof TiPresenter;
+                }
+
+                @Override
+                public int hashCode() {
+                    return 1;
+                }
+            };
+            presenters[i].create();
+            savior.observeMemoryPressure(presenters[i], hostingActivity.getMockActivityInstance());
+        }
+
+        final PresenterSavior.TrimMemoryListener listener =
+                mock(PresenterSavior.TrimMemoryListener.class);
+        savior.setTrimMemoryListener(listener);
+        savior.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        verify(listener).onPresentersTrimmed(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, 2);
+
+        presenters[0].destroy();
+        savior.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        verify(listener).onPresentersTrimmed(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW, 1);
+    }
+
+    @Test
+    public void memoryCallbacksUnregisteredWhenLastLivePresenterDestroyed() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Application application = mock(Application.class);
+        final Activity activity = mock(Activity.class);
+        when(activity.getApplication()).thenReturn(application);
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+
+        // a presenter which isn't retained
+        savior.observeMemoryPressure(presenter, activity);
+        verify(application).registerComponentCallbacks(savior.mComponentCallbacks);
+
+        presenter.destroy();
+
+        verify(application).unregisterComponentCallbacks(savior.mComponentCallbacks);
+    }
+
     @Test
     public void recoverKeyWithNewActivity() throws Exception {
         final TestPresenterSavior savior = new TestPresenterSavior();
@@ -263,12 +753,12 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
 
         // Activity changes configuration
         savior.mActivityInstanceObserver.onActivitySaveInstanceState(
                 hostingActivity.getMockActivityInstance(), mSavedState);
-        final String scopeId = fakeBundle.get(ActivityInstanceObserver.TI_ACTIVITY_ID_KEY);
+        final Long scopeId = fakeBundle.get(ActivityInstanceObserver.TI_ACTIVITY_ID_KEY);
         assertThat(scopeId).isNotNull();
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -288,7 +778,7 @@ public class PresenterSaviorTest {
     public void recoverUnsupportedHost() throws Exception {
         final TestPresenterSavior savior = new TestPresenterSavior();
         try {
-            savior.recover("someRandomId", "not supported host");
+            savior.recover(42, "not supported host");
             fail("did not throw");
         } catch (Throwable e) {
             assertThat(e).isInstanceOf(PresenterSavior.IllegalHostException.class)
@@ -304,7 +794,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final HostingActivity hostingActivity2 = new HostingActivity();
@@ -322,7 +812,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final TiPresenter recovered = savior.recover(id, hostingActivity.getMockActivityInstance());
@@ -338,9 +828,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
     }
 
     @Test
@@ -359,19 +849,50 @@ public class PresenterSaviorTest {
 
     @Before
     public void setUp() throws Exception {
+        LivePresenters.clear();
         mSavedState = mock(Bundle.class);
-        doAnswer(saveInMap()).when(mSavedState).putString(anyString(), anyString());
-        doAnswer(getFromMap()).when(mSavedState).getString(anyString());
+        doAnswer(saveInMap()).when(mSavedState).putLong(anyString(), anyLong());
+        doAnswer(getFromMap()).when(mSavedState).getLong(anyString(), anyLong());
+    }
+
+    private Fragment createFragment() {
+        final FragmentActivity activity = mock(FragmentActivity.class);
+        when(activity.getApplication()).thenReturn(mock(Application.class));
+        when(activity.getSupportFragmentManager()).thenReturn(mock(FragmentManager.class));
+        final Fragment fragment = mock(Fragment.class);
+        when(fragment.getActivity()).thenReturn(activity);
+        return fragment;
+    }
+
+    private TiPresenter createKeptPresenter(final PresenterSavior savior,
+            final HostingActivity hostingActivity, final String key) {
+        final TiPresenter presenter = new TiPresenter(new TiConfiguration.Builder()
+                .setFinishedPresenterGracePeriod(1, TimeUnit.MINUTES)
+                .build()) {
+        };
+        presenter.create();
+        savior.save(presenter, hostingActivity.getMockActivityInstance());
+        savior.keepAfterFinish(presenter, key);
+        return presenter;
+    }
+
+    private TiPresenter createPresenter(final PresenterSavior savior,
+            final HostingActivity hostingActivity) {
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        savior.save(presenter, hostingActivity.getMockActivityInstance());
+        return presenter;
     }
 
     @NonNull
     private Answer getFromMap() {
         return new Answer() {
             @Override
-            public String answer(final InvocationOnMock invocation) throws Throwable {
+            public Long answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                //noinspection RedundantCast
-                return fakeBundle.get((String) args[0]);
+                final Long value = fakeBundle.get((String) args[0]);
+                return value != null ? value : (Long) args[1];
             }
         };
     }
@@ -382,9 +903,9 @@ public class PresenterSaviorTest {
             @Override
             public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                fakeBundle.put((String) args[0], (String) args[1]);
+                fakeBundle.put((String) args[0], (Long) args[1]);
                 return null;
             }
         };
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@ package net.grandcentrix.thirtyinch.internal;
 
 import static org.assertj.core.api.Assertions.*;
 
+import androidx.annotation.NonNull;
 import java.util.ArrayList;
 import net.grandcentrix.thirtyinch.TiPresenter;
 import org.junit.*;
@@ -29,7 +30,7 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("a", presenter);
+        scope.save(1, presenter);
 
         assertThat(scope.getAll())
                 .hasSize(1)
@@ -37,7 +38,7 @@ public class PresenterScopeTest {
 
         assertThat(scope.size()).isEqualTo(1);
         assertThat(scope.getAllMappings()).hasSize(1);
-        assertThat(scope.getAllMappings().get(0).getKey()).isEqualTo("a");
+        assertThat(scope.getAllMappings().get(0).getKey()).isEqualTo(1L);
         assertThat(scope.getAllMappings().get(0).getValue()).isEqualTo(presenter);
     }
 
@@ -47,12 +48,12 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter1 = new TiPresenter() {
         };
-        scope.save("a", presenter1);
+        scope.save(1, presenter1);
 
         // add second presenter with different id
         final TiPresenter presenter2 = new TiPresenter() {
         };
-        scope.save("b", presenter2);
+        scope.save(2, presenter2);
 
         assertThat(scope.size()).isEqualTo(2);
 
@@ -61,6 +62,76 @@ public class PresenterScopeTest {
                 .contains(presenter1, presenter2);
     }
 
+    @Test
+    public void getByIdSavedInAnyOrder() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final TiPresenter presenter1 = new TiPresenter() {
+        };
+        final TiPresenter presenter2 = new TiPresenter() {
+        };
+        final TiPresenter presenter3 = new TiPresenter() {
+        };
+        scope.save(20, presenter2);
+        scope.save(30, presenter3);
+        scope.save(10, presenter1);
+
+        assertThat(scope.get(10)).isSameAs(presenter1);
+        assertThat(scope.get(20)).isSameAs(presenter2);
+        assertThat(scope.get(30)).isSameAs(presenter3);
+        assertThat(scope.get(15)).isNull();
+        assertThat(scope.getAll()).containsExactly(presenter1, presenter2, presenter3);
+
+        scope.remove(20);
+        assertThat(scope.get(20)).isNull();
+        assertThat(scope.get(30)).isSameAs(presenter3);
+        assertThat(scope.getAll()).containsExactly(presenter1, presenter3);
+    }
+
+    @Test
+    public void forEachVisitsPresentersOrderedById() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final TiPresenter presenter1 = new TiPresenter() {
+        };
+        final TiPresenter presenter2 = new TiPresenter() {
+        };
+        scope.save(2, presenter2);
+        scope.save(1, presenter1);
+
+        final ArrayList<Long> ids = new ArrayList<>();
+        final ArrayList<TiPresenter> presenters = new ArrayList<>();
+        scope.forEach(new PresenterScope.Visitor() {
+            @Override
+            public void visit(final long id, @NonNull final TiPresenter presenter) {
+                ids.add(id);
+                presenters.add(presenter);
+                // changes while iterating don't affect the iteration
+                scope.remove(id);
+            }
+        });
+
+        assertThat(ids).containsExactly(1L, 2L);
+        assertThat(presenters).containsExactly(presenter1, presenter2);
+        assertThat(scope.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void getIdOfSavedPresenter() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        assertThat(scope.getId(presenter)).isEqualTo(TiPresenterSavior.NO_ID);
+
+        scope.save(42, presenter);
+        assertThat(scope.getId(presenter)).isEqualTo(42);
+
+        scope.remove(42);
+        assertThat(scope.getId(presenter)).isEqualTo(TiPresenterSavior.NO_ID);
+
+        // the presenter can be saved again after it got removed
+        scope.save(43, presenter);
+        assertThat(scope.getId(presenter)).isEqualTo(43);
+    }
+
     @Test
     public void getAllIsEmptyNotNullForEmptyScope() throws Exception {
         final PresenterScope scope = new PresenterScope();
@@ -81,16 +152,16 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter1 = new TiPresenter() {
         };
-        scope.save("myId", presenter1);
+        scope.save(42, presenter1);
 
         // override with same id throws
         final TiPresenter presenter2 = new TiPresenter() {
         };
         try {
-            scope.save("myId", presenter2);
+            scope.save(42, presenter2);
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("myId");
+            assertThat(e).hasMessageContaining("42");
         }
     }
 
@@ -100,13 +171,13 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("a", presenter);
+        scope.save(1, presenter);
 
         assertThat(scope.getAll())
                 .hasSize(1)
                 .contains(presenter);
 
-        final TiPresenter removedPresenter = scope.remove("a");
+        final TiPresenter removedPresenter = scope.remove(1);
 
         assertThat(scope.getAll()).isEmpty();
         assertThat(removedPresenter).isEqualTo(presenter);
@@ -115,7 +186,7 @@ public class PresenterScopeTest {
     @Test
     public void removePresenterNotInScope() throws Exception {
         final PresenterScope scope = new PresenterScope();
-        final TiPresenter removedPresenter = scope.remove("a");
+        final TiPresenter removedPresenter = scope.remove(1);
         assertThat(removedPresenter).isNull();
     }
 
@@ -123,7 +194,7 @@ public class PresenterScopeTest {
     public void saveNullPresenterThrows() throws Exception {
         final PresenterScope scope = new PresenterScope();
         try {
-            scope.save("a", null);
+            scope.save(1, null);
             fail("did not throw");
         } catch (IllegalStateException e) {
             assertThat(e).hasMessageContaining("null").hasMessageContaining("presenter");
@@ -131,14 +202,14 @@ public class PresenterScopeTest {
     }
 
     @Test
-    public void savePresenterWithNullIdThrows() throws Exception {
+    public void savePresenterWithoutIdThrows() throws Exception {
         final PresenterScope scope = new PresenterScope();
         try {
-            scope.save(null, new TiPresenter() {
+            scope.save(TiPresenterSavior.NO_ID, new TiPresenter() {
             });
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("null").hasMessageContaining("id");
+            assertThat(e).hasMessageContaining("NO_ID").hasMessageContaining("id");
         }
     }
 
@@ -148,14 +219,14 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("myId", presenter);
+        scope.save(42, presenter);
 
         // try to save the same presenter with a different id
         try {
-            scope.save("b", presenter);
+            scope.save(2, presenter);
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("myId");
+            assertThat(e).hasMessageContaining("42");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+import org.mockito.InOrder;
+
+public class SharedPresenterViewsTest {
+
+    public interface TestView extends TiView {
+
+        void showProgress(int progress);
+
+        void showText(String text);
+    }
+
+    private static class TestPresenter extends TiPresenter<TestView> {
+
+        final List<TestView> attachedViews = new ArrayList<>();
+
+        int detachCount = 0;
+
+        @Override
+        protected void onAttachView(@NonNull final TestView view) {
+            super.onAttachView(view);
+            attachedViews.add(view);
+        }
+
+        @Override
+        protected void onDetachView() {
+            super.onDetachView();
+            detachCount++;
+        }
+    }
+
+    private TestPresenter mPresenter;
+
+    @Before
+    public void setUp() throws Exception {
+        mPresenter = new TestPresenter();
+        mPresenter.create();
+    }
+
+    @Test
+    public void callsAreForwardedToAllViews() throws Exception {
+        final TestView view1 = mock(TestView.class);
+        final TestView view2 = mock(TestView.class);
+        SharedPresenterViews.attach(mPresenter, view1);
+        SharedPresenterViews.attach(mPresenter, view2);
+
+        mPresenter.getView().showText("hello");
+
+        verify(view1).showText("hello");
+        verify(view2).showText("hello");
+    }
+
+    @Test
+    public void joiningViewDoesNotDetachThePresenter() throws Exception {
+        final TestView view1 = mock(TestView.class);
+        final TestView view2 = mock(TestView.class);
+
+        SharedPresenterViews.attach(mPresenter, view1);
+        assertThat(mPresenter.attachedViews).hasSize(1);
+        final TestView proxy = mPresenter.getView();
+
+        SharedPresenterViews.attach(mPresenter, view2);
+        assertThat(mPresenter.attachedViews).hasSize(1);
+        assertThat(mPresenter.detachCount).isEqualTo(0);
+        assertThat(mPresenter.getView()).isSameAs(proxy);
+        assertThat(SharedPresenterViews.of(mPresenter).getViews()).containsExactly(view1, view2);
+
+        // attaching the same view again doesn't add it twice
+        SharedPresenterViews.attach(mPresenter, view2);
+        assertThat(SharedPresenterViews.of(mPresenter).getViews()).containsExactly(view1, view2);
+    }
+
+    @Test
+    public void joiningViewGetsLatestCallsReplayed() throws Exception {
+        final TestView view1 = mock(TestView.class);
+        final TestView view2 = mock(TestView.class);
+        SharedPresenterViews.attach(mPresenter, view1);
+        mPresenter.getView().showText("first");
+        mPresenter.getView().showProgress(10);
+        mPresenter.getView().showText("second");
+
+        SharedPresenterViews.attach(mPresenter, view2);
+
+        // Then the joining view gets the latest call of each method, in call order
+        final InOrder inOrder = inOrder(view2);
+        inOrder.verify(view2).showProgress(10);
+        inOrder.verify(view2).showText("second");
+        verify(view2, never()).showText("first");
+        // Then the view already attached isn't called again
+        verify(view1, times(1)).showProgress(10);
+        verify(view1, times(1)).showText("second");
+    }
+
+    @Test
+    public void lastLeavingViewDetachesThePresenter() throws Exception {
+        final TestView view = mock(TestView.class);
+
+        SharedPresenterViews.attach(mPresenter, view);
+        assertThat(mPresenter.isViewAttached()).isTrue();
+        mPresenter.getView().showText("hello");
+
+        SharedPresenterViews.detach(mPresenter, view);
+        assertThat(mPresenter.isViewAttached()).isFalse();
+        assertThat(SharedPresenterViews.of(mPresenter)).isNull();
+
+        // Then a new view doesn't get the calls of the previous attachment replayed
+        final TestView newView = mock(TestView.class);
+        SharedPresenterViews.attach(mPresenter, newView);
+        verify(newView, never()).showText(anyString());
+        assertThat(mPresenter.attachedViews).hasSize(2);
+    }
+
+    @Test
+    public void leavingViewDoesNotAffectOthers() throws Exception {
+        final TestView view1 = mock(TestView.class);
+        final TestView view2 = mock(TestView.class);
+        SharedPresenterViews.attach(mPresenter, view1);
+        SharedPresenterViews.attach(mPresenter, view2);
+
+        SharedPresenterViews.detach(mPresenter, view1);
+
+        assertThat(mPresenter.isViewAttached()).isTrue();
+        assertThat(mPresenter.detachCount).isEqualTo(0);
+        mPresenter.getView().showText("hello");
+        verify(view1, never()).showText(anyString());
+        verify(view2).showText("hello");
+
+        SharedPresenterViews.detach(mPresenter, view2);
+
+        assertThat(mPresenter.isViewAttached()).isFalse();
+        assertThat(mPresenter.detachCount).isEqualTo(1);
+    }
+}
@@ -30,15 +30,21 @@ import net.grandcentrix.thirtyinch.TiView;
  * {@link TiActivityDelegate} for testing
  */
 public class TestTiActivity
-        implements DelegatedTiActivity, TiViewProvider<TiView>,
+        implements DelegatedTiActivity, DelegatedTiActivityOptions, TiViewProvider<TiView>,
         PresenterAccessor<TiPresenter<TiView>, TiView> {
 
     public static final class Builder {
 
         private TiPresenter<TiView> mPresenter;
 
+        private String mPresenterCacheKey;
+
+        private Executor mPresenterCreationExecutor;
+
         private TiPresenterProvider<TiPresenter<TiView>> mPresenterProvider;
 
+        private String mPrewarmedPresenterToken;
+
         private TiPresenterSavior mSavior = new PresenterSavior();
 
         public Builder() {
@@ -55,7 +61,8 @@ public class TestTiActivity
                     }
                 };
             }
-            return new TestTiActivity(presenterProvider, mSavior);
+            return new TestTiActivity(presenterProvider, mSavior, mPresenterCreationExecutor,
+                    mPrewarmedPresenterToken, mPresenterCacheKey);
         }
 
         public Builder setPresenter(TiPresenter<TiView> presenter) {
@@ -63,12 +70,27 @@ public class TestTiActivity
             return this;
         }
 
+        public Builder setPresenterCacheKey(final String key) {
+            mPresenterCacheKey = key;
+            return this;
+        }
+
+        public Builder setPresenterCreationExecutor(final Executor executor) {
+            mPresenterCreationExecutor = executor;
+            return this;
+        }
+
         public Builder setPresenterProvider(
                 TiPresenterProvider<TiPresenter<TiView>> provider) {
             mPresenterProvider = provider;
             return this;
         }
 
+        public Builder setPrewarmedPresenterToken(final String token) {
+            mPrewarmedPresenterToken = token;
+            return this;
+        }
+
         public Builder setSavior(final TiPresenterSavior savior) {
             mSavior = savior;
             return this;
@@ -79,9 +101,19 @@ public class TestTiActivity
 
     private final HostingActivity mHostingActivity = new HostingActivity();
 
+    private final String mPresenterCacheKey;
+
+    private final Executor mPresenterCreationExecutor;
+
+    private final String mPrewarmedPresenterToken;
+
 
     private TestTiActivity(final TiPresenterProvider<TiPresenter<TiView>> presenterProvider,
-            final TiPresenterSavior savior) {
+            final TiPresenterSavior savior, final Executor presenterCreationExecutor,
+            final String prewarmedPresenterToken, final String presenterCacheKey) {
+        mPresenterCacheKey = presenterCacheKey;
+        mPresenterCreationExecutor = presenterCreationExecutor;
+        mPrewarmedPresenterToken = prewarmedPresenterToken;
         mDelegate = new TiActivityDelegate<>(this, this, presenterProvider,
                 new TiLoggingTagProvider() {
                     @Override
@@ -105,6 +137,21 @@ public class TestTiActivity
         return mDelegate.getPresenter();
     }
 
+    @Override
+    public String getPresenterCacheKey() {
+        return mPresenterCacheKey;
+    }
+
+    @Override
+    public Executor getPresenterCreationExecutor() {
+        return mPresenterCreationExecutor;
+    }
+
+    @Override
+    public String getPrewarmedPresenterToken() {
+        return mPrewarmedPresenterToken;
+    }
+
     @Override
     public Executor getUiThreadExecutor() {
         return new Executor() {
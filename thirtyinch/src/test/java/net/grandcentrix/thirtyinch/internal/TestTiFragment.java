@@ -32,7 +32,7 @@ import net.grandcentrix.thirtyinch.TiView;
  * methods instructing the {@link TiFragmentDelegate} for testing
  */
 public class TestTiFragment
-        implements DelegatedTiFragment, TiViewProvider<TiView>,
+        implements DelegatedTiFragment, DelegatedTiFragmentOptions, TiViewProvider<TiView>,
         PresenterAccessor<TiPresenter<TiView>, TiView> {
 
     public static class Builder {
@@ -41,10 +41,14 @@ public class TestTiFragment
 
         private TiPresenter<TiView> mPresenter;
 
+        private Executor mPresenterCreationExecutor;
+
         private TiPresenterProvider<TiPresenter<TiView>> mPresenterProvider;
 
         private TiPresenterSavior mSavior = new PresenterSavior();
 
+        private String mSharedPresenterKey;
+
         public TestTiFragment build() {
             TiPresenterProvider<TiPresenter<TiView>> presenterProvider = mPresenterProvider;
             if (presenterProvider == null) {
@@ -57,7 +61,8 @@ public class TestTiFragment
                 };
             }
 
-            return new TestTiFragment(presenterProvider, mSavior, mHostingActivity);
+            return new TestTiFragment(presenterProvider, mSavior, mHostingActivity,
+                    mPresenterCreationExecutor, mSharedPresenterKey);
         }
 
         public Builder setHostingActivity(final HostingActivity hostingActivity) {
@@ -70,6 +75,11 @@ public class TestTiFragment
             return this;
         }
 
+        public Builder setPresenterCreationExecutor(final Executor executor) {
+            mPresenterCreationExecutor = executor;
+            return this;
+        }
+
         public Builder setPresenterProvider(
                 TiPresenterProvider<TiPresenter<TiView>> provider) {
             mPresenterProvider = provider;
@@ -80,6 +90,11 @@ public class TestTiFragment
             mSavior = savior;
             return this;
         }
+
+        public Builder setSharedPresenterKey(final String key) {
+            mSharedPresenterKey = key;
+            return this;
+        }
     }
 
     private boolean mAdded = false;
@@ -92,11 +107,19 @@ public class TestTiFragment
 
     private boolean mInBackstack;
 
+    private final Executor mPresenterCreationExecutor;
+
     private boolean mRemoving;
 
+    private final String mSharedPresenterKey;
+
     private TestTiFragment(final TiPresenterProvider<TiPresenter<TiView>> presenterProvider,
             final TiPresenterSavior savior,
-            final HostingActivity hostingActivity) {
+            final HostingActivity hostingActivity,
+            final Executor presenterCreationExecutor,
+            final String sharedPresenterKey) {
+        mPresenterCreationExecutor = presenterCreationExecutor;
+        mSharedPresenterKey = sharedPresenterKey;
 
         mDelegate = new TiFragmentDelegate<>(this, this, presenterProvider,
                 new TiLoggingTagProvider() {
@@ -119,6 +142,16 @@ public class TestTiFragment
         return mDelegate.getPresenter();
     }
 
+    @Override
+    public Executor getPresenterCreationExecutor() {
+        return mPresenterCreationExecutor;
+    }
+
+    @Override
+    public String getSharedPresenterKey() {
+        return mSharedPresenterKey;
+    }
+
     @Override
     public Executor getUiThreadExecutor() {
         return new Executor() {
@@ -149,6 +182,11 @@ public class TestTiFragment
         return mRemoving;
     }
 
+    @Override
+    public boolean isHostingActivityFinishing() {
+        return mHostingActivity.isFinishing();
+    }
+
     public void onCreate(final Bundle saveInstanceState) {
         mDelegate.onCreate_afterSuper(saveInstanceState);
     }
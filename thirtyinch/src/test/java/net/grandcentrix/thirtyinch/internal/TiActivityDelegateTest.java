@@ -16,12 +16,320 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiLifecycleObserver;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiTrimMemoryObserver;
+import net.grandcentrix.thirtyinch.TiView;
 import org.junit.*;
 
 public class TiActivityDelegateTest extends AbstractPresenterDestroyTest {
 
+    private final List<Runnable> mBackgroundActions = new ArrayList<>();
+
+    private final Executor mBackgroundExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            mBackgroundActions.add(command);
+        }
+    };
+
+    @Test
+    public void asyncCreatedPresenterGetsBoundAfterCreation() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+
+        // the presenter isn't available until created in the background
+        assertThat(activity.getPresenter()).isNull();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.INITIALIZED);
+        assertThat(mBackgroundActions).hasSize(1);
+
+        mBackgroundActions.get(0).run();
+
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+
+        activity.onStop();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+    }
+
+    @Test
+    public void asyncCreatedPresenterGetsDestroyedWhenActivityIsDestroyedBeforeCreation()
+            throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+        activity.setFinishing(true);
+        activity.onDestroy();
+
+        mBackgroundActions.get(0).run();
+
+        assertThat(activity.getPresenter()).isNull();
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void asyncCreationIsAdoptedAfterConfigurationChange() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+        activity.onCreate(null);
+        activity.onStart();
+
+        // configuration change while the presenter is created
+        activity.onSaveInstanceState(mActivitySavedState);
+        activity.onStop();
+        activity.onDestroy();
+
+        final TestTiActivity recreated = new TestTiActivity.Builder()
+                .setPresenter(new TestPresenter(TiConfiguration.DEFAULT))
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+        recreated.onCreate(mActivitySavedState);
+        recreated.onStart();
+        assertThat(recreated.getPresenter()).isNull();
+
+        mBackgroundActions.get(0).run();
+
+        // no second creation
+        assertThat(mBackgroundActions).hasSize(1);
+        assertThat(recreated.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(activity.getPresenter()).isNull();
+        assertThat(PendingPresenterCreation.HANDED_OVER).isEmpty();
+    }
+
+    @Test
+    public void asyncCreationFinishedDuringConfigurationChangeIsAdopted() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+        activity.onCreate(null);
+        activity.onSaveInstanceState(mActivitySavedState);
+        activity.onDestroy();
+
+        // created while no Activity exists
+        mBackgroundActions.get(0).run();
+        assertThat(presenter.isDestroyed()).isFalse();
+
+        final TestTiActivity recreated = new TestTiActivity.Builder()
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+        recreated.onCreate(mActivitySavedState);
+
+        assertThat(recreated.getPresenter()).isSameAs(presenter);
+        assertThat(mBackgroundActions).hasSize(1);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void asyncCreationOfDeadProcessIsNotAdopted() throws Exception {
+        // the id saved by an Activity of a previous process
+        mActivitySavedState.putLong(TiActivityDelegate.SAVED_STATE_PENDING_CREATION_ID, 42L);
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(mBackgroundExecutor)
+                .setSavior(mSavior)
+                .build();
+
+        activity.onCreate(mActivitySavedState);
+        assertThat(mBackgroundActions).hasSize(1);
+        mBackgroundActions.get(0).run();
+
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+    }
+
+    @Test
+    public void adoptKeptPresenterOfFinishedActivity() throws Exception {
+        mSavior.mHandler = mock(Handler.class);
+        final TestPresenter presenter = new TestPresenter(new TiConfiguration.Builder()
+                .setFinishedPresenterGracePeriod(10, TimeUnit.SECONDS)
+                .build());
+        final TestTiActivity finished = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCacheKey("key")
+                .setSavior(mSavior)
+                .build();
+        finished.onCreate(null);
+        finished.onStart();
+        finished.onStop();
+        finished.setFinishing(true);
+        finished.onDestroy();
+
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        throw new AssertionError("must adopt the kept presenter");
+                    }
+                })
+                .setPresenterCacheKey("key")
+                .setSavior(mSavior)
+                .build();
+        activity.onCreate(null);
+
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void adoptPrewarmedPresenter() throws Exception {
+        mSavior.mHandler = mock(Handler.class);
+        final String token = mSavior.prewarm(new TiPresenterProvider<TiPresenter<TiView>>() {
+            @NonNull
+            @Override
+            public TiPresenter<TiView> providePresenter() {
+                return new TestPresenter(TiConfiguration.DEFAULT);
+            }
+        }, 5, TimeUnit.SECONDS);
+
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        throw new AssertionError("must adopt the prewarmed presenter");
+                    }
+                })
+                .setPrewarmedPresenterToken(token)
+                .setSavior(mSavior)
+                .build();
+        activity.onCreate(null);
+
+        assertThat(activity.getPresenter()).isNotNull();
+        assertThat(activity.getPresenter().getState())
+                .isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        // the prewarmed presenter is retained like a created one
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void delegatedActivityWithoutOptions() throws Exception {
+        final Object host = new HostingActivity().getMockActivityInstance();
+        final DelegatedTiActivity activity = mock(DelegatedTiActivity.class);
+        when(activity.getHostingContainer()).thenReturn(host);
+        when(activity.getUiThreadExecutor()).thenReturn(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        //noinspection unchecked
+        final TiActivityDelegate<TiPresenter<TiView>, TiView> delegate =
+                new TiActivityDelegate<>(activity, mock(TiViewProvider.class),
+                        new TiPresenterProvider<TiPresenter<TiView>>() {
+                            @NonNull
+                            @Override
+                            public TiPresenter<TiView> providePresenter() {
+                                return presenter;
+                            }
+                        }, mock(TiLoggingTagProvider.class), mSavior);
+
+        // no cache key, prewarmed presenter or creation executor, created synchronously
+        delegate.onCreate_afterSuper(null);
+
+        assertThat(delegate.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+    }
+
+    @Test
+    public void evictedPresenterIsRecreatedWhenActivityStartsAgain() throws Exception {
+        final List<TestPresenter> presenters = new ArrayList<>();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        final TestPresenter presenter =
+                                new TestPresenter(TiConfiguration.DEFAULT);
+                        presenters.add(presenter);
+                        return presenter;
+                    }
+                })
+                .setSavior(mSavior)
+                .build();
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+
+        // memory pressure while the Activity is in the back stack
+        mSavior.setMaxRetainedPresenters(0);
+        assertThat(mSavior.evictRetainedPresenters()).isEqualTo(1);
+        assertThat(presenters.get(0).isDestroyed()).isTrue();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+
+        activity.onStart();
+
+        assertThat(presenters).hasSize(2);
+        assertThat(activity.getPresenter()).isSameAs(presenters.get(1));
+        assertThat(presenters.get(1).getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void notRetainedPresenterIsTrimmedOnMemoryPressure() throws Exception {
+        final TestPresenter presenter = new TestPresenter(new TiConfiguration.Builder()
+                .setRetainPresenterEnabled(false)
+                .build());
+        final TiTrimMemoryObserver trimObserver = mock(TiTrimMemoryObserver.class);
+        presenter.addLifecycleObserver(TiLifecycleObserver.TRIM_MEMORY, trimObserver);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setSavior(mSavior)
+                .build();
+
+        activity.onCreate(null);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+        final Application application =
+                ((Activity) activity.getHostingContainer()).getApplication();
+        verify(application).registerComponentCallbacks(mSavior.mComponentCallbacks);
+
+        mSavior.mComponentCallbacks.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        verify(trimObserver).onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    }
+
     @Test
     public void provideDestroyedPresenter() throws Exception {
         final TestPresenter destroyedPresenter = new TestPresenter(TiConfiguration.DEFAULT);
@@ -20,14 +20,154 @@ import static org.mockito.Mockito.*;
 
 import android.view.LayoutInflater;
 import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiLifecycleObserver;
 import net.grandcentrix.thirtyinch.TiPresenter;
 import net.grandcentrix.thirtyinch.TiView;
 import org.junit.*;
 
 public class TiFragmentDelegateTest extends AbstractPresenterDestroyTest {
 
+    @Test
+    public void asyncCreatedPresenterGetsBoundAfterCreation() throws Exception {
+        final List<Runnable> backgroundActions = new ArrayList<>();
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiFragment fragment = new TestTiFragment.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        backgroundActions.add(command);
+                    }
+                })
+                .build();
+
+        fragment.setAdded(true);
+        fragment.onCreate(null);
+        fragment.onCreateView(mock(LayoutInflater.class), null, null);
+        fragment.onStart();
+        assertThat(fragment.getPresenter()).isNull();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.INITIALIZED);
+
+        backgroundActions.get(0).run();
+
+        assertThat(fragment.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+    }
+
+    @Test
+    public void asyncCreationIsAdoptedAfterConfigurationChange() throws Exception {
+        final List<Runnable> backgroundActions = new ArrayList<>();
+        final Executor backgroundExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                backgroundActions.add(command);
+            }
+        };
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiFragment fragment = new TestTiFragment.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(backgroundExecutor)
+                .setHostingActivity(hostingActivity)
+                .setSavior(mSavior)
+                .build();
+        fragment.setAdded(true);
+        fragment.onCreate(null);
+
+        // configuration change while the presenter is created
+        fragment.onSaveInstanceState(mFragmentSavedState);
+        fragment.onDestroy();
+
+        final TestTiFragment recreated = new TestTiFragment.Builder()
+                .setPresenter(new TestPresenter(TiConfiguration.DEFAULT))
+                .setPresenterCreationExecutor(backgroundExecutor)
+                .setHostingActivity(hostingActivity)
+                .setSavior(mSavior)
+                .build();
+        recreated.setAdded(true);
+        recreated.onCreate(mFragmentSavedState);
+        recreated.onCreateView(mock(LayoutInflater.class), null, null);
+        recreated.onStart();
+        assertThat(recreated.getPresenter()).isNull();
+
+        backgroundActions.get(0).run();
+
+        // no second creation
+        assertThat(backgroundActions).hasSize(1);
+        assertThat(recreated.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(PendingPresenterCreation.HANDED_OVER).isEmpty();
+    }
+
+    @Test
+    public void asyncCreationOfRemovedFragmentIsCancelled() throws Exception {
+        final List<Runnable> backgroundActions = new ArrayList<>();
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final TestTiFragment fragment = new TestTiFragment.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        backgroundActions.add(command);
+                    }
+                })
+                .setSavior(mSavior)
+                .build();
+        fragment.setAdded(true);
+        fragment.onCreate(null);
+        fragment.onSaveInstanceState(mFragmentSavedState);
+        fragment.setRemoving(true);
+        fragment.onDestroy();
+
+        backgroundActions.get(0).run();
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(PendingPresenterCreation.HANDED_OVER).isEmpty();
+    }
+
+    @Test
+    public void evictedPresenterIsRecreatedWhenFragmentStartsAgain() throws Exception {
+        final List<TestPresenter> presenters = new ArrayList<>();
+        final TestTiFragment fragment = new TestTiFragment.Builder()
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        final TestPresenter presenter =
+                                new TestPresenter(TiConfiguration.DEFAULT);
+                        presenters.add(presenter);
+                        return presenter;
+                    }
+                })
+                .setSavior(mSavior)
+                .build();
+        fragment.setAdded(true);
+        fragment.onCreate(null);
+        fragment.onCreateView(mock(LayoutInflater.class), null, null);
+        fragment.onStart();
+        fragment.onStop();
+
+        // memory pressure while the Activity is in the back stack, the presenter of the
+        // Fragment is saved with the Activity
+        mSavior.setMaxRetainedPresenters(0);
+        assertThat(mSavior.evictRetainedPresenters()).isEqualTo(1);
+        assertThat(presenters.get(0).isDestroyed()).isTrue();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+
+        fragment.onStart();
+
+        assertThat(presenters).hasSize(2);
+        assertThat(fragment.getPresenter()).isSameAs(presenters.get(1));
+        assertThat(presenters.get(1).getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
     @Test
     public void provideDestroyedPresenter() throws Exception {
         final TestPresenter destroyedPresenter = new TestPresenter(TiConfiguration.DEFAULT);
@@ -66,6 +206,123 @@ public class TiFragmentDelegateTest extends AbstractPresenterDestroyTest {
         }
     }
 
+    @Test
+    public void sharedPresenterShownBySiblingsSideBySide() throws Exception {
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenterProvider<TiPresenter<TiView>> provider =
+                new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        return new TestPresenter(TiConfiguration.DEFAULT);
+                    }
+                };
+
+        // Given two sibling fragments sharing a presenter, i.e. two panes
+        final TestTiFragment fragment1 = new TestTiFragment.Builder()
+                .setPresenterProvider(provider)
+                .setHostingActivity(hostingActivity)
+                .setSharedPresenterKey("flow")
+                .setSavior(mSavior)
+                .build();
+        final TestTiFragment fragment2 = new TestTiFragment.Builder()
+                .setPresenterProvider(provider)
+                .setHostingActivity(hostingActivity)
+                .setSharedPresenterKey("flow")
+                .setSavior(mSavior)
+                .build();
+        for (final TestTiFragment fragment : Arrays.asList(fragment1, fragment2)) {
+            fragment.onCreate(null);
+            fragment.setAdded(true);
+            fragment.onCreateView(mock(LayoutInflater.class), null, null);
+        }
+        final TiPresenter<TiView> presenter = fragment1.getPresenter();
+
+        // When the first one shows the presenter
+        fragment1.onStart();
+        assertThat(presenter.isViewAttached()).isTrue();
+        final TiView view = presenter.getView();
+        final TiLifecycleObserver observer = mock(TiLifecycleObserver.class);
+        presenter.addLifecycleObserver(TiLifecycleObserver.ALL_EVENTS, observer);
+
+        // Then the second one shows it at the same time, without detaching the first one
+        fragment2.onStart();
+        assertThat(presenter.getView()).isSameAs(view);
+        assertThat(SharedPresenterViews.of(presenter).getViews()).hasSize(2);
+        verifyZeroInteractions(observer);
+
+        // When the second one stops and destroys its view
+        fragment2.onStop();
+        fragment2.onDestroyView();
+
+        // Then the view of the first one stays attached
+        assertThat(presenter.isViewAttached()).isTrue();
+
+        // When the first one stops the presenter has no view
+        fragment1.onStop();
+        assertThat(presenter.isViewAttached()).isFalse();
+        assertThat(SharedPresenterViews.of(presenter)).isNull();
+
+        // When the second one shows the presenter again
+        fragment2.onCreateView(mock(LayoutInflater.class), null, null);
+        fragment2.onStart();
+        assertThat(presenter.isViewAttached()).isTrue();
+
+        // Then destroying the view of the stopped first one leaves it attached
+        fragment1.onDestroyView();
+        assertThat(presenter.isViewAttached()).isTrue();
+    }
+
+    @Test
+    public void sharedPresenterUsedBySiblingFragments() throws Exception {
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenterProvider<TiPresenter<TiView>> provider =
+                new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        return new TestPresenter(TiConfiguration.DEFAULT);
+                    }
+                };
+
+        // Given a fragment sharing its presenter
+        final TestTiFragment fragment1 = new TestTiFragment.Builder()
+                .setPresenterProvider(provider)
+                .setHostingActivity(hostingActivity)
+                .setSharedPresenterKey("flow")
+                .setSavior(mSavior)
+                .build();
+        fragment1.onCreate(null);
+
+        // When a sibling fragment with the same key gets created
+        final TestTiFragment fragment2 = new TestTiFragment.Builder()
+                .setPresenterProvider(provider)
+                .setHostingActivity(hostingActivity)
+                .setSharedPresenterKey("flow")
+                .setSavior(mSavior)
+                .build();
+        fragment2.onCreate(null);
+
+        // Then both use the same presenter
+        final TiPresenter<TiView> presenter = fragment1.getPresenter();
+        assertThat(fragment2.getPresenter()).isSameAs(presenter);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+
+        // When the first fragment gets removed
+        fragment1.setRemoving(true);
+        fragment1.onDestroy();
+
+        // Then the presenter stays alive for the sibling
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+
+        // When the activity finishes the shared presenter gets destroyed
+        hostingActivity.setFinishing(true);
+        mSavior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity.getMockActivityInstance());
+        assertThat(presenter.isDestroyed()).isTrue();
+    }
+
     @Test
     public void reuseSameFragmentCreateANewPresenterInstance() throws Exception {
 
@@ -0,0 +1,517 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiConfiguration.ViewActionEvictionListener.Reason;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+import org.junit.*;
+
+public class ViewActionQueueTest {
+
+    private static class FakeTicker implements ViewActionQueue.Ticker {
+
+        long mNanos = 0;
+
+        void advanceMillis(final long millis) {
+            mNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return mNanos;
+        }
+    }
+
+    private static class RecordingEvictedListener
+            implements ViewActionQueue.OnEvictedListener<TiView> {
+
+        final List<ViewAction<TiView>> mActions = new ArrayList<>();
+
+        final List<Reason> mReasons = new ArrayList<>();
+
+        @Override
+        public void onEvicted(final ViewAction<TiView> action, final Reason reason) {
+            mActions.add(action);
+            mReasons.add(reason);
+        }
+    }
+
+    private static class TestAction implements ViewAction<TiView> {
+
+        private final int mId;
+
+        TestAction(final int id) {
+            mId = id;
+        }
+
+        @Override
+        public void call(final TiView view) {
+            // noop
+        }
+
+        @Override
+        public String toString() {
+            return "TestAction" + mId;
+        }
+    }
+
+    /**
+     * weighs {@link TestAction}s by their id
+     */
+    private static final TiConfiguration.ViewActionWeigher WEIGH_BY_ID =
+            new TiConfiguration.ViewActionWeigher() {
+                @Override
+                public long weigh(final ViewAction<?> action) {
+                    return ((TestAction) action).mId;
+                }
+            };
+
+    @Test
+    public void budgetEvictsOldestActions() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, Long.MAX_VALUE, 5, WEIGH_BY_ID);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction a1 = new TestAction(2);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+
+        queue.offer(a1);
+        queue.offer(a2);
+        assertThat(queue.getWeight()).isEqualTo(4);
+        queue.offer(a3);
+
+        assertThat(queue).containsExactly(a2, a3);
+        assertThat(queue.getWeight()).isEqualTo(5);
+        assertThat(listener.mActions).containsExactly(a1);
+        assertThat(listener.mReasons).containsExactly(Reason.OVER_BUDGET);
+
+        queue.poll();
+        assertThat(queue.getWeight()).isEqualTo(3);
+    }
+
+    @Test
+    public void budgetDropsActionHeavierThanBudget() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, Long.MAX_VALUE, 5, WEIGH_BY_ID);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction a1 = new TestAction(1);
+        final TestAction heavy = new TestAction(6);
+
+        queue.offer(a1);
+        assertThat(queue.offer(heavy)).isFalse();
+
+        assertThat(queue).containsExactly(a1);
+        assertThat(listener.mActions).containsExactly(heavy);
+        assertThat(listener.mReasons).containsExactly(Reason.OVER_BUDGET);
+    }
+
+    @Test
+    public void budgetUpdatedWhenKeyedActionGetsReplaced() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, Long.MAX_VALUE, 10, WEIGH_BY_ID);
+
+        queue.offer("key", new TestAction(4));
+        queue.offer(new TestAction(1));
+        queue.offer("key", new TestAction(2));
+
+        assertThat(queue.getWeight()).isEqualTo(3);
+    }
+
+    @Test
+    public void capacityEvictionsAreReported() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(1, TiConfiguration.OverflowPolicy.DROP_OLDEST);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction a1 = new TestAction(1);
+
+        queue.offer(a1);
+        queue.offer(new TestAction(2));
+
+        assertThat(listener.mActions).containsExactly(a1);
+        assertThat(listener.mReasons).containsExactly(Reason.OVER_CAPACITY);
+    }
+
+    @Test
+    public void clear() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        queue.offer(new TestAction(1));
+        queue.offer(new TestAction(2));
+
+        queue.clear();
+
+        assertThat(queue).isEmpty();
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(2, TiConfiguration.OverflowPolicy.DROP_NEWEST);
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+
+        assertThat(queue.offer(a1)).isTrue();
+        assertThat(queue.offer(a2)).isTrue();
+        assertThat(queue.offer(a3)).isFalse();
+
+        assertThat(queue).containsExactly(a1, a2);
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(2, TiConfiguration.OverflowPolicy.DROP_OLDEST);
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+
+        assertThat(queue.offer(a1)).isTrue();
+        assertThat(queue.offer(a2)).isTrue();
+        assertThat(queue.offer(a3)).isTrue();
+
+        assertThat(queue).containsExactly(a2, a3);
+    }
+
+    @Test
+    public void expiredActionsAreEvicted() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, 1, Long.MAX_VALUE, null);
+        final FakeTicker ticker = new FakeTicker();
+        queue.setTicker(ticker);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction a1 = new TestAction(1);
+        queue.offer(a1);
+
+        ticker.advanceMillis(1);
+        queue.evictExpired();
+
+        assertThat(queue).isEmpty();
+        assertThat(queue.poll()).isNull();
+        assertThat(listener.mActions).containsExactly(a1);
+        assertThat(listener.mReasons).containsExactly(Reason.EXPIRED);
+    }
+
+    @Test
+    public void expiredActionsAreEvictedWhenAddingActions() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, 1, Long.MAX_VALUE, null);
+        final FakeTicker ticker = new FakeTicker();
+        queue.setTicker(ticker);
+        queue.offer(new TestAction(1));
+
+        ticker.advanceMillis(1);
+        final TestAction a2 = new TestAction(2);
+        queue.offer(a2);
+
+        assertThat(queue).containsExactly(a2);
+    }
+
+    @Test
+    public void expiredActionsBehindHeadAreSweptWhenFull() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(3,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, 50, Long.MAX_VALUE, null);
+        final FakeTicker ticker = new FakeTicker();
+        queue.setTicker(ticker);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+        queue.offer("key", new TestAction(1));
+        queue.offer(a2);
+        queue.offer(a3);
+
+        ticker.advanceMillis(30);
+        // refreshes the head, a2 and a3 expire behind it
+        final TestAction replaced = new TestAction(4);
+        queue.offer("key", replaced);
+        ticker.advanceMillis(30);
+        final TestAction a5 = new TestAction(5);
+        queue.offer(a5);
+
+        assertThat(queue).containsExactly(replaced, a5);
+        assertThat(listener.mActions).containsExactly(a2, a3);
+        assertThat(listener.mReasons).containsExactly(Reason.EXPIRED, Reason.EXPIRED);
+    }
+
+    @Test
+    public void expiredActionsBehindHeadAreSweptWhenOverBudget() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, 50, 5, WEIGH_BY_ID);
+        final FakeTicker ticker = new FakeTicker();
+        queue.setTicker(ticker);
+        final RecordingEvictedListener listener = new RecordingEvictedListener();
+        queue.setOnEvictedListener(listener);
+        final TestAction expired = new TestAction(3);
+        queue.offer("key", new TestAction(1));
+        queue.offer(expired);
+
+        ticker.advanceMillis(30);
+        final TestAction replaced = new TestAction(1);
+        queue.offer("key", replaced);
+        ticker.advanceMillis(30);
+        final TestAction heavy = new TestAction(4);
+        queue.offer(heavy);
+
+        assertThat(queue).containsExactly(replaced, heavy);
+        assertThat(queue.getWeight()).isEqualTo(5);
+        assertThat(listener.mActions).containsExactly(expired);
+        assertThat(listener.mReasons).containsExactly(Reason.EXPIRED);
+    }
+
+    @Test
+    public void notExpiredActionsAreKept() throws Exception {
+        final ViewActionQueue<TiView> queue = new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST, TimeUnit.HOURS.toMillis(1),
+                Long.MAX_VALUE, null);
+        final TestAction a1 = new TestAction(1);
+        queue.offer(a1);
+
+        queue.evictExpired();
+
+        assertThat(queue).containsExactly(a1);
+    }
+
+    @Test
+    public void fail() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(1, TiConfiguration.OverflowPolicy.FAIL);
+        queue.offer(new TestAction(1));
+
+        try {
+            queue.offer(new TestAction(2));
+            failBecauseExceptionWasNotThrown(IllegalStateException.class);
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("capacity of 1");
+        }
+        assertThat(queue).hasSize(1);
+    }
+
+    @Test
+    public void growKeepsOrderWhenWrapped() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+
+        // move the head to the middle of the initial array
+        for (int i = 0; i < 5; i++) {
+            queue.offer(new TestAction(-1));
+            queue.poll();
+        }
+
+        final TestAction[] actions = new TestAction[20];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = new TestAction(i);
+            queue.offer(actions[i]);
+        }
+
+        assertThat(queue).containsExactly(actions);
+        for (final TestAction action : actions) {
+            assertThat(queue.poll()).isSameAs(action);
+        }
+        assertThat(queue).isEmpty();
+    }
+
+    @Test
+    public void invalidCapacity() throws Exception {
+        try {
+            new ViewActionQueue<TiView>(0, TiConfiguration.OverflowPolicy.DROP_OLDEST);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("positive");
+        }
+    }
+
+    @Test
+    public void keyedActionReplacesQueuedActionInPlace() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+
+        queue.offer("key", a1);
+        queue.offer(a2);
+        queue.offer("key", a3);
+
+        assertThat(queue).containsExactly(a3, a2);
+    }
+
+    @Test
+    public void keyedActionsAfterGrow() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        for (int i = 0; i < 3; i++) {
+            queue.offer(new TestAction(-1));
+            queue.poll();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            queue.offer(i, new TestAction(i));
+        }
+        final TestAction replaced = new TestAction(100);
+        queue.offer(7, replaced);
+
+        assertThat(queue).hasSize(20);
+        for (int i = 0; i < 7; i++) {
+            queue.poll();
+        }
+        assertThat(queue.poll()).isSameAs(replaced);
+    }
+
+    @Test
+    public void keyIsReleasedAfterPoll() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+
+        queue.offer("key", a1);
+        assertThat(queue.poll()).isSameAs(a1);
+
+        queue.offer("key", a2);
+        assertThat(queue).containsExactly(a2);
+    }
+
+    @Test
+    public void keyIsReleasedWhenDroppedByOverflow() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(1, TiConfiguration.OverflowPolicy.DROP_OLDEST);
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        final TestAction a3 = new TestAction(3);
+
+        queue.offer("key", a1);
+        queue.offer(a2);
+        queue.offer("key", a3);
+
+        assertThat(queue).containsExactly(a3);
+    }
+
+    @Test
+    public void replacingReplacesPriority() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+
+        queue.offer("key", ViewAction.Priority.IDLE, new TestAction(1));
+        queue.offer("key", ViewAction.Priority.IMMEDIATE, new TestAction(2));
+
+        assertThat(queue.peekPriority()).isEqualTo(ViewAction.Priority.IMMEDIATE);
+    }
+
+    @Test
+    public void replacingDoesNotOverflow() throws Exception {
+        final ViewActionQueue<TiView> queue =
+                new ViewActionQueue<>(1, TiConfiguration.OverflowPolicy.FAIL);
+        final TestAction a2 = new TestAction(2);
+
+        queue.offer("key", new TestAction(1));
+        queue.offer("key", a2);
+
+        assertThat(queue).containsExactly(a2);
+    }
+
+    @Test
+    public void nullActionThrows() throws Exception {
+        try {
+            //noinspection ConstantConditions
+            unbounded().offer(null);
+            failBecauseExceptionWasNotThrown(NullPointerException.class);
+        } catch (NullPointerException e) {
+            assertThat(e).hasMessageContaining("non-null");
+        }
+    }
+
+    @Test
+    public void peekKeyAndPriority() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        assertThat(queue.peekKey()).isNull();
+        assertThat(queue.peekPriority()).isNull();
+
+        queue.offer("key", ViewAction.Priority.IDLE, new TestAction(1));
+        queue.offer(new TestAction(2));
+
+        assertThat(queue.peekKey()).isEqualTo("key");
+        assertThat(queue.peekPriority()).isEqualTo(ViewAction.Priority.IDLE);
+        queue.poll();
+        assertThat(queue.peekKey()).isNull();
+        assertThat(queue.peekPriority()).isEqualTo(ViewAction.Priority.IMMEDIATE);
+    }
+
+    @Test
+    public void pollInOrder() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        queue.offer(a1);
+        queue.offer(a2);
+
+        assertThat(queue.peek()).isSameAs(a1);
+        assertThat(queue.poll()).isSameAs(a1);
+        assertThat(queue.poll()).isSameAs(a2);
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.peek()).isNull();
+    }
+
+    @Test
+    public void snapshotIsNotModifiable() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        final TestAction a1 = new TestAction(1);
+        queue.offer(a1);
+
+        final Queue<ViewAction<TiView>> snapshot = queue.snapshot();
+        try {
+            snapshot.remove(a1);
+            failBecauseExceptionWasNotThrown(UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException e) {
+            assertThat(e).hasMessageContaining("snapshot");
+        }
+        try {
+            snapshot.poll();
+            failBecauseExceptionWasNotThrown(UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException e) {
+            assertThat(e).hasMessageContaining("snapshot");
+        }
+        assertThat(queue).containsExactly(a1);
+    }
+
+    @Test
+    public void snapshotKeepsOrderAndIgnoresLaterChanges() throws Exception {
+        final ViewActionQueue<TiView> queue = unbounded();
+        final TestAction a1 = new TestAction(1);
+        final TestAction a2 = new TestAction(2);
+        queue.offer(a1);
+        queue.offer(a2);
+
+        final Queue<ViewAction<TiView>> snapshot = queue.snapshot();
+        queue.poll();
+        queue.offer(new TestAction(3));
+
+        assertThat(snapshot).containsExactly(a1, a2);
+        assertThat(snapshot.peek()).isSameAs(a1);
+    }
+
+    private static ViewActionQueue<TiView> unbounded() {
+        return new ViewActionQueue<>(Integer.MAX_VALUE,
+                TiConfiguration.OverflowPolicy.DROP_OLDEST);
+    }
+}
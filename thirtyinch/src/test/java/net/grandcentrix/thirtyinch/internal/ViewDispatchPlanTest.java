@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import net.grandcentrix.thirtyinch.internal.ViewDispatchPlan.MethodDispatch;
+import org.junit.*;
+
+public class ViewDispatchPlanTest {
+
+    public interface TestView extends TiView {
+
+        @CallOnMainThread
+        @DistinctUntilChanged
+        void both(String text);
+
+        @DistinctUntilChanged
+        void distinct(String text);
+
+        @CallOnMainThread
+        @DistinctUntilChanged
+        void noArgs();
+
+        @CallOnMainThread
+        @DistinctUntilChanged
+        String nonVoid(String text);
+
+        void notAnnotated(String text);
+    }
+
+    private interface PackagePrivateView extends TiView {
+
+        void show(String text);
+    }
+
+    private static class TestViewImpl implements TestView {
+
+        @Override
+        public void both(final String text) {
+        }
+
+        @Override
+        public void distinct(final String text) {
+        }
+
+        @Override
+        public void noArgs() {
+        }
+
+        @Override
+        public String nonVoid(final String text) {
+            return text;
+        }
+
+        @Override
+        public void notAnnotated(final String text) {
+        }
+    }
+
+    @Test
+    public void dispatchOfAnnotatedMethods() throws Exception {
+        final ViewDispatchPlan plan = ViewDispatchPlan.of(TestView.class);
+
+        final MethodDispatch both = plan.get(TestView.class.getMethod("both", String.class));
+        assertThat(both.isCallOnMainThread()).isTrue();
+        assertThat(both.getDistinctUntilChanged()).isNotNull();
+
+        final MethodDispatch distinct =
+                plan.get(TestView.class.getMethod("distinct", String.class));
+        assertThat(distinct.isCallOnMainThread()).isFalse();
+        assertThat(distinct.getDistinctSlot()).isNotEqualTo(both.getDistinctSlot());
+        assertThat(plan.getDistinctSlotCount()).isEqualTo(2);
+
+        // methods without arguments are always called
+        final MethodDispatch noArgs = plan.get(TestView.class.getMethod("noArgs"));
+        assertThat(noArgs.isCallOnMainThread()).isTrue();
+        assertThat(noArgs.getDistinctUntilChanged()).isNull();
+        assertThat(noArgs.getDistinctSlot()).isEqualTo(ViewDispatchPlan.NO_SLOT);
+
+        // only void methods are supported
+        final MethodDispatch nonVoid =
+                plan.get(TestView.class.getMethod("nonVoid", String.class));
+        assertThat(nonVoid.isCallOnMainThread()).isFalse();
+        assertThat(nonVoid.getDistinctSlot()).isEqualTo(ViewDispatchPlan.NO_SLOT);
+
+        final MethodDispatch notAnnotated =
+                plan.get(TestView.class.getMethod("notAnnotated", String.class));
+        assertThat(notAnnotated.isCallOnMainThread()).isFalse();
+        assertThat(notAnnotated.getDistinctSlot()).isEqualTo(ViewDispatchPlan.NO_SLOT);
+    }
+
+    @Test
+    public void equalMethodsShareDispatch() throws Exception {
+        final ViewDispatchPlan plan = ViewDispatchPlan.of(TestView.class);
+
+        // every getMethod call returns a new Method instance
+        final MethodDispatch dispatch =
+                plan.get(TestView.class.getMethod("distinct", String.class));
+        assertThat(plan.get(TestView.class.getMethod("distinct", String.class)))
+                .isSameAs(dispatch);
+        assertThat(plan.getDistinctSlotCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void newProxyUsesCachedConstructor() throws Exception {
+        final ViewDispatchPlan plan = ViewDispatchPlan.of(PackagePrivateView.class);
+        final Constructor<?> constructor = plan.getProxyConstructor();
+        assertThat(plan.getProxyConstructor()).isSameAs(constructor);
+
+        final ArrayList<Object> calls = new ArrayList<>();
+        final PackagePrivateView proxy = plan.newProxy(new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                calls.add(args[0]);
+                return null;
+            }
+        });
+        proxy.show("text");
+
+        assertThat(proxy.getClass()).isEqualTo(constructor.getDeclaringClass());
+        assertThat(calls).containsExactly("text");
+    }
+
+    @Test
+    public void planSurvivesWithoutHandler() throws Exception {
+        ViewDispatchPlan plan = ViewDispatchPlan.of(TestView.class);
+        final int identity = System.identityHashCode(plan);
+        //noinspection UnusedAssignment
+        plan = null;
+
+        // no view of the interface is bound, i.e. during a configuration change
+        System.gc();
+
+        assertThat(System.identityHashCode(ViewDispatchPlan.of(TestView.class)))
+                .isEqualTo(identity);
+    }
+
+    @Test
+    public void planSharedByViewsOfInterface() throws Exception {
+        final ViewDispatchPlan plan = ViewDispatchPlan.of(TestView.class);
+
+        assertThat(ViewDispatchPlan.of(TestView.class)).isSameAs(plan);
+        assertThat(ViewDispatchPlan.ofView(new TestViewImpl())).isSameAs(plan);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.lifecycle.ViewModelStore;
+import androidx.lifecycle.ViewModelStoreOwner;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiConfiguration.PresenterRetention;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+
+public class ViewModelPresenterSaviorTest {
+
+    private static class TestOwner implements ViewModelStoreOwner {
+
+        private final ViewModelStore mStore = new ViewModelStore();
+
+        int mStoreRequests = 0;
+
+        @Override
+        public ViewModelStore getViewModelStore() {
+            mStoreRequests++;
+            return mStore;
+        }
+    }
+
+    private TiPresenterSavior mFallback;
+
+    private TestOwner mOwner;
+
+    private ViewModelPresenterSavior mSavior;
+
+    @Before
+    public void setUp() throws Exception {
+        mFallback = mock(TiPresenterSavior.class);
+        mOwner = new TestOwner();
+        mSavior = new ViewModelPresenterSavior(mFallback);
+    }
+
+    @Test
+    public void clearedStoreReleasesPresenters() throws Exception {
+        final TiPresenter<TiView> presenter = createViewModelPresenter();
+        mSavior.save(presenter, mOwner);
+        final ViewModelPresenterSavior.PresenterHolder holder = mSavior.getHolder(mOwner);
+
+        mOwner.getViewModelStore().clear();
+
+        verify(mFallback).release(presenter);
+        assertThat(holder.mScope.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void freeAndRecoverDoNotAddHolderToClearedStore() throws Exception {
+        final TiPresenter<TiView> presenter = createViewModelPresenter();
+        final long id = mSavior.save(presenter, mOwner);
+        mOwner.getViewModelStore().clear();
+        final int storeRequests = mOwner.mStoreRequests;
+
+        assertThat(mSavior.recover(id, mOwner)).isNull();
+        mSavior.free(id, mOwner);
+
+        assertThat(mOwner.mStoreRequests).isEqualTo(storeRequests);
+    }
+
+    @Test
+    public void defaultPresenterIsSavedByFallback() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        when(mFallback.save(presenter, mOwner)).thenReturn(42L);
+        when(mFallback.recover(42L, mOwner)).thenReturn(presenter);
+
+        final long id = mSavior.save(presenter, mOwner);
+        assertThat(id).isEqualTo(42L);
+        assertThat(mSavior.recover(id, mOwner)).isSameAs(presenter);
+
+        mSavior.free(id, mOwner);
+        verify(mFallback).free(42L, mOwner);
+        assertThat(mSavior.getHolder(mOwner).mScope.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void hostWithoutViewModelStoreUsesFallback() throws Exception {
+        final TiPresenter<TiView> presenter = createViewModelPresenter();
+        final Object host = new Object();
+        when(mFallback.save(presenter, host)).thenReturn(42L);
+
+        assertThat(mSavior.save(presenter, host)).isEqualTo(42L);
+    }
+
+    @Test
+    public void idOfKilledProcessDoesNotRecoverPresenterOfRestoredFragment() throws Exception {
+        // the Activity saved the id of its presenter before the process got killed
+        final long activityPresenterId = mSavior.save(createViewModelPresenter(), mOwner);
+        Thread.sleep(2);
+
+        // the new process restores the Fragment first, it saves its presenter for the Activity
+        final ViewModelPresenterSavior savior = new ViewModelPresenterSavior(mFallback);
+        final TestOwner restoredActivity = new TestOwner();
+        final long fragmentPresenterId =
+                savior.save(createViewModelPresenter(), restoredActivity);
+
+        assertThat(fragmentPresenterId).isNotEqualTo(activityPresenterId);
+        assertThat(savior.recover(activityPresenterId, restoredActivity)).isNull();
+    }
+
+    @Test
+    public void saveRecoverAndFreeInViewModelStore() throws Exception {
+        final TiPresenter<TiView> presenter = createViewModelPresenter();
+
+        final long id = mSavior.save(presenter, mOwner);
+        assertThat(id).isNegative();
+        assertThat(mSavior.recover(id, mOwner)).isSameAs(presenter);
+        verifyZeroInteractions(mFallback);
+
+        mSavior.free(id, mOwner);
+        assertThat(mSavior.recover(id, mOwner)).isNull();
+        assertThat(mSavior.getHolder(mOwner).mScope.isEmpty()).isTrue();
+    }
+
+    private static TiPresenter<TiView> createViewModelPresenter() {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setPresenterRetention(PresenterRetention.VIEW_MODEL_STORE)
+                .build();
+        return new TiPresenter<TiView>(config) {
+        };
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import org.junit.*;
+
+public class ViewPrewarmerTest {
+
+    interface AnnotatedView extends TiView {
+
+        @CallOnMainThread
+        void showText(String text);
+    }
+
+    private static class AnnotatedActivity implements AnnotatedView {
+
+        @Override
+        public void showText(final String text) {
+
+        }
+    }
+
+    private interface PlainView extends TiView {
+
+        void showText(String text);
+    }
+
+    @Test
+    public void annotatedViewPrewarmsProxy() throws Exception {
+        final ViewPrewarmer prewarmer = new ViewPrewarmer(TiConfiguration.DEFAULT);
+
+        assertThat(prewarmer.prewarm(AnnotatedActivity.class)).isEqualTo(AnnotatedView.class);
+
+        assertThat(ViewDispatchPlan.getCached(AnnotatedView.class)).isNotNull();
+    }
+
+    @Test
+    public void disabledInterceptorsNeedNoProxy() throws Exception {
+        final TiConfiguration config = new TiConfiguration.Builder()
+                .setCallOnMainThreadInterceptorEnabled(false)
+                .build();
+        final ViewPrewarmer prewarmer = new ViewPrewarmer(config);
+
+        assertThat(prewarmer.prewarm(PlainView.class)).isEqualTo(PlainView.class);
+
+        assertThat(ViewDispatchPlan.getCached(PlainView.class)).isNull();
+    }
+
+    @Test
+    public void notAView() throws Exception {
+        assertThat(new ViewPrewarmer(TiConfiguration.DEFAULT).prewarm(Object.class)).isNull();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+import org.junit.*;
+
+public class WeakHostIdMapTest {
+
+    /**
+     * all instances are equal, the map must compare by identity
+     */
+    private static class EqualHost {
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof EqualHost;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void collectedHostGetsRemoved() throws Exception {
+        final WeakHostIdMap<Object> map = new WeakHostIdMap<>();
+        Object host = new Object();
+        map.put(host, 1);
+        final WeakReference<Object> ref = new WeakReference<>(host);
+        //noinspection UnusedAssignment
+        host = null;
+
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(ref.get()).isNull();
+
+        // changes remove the mappings of collected hosts
+        final Object otherHost = new Object();
+        map.put(otherHost, 2);
+        for (int i = 0; i < 50 && map.size() > 1; i++) {
+            Thread.sleep(10);
+            map.put(otherHost, 2);
+        }
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.containsId(1)).isFalse();
+        assertThat(map.get(otherHost)).isEqualTo(2);
+    }
+
+    @Test
+    public void containsIdWhileAnyHostIsMapped() throws Exception {
+        final WeakHostIdMap<Object> map = new WeakHostIdMap<>();
+        final Object host = new Object();
+        final Object recreatedHost = new Object();
+
+        // the recreated host gets the id of the host it replaces
+        map.put(host, 1);
+        map.put(recreatedHost, 1);
+        assertThat(map.containsId(1)).isTrue();
+
+        map.remove(host);
+        assertThat(map.containsId(1)).isTrue();
+
+        // mapping the host to another id releases the old one
+        map.put(recreatedHost, 2);
+        assertThat(map.containsId(1)).isFalse();
+        assertThat(map.containsId(2)).isTrue();
+        assertThat(map.size()).isEqualTo(1);
+
+        map.remove(recreatedHost);
+        assertThat(map.containsId(2)).isFalse();
+        assertThat(map.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void hostsComparedByIdentity() throws Exception {
+        final WeakHostIdMap<EqualHost> map = new WeakHostIdMap<>();
+        final EqualHost host1 = new EqualHost();
+        final EqualHost host2 = new EqualHost();
+
+        map.put(host1, 1);
+        map.put(host2, 2);
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(host1)).isEqualTo(1);
+        assertThat(map.get(host2)).isEqualTo(2);
+        assertThat(map.containsId(2)).isTrue();
+
+        assertThat(map.remove(host1)).isEqualTo(1);
+        assertThat(map.get(host1)).isEqualTo(TiPresenterSavior.NO_ID);
+        assertThat(map.remove(host1)).isEqualTo(TiPresenterSavior.NO_ID);
+        assertThat(map.get(host2)).isEqualTo(2);
+    }
+}
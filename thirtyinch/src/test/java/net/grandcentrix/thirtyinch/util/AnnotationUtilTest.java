@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import org.junit.*;
+
+public class AnnotationUtilTest {
+
+    private interface BaseView extends TiView {
+
+        @CallOnMainThread
+        void showText(String text);
+    }
+
+    private interface MainView extends BaseView {
+
+        void showLoading();
+    }
+
+    private static class MainActivity implements MainView {
+
+        @Override
+        public void showLoading() {
+
+        }
+
+        @Override
+        public void showText(final String text) {
+
+        }
+    }
+
+    private static class SubActivity extends MainActivity {
+
+    }
+
+    private static class WarmedUpActivity extends MainActivity implements MainView {
+
+    }
+
+    @Test
+    public void findViewInterface() throws Exception {
+        assertThat(AnnotationUtil.getInterfaceOfClassExtendingGivenInterface(
+                MainActivity.class, TiView.class)).isEqualTo(MainView.class);
+        assertThat(AnnotationUtil.isCached(MainActivity.class)).isTrue();
+        // cached
+        assertThat(AnnotationUtil.getInterfaceOfClassExtendingGivenInterface(
+                MainActivity.class, TiView.class)).isEqualTo(MainView.class);
+
+        assertThat(AnnotationUtil.getInterfaceOfClassExtendingGivenInterface(
+                SubActivity.class, TiView.class)).isEqualTo(MainView.class);
+        assertThat(AnnotationUtil.getInterfaceOfClassExtendingGivenInterface(
+                MainActivity.class, BaseView.class)).isEqualTo(MainView.class);
+        assertThat(AnnotationUtil.getInterfaceOfClassExtendingGivenInterface(
+                Object.class, TiView.class)).isNull();
+    }
+
+    @Test
+    public void findMethodAnnotationsOfInterfaces() throws Exception {
+        final MainActivity view = new MainActivity();
+
+        assertThat(AnnotationUtil.hasObjectMethodWithAnnotation(view, CallOnMainThread.class))
+                .isTrue();
+        assertThat(AnnotationUtil.hasObjectMethodWithAnnotation(view, DistinctUntilChanged.class))
+                .isFalse();
+        // only the interfaces of the class itself are checked
+        assertThat(AnnotationUtil.hasObjectMethodWithAnnotation(new SubActivity(),
+                CallOnMainThread.class)).isFalse();
+    }
+
+    @Test
+    public void warmUp() throws Exception {
+        assertThat(AnnotationUtil.isCached(WarmedUpActivity.class)).isFalse();
+
+        AnnotationUtil.warmUp(WarmedUpActivity.class);
+
+        assertThat(AnnotationUtil.isCached(WarmedUpActivity.class)).isTrue();
+        assertThat(AnnotationUtil.hasObjectMethodWithAnnotation(new WarmedUpActivity(),
+                CallOnMainThread.class)).isTrue();
+    }
+}